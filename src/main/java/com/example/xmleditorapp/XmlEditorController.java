@@ -1,6 +1,14 @@
 package com.example.xmleditorapp;
 
+import com.example.xmleditorapp.ui.BulkEditDialog;
+import com.example.xmleditorapp.ui.LazyXmlTreeItem;
+import com.example.xmleditorapp.ui.MergeConflictsDialog;
 import com.example.xmleditorapp.ui.NodeEditDialog;
+import com.example.xmleditorapp.ui.ScenePreviewCanvas;
+import com.example.xmleditorapp.ui.SkeletonTreeItem;
+import com.example.xmleditorapp.ui.StructuralDiffView;
+import com.example.xmleditorapp.ui.VirtualSourceView;
+import com.example.xmleditorapp.ui.XPathSearchPanel;
 import com.example.xmleditorapp.xml.*;
 import javafx.application.Platform;
 import javafx.event.ActionEvent;
@@ -8,6 +16,7 @@ import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.scene.web.WebView;
 import javafx.stage.FileChooser;
+import org.json.JSONArray;
 import org.json.JSONObject;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
@@ -26,20 +35,42 @@ import java.io.File;
 import java.io.IOException;
 import java.io.StringWriter;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
-public class XmlEditorController implements NodeEditDialog.EditDialogListener {
+public class XmlEditorController implements NodeEditDialog.EditDialogListener, ScenePreviewCanvas.PreviewListener,
+        XPathSearchPanel.SearchListener, StructuralDiffView.DiffListener, FileChangeWatcher.FileChangeListener {
     private final int view_mode_defined_for_testing = 1;
+    private static final int SOURCE_TAB_INDEX = 1;
+    private static final int CANVAS_PREVIEW_TAB_INDEX = 2;
     public TreeView<XmlNodeWrapper> xmlTreeView;
     public Menu recentFilesMenu;
     @FXML private TabPane tabPane;
-    // We keep xmlSourceArea for underlying editing/data storage, but for viewing
-    // the source, we will use the WebView when the Source tab is active.
-    @FXML private TextArea xmlSourceArea;
+    // The raw XML text (a view of the memory-mapped file after opening, a String after
+    // edits); the Source tab shows it through the virtualized viewer, which only tokenizes
+    // and styles the visible lines.
+    @FXML private VirtualSourceView sourceView;
+    private CharSequence xmlSourceText = "";
     @FXML private WebView svgWebView;
+    // Canvas alternative to the WebView for container previews (no XSLT, no JS runtime)
+    @FXML private ScenePreviewCanvas scenePreview;
+    // XPath search over the open document, below the tree
+    @FXML private XPathSearchPanel searchPanel;
+    private long svgLoadStartNanos = 0;
 
     private Document xmlDocument;
     private File currentFile; // Track the currently loaded file
     private RecentFilesManager recentFilesManager; // New manager instance
+    private DocumentSnapshotCache snapshotCache;
+    private RecentFilePrefetcher recentFilePrefetcher;
+    // Reports changes of the current file made by other programs
+    private FileChangeWatcher fileWatcher;
+    // True while an external change is being compared or shown; changes arriving meanwhile are checked after it
+    private boolean externalChangeInProgress = false;
+    private boolean externalChangeRecheck = false;
+    // Containers of the recent files that exist, as last checked in the background
+    private final Map<String, DocumentContainer> recentFileContainers = new HashMap<>();
+    // Recent files missing at the last check: hidden from the menu but kept in the list
+    private final Set<String> missingRecentFiles = new HashSet<>();
      // NEW: Instance variable to hold the dynamically generated container types
     private Set<String> containerNodeTypes;
     // NEW: Temporary storage for the currently open dialog's stage/window
@@ -51,13 +82,45 @@ public class XmlEditorController implements NodeEditDialog.EditDialogListener {
 
     private org.w3c.dom.Node copiedNode = null; // Clipboard for Copy/Paste
 
+    // Changes shown by Compare With File (the diff stops there)
+    private static final int MAX_DIFF_CHANGES = 10_000;
+    // Incremented whenever xmlDocument is replaced (load, new document, refresh); the last
+    // bulk edit can only be undone while the document is still the one it produced
+    private long documentRevision = 0;
+    // Modification time of the current file when it was last loaded or saved
+    private long savedFileModified = -1;
+    private BulkEdit.Result lastBulkEdit = null;
+    private long lastBulkEditRevision = -1;
+    @FXML private MenuItem undoBulkEditMenuItem;
+
+    // Navigation mode: the container whose SVG is currently shown. Selecting one of its
+    // children only highlights the child's group in that SVG instead of re-rendering.
+    private Node renderedContainer = null;
+    // Content hash of the rendered container: an equal subtree is not rendered again
+    private long renderedContentHash = 0;
+    private String highlightedNodeName = null;
+
+    // Spatial layouts of the containers shown in the canvas preview, keyed by container name.
+    // Moves update them in place; structural edits drop the affected container's layout.
+    private final Map<String, SceneLayout> sceneLayouts = new HashMap<>();
+
+    // How the current document's tree is built, picked from its streaming profile on open
+    private LoadStrategy loadStrategy = LoadStrategy.FULL_TREE;
+
+    // Read-only view of a file too large for a DOM (null while a DOM document is open)
+    private StreamingDocument streamingDocument;
+
     @FXML
     public void initialize() {
         XSLTFileManager.getInstance();
 
         // NEW: Initialize Recent Files Manager
         recentFilesManager = new RecentFilesManager();
+        snapshotCache = new DocumentSnapshotCache();
+        recentFilePrefetcher = new RecentFilePrefetcher(snapshotCache, document -> normalizeXmlNames(document.getDocumentElement()));
+        fileWatcher = new FileChangeWatcher(this);
         updateRecentFilesMenu();
+        refreshRecentFiles();
 
         // NEW: Initialize Schema Reader (Assuming XSD is available at /ui_schema.xsd)
         try {
@@ -84,15 +147,33 @@ public class XmlEditorController implements NodeEditDialog.EditDialogListener {
                 window.setMember("xmlEditorBridge", this);
 
                 System.out.println("JavaFX Bridge is ready: window.xmlEditorBridge exposed.");
+
+                // LOGGING: WebView frame time (load + layout of the generated SVG), for comparison with the canvas preview
+                if (svgLoadStartNanos != 0) {
+                    System.out.printf("🖼️ SVG preview: WebView load %.2f ms%n", (System.nanoTime() - svgLoadStartNanos) / 1_000_000.0);
+                    svgLoadStartNanos = 0;
+                }
+
+                // A child may have been selected while the container was still loading
+                if (highlightedNodeName != null) {
+                    highlightInSvg(highlightedNodeName);
+                }
             }
         });
 
+        scenePreview.setPreviewListener(this);
+        searchPanel.setSearchListener(this);
+
         // 2. Set up the listener for node selection in the TreeView
         xmlTreeView.getSelectionModel().selectedItemProperty().addListener((observable, oldValue, newValue) -> {
             if (newValue != null) {
                 XmlNodeWrapper wrapper = newValue.getValue();
                 if (wrapper != null) {
-                    org.w3c.dom.Node selectedNode = wrapper.getXmlNode();
+                    if (newValue instanceof SkeletonTreeItem) {
+                        // Streaming view: the source tab shows the selected element only
+                        showStreamingSource((SkeletonTreeItem) newValue);
+                    }
+                    org.w3c.dom.Node selectedNode = nodeOf(newValue);
                     displayNodeInfo(selectedNode);
                 }
             }
@@ -105,7 +186,8 @@ public class XmlEditorController implements NodeEditDialog.EditDialogListener {
                 // The TreeItem holds the XmlNodeWrapper object
                 TreeItem<XmlNodeWrapper> selectedItem = xmlTreeView.getSelectionModel().getSelectedItem();
 
-                if (selectedItem != null) {
+                // The streaming view is read-only
+                if (selectedItem != null && streamingDocument == null) {
                     // Get the wrapped object
                     XmlNodeWrapper wrapper = selectedItem.getValue();
                     org.w3c.dom.Node node = wrapper.getXmlNode();
@@ -135,7 +217,7 @@ public class XmlEditorController implements NodeEditDialog.EditDialogListener {
         tabPane.getSelectionModel().selectedIndexProperty().addListener((observable, oldValue, newValue) -> {
             TreeItem<XmlNodeWrapper> selectedItem = xmlTreeView.getSelectionModel().getSelectedItem();
             if (selectedItem != null) {
-                displayNodeInfo(selectedItem.getValue().getXmlNode());
+                displayNodeInfo(nodeOf(selectedItem));
             }
         });
 
@@ -150,6 +232,29 @@ public class XmlEditorController implements NodeEditDialog.EditDialogListener {
 
         }
 
+    /**
+     * Makes the schema registered for the document's root element the active one and
+     * refreshes the schema-derived state. The bundle is only compiled on first use.
+     */
+    private void activateSchemaFor(Document document) {
+        sceneLayouts.clear(); // New document: no cached container layout applies
+        SchemaRegistry registry = SchemaRegistry.getInstance();
+        String previousBundle = registry.getActiveBundle();
+        String bundle = registry.activateFor(document);
+
+        if (!bundle.equals(previousBundle) || containerNodeTypes == null) {
+            try {
+                XmlSchemaReader reader = XmlSchemaReader.getInstance();
+                this.containerNodeTypes = reader.getContainerNodeTypes();
+                sourceView.setBinaryElementTypes(reader.getBinaryContentElementTypes());
+            } catch (Exception e) {
+                System.err.println("Failed to load schema bundle " + bundle + ": " + e.getMessage());
+                this.containerNodeTypes = new HashSet<>();
+                sourceView.setBinaryElementTypes(null);
+            }
+        }
+    }
+
     // We may need a getter if the dialog class needs to access it directly:
     public Set<String> getContainerNodeTypes() {
         return containerNodeTypes;
@@ -161,7 +266,8 @@ public class XmlEditorController implements NodeEditDialog.EditDialogListener {
      */
     private void updateRecentFilesMenu() {
         recentFilesMenu.getItems().clear();
-        List<String> recentFiles = recentFilesManager.getRecentFiles();
+        List<String> recentFiles = new ArrayList<>(recentFilesManager.getRecentFiles());
+        recentFiles.removeAll(missingRecentFiles);
 
         if (recentFiles.isEmpty()) {
             MenuItem emptyItem = new MenuItem("No Recent Files");
@@ -171,12 +277,31 @@ public class XmlEditorController implements NodeEditDialog.EditDialogListener {
         }
 
         for (String path : recentFiles) {
-            MenuItem item = new MenuItem(path);
+            // Compressed documents are marked with their container (by name until checked)
+            DocumentContainer container = recentFileContainers.getOrDefault(path, DocumentContainer.forFileName(path));
+            MenuItem item = new MenuItem(container == DocumentContainer.PLAIN ? path : path + "  [" + container.getDescription() + "]");
             item.setOnAction(e -> Platform.runLater(() -> loadXml(new File(path))));
             recentFilesMenu.getItems().add(item);
         }
     }
 
+    /**
+     * Checks the recent files in the background (hiding the ones that are missing right now,
+     * without dropping them from the list) and prefetches the documents most likely to be
+     * opened next.
+     */
+    private void refreshRecentFiles() {
+        List<String> recentFiles = recentFilesManager.getRecentFiles();
+        recentFilePrefetcher.refresh(recentFiles, currentFile == null ? null : currentFile.toPath(),
+                existing -> Platform.runLater(() -> {
+                    missingRecentFiles.clear();
+                    missingRecentFiles.addAll(recentFiles);
+                    missingRecentFiles.removeAll(existing.keySet());
+                    recentFileContainers.putAll(existing);
+                    updateRecentFilesMenu();
+                }));
+    }
+
     // --- XML Manipulation Methods (Called by JavaScript) ---
 
 
@@ -184,6 +309,7 @@ public class XmlEditorController implements NodeEditDialog.EditDialogListener {
      * Handles all structural and attribute update requests coming from the SVG's JavaScript.
      * This method is exposed to the WebView engine via the 'xmlEditorBridge'.
      * @param jsonData A JSON string containing 'action', 'name', and other data.
+     *                 A "BATCH" action carries an ordered 'operations' array (see {@link #applyBatch}).
      */
     public void handleJsUpdateRequest(String jsonData) {
         if (xmlDocument == null) return;
@@ -191,25 +317,16 @@ public class XmlEditorController implements NodeEditDialog.EditDialogListener {
         try {
             JSONObject json = new JSONObject(jsonData);
             String action = json.getString("action");
-            String originalName = json.optString("originalName");
-            String nodeName = json.optString("name"); // Used for DELETE and ADD
 
-            switch (action) {
-                case "UPDATE":
-                    JSONObject attributes = json.getJSONObject("attributes");
-                    updateNodeAttributes(originalName, attributes);
-                    break;
-                case "DELETE":
-                    deleteNode(nodeName);
-                    break;
-                case "ADD":
-                    String parentName = json.getString("parentName");
-                    addNewNode(parentName, json.getString("newNodeType"));
-                    break;
-                default:
-                    System.err.println("Unknown action: " + action);
+            if ("BATCH".equals(action)) {
+                applyBatch(json.getJSONArray("operations"));
+                return;
             }
-            refreshUi(); // Refresh the DOM, TreeView, and SVG after any change
+
+            if (!applyOperation(json, new DomTransaction())) {
+                System.err.println("Request had no effect: " + action);
+            }
+            refreshUi(); // Refresh the source, TreeView, and SVG after any change
 
         } catch (Exception e) {
             System.err.println("Error processing JS update request: " + e.getMessage());
@@ -217,56 +334,185 @@ public class XmlEditorController implements NodeEditDialog.EditDialogListener {
         }
     }
 
+    /**
+     * Applies an ordered list of UPDATE/ADD/DELETE operations atomically: either all of them
+     * are applied, followed by a single UI refresh and render, or (if any operation fails or
+     * does not match a node) the DOM is rolled back and nothing is refreshed.
+     * @param operations Array of operation objects, each in the single-request format.
+     * @return true if the batch was applied.
+     */
+    public boolean applyBatch(JSONArray operations) {
+        if (xmlDocument == null) return false;
+
+        long startNanos = System.nanoTime();
+        DomTransaction transaction = new DomTransaction();
+        try {
+            for (int i = 0; i < operations.length(); i++) {
+                JSONObject operation = operations.getJSONObject(i);
+                if (!applyOperation(operation, transaction)) {
+                    throw new IllegalArgumentException("operation " + i + " ("
+                            + operation.optString("action") + ") did not match any node");
+                }
+            }
+        } catch (Exception e) {
+            // LOGGING: the whole batch is rejected, the DOM is left as it was
+            transaction.rollback();
+            sceneLayouts.clear();
+            System.err.println("❌ Batch rejected, no changes applied: " + e.getMessage());
+            return false;
+        }
+        long appliedNanos = System.nanoTime();
+
+        refreshUi(); // One refresh for the whole batch
+        long refreshedNanos = System.nanoTime();
+
+        // LOGGING
+        System.out.printf("📦 Batch applied: %d operations (%d DOM mutations) in %.2f ms, UI refresh %.2f ms%n",
+                transaction.getOperationCount(), transaction.getMutationCount(),
+                (appliedNanos - startNanos) / 1_000_000.0, (refreshedNanos - appliedNanos) / 1_000_000.0);
+        return true;
+    }
+
+    /**
+     * Applies one UPDATE/DELETE/ADD operation through the transaction journal.
+     * @return false if the action is unknown or its target node does not exist.
+     */
+    private boolean applyOperation(JSONObject json, DomTransaction transaction) {
+        String action = json.getString("action");
+        String originalName = json.optString("originalName");
+        String nodeName = json.optString("name"); // Used for DELETE and ADD
+
+        boolean applied;
+        switch (action) {
+            case "UPDATE":
+                JSONObject attributes = json.getJSONObject("attributes");
+                applied = updateNodeAttributes(originalName, attributes, transaction);
+                break;
+            case "DELETE":
+                applied = deleteNode(nodeName, transaction);
+                break;
+            case "ADD":
+                String parentName = json.getString("parentName");
+                applied = addNewNode(parentName, json.getString("newNodeType"), transaction);
+                break;
+            default:
+                System.err.println("Unknown action: " + action);
+                applied = false;
+        }
+        if (applied) {
+            transaction.operationApplied();
+        }
+        return applied;
+    }
+
+
+    // --- Typed bridge entry points (no JSON encode/decode on the hot paths) ---
+
+    /**
+     * Moves a node to new coordinates. Called by the SVG's JavaScript at the end of a drag.
+     * JS numbers arrive as Integer or Double; both widen to double.
+     */
+    public void moveNode(String nodeName, double x, double y) {
+        if (xmlDocument == null) return;
+        setAttributes(nodeName,
+                new String[]{"x", "y"},
+                new String[]{Long.toString(Math.round(x)), Long.toString(Math.round(y))});
+    }
+
+    /**
+     * Sets attributes of a node from two parallel JavaScript arrays (names and values).
+     * Called by the SVG's edit panel.
+     */
+    public void setAttributesFromJs(String nodeName, netscape.javascript.JSObject names, netscape.javascript.JSObject values) {
+        if (xmlDocument == null) return;
+        int count = ((Number) names.getMember("length")).intValue();
+        String[] attributeNames = new String[count];
+        String[] attributeValues = new String[count];
+        for (int i = 0; i < count; i++) {
+            attributeNames[i] = String.valueOf(names.getSlot(i));
+            attributeValues[i] = String.valueOf(values.getSlot(i));
+        }
+        setAttributes(nodeName, attributeNames, attributeValues);
+    }
+
+    /**
+     * Sets attributes of a node (names[i] = values[i]) and refreshes the UI.
+     */
+    public void setAttributes(String nodeName, String[] names, String[] values) {
+        if (xmlDocument == null) return;
+        if (!updateNodeAttributes(nodeName, names, values, new DomTransaction())) {
+            System.err.println("Request had no effect: no node named " + nodeName);
+        }
+        refreshUi();
+    }
+
 
-    private void updateNodeAttributes(String nodeName, JSONObject attributes) {
-        Node targetNode = findNodeByName(xmlDocument.getDocumentElement(), nodeName);
+    private boolean updateNodeAttributes(String nodeName, JSONObject attributes, DomTransaction transaction) {
+        // FIX: Use optString() to safely convert Integer/Double to String for the XML attribute.
+        // This ensures attributes like "x", "y", "width", etc., are set as strings.
+        String[] names = attributes.keySet().toArray(new String[0]);
+        String[] values = new String[names.length];
+        for (int i = 0; i < names.length; i++) {
+            values[i] = attributes.optString(names[i]);
+        }
+        return updateNodeAttributes(nodeName, names, values, transaction);
+    }
+
+    private boolean updateNodeAttributes(String nodeName, String[] names, String[] values, DomTransaction transaction) {
+        Node targetNode = findNodeByName(nodeName);
         if (targetNode instanceof Element) {
             Element element = (Element) targetNode;
+            String previousName = element.getAttribute("name");
 
-            Iterator<String> keys = attributes.keys();
-            while (keys.hasNext()) {
-                String key = keys.next();
-
-                // FIX: Use optString() to safely convert Integer/Double to String for the XML attribute.
-                // This ensures attributes like "x", "y", "width", etc., are set as strings.
-                String value = attributes.optString(key);
+            for (int k = 0; k < names.length; k++) {
+                String key = names[k];
+                String value = values[k];
 
                 if (key.equalsIgnoreCase("name")) {
-                    element.setAttribute(key, value);
+                    NameAllocator.forDocument(xmlDocument).reserve(value);
+                    transaction.setAttribute(element, key, value);
                 } else if (key.equalsIgnoreCase("value")) {
                     // Special handling for the 'value' attribute, assuming it maps to text content or a dedicated attribute
                     // For simplicity, we update the first Text node child if it exists
                     NodeList children = element.getChildNodes();
                     for (int i = 0; i < children.getLength(); i++) {
                         if (children.item(i).getNodeType() == Node.TEXT_NODE) {
-                            children.item(i).setNodeValue(value);
+                            transaction.setNodeValue(children.item(i), value);
                             break;
                         }
                     }
                     // If no text node, sometimes it's an attribute
                     if (element.hasAttribute("value")) {
-                        element.setAttribute("value", value);
+                        transaction.setAttribute(element, "value", value);
                     }
                 } else {
                     // Update any other attribute (x, y, width, height, etc.)
-                    element.setAttribute(key, value);
+                    transaction.setAttribute(element, key, value);
                 }
             }
+            updateSceneLayout(element, previousName);
+            return true;
         }
+        return false;
     }
 
 
-    private void deleteNode(String nodeName) {
-        Node targetNode = findNodeByName(xmlDocument.getDocumentElement(), nodeName);
+    private boolean deleteNode(String nodeName, DomTransaction transaction) {
+        Node targetNode = findNodeByName(nodeName);
         if (targetNode != null && targetNode.getParentNode() != null) {
-            targetNode.getParentNode().removeChild(targetNode);
+            invalidateSceneLayout(targetNode.getParentNode());
+            invalidateSceneLayoutsIn(targetNode);
+            transaction.removeNode(targetNode);
+            return true;
         }
+        return false;
     }
 
-    private void addNewNode(String parentName, String newNodeType) {
-        Node parentNode = findNodeByName(xmlDocument.getDocumentElement(), parentName);
+    private boolean addNewNode(String parentName, String newNodeType, DomTransaction transaction) {
+        Node parentNode = findNodeByName(parentName);
         if (parentNode instanceof Element) {
             Element newElement = xmlDocument.createElement(newNodeType);
+            NameAllocator names = NameAllocator.forDocument(xmlDocument);
 
             try {
                 // STEP 1: Get default attributes and values from the schema
@@ -280,7 +526,7 @@ public class XmlEditorController implements NodeEditDialog.EditDialogListener {
 
                     if (attrName.equalsIgnoreCase("name")) {
                         // CRITICAL: Always generate a unique name for identification
-                        newElement.setAttribute(attrName, "NewNode-" + System.currentTimeMillis() % 1000);
+                        newElement.setAttribute(attrName, names.allocate("NewNode-"));
                     } else if (attrName.equalsIgnoreCase("value")) {
                         // Special handling for the 'value' attribute, map to text content
                         newElement.appendChild(xmlDocument.createTextNode(attrValue));
@@ -292,39 +538,31 @@ public class XmlEditorController implements NodeEditDialog.EditDialogListener {
 
                 // If the element has no defaults but is required to have a unique name
                 if (!newElement.hasAttribute("name")) {
-                    newElement.setAttribute("name", "NewNode-" + System.currentTimeMillis() % 1000);
+                    newElement.setAttribute("name", names.allocate("NewNode-"));
                 }
 
             } catch (Exception e) {
                 System.err.println("Error applying schema defaults for " + newNodeType + ": " + e.getMessage());
                 // Fallback to basic creation if schema reading fails
-                newElement.setAttribute("name", "NewNode-" + System.currentTimeMillis() % 1000);
+                newElement.setAttribute("name", names.allocate("NewNode-"));
                 newElement.setAttribute("x", "0");
                 newElement.setAttribute("y", "0");
             }
 
-            parentNode.appendChild(newElement);
+            invalidateSceneLayout(parentNode);
+            transaction.appendChild(parentNode, newElement);
+            return true;
         }
+        return false;
     }
 
     // --- Utility: Find Node ---
 
-    private Node findNodeByName(Node node, String name) {
-        if (node.getNodeType() == Node.ELEMENT_NODE) {
-            Element element = (Element) node;
-            if (element.hasAttribute("name") && element.getAttribute("name").equals(name)) {
-                return element;
-            }
-        }
-
-        NodeList children = node.getChildNodes();
-        for (int i = 0; i < children.getLength(); i++) {
-            Node result = findNodeByName(children.item(i), name);
-            if (result != null) {
-                return result;
-            }
-        }
-        return null;
+    /**
+     * The first element (in document order) with this name, from the attribute index.
+     */
+    private Node findNodeByName(String name) {
+        return AttributeIndex.forDocument(xmlDocument).findFirst(AttributeIndex.NAME_KEY, name);
     }
 
 
@@ -342,28 +580,32 @@ public class XmlEditorController implements NodeEditDialog.EditDialogListener {
     }
 
     /**
-     * Re-parses the XML and refreshes the entire UI (TreeView and SVG).
+     * Refreshes the entire UI (source text, TreeView and SVG) from the edited DOM.
      */
     private void refreshUi() {
+        if (xmlDocument == null) return; // Streaming view: no DOM to show
         try {
-            // 1. Update the XML Source Area text
-            xmlSourceArea.setText(convertDocumentToString());
+            // 1. Update the XML Source text
+            setSourceText(convertDocumentToString());
 
-            // 2. Re-parse the DOM from the updated text (safer than directly modifying the old DOM object)
-            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-            DocumentBuilder builder = factory.newDocumentBuilder();
-            xmlDocument = builder.parse(new java.io.ByteArrayInputStream(xmlSourceArea.getText().getBytes()));
-            xmlDocument.normalize();
+            // 2. The edited DOM stays the document: its attribute index and subtree hashes were
+            // kept up to date by the mutations (DomTransaction); only a new document gets an index
+            AttributeIndex.forDocument(xmlDocument);
+            documentRevision++;
+            searchPanel.setDocument(xmlDocument);
 
             // 3. Rebuild the TreeView
             Element rootElement = xmlDocument.getDocumentElement();
-            XmlNodeWrapper rootWrapper = new XmlNodeWrapper(rootElement.getNodeName(), rootElement);
-            TreeItem<XmlNodeWrapper> rootItem = new TreeItem<>(rootWrapper);
+            TreeItem<XmlNodeWrapper> rootItem = createTreeRoot(rootElement, rootElement.getNodeName());
             rootItem.setExpanded(true);
             xmlTreeView.setRoot(rootItem);
-            buildTree(rootElement, rootItem);
 
-            // 4. Force SVG/Node Info update on the currently selected node
+            // 4. Keep the canvas preview on the same container
+            if (tabPane.getSelectionModel().getSelectedIndex() == CANVAS_PREVIEW_TAB_INDEX) {
+                rebindCanvasPreview();
+            }
+
+            // 5. Force SVG/Node Info update on the currently selected node
             TreeItem<XmlNodeWrapper> selectedItem = xmlTreeView.getSelectionModel().getSelectedItem();
             if (selectedItem != null) {
                 displayNodeInfo(selectedItem.getValue().getXmlNode());
@@ -377,22 +619,422 @@ public class XmlEditorController implements NodeEditDialog.EditDialogListener {
 
     // --- File Menu Handlers ---
 
+    @FXML
+    private void handleProfileFile() {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Profile XML File");
+        addOpenFilters(fileChooser);
+        File file = fileChooser.showOpenDialog(null);
+        if (file == null) return;
+
+        // Streaming pass in the background; the file is not opened in the editor
+        javafx.concurrent.Task<DocumentProfiler.DocumentProfile> task = new javafx.concurrent.Task<>() {
+            @Override
+            protected DocumentProfiler.DocumentProfile call() throws Exception {
+                return new DocumentProfiler(XmlSchemaReader.getInstance().getBinaryContentElementTypes(),
+                        DocumentProfiler.DEFAULT_TOP_SUBTREES).profile(file.toPath());
+            }
+        };
+        task.setOnSucceeded(event -> showProfile(task.getValue()));
+        task.setOnFailed(event -> showAlert("Profiling Error",
+                "Failed to profile " + file.getName() + ": " + task.getException().getMessage(), Alert.AlertType.ERROR));
+        Thread thread = new Thread(task, "xml-profiler");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Compares another file (e.g. the previous release) with the open document and shows the
+     * structural diff side by side. The other file is read as it is (no name normalization).
+     */
+    @FXML
+    private void handleCompareWithFile() {
+        if (xmlDocument == null) {
+            showAlert("Compare", "Open a document first (the streaming view cannot be compared).", Alert.AlertType.WARNING);
+            return;
+        }
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Compare With File");
+        addOpenFilters(fileChooser);
+        File file = fileChooser.showOpenDialog(null);
+        if (file == null) return;
+
+        // The open document is only read here: the background diff reads a copy of it
+        Document current = xmlDocument;
+        DocumentCopy copy = DocumentCopy.of(current);
+        long revision = documentRevision;
+        String currentTitle = currentFile == null ? "Open document (unsaved)" : currentFile.getName() + " (open document)";
+        javafx.concurrent.Task<StructuralDiff.Result> task = new javafx.concurrent.Task<>() {
+            @Override
+            protected StructuralDiff.Result call() throws Exception {
+                // 1. Parse the other file
+                Document other = parseAsIs(file);
+                // 2. Diff: the file is the old side, the open document the new one
+                return new StructuralDiff(XmlSchemaReader.getInstance().getBinaryContentElementTypes(), MAX_DIFF_CHANGES)
+                        .compare(other, copy.getDocument());
+            }
+        };
+        task.setOnSucceeded(event -> {
+            // The new side's elements are the open document's, for selecting them in the TreeView
+            // (edited meanwhile: they stay the copy's, and are selected by name)
+            StructuralDiff.Result result = xmlDocument == current && documentRevision == revision
+                    ? task.getValue().onOriginalRight(copy.toOriginal()) : task.getValue();
+            // LOGGING
+            System.out.printf("🔀 Diff %s ↔ %s: %,d change(s), %,d identical subtree(s) skipped, %.1f ms%n",
+                    file.getName(), currentTitle, result.getChanges().size(), result.getSkippedSubtrees(), result.elapsedMillis());
+            showStructuralDiff(file.getName(), currentTitle, result);
+        });
+        task.setOnFailed(event -> showAlert("Compare Error",
+                "Failed to compare with " + file.getName() + ": " + task.getException().getMessage(), Alert.AlertType.ERROR));
+        Thread thread = new Thread(task, "xml-diff");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Merges the changes another copy of the document ("theirs") made since a common base into
+     * the open document ("ours"). Non-conflicting changes are applied directly; conflicts are
+     * listed for the user to pick a side. Both files are read as they are (no name normalization).
+     */
+    @FXML
+    private void handleMergeFromFile() {
+        if (xmlDocument == null) {
+            showAlert("Merge", "Open a document first (the streaming view cannot be merged).", Alert.AlertType.WARNING);
+            return;
+        }
+        // 1. The common base, then the changed copy to merge
+        FileChooser fileChooser = new FileChooser();
+        addOpenFilters(fileChooser);
+        fileChooser.setTitle("Merge: Common Base Version");
+        File baseFile = fileChooser.showOpenDialog(null);
+        if (baseFile == null) return;
+        fileChooser.setTitle("Merge: Changed Version to Merge In");
+        File theirsFile = fileChooser.showOpenDialog(null);
+        if (theirsFile == null) return;
+
+        // 2. Parse both and plan the merge in the background, against a copy of the open document
+        // taken here (the open document is not read off this thread). All three are normalized
+        // alike, so unchanged subtrees hash the same and are skipped
+        Document ours = xmlDocument;
+        DocumentCopy oursCopy = DocumentCopy.of(ours);
+        long revision = documentRevision;
+        javafx.concurrent.Task<ThreeWayMerge.Plan> task = new javafx.concurrent.Task<>() {
+            @Override
+            protected ThreeWayMerge.Plan call() throws Exception {
+                java.util.concurrent.CompletableFuture<Document> base = java.util.concurrent.CompletableFuture.supplyAsync(() -> {
+                    try {
+                        Document document = parseAsIs(baseFile);
+                        DocumentCopy.normalizeForComparison(document);
+                        return document;
+                    } catch (Exception e) {
+                        throw new java.util.concurrent.CompletionException(e);
+                    }
+                });
+                Document theirs = parseAsIs(theirsFile);
+                DocumentCopy.normalizeForComparison(theirs);
+                DocumentCopy.normalizeForComparison(oursCopy.getDocument());
+                return new ThreeWayMerge(XmlSchemaReader.getInstance().getBinaryContentElementTypes())
+                        .merge(base.join(), oursCopy.getDocument(), theirs);
+            }
+        };
+        task.setOnSucceeded(event -> {
+            if (xmlDocument != ours || documentRevision != revision) {
+                showAlert("Merge", "The document changed while the merge was prepared. Please merge again.", Alert.AlertType.WARNING);
+                return;
+            }
+            applyMerge(task.getValue().onOriginal(oursCopy.toOriginal()), theirsFile.getName());
+        });
+        task.setOnFailed(event -> {
+            Throwable error = task.getException().getCause() != null ? task.getException().getCause() : task.getException();
+            showAlert("Merge Error", "Failed to merge " + theirsFile.getName() + ": " + error.getMessage(), Alert.AlertType.ERROR);
+        });
+        Thread thread = new Thread(task, "xml-merge");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Applies a planned merge as one transaction; cancelling the conflict dialog rolls it back.
+     */
+    private void applyMerge(ThreeWayMerge.Plan plan, String theirsTitle) {
+        if (!plan.hasChanges()) {
+            showAlert("Merge", theirsTitle + " has no changes to merge.", Alert.AlertType.INFORMATION);
+            return;
+        }
+        // 1. Non-conflicting changes
+        DomTransaction transaction = new DomTransaction();
+        plan.apply(transaction);
+
+        // 2. Conflicts: the user picks a side for each one
+        int resolvedWithTheirs = 0;
+        if (!plan.getConflicts().isEmpty()) {
+            Optional<Set<ThreeWayMerge.Conflict>> choice = new MergeConflictsDialog(theirsTitle, plan).showAndWait();
+            if (choice.isEmpty()) {
+                transaction.rollback();
+                System.err.println("❌ Merge of " + theirsTitle + " cancelled");
+                return;
+            }
+            for (ThreeWayMerge.Conflict conflict : choice.get()) {
+                plan.takeTheirs(conflict, transaction);
+            }
+            resolvedWithTheirs = choice.get().size();
+        }
+
+        // 3. One refresh for the whole merge
+        sceneLayouts.clear();
+        refreshUi();
+        // LOGGING
+        System.out.printf("🔀 Merged %s: %,d change(s), %,d conflict(s) (%,d resolved with theirs), "
+                        + "%,d element(s) compared, %,d unchanged subtree(s) skipped, %.1f ms%n",
+                theirsTitle, plan.getMergedChangeCount(), plan.getConflicts().size(), resolvedWithTheirs,
+                plan.getComparedElements(), plan.getSkippedSubtrees(), plan.elapsedMillis());
+    }
+
+    // As written (no name normalization), so the names matched are the file's own
+    private static Document parseAsIs(File file) throws Exception {
+        Document document;
+        try (MappedXmlFile mapped = MappedXmlFile.open(file.toPath());
+             java.io.InputStream in = mapped.openStream()) {
+            document = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(in);
+        }
+        document.normalize();
+        return document;
+    }
+
+    /**
+     * The current file was changed by another program: compares it with the open document in
+     * the background, then offers to apply only the changed parts (keeping the tree's expanded
+     * items and selection), to reload the whole file, or to keep the open document.
+     */
+    private void handleExternalChange(File file) {
+        if (xmlDocument == null || currentFile == null || !currentFile.getAbsoluteFile().equals(file.getAbsoluteFile())) return;
+        if (externalChangeInProgress) {
+            externalChangeRecheck = true;
+            return;
+        }
+        externalChangeInProgress = true;
+
+        // The open document is only read here: the background diff reads a copy of it
+        Document current = xmlDocument;
+        DocumentCopy copy = DocumentCopy.of(current);
+        long revision = documentRevision;
+        long modified = file.lastModified();
+        javafx.concurrent.Task<StructuralDiff.Result> task = new javafx.concurrent.Task<>() {
+            @Override
+            protected StructuralDiff.Result call() throws Exception {
+                // Both sides without synthetic names and indentation, so unchanged subtrees hash
+                // the same and are skipped; the open document is the old side, the file the new one
+                Document disk = parseAsIs(file);
+                DocumentCopy.normalizeForComparison(disk);
+                DocumentCopy.normalizeForComparison(copy.getDocument());
+                return new StructuralDiff(XmlSchemaReader.getInstance().getBinaryContentElementTypes(), MAX_DIFF_CHANGES)
+                        .compare(copy.getDocument(), disk);
+            }
+        };
+        task.setOnSucceeded(event -> {
+            if (xmlDocument == current && documentRevision == revision) {
+                StructuralDiff.Result result = task.getValue();
+                offerExternalChange(file, modified, result.isIdentical() ? result : result.onOriginal(copy.toOriginal()));
+            } else {
+                externalChangeRecheck = true; // Edited meanwhile: compare again with the new document
+            }
+            finishExternalChange(file);
+        });
+        task.setOnFailed(event -> {
+            // Typically a file caught in the middle of being written; the next write is reported again
+            System.err.println("⚠️ Cannot compare " + file.getName() + " with the changed file on disk: "
+                    + task.getException().getMessage());
+            finishExternalChange(file);
+        });
+        Thread thread = new Thread(task, "xml-external-change");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void finishExternalChange(File file) {
+        externalChangeInProgress = false;
+        if (externalChangeRecheck) {
+            externalChangeRecheck = false;
+            handleExternalChange(file);
+        }
+    }
+
+    private void offerExternalChange(File file, long modified, StructuralDiff.Result result) {
+        // 1. Same content (e.g. only touched, or saved unchanged by another program)
+        if (result.isIdentical()) {
+            savedFileModified = modified;
+            // LOGGING
+            System.out.println("👀 " + file.getName() + " was rewritten on disk with the same content");
+            return;
+        }
+
+        // 2. Ask what to do; a truncated diff can only be reloaded
+        boolean dirty = SubtreeHashes.forDocument(xmlDocument).isDirty();
+        List<String> lines = new ArrayList<>();
+        for (StructuralDiff.Change change : result.getChanges().subList(0, Math.min(10, result.getChanges().size()))) {
+            lines.add(change.toString());
+        }
+        if (result.getChanges().size() > lines.size()) {
+            lines.add("... and " + (result.getChanges().size() - lines.size()) + " more");
+        }
+        if (dirty) {
+            lines.add("");
+            lines.add("The document has unsaved changes: applying or reloading replaces them where they differ from the file.");
+        }
+        Alert alert = new Alert(Alert.AlertType.CONFIRMATION);
+        alert.setTitle("File Changed on Disk");
+        alert.setHeaderText(String.format("%s was changed by another program (%,d change(s)%s).",
+                file.getName(), result.getChanges().size(), result.isTruncated() ? " or more" : ""));
+        TextArea details = new TextArea(String.join("\n", lines));
+        details.setEditable(false);
+        details.setPrefSize(760, 260);
+        alert.getDialogPane().setContent(details);
+        alert.setResizable(true);
+        ButtonType apply = new ButtonType("Apply Changes", ButtonBar.ButtonData.YES);
+        ButtonType reload = new ButtonType("Reload File", ButtonBar.ButtonData.OTHER);
+        ButtonType keep = new ButtonType("Keep Editor Version", ButtonBar.ButtonData.CANCEL_CLOSE);
+        if (result.isTruncated()) {
+            alert.getButtonTypes().setAll(reload, keep);
+        } else {
+            alert.getButtonTypes().setAll(apply, reload, keep);
+        }
+        ButtonType answer = alert.showAndWait().orElse(keep);
+
+        if (answer == reload) {
+            loadXml(file);
+        } else if (answer == apply) {
+            applyExternalChange(file, modified, result, dirty);
+        } else {
+            // LOGGING
+            System.out.println("👀 External change of " + file.getName() + " ignored; saving will ask before overwriting it");
+        }
+    }
+
+    /**
+     * Applies only the changed parts of the file to the open document, as one transaction,
+     * and refreshes the tree with its expanded items and selection kept.
+     */
+    private void applyExternalChange(File file, long modified, StructuralDiff.Result result, boolean wasDirty) {
+        long startNanos = System.nanoTime();
+        DomTransaction transaction = new DomTransaction();
+        try {
+            result.apply(transaction, this::normalizeXmlNames);
+        } catch (RuntimeException e) {
+            transaction.rollback();
+            showAlert("File Changed on Disk", "Could not apply the changes (" + e.getMessage() + "); reloading the file instead.",
+                    Alert.AlertType.WARNING);
+            loadXml(file);
+            return;
+        }
+        TreeState treeState = captureTreeState();
+        sceneLayouts.clear();
+        refreshUi();
+        restoreTreeState(treeState);
+
+        // Without unsaved edits, the document is now the file's content
+        savedFileModified = modified;
+        if (!wasDirty) SubtreeHashes.forDocument(xmlDocument).markSaved();
+        // LOGGING
+        System.out.printf("👀 Applied %,d external change(s) of %s (diff %.1f ms, apply and refresh %.1f ms)%n",
+                result.getChanges().size(), file.getName(), result.elapsedMillis(), (System.nanoTime() - startNanos) / 1_000_000.0);
+    }
+
+    /**
+     * Names of the expanded elements and of the selected one, to restore after the tree is rebuilt.
+     */
+    private record TreeState(Set<String> expandedNames, String selectedName) {
+    }
+
+    private TreeState captureTreeState() {
+        Set<String> expanded = new HashSet<>();
+        TreeItem<XmlNodeWrapper> root = xmlTreeView.getRoot();
+        Deque<TreeItem<XmlNodeWrapper>> pending = new ArrayDeque<>();
+        if (root != null) pending.push(root);
+        while (!pending.isEmpty()) {
+            TreeItem<XmlNodeWrapper> item = pending.pop();
+            if (!item.isExpanded()) continue; // Children of collapsed items are not visited (lazy items stay unloaded)
+            if (item.getValue().getXmlNode() instanceof Element element) expanded.add(element.getAttribute("name"));
+            item.getChildren().forEach(pending::push);
+        }
+        TreeItem<XmlNodeWrapper> selected = xmlTreeView.getSelectionModel().getSelectedItem();
+        String selectedName = selected != null && selected.getValue().getXmlNode() instanceof Element element
+                ? element.getAttribute("name") : null;
+        return new TreeState(expanded, selectedName);
+    }
+
+    private void restoreTreeState(TreeState state) {
+        TreeItem<XmlNodeWrapper> root = xmlTreeView.getRoot();
+        if (root == null) return;
+        Deque<TreeItem<XmlNodeWrapper>> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            TreeItem<XmlNodeWrapper> item = pending.pop();
+            if (!(item.getValue().getXmlNode() instanceof Element element)
+                    || !state.expandedNames().contains(element.getAttribute("name"))) continue;
+            item.setExpanded(true);
+            item.getChildren().forEach(pending::push);
+        }
+        if (state.selectedName() != null && !state.selectedName().isEmpty()) {
+            selectTreeItem(findTreeItemForNode(root, findNodeByName(state.selectedName())));
+        }
+    }
+
+    private void showStructuralDiff(String leftTitle, String rightTitle, StructuralDiff.Result result) {
+        StructuralDiffView view = new StructuralDiffView(leftTitle, rightTitle, result);
+        view.setDiffListener(this);
+        javafx.stage.Stage stage = new javafx.stage.Stage();
+        stage.setTitle("Compare: " + leftTitle + " ↔ " + rightTitle);
+        stage.setScene(new javafx.scene.Scene(view, 1100, 750));
+        stage.show();
+    }
+
+    private void showProfile(DocumentProfiler.DocumentProfile profile) {
+        TextArea textArea = new TextArea(profile.toSummaryText());
+        textArea.setEditable(false);
+        textArea.setStyle("-fx-font-family: monospace;");
+        textArea.setPrefSize(640, 420);
+
+        Alert alert = new Alert(Alert.AlertType.INFORMATION);
+        alert.setTitle("Document Profile");
+        alert.setHeaderText(profile.file().getFileName() + " (" + profile.recommendedLoadStrategy() + ")");
+        alert.getDialogPane().setContent(textArea);
+        alert.setResizable(true);
+        alert.showAndWait();
+    }
+
     @FXML
     private void handleOpen() {
         FileChooser fileChooser = new FileChooser();
-        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("XML Files", "*.xml"));
+        addOpenFilters(fileChooser);
         File file = fileChooser.showOpenDialog(null);
         if (file != null) {
             loadXml(file);
         }
     }
 
+    /**
+     * Opens a file in the read-only streaming view, whatever its size.
+     */
+    @FXML
+    private void handleOpenStreaming() {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Open XML File Read-Only (Streaming)");
+        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("XML Files", "*.xml"));
+        File file = fileChooser.showOpenDialog(null);
+        if (file != null) {
+            openStreaming(file);
+        }
+    }
+
     @FXML
     private void handleClose() {
+        closeStreamingDocument();
         xmlTreeView.setRoot(null);
-        xmlSourceArea.setText("");
+        setSourceText("");
         svgWebView.getEngine().loadContent("<h1>No XML loaded.</h1>");
+        renderedContainer = null;
         xmlDocument = null;
+        searchPanel.setDocument(null);
     }
 
     /**
@@ -412,6 +1054,7 @@ public class XmlEditorController implements NodeEditDialog.EditDialogListener {
 
             // Get the Singleton instance and attempt to load the file
             boolean success = XSLTFileManager.getInstance().loadFromFile(filePath);
+            renderedContainer = null; // Render with the new stylesheet next time
 
             if (success) {
                 showAlert("Success", "Custom XSLT stylesheet loaded successfully from:\n" + filePath, Alert.AlertType.INFORMATION);
@@ -425,8 +1068,9 @@ public class XmlEditorController implements NodeEditDialog.EditDialogListener {
 
         // After loading, trigger an update if an XML document is already loaded and a node is selected
         TreeItem<XmlNodeWrapper> selectedItem = xmlTreeView.getSelectionModel().getSelectedItem();
-        if (selectedItem != null) {
-            generateAndDisplaySvg(selectedItem.getValue().getXmlNode());
+        Node selectedNode = selectedItem == null ? null : nodeOf(selectedItem);
+        if (selectedNode != null) {
+            generateAndDisplaySvg(selectedNode);
         }
     }
 
@@ -435,39 +1079,137 @@ public class XmlEditorController implements NodeEditDialog.EditDialogListener {
 // Inside XmlEditorController.java
 
     private void loadXml(File file) {
+        // Files too large for a DOM are opened read-only, without profiling them first
+        // (compressed files have no byte offsets to stream from and always get a DOM)
         try {
-            // 1. Load the XML Document
-            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-            DocumentBuilder builder = factory.newDocumentBuilder();
-            xmlDocument = builder.parse(file);
-            xmlDocument.normalize();
+            if (LoadStrategy.requiresStreaming(file.length())
+                    && DocumentContainer.detect(file.toPath()) == DocumentContainer.PLAIN) {
+                openStreaming(file);
+                return;
+            }
+        } catch (IOException e) {
+            // Reported by the normal load below
+        }
+
+        // A document being prefetched right now is handed over when that parse is done,
+        // without blocking the UI thread
+        CompletableFuture<RecentFilePrefetcher.Prefetched> prefetch = recentFilePrefetcher.take(file.toPath());
+        if (prefetch.isDone()) {
+            loadXml(file, prefetch.join());
+        } else {
+            // LOGGING
+            System.out.println("⏳ Waiting for the prefetch of " + file.getName() + " in progress");
+            prefetch.thenAccept(prefetched -> Platform.runLater(() -> loadXml(file, prefetched)));
+        }
+    }
+
+    /**
+     * Loads a file into the DOM views.
+     * @param prefetched the document prefetched in the background for this file, or null
+     */
+    private void loadXml(File file, RecentFilePrefetcher.Prefetched prefetched) {
+        // 1. Map the file once (compressed containers are decompressed once into memory) for
+        // the parser; the mapping is released when the load is done (the source view keeps a
+        // heap copy), so the file can be rewritten by other programs or saved over
+        long startNanos = System.nanoTime();
+        try (MappedXmlFile mapped = MappedXmlFile.open(file.toPath())) {
+
+            // Prefetched in the background, or recently opened and unchanged: use the normalized
+            // DOM as it is, skipping profiling, parsing and name normalization
+            String origin = "cold";
+            DocumentSnapshotCache.Source snapshotSource = null;
+            DocumentSnapshotCache.Snapshot snapshot = prefetched != null ? null : snapshotCache.load(file.toPath());
+            if (prefetched != null) {
+                origin = "prefetched";
+                xmlDocument = prefetched.document();
+                loadStrategy = LoadStrategy.choose(mapped.getByteLength(), prefetched.elementCount());
+            } else if (snapshot != null) {
+                origin = "warm";
+                xmlDocument = snapshot.document();
+                loadStrategy = LoadStrategy.choose(mapped.getByteLength(), snapshot.elementCount());
+            } else {
+                // Profile the file in one streaming pass (no DOM) and choose how to load it
+                loadStrategy = chooseLoadStrategy(file);
+
+                DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+                DocumentBuilder builder = factory.newDocumentBuilder();
+                // Hashed for the snapshot while the parser reads it
+                snapshotSource = new DocumentSnapshotCache.Source(file.toPath());
+                try (java.io.InputStream in = snapshotSource.hashing(mapped.openStream())) {
+                    org.xml.sax.InputSource source = new org.xml.sax.InputSource(in);
+                    source.setSystemId(file.toURI().toString()); // Relative DTD/entity references
+                    xmlDocument = builder.parse(source);
+                }
+                xmlDocument.normalize();
 
-            if (xmlDocument != null) {
                 // Normalize the document to ensure every element has a 'name' attribute
                 normalizeXmlNames(xmlDocument.getDocumentElement());
             }
-
-            // 2. Display Raw XML Text
-            String xmlContent = java.nio.file.Files.readString(file.toPath());
-            xmlSourceArea.setText(xmlContent); // Assuming xmlSourceArea is a JFX control
+            if (loadStrategy == LoadStrategy.STREAMING_READ_ONLY) {
+                // A large compressed document (no byte offsets to stream from) still gets a DOM
+                loadStrategy = LoadStrategy.LAZY_TREE;
+            }
+            long parseNanos = System.nanoTime() - startNanos;
+            // Index attribute values for lookups by name, the search and the duplicate-name check
+            AttributeIndex attributeIndex = AttributeIndex.forDocument(xmlDocument);
+            // The loaded content is the saved state (hashed only once it is changed)
+            SubtreeHashes.forDocument(xmlDocument).markSaved();
+            documentRevision++;
+            closeStreamingDocument(); // The DOM document replaces any streaming view
+            searchPanel.setDocument(xmlDocument);
+
+            // Switch to the schema of this document's form generation
+            activateSchemaFor(xmlDocument);
+
+            // 2. Display Raw XML Text (one heap copy of the bytes, decoded as the view needs it)
+            long sourceStartNanos = System.nanoTime();
+            setSourceText(mapped.getText());
+            // LOGGING
+            System.out.printf("📂 Loaded %s (%s, %s): %,d bytes, %s %.1f ms, source index %.1f ms, heap used %,d KB%n",
+                    file.getName(), mapped.getContainer(), origin, mapped.getByteLength(),
+                    origin.equals("cold") ? "profile+parse" : "ready in", parseNanos / 1_000_000.0,
+                    (System.nanoTime() - sourceStartNanos) / 1_000_000.0,
+                    (Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory()) / 1024);
+            System.out.printf("🗂️ Attribute index: %,d entries, ~%,d KB, built in %.1f ms; %,d duplicated name(s)%n",
+                    attributeIndex.getEntryCount(), attributeIndex.estimateMemoryBytes() / 1024,
+                    attributeIndex.getBuildNanos() / 1_000_000.0, attributeIndex.duplicates(AttributeIndex.NAME_KEY).size());
 
             // 3. Populate TreeView
             Element rootElement = xmlDocument.getDocumentElement();
             String rootName = rootElement.getAttribute("name");
             String displayName = rootElement.getNodeName() + (rootName.isEmpty() ? "" : " [name=\"" + rootName + "\"]");
 
-            XmlNodeWrapper rootWrapper = new XmlNodeWrapper(displayName, rootElement);
-            TreeItem<XmlNodeWrapper> rootItem = new TreeItem<>(rootWrapper);
+            TreeItem<XmlNodeWrapper> rootItem = createTreeRoot(rootElement, displayName);
 
             rootItem.setExpanded(true);
             xmlTreeView.setRoot(rootItem); // Assuming xmlTreeView is of type TreeView<XmlNodeWrapper>
 
-            buildTree(rootElement, rootItem); // Your existing recursive tree builder
+            // 4. Snapshot the normalized document for the next open: encoded here (the DOM is
+            // only read on this thread), written on the low-priority prefetch thread
+            if (snapshotSource != null) {
+                long snapshotStartNanos = System.nanoTime();
+                DocumentSnapshotCache.Encoded encoded = DocumentSnapshotCache.encode(snapshotSource, xmlDocument);
+                long encodeNanos = System.nanoTime() - snapshotStartNanos;
+                recentFilePrefetcher.execute(() -> {
+                    long writeStartNanos = System.nanoTime();
+                    long snapshotBytes = snapshotCache.store(encoded);
+                    // LOGGING
+                    if (snapshotBytes >= 0) {
+                        System.out.printf("⚡ Snapshot of %s written: %,d bytes, encoded in %.1f ms, written in %.1f ms%n",
+                                file.getName(), snapshotBytes, encodeNanos / 1_000_000.0,
+                                (System.nanoTime() - writeStartNanos) / 1_000_000.0);
+                    }
+                });
+            }
 
-            // 4. Update tracking variables and manager
+            // 5. Update tracking variables and manager
             this.currentFile = file;
+            savedFileModified = file.lastModified();
+            fileWatcher.watch(file.toPath());
+            missingRecentFiles.remove(file.getAbsolutePath());
             recentFilesManager.addFile(file.getAbsolutePath());
             updateRecentFilesMenu();
+            refreshRecentFiles();
 
         } catch (Exception e) {
             e.printStackTrace();
@@ -477,23 +1219,141 @@ public class XmlEditorController implements NodeEditDialog.EditDialogListener {
 
 
     /**
-     * Recursively assigns a unique 'name' attribute to any element missing one.
+     * Open dialogs accept plain and compressed documents.
      */
-    private void normalizeXmlNames(org.w3c.dom.Node currentNode) {
-        if (currentNode.getNodeType() == org.w3c.dom.Node.ELEMENT_NODE) {
-            org.w3c.dom.Element element = (org.w3c.dom.Element) currentNode;
+    private static void addOpenFilters(FileChooser fileChooser) {
+        fileChooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("XML Files (plain or compressed)", "*.xml", "*.xml.gz", "*.xmlz", "*.zip"),
+                new FileChooser.ExtensionFilter("XML Files", "*.xml"),
+                new FileChooser.ExtensionFilter("Compressed XML Files", "*.xml.gz", "*.xmlz", "*.zip"));
+    }
 
-            if (!element.hasAttribute("name") || element.getAttribute("name").trim().isEmpty()) {
-                String syntheticName = "synth_" + element.getNodeName() + "_" + UUID.randomUUID().toString().substring(0, 5);
-                element.setAttribute("name", syntheticName);
-                System.out.println("Assigned synthetic name '" + syntheticName + "' to node: " + element.getNodeName());
+    /**
+     * Builds the skeleton of a file in the background and shows it in the read-only
+     * streaming view. Only the skeleton is kept in memory; elements are parsed when selected.
+     */
+    private void openStreaming(File file) {
+        javafx.concurrent.Task<StreamingDocument> task = new javafx.concurrent.Task<>() {
+            @Override
+            protected StreamingDocument call() throws Exception {
+                return StreamingDocument.open(file.toPath());
             }
+        };
+        task.setOnSucceeded(event -> showStreamingDocument(task.getValue(), file));
+        task.setOnFailed(event -> showAlert("Error loading XML",
+                "Failed to open " + file.getName() + " in streaming mode: " + task.getException().getMessage(),
+                Alert.AlertType.ERROR));
+        Thread thread = new Thread(task, "xml-skeleton");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void showStreamingDocument(StreamingDocument document, File file) {
+        closeStreamingDocument();
+        streamingDocument = document;
+        xmlDocument = null; // Nothing to edit or save
+        searchPanel.setDocument(null); // XPath needs the DOM
+        currentFile = null;
+        fileWatcher.watch(null);
+        loadStrategy = LoadStrategy.STREAMING_READ_ONLY;
+        renderedContainer = null;
+        highlightedNodeName = null;
+        sceneLayouts.clear();
+
+        XmlSkeleton skeleton = document.getSkeleton();
+        SkeletonTreeItem rootItem = new SkeletonTreeItem(skeleton, skeleton.getRoot());
+        rootItem.setExpanded(true);
+        xmlTreeView.setRoot(rootItem);
+        showStreamingSource(rootItem);
+
+        missingRecentFiles.remove(file.getAbsolutePath());
+        recentFilesManager.addFile(file.getAbsolutePath());
+        updateRecentFilesMenu();
+
+        // LOGGING
+        System.out.printf("🗂️ Streaming view of %s: %,d elements, %,d bytes, skeleton built in %.1f ms (read-only)%n",
+                file.getName(), skeleton.getElementCount(), skeleton.getFileBytes(), skeleton.getElapsedNanos() / 1_000_000.0);
+    }
+
+    private void showStreamingSource(SkeletonTreeItem item) {
+        try {
+            setSourceText(streamingDocument.readSource(item.getElement()));
+        } catch (IOException e) {
+            setSourceText("<!-- Failed to read element: " + e.getMessage() + " -->");
         }
+    }
 
-        org.w3c.dom.NodeList children = currentNode.getChildNodes();
-        for (int i = 0; i < children.getLength(); i++) {
-            normalizeXmlNames(children.item(i));
+    private void closeStreamingDocument() {
+        if (streamingDocument == null) return;
+        try {
+            streamingDocument.close();
+        } catch (IOException e) {
+            System.err.println("Failed to close the streaming view: " + e.getMessage());
         }
+        streamingDocument = null;
+    }
+
+    /**
+     * The DOM node of a tree item. Items of the streaming view are materialized on demand.
+     */
+    private Node nodeOf(TreeItem<XmlNodeWrapper> item) {
+        if (item instanceof SkeletonTreeItem && streamingDocument != null) {
+            try {
+                Node node = streamingDocument.materialize(((SkeletonTreeItem) item).getElement());
+                // LOGGING
+                System.out.println("🗂️ Streaming view cache: " + streamingDocument.getCacheSummary());
+                return node;
+            } catch (IOException e) {
+                showAlert("Streaming View Error", "Failed to read element: " + e.getMessage(), Alert.AlertType.ERROR);
+                return null;
+            }
+        }
+        return item.getValue().getXmlNode();
+    }
+
+    /**
+     * Assigns a unique 'name' attribute to any element missing one, in one pass.
+     */
+    private void normalizeXmlNames(Element rootElement) {
+        int assigned = NameAllocator.forDocument(rootElement.getOwnerDocument()).normalize(rootElement);
+        // LOGGING
+        if (assigned > 0) {
+            System.out.println("Assigned synthetic names to " + assigned + " element(s) without a name");
+        }
+    }
+
+    /**
+     * Profiles the file with the streaming profiler and returns the load strategy for it.
+     * Falls back to the full tree if the file cannot be profiled (the DOM parser then
+     * reports the actual problem).
+     */
+    private LoadStrategy chooseLoadStrategy(File file) {
+        try {
+            DocumentProfiler.DocumentProfile profile = new DocumentProfiler(
+                    XmlSchemaReader.getInstance().getBinaryContentElementTypes(), 0).profile(file.toPath());
+            LoadStrategy strategy = profile.recommendedLoadStrategy();
+            // LOGGING
+            System.out.printf("📊 Profiled %s: %,d elements, depth %d, %d binary payload(s), %.1f ms -> %s%n",
+                    file.getName(), profile.elementCount(), profile.maxDepth(), profile.binaryPayloadCount(),
+                    profile.elapsedMillis(), strategy);
+            return strategy;
+        } catch (Exception e) {
+            System.err.println("Profiling failed, loading the full tree: " + e.getMessage());
+            return LoadStrategy.FULL_TREE;
+        }
+    }
+
+    /**
+     * Creates the TreeView root for the document, eagerly or lazily depending on the load strategy.
+     */
+    private TreeItem<XmlNodeWrapper> createTreeRoot(Element rootElement, String displayName) {
+        XmlNodeWrapper rootWrapper = new XmlNodeWrapper(displayName, rootElement);
+        if (loadStrategy == LoadStrategy.LAZY_TREE) {
+            return new LazyXmlTreeItem(rootWrapper);
+        }
+        TreeItem<XmlNodeWrapper> rootItem = new TreeItem<>(rootWrapper);
+        buildTree(rootElement, rootItem); // Your existing recursive tree builder
+        return rootItem;
     }
 
     private void buildTree(Node node, TreeItem<XmlNodeWrapper> parentItem) {
@@ -521,23 +1381,39 @@ public class XmlEditorController implements NodeEditDialog.EditDialogListener {
 
     // --- Node Information and SVG Generation ---
 
+    private void setSourceText(CharSequence text) {
+        xmlSourceText = text == null ? "" : text;
+        sourceView.setSourceText(xmlSourceText);
+    }
+
     private void displayNodeInfo(Node selectedItem) {
         // Ensures the XML source tab is visible. Now we update the WebView via the Tab Listener.
-        if (xmlSourceArea.getText().isEmpty()) {
+        if (xmlSourceText.isEmpty()) {
             tabPane.getSelectionModel().select(0);
             svgWebView.getEngine().loadContent("<html><body><h1>Load an XML file first.</h1></body></html>");
             return;
         }
 
-        if (view_mode_defined_for_testing == 0) { // XML Source Tab (Index 0)
-            //==========displaying as highlited text
-            // Display the full, highlighted source in the WebView
-            String highlightedHtml = XmlHighlighter.highlight(xmlSourceArea.getText());
-            svgWebView.getEngine().loadContent(highlightedHtml);
+        if (tabPane.getSelectionModel().getSelectedIndex() == CANVAS_PREVIEW_TAB_INDEX) {
+            // The canvas preview draws straight from the DOM; the WebView is not touched
+            showInCanvasPreview(selectedItem);
+            return;
+        }
+
+        if (view_mode_defined_for_testing == 0) { // XML Source Tab
+            //==========displaying as highlighted text
+            // The virtualized source view only styles the visible lines, so instead of
+            // building one HTML string for the whole document we just switch to its tab.
+            tabPane.getSelectionModel().select(SOURCE_TAB_INDEX);
         } else if (view_mode_defined_for_testing == 1) { // SVG Visualization Tab (Index 1)
             //====== Displaying as graphic svg file format
             // Ensure SVG is displayed if a node is selected
-            if (selectedItem != null) {
+            if (selectedItem != null && renderedContainer != null
+                    && (selectedItem == renderedContainer || selectedItem.getParentNode() == renderedContainer)) {
+                // Still inside the rendered container: only move the highlight
+                String childName = selectedItem == renderedContainer ? "" : getNameAttribute(selectedItem);
+                highlightInSvg(childName.isEmpty() ? null : childName);
+            } else if (selectedItem != null) {
                 generateAndDisplaySvg(selectedItem);
             } else {
                 svgWebView.getEngine().loadContent("<html><body><h1>Select a node to see the visualization.</h1></body></html>");
@@ -546,7 +1422,18 @@ public class XmlEditorController implements NodeEditDialog.EditDialogListener {
     }
 
     private void generateAndDisplaySvg(Node selectedNode) {
+        long startNanos = System.nanoTime();
         try {
+            // 0. Same content as the SVG on screen (e.g. after an edit outside the container): keep it
+            long contentHash = SubtreeHashes.forDocument(selectedNode.getOwnerDocument()).hashOf(selectedNode);
+            if (renderedContainer != null && contentHash == renderedContentHash) {
+                renderedContainer = selectedNode;
+                highlightInSvg(null);
+                // LOGGING
+                System.out.printf("🖼️ SVG preview: unchanged, kept (%.2f ms)%n", (System.nanoTime() - startNanos) / 1_000_000.0);
+                return;
+            }
+
             // 1. Prepare XSLT Transformer
             TransformerFactory factory = TransformerFactory.newInstance();
 
@@ -563,15 +1450,261 @@ public class XmlEditorController implements NodeEditDialog.EditDialogListener {
             transformer.transform(source, new StreamResult(writer));
             String svgContent = writer.toString();
 
+            // LOGGING
+            System.out.printf("🖼️ SVG preview: XSLT %.2f ms (%d chars of SVG)%n",
+                    (System.nanoTime() - startNanos) / 1_000_000.0, svgContent.length());
+
             // 4. Display SVG in WebView
+            svgLoadStartNanos = System.nanoTime();
             svgWebView.getEngine().loadContent(svgContent, "image/svg+xml");
+            renderedContainer = selectedNode;
+            renderedContentHash = contentHash;
+            highlightedNodeName = null;
 
         } catch (Exception e) {
+            renderedContainer = null;
             e.printStackTrace();
             svgWebView.getEngine().loadContent("<h1>Error generating SVG.</h1><p>" + e.getMessage() + "</p>");
         }
     }
 
+    /**
+     * Shows a node in the canvas preview. Like the SVG navigation mode, selecting the
+     * previewed container or one of its children only moves the highlight.
+     */
+    private void showInCanvasPreview(Node selectedNode) {
+        if (selectedNode == null) return;
+        Node container = scenePreview.getContainer();
+        if (container != null && (selectedNode == container || selectedNode.getParentNode() == container)) {
+            String childName = selectedNode == container ? "" : getNameAttribute(selectedNode);
+            scenePreview.setSelectedNodeName(childName.isEmpty() ? null : childName);
+            return;
+        }
+
+        scenePreview.setContainer(selectedNode, getSceneLayout(selectedNode));
+        // LOGGING: canvas frame time, for comparison with the SVG/WebView path
+        System.out.printf("🎨 Canvas preview: %d components, frame %.2f ms, %d layout issue(s)%n",
+                scenePreview.getComponentCount(), scenePreview.getLastFrameNanos() / 1_000_000.0,
+                scenePreview.getLayout() == null ? 0 : scenePreview.getLayout().getIssueCount());
+    }
+
+    /**
+     * Returns the cached spatial layout of a container, building it on first use.
+     * Containers without a name cannot be tracked across refreshes and are never cached.
+     */
+    private SceneLayout getSceneLayout(Node container) {
+        if (!(container instanceof Element)) return null;
+        String containerName = getNameAttribute(container);
+        if (containerName.isEmpty()) {
+            return SceneLayout.of((Element) container);
+        }
+        return sceneLayouts.computeIfAbsent(containerName, name -> SceneLayout.of((Element) container));
+    }
+
+    /**
+     * Keeps the cached layouts in sync after an element's attributes changed: the layout of
+     * the element's container gets one index update instead of a rebuild, and the element's
+     * own layout (if it is a container: its size, label or name may have changed) is dropped.
+     * @param previousName The element's name before the change
+     */
+    private void updateSceneLayout(Element element, String previousName) {
+        sceneLayouts.remove(previousName);
+        sceneLayouts.remove(element.getAttribute("name"));
+        if (!(element.getParentNode() instanceof Element)) return;
+        String containerName = getNameAttribute(element.getParentNode());
+        SceneLayout layout = sceneLayouts.get(containerName);
+        if (layout != null && !layout.update(element)) {
+            // E.g. the component was renamed or just got its first x/y: rebuild on next use
+            sceneLayouts.remove(containerName);
+        }
+    }
+
+    private void invalidateSceneLayout(Node container) {
+        sceneLayouts.remove(getNameAttribute(container));
+    }
+
+    /**
+     * Drops the cached layouts of a subtree that is being removed (the node itself and any
+     * nested containers), so they are not found again under their names.
+     */
+    private void invalidateSceneLayoutsIn(Node removed) {
+        if (sceneLayouts.isEmpty() || !(removed instanceof Element)) return;
+        invalidateSceneLayout(removed);
+        NodeList descendants = ((Element) removed).getElementsByTagName("*");
+        for (int i = 0; i < descendants.getLength() && !sceneLayouts.isEmpty(); i++) {
+            invalidateSceneLayout(descendants.item(i));
+        }
+    }
+
+    /**
+     * Refreshes the canvas preview of the container it shows (looked up again by name, as it
+     * may have been replaced, e.g. by a merge or an external change).
+     */
+    private void rebindCanvasPreview() {
+        Node container = scenePreview.getContainer();
+        if (container == null || xmlDocument == null) return;
+        String containerName = getNameAttribute(container);
+        Node refreshed = containerName.isEmpty() ? null : findNodeByName(containerName);
+        if (refreshed != null) {
+            scenePreview.setContainer(refreshed, getSceneLayout(refreshed));
+        }
+    }
+
+    // --- Canvas preview callbacks (same actions as the SVG bridge) ---
+
+    @Override
+    public void fireMoveNodeRequest(String nodeName, double x, double y) {
+        if (xmlDocument == null) {
+            // Read-only streaming view: drop the dragged position and show the container unchanged
+            Node container = scenePreview.getContainer();
+            invalidateSceneLayout(container);
+            scenePreview.setContainer(container, getSceneLayout(container));
+            return;
+        }
+        moveNode(nodeName, x, y);
+    }
+
+    @Override
+    public void firePreviewNodeClicked(String nodeName, String nodeType) {
+        selectNodeFromSvg(nodeName);
+        if (nodeName != null && !nodeName.isEmpty()) {
+            openEditDialogForNode(nodeName, nodeType);
+        }
+    }
+
+    /**
+     * Highlights the child group with the given data-node-name in the rendered SVG
+     * (null clears the highlight). Does not re-run the XSLT.
+     */
+    private void highlightInSvg(String nodeName) {
+        highlightedNodeName = nodeName;
+        if (svgWebView.getEngine().getLoadWorker().getState() != javafx.concurrent.Worker.State.SUCCEEDED) {
+            return; // Applied by the load listener once the SVG is ready
+        }
+        String argument = nodeName == null ? "null" : JSONObject.quote(nodeName);
+        svgWebView.getEngine().executeScript(
+                "if (typeof selectNodeInSvg === 'function') { selectNodeInSvg(" + argument + "); }");
+    }
+
+    /**
+     * Selects the TreeView item of a node clicked in the SVG. Called by the SVG's JavaScript;
+     * the TreeView listener then only moves the highlight, as the node is in the rendered container.
+     */
+    public void selectNodeFromSvg(String nodeName) {
+        if (xmlTreeView.getRoot() == null || nodeName == null || nodeName.isEmpty()) return;
+        selectTreeItem(findTreeItemByName(xmlTreeView.getRoot(), nodeName));
+    }
+
+    /**
+     * Selects a search result in the TreeView.
+     */
+    @Override
+    public void fireSearchResultSelected(Node node) {
+        Element element = XPathSearchPanel.elementOf(node);
+        if (element == null || xmlDocument == null || element.getOwnerDocument() != xmlDocument || xmlTreeView.getRoot() == null) {
+            return; // Result of a replaced document; the panel is already searching the current one
+        }
+        selectTreeItem(findTreeItemForNode(xmlTreeView.getRoot(), element));
+    }
+
+    /**
+     * Selects the element of a diff change in the TreeView (the open document is the new side).
+     */
+    @Override
+    public void fireDiffChangeSelected(StructuralDiff.Change change) {
+        Element element = change.right();
+        if (element == null || xmlDocument == null || xmlTreeView.getRoot() == null) return;
+        if (element.getOwnerDocument() != xmlDocument) {
+            // The document was reloaded since the diff: find the element by name
+            String name = element.getAttribute("name");
+            element = name.isEmpty() ? null : (Element) findNodeByName(name);
+        }
+        selectTreeItem(findTreeItemForNode(xmlTreeView.getRoot(), element));
+    }
+
+    /**
+     * Called on the watcher thread when the current file changed on disk.
+     */
+    @Override
+    public void fireFileChangedOnDisk(java.nio.file.Path file, int eventCount) {
+        // LOGGING
+        System.out.println("👀 " + file.getFileName() + " changed on disk (" + eventCount + " file event(s))");
+        Platform.runLater(() -> handleExternalChange(file.toFile()));
+    }
+
+    private void selectTreeItem(TreeItem<XmlNodeWrapper> item) {
+        if (item == null) return;
+
+        // Collapsed ancestors have no row, so expand them before selecting
+        for (TreeItem<XmlNodeWrapper> parent = item.getParent(); parent != null; parent = parent.getParent()) {
+            parent.setExpanded(true);
+        }
+        xmlTreeView.getSelectionModel().select(item);
+        xmlTreeView.scrollTo(xmlTreeView.getRow(item));
+    }
+
+    /**
+     * Finds the TreeView item of a named node by walking down the DOM ancestor path, so
+     * only the items on that path are touched (lazily built trees stay lazy).
+     */
+    private TreeItem<XmlNodeWrapper> findTreeItemByName(TreeItem<XmlNodeWrapper> root, String nodeName) {
+        if (streamingDocument != null) {
+            return findSkeletonItemByName(nodeName);
+        }
+        Node target = xmlDocument == null ? null : findNodeByName(nodeName);
+        return findTreeItemForNode(root, target);
+    }
+
+    /**
+     * Finds the TreeView item of a DOM node by walking down its ancestor path.
+     */
+    private TreeItem<XmlNodeWrapper> findTreeItemForNode(TreeItem<XmlNodeWrapper> root, Node target) {
+        if (target == null) return null;
+
+        Deque<Node> path = new ArrayDeque<>();
+        for (Node node = target; node != null && node != root.getValue().getXmlNode(); node = node.getParentNode()) {
+            path.push(node);
+        }
+        TreeItem<XmlNodeWrapper> item = root;
+        while (!path.isEmpty()) {
+            Node next = path.pop();
+            TreeItem<XmlNodeWrapper> match = null;
+            for (TreeItem<XmlNodeWrapper> child : item.getChildren()) {
+                if (child.getValue().getXmlNode() == next) {
+                    match = child;
+                    break;
+                }
+            }
+            if (match == null) return null;
+            item = match;
+        }
+        return item;
+    }
+
+    /**
+     * Streaming view: the clicked node is a child of the rendered container, which is the
+     * selected item or (when a child is already selected) its parent.
+     */
+    private TreeItem<XmlNodeWrapper> findSkeletonItemByName(String nodeName) {
+        XmlSkeleton skeleton = streamingDocument.getSkeleton();
+        TreeItem<XmlNodeWrapper> selectedItem = xmlTreeView.getSelectionModel().getSelectedItem();
+        if (selectedItem == null) return null;
+        for (TreeItem<XmlNodeWrapper> container : Arrays.asList(selectedItem, selectedItem.getParent())) {
+            if (container == null) continue;
+            for (TreeItem<XmlNodeWrapper> child : container.getChildren()) {
+                if (child instanceof SkeletonTreeItem
+                        && nodeName.equals(skeleton.getNameAttribute(((SkeletonTreeItem) child).getElement()))) {
+                    return child;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static String getNameAttribute(Node node) {
+        return node instanceof Element ? ((Element) node).getAttribute("name") : "";
+    }
+
     // --- Utility ---
     private void showAlert(String title, String message, Alert.AlertType type) {
         Alert alert = new Alert(type);
@@ -591,6 +1724,25 @@ public class XmlEditorController implements NodeEditDialog.EditDialogListener {
         if (xmlDocument == null) return;
 
         if (currentFile != null) {
+            // Another program changed the file since it was loaded or saved: do not overwrite it silently
+            if (currentFile.exists() && currentFile.lastModified() != savedFileModified) {
+                Alert confirm = new Alert(Alert.AlertType.CONFIRMATION);
+                confirm.setTitle("Save");
+                confirm.setHeaderText(currentFile.getName() + " was changed on disk by another program since it was opened.");
+                confirm.setContentText("Saving replaces those changes with the document shown in the editor.");
+                ButtonType overwrite = new ButtonType("Overwrite", ButtonBar.ButtonData.OK_DONE);
+                confirm.getButtonTypes().setAll(overwrite, ButtonType.CANCEL);
+                if (confirm.showAndWait().orElse(ButtonType.CANCEL) != overwrite) return;
+                saveXmlToFile(currentFile);
+                return;
+            }
+            // Nothing changed since the file was loaded or saved, and the file is untouched: skip the write
+            if (!SubtreeHashes.forDocument(xmlDocument).isDirty() && currentFile.lastModified() == savedFileModified) {
+                // LOGGING
+                System.out.println("💾 " + currentFile.getName() + " has no unsaved changes, nothing written");
+                showAlert("Save", "No changes to save.", Alert.AlertType.INFORMATION);
+                return;
+            }
             saveXmlToFile(currentFile);
         } else {
             // If currentFile is null (new/unsaved document), prompt Save As
@@ -603,18 +1755,34 @@ public class XmlEditorController implements NodeEditDialog.EditDialogListener {
         if (xmlDocument == null) return;
 
         FileChooser fileChooser = new FileChooser();
-        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("XML Files", "*.xml"));
+        // One filter per container format; the last format used is preselected
+        Map<FileChooser.ExtensionFilter, DocumentContainer> formats = new LinkedHashMap<>();
+        for (DocumentContainer container : DocumentContainer.values()) {
+            FileChooser.ExtensionFilter filter = new FileChooser.ExtensionFilter(
+                    container.getDescription() + " (*" + container.getExtension() + ")", "*" + container.getExtension());
+            formats.put(filter, container);
+            fileChooser.getExtensionFilters().add(filter);
+            if (container == recentFilesManager.getLastSaveContainer()) {
+                fileChooser.setSelectedExtensionFilter(filter);
+            }
+        }
 
         // Suggest a default filename
+        DocumentContainer preselected = recentFilesManager.getLastSaveContainer();
         if (currentFile != null) {
-            fileChooser.setInitialFileName(currentFile.getName());
+            fileChooser.setInitialFileName(preselected.withExtension(currentFile.getName()));
         } else {
-            fileChooser.setInitialFileName("new_document.xml");
+            fileChooser.setInitialFileName(preselected.withExtension("new_document.xml"));
         }
 
         File file = fileChooser.showSaveDialog(null);
         if (file != null) {
-            saveXmlToFile(file);
+            // The chosen format decides the container; the extension is adjusted to match it
+            DocumentContainer container = formats.getOrDefault(fileChooser.getSelectedExtensionFilter(),
+                    DocumentContainer.forFileName(file.getName()));
+            File target = new File(file.getParentFile(), container.withExtension(file.getName()));
+            recentFilesManager.setLastSaveContainer(container);
+            saveXmlToFile(target);
         }
     }
 
@@ -627,16 +1795,25 @@ public class XmlEditorController implements NodeEditDialog.EditDialogListener {
             TransformerFactory transformerFactory = TransformerFactory.newInstance();
             Transformer transformer = transformerFactory.newTransformer();
             DOMSource source = new DOMSource(xmlDocument);
-            StreamResult result = new StreamResult(file);
 
             // Optional: Add pretty printing settings
             transformer.setOutputProperty(javax.xml.transform.OutputKeys.INDENT, "yes");
             transformer.setOutputProperty("{http://xml.apache.org/xslt}indent-amount", "4");
 
-            transformer.transform(source, result);
+            // Compressed containers are written through a compressing stream (no plain copy on disk)
+            DocumentContainer container = DocumentContainer.forSave(file.toPath());
+            try (java.io.OutputStream out = container.openOutput(file.toPath())) {
+                transformer.transform(source, new StreamResult(out));
+            }
+            // LOGGING
+            System.out.println("💾 Saved " + file.getName() + " (" + container + ", " + file.length() + " bytes)");
 
             // Update controller state
+            SubtreeHashes.forDocument(xmlDocument).markSaved();
             this.currentFile = file;
+            savedFileModified = file.lastModified();
+            fileWatcher.watch(file.toPath()); // Our own write is not an external change
+            missingRecentFiles.remove(file.getAbsolutePath());
             recentFilesManager.addFile(file.getAbsolutePath());
             updateRecentFilesMenu();
 
@@ -657,7 +1834,8 @@ public class XmlEditorController implements NodeEditDialog.EditDialogListener {
 
     public void openEditDialogForNode(String nodeName, String nodeType) {
         Platform.runLater(() -> {
-            Node targetNode = findNodeByName(xmlDocument.getDocumentElement(), nodeName);
+            if (xmlDocument == null) return; // Read-only streaming view
+            Node targetNode = findNodeByName(nodeName);
             if (!(targetNode instanceof Element)) {
                 showAlert("Error", "Node not found or invalid type: " + nodeName, Alert.AlertType.ERROR);
                 return;
@@ -689,22 +1867,24 @@ public class XmlEditorController implements NodeEditDialog.EditDialogListener {
 
     @Override
     public void fireUpdateRequest(Element element, Map<String, String> updatedAttrs) {
-        // Convert map to JSON structure expected by handleJsUpdateRequest
-        JSONObject attributesJson = new JSONObject(updatedAttrs);
-
-        JSONObject updateRequest = new JSONObject();
-        updateRequest.put("action", "UPDATE");
-        updateRequest.put("originalName", element.getAttribute("name"));
-        updateRequest.put("attributes", attributesJson);
+        // Hand the map to the typed entry point directly (no JSON round trip)
+        String[] names = new String[updatedAttrs.size()];
+        String[] values = new String[updatedAttrs.size()];
+        int i = 0;
+        for (Map.Entry<String, String> entry : updatedAttrs.entrySet()) {
+            names[i] = entry.getKey();
+            values[i] = entry.getValue();
+            i++;
+        }
 
         // Call the core handler that updates the DOM and refreshes the UI
-        handleJsUpdateRequest(updateRequest.toString());
+        setAttributes(element.getAttribute("name"), names, values);
     }
 
     @Override
     public void fireAddNodeRequest(Dialog<?> dialogToClose, String parentName, String newNodeType) {
         // 1. Add the new node to the DOM
-        addNewNode(parentName, newNodeType);
+        addNewNode(parentName, newNodeType, new DomTransaction());
 
         // 2. Refresh the DOM and TreeView
         refreshUi();
@@ -718,7 +1898,7 @@ public class XmlEditorController implements NodeEditDialog.EditDialogListener {
             }
 
             // 4. Reopen the parent dialog with a fresh instance, forcing a new ListView build
-            Node targetNode = findNodeByName(xmlDocument.getDocumentElement(), parentName);
+            Node targetNode = findNodeByName(parentName);
             if (targetNode != null && targetNode.getNodeType() == Node.ELEMENT_NODE) {
                 openEditDialogForNode(parentName, targetNode.getNodeName());
             }
@@ -729,7 +1909,7 @@ public class XmlEditorController implements NodeEditDialog.EditDialogListener {
     public void fireDeleteNodeRequest(String nodeName) {
         // Close current dialog (will be done in openEditDialogForNode fix)
         // Delegate to existing logic
-        deleteNode(nodeName);
+        deleteNode(nodeName, new DomTransaction());
 
         // Note: Reopening the parent dialog happens implicitly in the recursive call path
     }
@@ -779,7 +1959,7 @@ public class XmlEditorController implements NodeEditDialog.EditDialogListener {
      */
     @FXML
     private void handleNew() {
-        if (xmlDocument != null && currentFile != null) {
+        if (xmlDocument != null && currentFile != null && SubtreeHashes.forDocument(xmlDocument).isDirty()) {
             Alert confirm = new Alert(Alert.AlertType.CONFIRMATION,
                     "Unsaved work may be lost. Create new file?",
                     ButtonType.YES, ButtonType.NO);
@@ -799,8 +1979,14 @@ public class XmlEditorController implements NodeEditDialog.EditDialogListener {
             rootElement.setAttribute("name", "root"); // Ensure root has a unique name
             newDocument.appendChild(rootElement);
 
+            closeStreamingDocument();
             xmlDocument = newDocument;
+            documentRevision++;
+            searchPanel.setDocument(xmlDocument);
+            loadStrategy = LoadStrategy.FULL_TREE;
+            activateSchemaFor(xmlDocument);
             currentFile = null; // Mark as unsaved
+            fileWatcher.watch(null);
             copiedNode = null;
             pasteButton.setDisable(true);
 
@@ -842,7 +2028,7 @@ public class XmlEditorController implements NodeEditDialog.EditDialogListener {
         Optional<ButtonType> result = alert.showAndWait();
 
         if (result.isPresent() && result.get() == ButtonType.YES) {
-            deleteNode(nodeName); // Reuses existing controller logic
+            deleteNode(nodeName, new DomTransaction()); // Reuses existing controller logic
             refreshUi();
         }
     }
@@ -893,11 +2079,12 @@ public class XmlEditorController implements NodeEditDialog.EditDialogListener {
 
         // 2. Ensure the new node and all its children have unique 'name' attributes
         if (importedNode instanceof Element) {
-            renameDuplicatedNodeRecursively((Element) importedNode);
+            NameAllocator.forDocument(xmlDocument).renameAll((Element) importedNode);
         }
 
         // 3. Insert the pasted node *before* the selected node (as a sibling)
-        parentNode.insertBefore(importedNode, targetElement.getNextSibling());
+        new DomTransaction().insertBefore(parentNode, importedNode, targetElement.getNextSibling());
+        invalidateSceneLayout(parentNode);
 
         // 4. Refresh and update clipboard for next paste
         refreshUi();
@@ -928,10 +2115,11 @@ public class XmlEditorController implements NodeEditDialog.EditDialogListener {
         Element newElement = (Element) originalElement.cloneNode(true);
 
         // 2. Ensure the new node and its children have unique 'name' attributes
-        renameDuplicatedNodeRecursively(newElement);
+        NameAllocator.forDocument(xmlDocument).renameAll(newElement);
 
         // 3. Insert the duplicated node into the DOM (as a sibling after the original)
-        parentNode.insertBefore(newElement, originalElement.getNextSibling());
+        new DomTransaction().insertBefore(parentNode, newElement, originalElement.getNextSibling());
+        invalidateSceneLayout(parentNode);
 
         // 4. Refresh the UI
         refreshUi();
@@ -939,24 +2127,191 @@ public class XmlEditorController implements NodeEditDialog.EditDialogListener {
     }
 
 
+    // --- Bulk Edit ---
+
     /**
-     * Helper to ensure a duplicated node structure has unique 'name' attributes.
+     * Opens the bulk edit dialog: one attribute (or the text) of all elements of a type, or
+     * selected by XPath, changed by one expression.
      */
-    private void renameDuplicatedNodeRecursively(Node currentNode) {
-        if (currentNode.getNodeType() == Node.ELEMENT_NODE) {
-            Element element = (Element) currentNode;
+    @FXML
+    private void handleBulkEdit() {
+        if (xmlDocument == null) {
+            showAlert("Bulk Edit", "The document is open read-only (streaming view).", Alert.AlertType.WARNING);
+            return;
+        }
 
-            // Regenerate the unique name
-            String syntheticName = "synth_" + element.getNodeName() + "_" + UUID.randomUUID().toString().substring(0, 5);
-            element.setAttribute("name", syntheticName);
+        // Element types and attribute names of the document, offered in the dialog
+        Set<String> elementTypes = new HashSet<>();
+        Set<String> attributeNames = new HashSet<>();
+        NodeList elements = xmlDocument.getElementsByTagName("*");
+        for (int i = 0; i < elements.getLength(); i++) {
+            Node element = elements.item(i);
+            elementTypes.add(element.getNodeName());
+            for (int k = 0; k < element.getAttributes().getLength(); k++) {
+                attributeNames.add(element.getAttributes().item(k).getNodeName());
+            }
         }
 
-        NodeList children = currentNode.getChildNodes();
-        for (int i = 0; i < children.getLength(); i++) {
-            // Only recurse into Element nodes
-            if (children.item(i).getNodeType() == Node.ELEMENT_NODE) {
-                renameDuplicatedNodeRecursively(children.item(i));
+        TreeItem<XmlNodeWrapper> selectedItem = xmlTreeView.getSelectionModel().getSelectedItem();
+        Node selectedNode = selectedItem == null ? null : nodeOf(selectedItem);
+        Element scope = selectedNode instanceof Element ? (Element) selectedNode : null;
+        String scopeLabel = scope == null ? null : scope.getNodeName() + " '" + scope.getAttribute("name") + "'";
+
+        new BulkEditDialog(elementTypes, attributeNames, scopeLabel).showAndWait()
+                .ifPresent(request -> applyBulkEdit(request, request.selectedNodeOnly() ? scope : xmlDocument.getDocumentElement()));
+    }
+
+    /**
+     * Applies a bulk edit as one transaction: selection, all mutations, one validation pass
+     * and one UI refresh. Invalid results are rolled back unless the user keeps them.
+     */
+    private void applyBulkEdit(BulkEditDialog.Request request, Element scope) {
+        long startNanos = System.nanoTime();
+
+        // 1. Parse the expression and select the targets
+        BulkEdit edit;
+        List<Element> targets;
+        try {
+            edit = BulkEdit.parse(request.field(), request.expression());
+            targets = request.byXPath()
+                    ? BulkEdit.selectByXPath(scope, request.selector())
+                    : BulkEdit.selectByType(scope, request.selector());
+        } catch (Exception e) {
+            showAlert("Bulk Edit", e.getMessage(), Alert.AlertType.ERROR);
+            return;
+        }
+        if (targets.isEmpty()) {
+            showAlert("Bulk Edit", "No element matches " + request.selector() + ".", Alert.AlertType.INFORMATION);
+            return;
+        }
+        long selectedNanos = System.nanoTime();
+
+        // 2. Apply all changes through one transaction
+        DomTransaction transaction = new DomTransaction();
+        BulkEdit.Result result;
+        try {
+            result = edit.apply(targets, transaction);
+        } catch (IllegalArgumentException e) {
+            transaction.rollback();
+            showAlert("Bulk Edit", "No changes applied: " + e.getMessage(), Alert.AlertType.ERROR);
+            return;
+        }
+        if (result.getChangedCount() == 0) {
+            showAlert("Bulk Edit", targets.size() + " element(s) selected, none of them changed.", Alert.AlertType.INFORMATION);
+            return;
+        }
+        long appliedNanos = System.nanoTime();
+
+        // 3. One validation pass over the edited document
+        List<String> problems = validateDocument(5);
+        long validatedNanos = System.nanoTime();
+        if (!problems.isEmpty()) {
+            Alert confirm = new Alert(Alert.AlertType.CONFIRMATION);
+            confirm.setTitle("Bulk Edit");
+            confirm.setHeaderText("The edited document does not validate against the schema. Keep the changes?");
+            confirm.setContentText(String.join("\n", problems));
+            ButtonType keep = new ButtonType("Keep Changes", ButtonBar.ButtonData.OK_DONE);
+            ButtonType discard = new ButtonType("Roll Back", ButtonBar.ButtonData.CANCEL_CLOSE);
+            confirm.getButtonTypes().setAll(keep, discard);
+            if (confirm.showAndWait().orElse(discard) != keep) {
+                transaction.rollback();
+                System.err.println("❌ Bulk edit rolled back after validation: " + problems.getFirst());
+                return;
+            }
+        }
+
+        // 4. One refresh; the edit stays undoable as a whole until the next change
+        sceneLayouts.clear();
+        refreshUi();
+        lastBulkEdit = result;
+        lastBulkEditRevision = documentRevision;
+
+        // LOGGING
+        System.out.printf("📝 Bulk edit of %s: %,d selected, %,d changed; select %.1f ms, apply %.1f ms, validate %.1f ms, refresh %.1f ms%n",
+                edit.getField(), result.getSelectedCount(), result.getChangedCount(),
+                (selectedNanos - startNanos) / 1_000_000.0, (appliedNanos - selectedNanos) / 1_000_000.0,
+                (validatedNanos - appliedNanos) / 1_000_000.0, (System.nanoTime() - validatedNanos) / 1_000_000.0);
+    }
+
+    @FXML
+    private void handleUndoBulkEdit() {
+        if (lastBulkEdit == null || lastBulkEditRevision != documentRevision || xmlDocument == null) {
+            showAlert("Undo Bulk Edit", "There is no bulk edit to undo (the document changed since).", Alert.AlertType.INFORMATION);
+            return;
+        }
+        int restored = lastBulkEdit.undo();
+        lastBulkEdit = null;
+        sceneLayouts.clear();
+        refreshUi();
+        // LOGGING
+        System.out.println("↩️ Bulk edit undone: " + restored + " value(s) restored");
+    }
+
+    @FXML
+    private void handleFind() {
+        searchPanel.focusQuery();
+    }
+
+    /**
+     * Lists the names used by more than one element (edits by name only reach the first of
+     * them), from the attribute index.
+     */
+    @FXML
+    private void handleCheckDuplicateNames() {
+        if (xmlDocument == null) {
+            showAlert("Duplicate Names", "The document is open read-only (streaming view).", Alert.AlertType.WARNING);
+            return;
+        }
+        Map<String, List<Element>> duplicates = AttributeIndex.forDocument(xmlDocument).duplicates(AttributeIndex.NAME_KEY);
+        if (duplicates.isEmpty()) {
+            showAlert("Duplicate Names", "Every element name is unique.", Alert.AlertType.INFORMATION);
+            return;
+        }
+        StringBuilder report = new StringBuilder();
+        int listed = 0;
+        for (Map.Entry<String, List<Element>> entry : duplicates.entrySet()) {
+            if (listed++ == 20) {
+                report.append("... and ").append(duplicates.size() - 20).append(" more");
+                break;
             }
+            StringJoiner types = new StringJoiner(", ");
+            entry.getValue().forEach(element -> types.add(element.getNodeName()));
+            report.append('\'').append(entry.getKey()).append("': ").append(types).append('\n');
+        }
+        // LOGGING
+        System.err.println("⚠️ " + duplicates.size() + " duplicated name(s), e.g. '" + duplicates.keySet().iterator().next() + "'");
+        showAlert("Duplicate Names", duplicates.size() + " name(s) are used by more than one element:\n\n" + report,
+                Alert.AlertType.WARNING);
+    }
+
+    @FXML
+    private void handleEditMenuShowing() {
+        undoBulkEditMenuItem.setDisable(lastBulkEdit == null || lastBulkEditRevision != documentRevision);
+    }
+
+    /**
+     * Validates the current DOM against the active schema.
+     * @return up to maxProblems error messages (empty if valid or no schema is available)
+     */
+    private List<String> validateDocument(int maxProblems) {
+        List<String> problems = new ArrayList<>();
+        try {
+            javax.xml.validation.Validator validator = XmlSchemaReader.getInstance().getCompiledSchema().newValidator();
+            validator.setErrorHandler(new org.xml.sax.helpers.DefaultHandler() {
+                @Override
+                public void error(org.xml.sax.SAXParseException e) {
+                    if (problems.size() < maxProblems) problems.add(e.getMessage());
+                }
+
+                @Override
+                public void fatalError(org.xml.sax.SAXParseException e) {
+                    error(e);
+                }
+            });
+            validator.validate(new DOMSource(xmlDocument));
+        } catch (Exception e) {
+            System.err.println("Validation skipped: " + e.getMessage());
         }
+        return problems;
     }
-}
\ No newline at end of file
+}
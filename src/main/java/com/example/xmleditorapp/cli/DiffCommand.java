@@ -0,0 +1,127 @@
+package com.example.xmleditorapp.cli;
+
+import com.example.xmleditorapp.xml.MappedXmlFile;
+import com.example.xmleditorapp.xml.StructuralDiff;
+import com.example.xmleditorapp.xml.XmlSchemaReader;
+import org.json.JSONObject;
+import org.w3c.dom.Document;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * "diff" command: structural diff of two XML files (old, new), one JSON line per change
+ * and a summary line. Exit code 0 if the documents are identical, 1 if they differ.
+ */
+class DiffCommand {
+
+    private final PrintStream out;
+
+    DiffCommand(PrintStream out) {
+        this.out = out;
+    }
+
+    int run(String[] args) {
+        int maxChanges = 0;
+        Set<String> binaryElements = null;
+        List<Path> inputs = new ArrayList<>();
+
+        // 1. Parse the arguments
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            try {
+                if (arg.equals("--max-changes")) {
+                    maxChanges = Integer.parseInt(args[++i]);
+                } else if (arg.equals("--binary-elements")) {
+                    binaryElements = new LinkedHashSet<>(Arrays.asList(args[++i].split(",")));
+                } else if (arg.startsWith("--")) {
+                    System.err.println("Unknown option: " + arg);
+                    return 2;
+                } else {
+                    inputs.add(Paths.get(arg));
+                }
+            } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+                System.err.println("Missing or invalid value for option: " + arg);
+                return 2;
+            }
+        }
+        if (inputs.size() != 2) {
+            System.err.println("Expected two files: <old> <new>");
+            return 2;
+        }
+
+        // 2. Binary element types come from the schema unless given explicitly
+        if (binaryElements == null) {
+            binaryElements = XmlSchemaReader.getInstance().getBinaryContentElementTypes();
+        }
+
+        // 3. Parse both files in parallel, then compare
+        long start = System.nanoTime();
+        Document left;
+        Document right;
+        try {
+            CompletableFuture<Document> parsedLeft = CompletableFuture.supplyAsync(() -> parse(inputs.get(0)));
+            right = parse(inputs.get(1));
+            left = parsedLeft.join();
+        } catch (RuntimeException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            System.err.println("Cannot read input: " + cause.getMessage());
+            return 2;
+        }
+        long parsedNanos = System.nanoTime();
+        StructuralDiff.Result result = new StructuralDiff(binaryElements, maxChanges).compare(left, right);
+
+        for (StructuralDiff.Change change : result.getChanges()) {
+            JSONObject json = new JSONObject();
+            json.put("type", "change");
+            json.put("kind", change.kind().name());
+            json.put("path", change.path());
+            if (change.field() != null) json.put("attribute", change.field());
+            if (change.oldValue() != null) json.put("old", change.oldValue());
+            if (change.newValue() != null) json.put("new", change.newValue());
+            out.println(json);
+        }
+
+        JSONObject summary = new JSONObject();
+        summary.put("type", "summary");
+        summary.put("old", inputs.get(0).toString());
+        summary.put("new", inputs.get(1).toString());
+        summary.put("changes", result.getChanges().size());
+        summary.put("truncated", result.isTruncated());
+        for (StructuralDiff.ChangeKind kind : StructuralDiff.ChangeKind.values()) {
+            summary.put(kind.name().toLowerCase(), result.count(kind));
+        }
+        summary.put("comparedElements", result.getComparedElements());
+        summary.put("identicalSubtrees", result.getSkippedSubtrees());
+        summary.put("parseMillis", round((parsedNanos - start) / 1_000_000.0));
+        summary.put("diffMillis", round(result.elapsedMillis()));
+        out.println(summary);
+
+        return result.isIdentical() ? 0 : 1;
+    }
+
+    // As written (no name normalization), so the names compared are the files' own
+    private static Document parse(Path file) {
+        try (MappedXmlFile mapped = MappedXmlFile.open(file);
+             InputStream in = mapped.openStream()) {
+            Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(in);
+            document.normalize();
+            return document;
+        } catch (Exception e) {
+            throw new RuntimeException(new Exception(file + ": " + e.getMessage(), e));
+        }
+    }
+
+    private static double round(double millis) {
+        return Math.round(millis * 100.0) / 100.0;
+    }
+}
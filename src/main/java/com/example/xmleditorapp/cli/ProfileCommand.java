@@ -0,0 +1,144 @@
+package com.example.xmleditorapp.cli;
+
+import com.example.xmleditorapp.xml.DocumentProfiler;
+import com.example.xmleditorapp.xml.XmlSchemaReader;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * "profile" command: streams each XML file once (no DOM) and writes its structural
+ * profile (element counts, depth, binary payloads, largest subtrees) as a JSON line.
+ */
+class ProfileCommand {
+
+    private final PrintStream out;
+
+    ProfileCommand(PrintStream out) {
+        this.out = out;
+    }
+
+    int run(String[] args) {
+        int top = DocumentProfiler.DEFAULT_TOP_SUBTREES;
+        Set<String> binaryElements = null;
+        List<Path> inputs = new ArrayList<>();
+
+        // 1. Parse the arguments
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            try {
+                if (arg.equals("--top")) {
+                    top = Integer.parseInt(args[++i]);
+                } else if (arg.equals("--binary-elements")) {
+                    binaryElements = new LinkedHashSet<>(Arrays.asList(args[++i].split(",")));
+                } else if (arg.startsWith("--")) {
+                    System.err.println("Unknown option: " + arg);
+                    return 2;
+                } else {
+                    inputs.add(Paths.get(arg));
+                }
+            } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+                System.err.println("Missing or invalid value for option: " + arg);
+                return 2;
+            }
+        }
+
+        List<Path> files;
+        try {
+            files = ValidateCommand.collectXmlFiles(inputs);
+        } catch (IOException e) {
+            System.err.println("Cannot list input files: " + e.getMessage());
+            return 2;
+        }
+        if (files.isEmpty()) {
+            System.err.println("No input files given.");
+            return 2;
+        }
+
+        // 2. Binary element types come from the schema unless given explicitly
+        if (binaryElements == null) {
+            binaryElements = XmlSchemaReader.getInstance().getBinaryContentElementTypes();
+        }
+        DocumentProfiler profiler = new DocumentProfiler(binaryElements, top);
+
+        // 3. One JSON line per file, then a summary line
+        long start = System.nanoTime();
+        int failed = 0;
+        long elements = 0;
+        long bytes = 0;
+        for (Path file : files) {
+            try {
+                DocumentProfiler.DocumentProfile profile = profiler.profile(file);
+                elements += profile.elementCount();
+                bytes += profile.fileBytes();
+                out.println(toJson(profile));
+            } catch (Exception e) {
+                failed++;
+                JSONObject json = new JSONObject();
+                json.put("type", "error");
+                json.put("file", file.toString());
+                json.put("message", String.valueOf(e.getMessage()));
+                out.println(json);
+            }
+        }
+
+        JSONObject summary = new JSONObject();
+        summary.put("type", "summary");
+        summary.put("files", files.size());
+        summary.put("failed", failed);
+        summary.put("elements", elements);
+        summary.put("bytes", bytes);
+        summary.put("millis", round((System.nanoTime() - start) / 1_000_000.0));
+        out.println(summary);
+
+        return failed == 0 ? 0 : 1;
+    }
+
+    private static JSONObject toJson(DocumentProfiler.DocumentProfile profile) {
+        JSONObject counts = new JSONObject();
+        profile.elementCounts().forEach(counts::put);
+
+        JSONArray subtrees = new JSONArray();
+        for (DocumentProfiler.Subtree subtree : profile.largestSubtrees()) {
+            JSONObject json = new JSONObject();
+            json.put("element", subtree.elementName());
+            json.put("name", subtree.nameAttribute());
+            json.put("depth", subtree.depth());
+            json.put("line", subtree.line());
+            json.put("elements", subtree.elementCount());
+            json.put("chars", subtree.chars());
+            subtrees.put(json);
+        }
+
+        JSONObject json = new JSONObject();
+        json.put("type", "file");
+        json.put("file", profile.file().toString());
+        json.put("bytes", profile.fileBytes());
+        json.put("root", profile.rootElement());
+        json.put("elements", profile.elementCount());
+        json.put("attributes", profile.attributeCount());
+        json.put("maxDepth", profile.maxDepth());
+        json.put("textChars", profile.textChars());
+        json.put("binaryPayloads", profile.binaryPayloadCount());
+        json.put("binaryPayloadChars", profile.binaryPayloadChars());
+        json.put("estimatedBinaryBytes", profile.estimatedBinaryBytes());
+        json.put("loadStrategy", profile.recommendedLoadStrategy().name());
+        json.put("millis", round(profile.elapsedMillis()));
+        json.put("elementCounts", counts);
+        json.put("largestSubtrees", subtrees);
+        return json;
+    }
+
+    private static double round(double millis) {
+        return Math.round(millis * 100.0) / 100.0;
+    }
+}
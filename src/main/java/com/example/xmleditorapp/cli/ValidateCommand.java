@@ -0,0 +1,148 @@
+package com.example.xmleditorapp.cli;
+
+import com.example.xmleditorapp.xml.BulkValidator;
+import com.example.xmleditorapp.xml.XmlSchemaReader;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * "validate" command: validates many XML files in parallel against the compiled
+ * ESign schema and writes the results as JSON lines.
+ */
+class ValidateCommand {
+
+    private static final int DEFAULT_MAX_ERRORS = 100;
+
+    private final PrintStream out;
+
+    ValidateCommand(PrintStream out) {
+        this.out = out;
+    }
+
+    int run(String[] args) {
+        int threads = Runtime.getRuntime().availableProcessors();
+        int maxErrors = DEFAULT_MAX_ERRORS;
+        List<Path> inputs = new ArrayList<>();
+
+        // 1. Parse the arguments
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            try {
+                if (arg.equals("--threads")) {
+                    threads = Integer.parseInt(args[++i]);
+                } else if (arg.equals("--max-errors")) {
+                    maxErrors = Integer.parseInt(args[++i]);
+                } else if (arg.startsWith("--")) {
+                    System.err.println("Unknown option: " + arg);
+                    return 2;
+                } else {
+                    inputs.add(Paths.get(arg));
+                }
+            } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+                System.err.println("Missing or invalid value for option: " + arg);
+                return 2;
+            }
+        }
+
+        if (inputs.isEmpty()) {
+            System.err.println("No input files given.");
+            return 2;
+        }
+
+        // 2. Collect all XML files (directories are searched recursively)
+        List<Path> files;
+        try {
+            files = collectXmlFiles(inputs);
+        } catch (IOException e) {
+            System.err.println("Failed to list input files: " + e.getMessage());
+            return 2;
+        }
+
+        // 3. Validate in parallel, sharing the thread-safe compiled Schema
+        BulkValidator validator = new BulkValidator(
+                XmlSchemaReader.getInstance().getCompiledSchema(), threads, maxErrors);
+
+        int[] counts = new int[2]; // [valid, invalid]
+        long start = System.nanoTime();
+        try {
+            validator.validateAll(files, result -> {
+                counts[result.isValid() ? 0 : 1]++;
+                out.println(toJson(result));
+            });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("Validation interrupted.");
+            return 2;
+        }
+        long elapsedNanos = System.nanoTime() - start;
+
+        // 4. Summary line
+        JSONObject summary = new JSONObject();
+        summary.put("type", "summary");
+        summary.put("files", files.size());
+        summary.put("valid", counts[0]);
+        summary.put("invalid", counts[1]);
+        summary.put("threads", validator.getThreads());
+        summary.put("millis", round(elapsedNanos / 1_000_000.0));
+        out.println(summary);
+
+        return counts[1] == 0 ? 0 : 1;
+    }
+
+    static List<Path> collectXmlFiles(List<Path> inputs) throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (Path input : inputs) {
+            if (Files.isDirectory(input)) {
+                try (Stream<Path> walk = Files.walk(input)) {
+                    files.addAll(walk
+                            .filter(Files::isRegularFile)
+                            .filter(p -> p.getFileName().toString().toLowerCase().endsWith(".xml"))
+                            .sorted()
+                            .collect(Collectors.toList()));
+                }
+            } else {
+                // Explicitly named files are always validated, whatever their extension
+                files.add(input);
+            }
+        }
+        return files;
+    }
+
+    private static JSONObject toJson(BulkValidator.FileResult result) {
+        JSONArray issues = new JSONArray();
+        for (BulkValidator.Issue issue : result.issues()) {
+            JSONObject json = new JSONObject();
+            json.put("severity", issue.severity().name());
+            json.put("line", issue.line());
+            json.put("column", issue.column());
+            json.put("message", issue.message() == null ? "" : issue.message());
+            issues.put(json);
+        }
+
+        JSONObject json = new JSONObject();
+        json.put("type", "file");
+        json.put("file", result.file().toString());
+        json.put("valid", result.isValid());
+        json.put("bytes", result.bytes());
+        json.put("millis", round(result.elapsedMillis()));
+        json.put("issues", issues);
+        if (result.droppedIssues() > 0) {
+            json.put("droppedIssues", result.droppedIssues());
+        }
+        return json;
+    }
+
+    private static double round(double millis) {
+        return Math.round(millis * 100.0) / 100.0;
+    }
+}
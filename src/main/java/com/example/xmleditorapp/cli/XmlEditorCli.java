@@ -0,0 +1,69 @@
+package com.example.xmleditorapp.cli;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+
+/**
+ * Command-line entry point for the non-GUI tools of the XML editor.
+ * Usage: XmlEditorCli &lt;command&gt; [options] [arguments]
+ * <p>
+ * Machine-readable results are written to stdout; all logging (including the
+ * schema reader's initialization output) is redirected to stderr.
+ */
+public class XmlEditorCli {
+
+    public static void main(String[] args) {
+        // Keep the real stdout for results and send all console logging to stderr
+        PrintStream results = System.out;
+        System.setOut(System.err);
+
+        if (args.length == 0) {
+            printUsage();
+            System.exit(2);
+        }
+
+        String command = args[0];
+        String[] commandArgs = Arrays.copyOfRange(args, 1, args.length);
+
+        int exitCode;
+        switch (command) {
+            case "validate":
+                exitCode = new ValidateCommand(results).run(commandArgs);
+                break;
+            case "profile":
+                exitCode = new ProfileCommand(results).run(commandArgs);
+                break;
+            case "diff":
+                exitCode = new DiffCommand(results).run(commandArgs);
+                break;
+            case "help":
+            case "--help":
+            case "-h":
+                printUsage();
+                exitCode = 0;
+                break;
+            default:
+                System.err.println("Unknown command: " + command);
+                printUsage();
+                exitCode = 2;
+        }
+
+        results.flush();
+        System.exit(exitCode);
+    }
+
+    private static void printUsage() {
+        System.err.println("Usage: XmlEditorCli <command> [options] [arguments]");
+        System.err.println();
+        System.err.println("Commands:");
+        System.err.println("  validate [--threads N] [--max-errors N] <file-or-directory>...");
+        System.err.println("      Validates XML files against the bundled ESign schema.");
+        System.err.println("      Prints one JSON object per file and a final summary line.");
+        System.err.println("  profile [--top N] [--binary-elements A,B] <file-or-directory>...");
+        System.err.println("      Streams each file once (no DOM) and prints its structural profile:");
+        System.err.println("      element counts, depth, binary payloads, largest subtrees, load strategy.");
+        System.err.println("  diff [--max-changes N] [--binary-elements A,B] <old-file> <new-file>");
+        System.err.println("      Structural diff: elements aligned by name, identical subtrees skipped,");
+        System.err.println("      binary payloads compared by hash. Exit code 1 if the files differ.");
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.xmleditorapp.ui;
+
+import com.example.xmleditorapp.xml.BulkEdit;
+import javafx.collections.FXCollections;
+import javafx.geometry.Insets;
+import javafx.scene.control.*;
+import javafx.scene.layout.GridPane;
+
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Asks for a bulk edit: which elements (by type or XPath, optionally only inside the selected
+ * node), which attribute (or the text) and the expression that computes the new value.
+ */
+public class BulkEditDialog extends Dialog<BulkEditDialog.Request> {
+
+    /**
+     * The edit as entered. {@code selector} is an element type or an XPath expression.
+     */
+    public record Request(boolean byXPath, String selector, boolean selectedNodeOnly, String field, String expression) {
+    }
+
+    public BulkEditDialog(Set<String> elementTypes, Set<String> attributeNames, String selectedNodeLabel) {
+        setTitle("Bulk Edit");
+        setHeaderText("Change an attribute of many elements in one step (undo with Edit → Undo Bulk Edit).");
+
+        // --- Target selection ---
+        ToggleGroup mode = new ToggleGroup();
+        RadioButton byType = new RadioButton("Element type:");
+        RadioButton byXPath = new RadioButton("XPath:");
+        byType.setToggleGroup(mode);
+        byXPath.setToggleGroup(mode);
+        byType.setSelected(true);
+
+        ComboBox<String> typeBox = new ComboBox<>(FXCollections.observableArrayList(new TreeSet<>(elementTypes)));
+        typeBox.getItems().addFirst("*");
+        typeBox.setEditable(true);
+        typeBox.setPromptText("e.g. Button, or * for all");
+
+        TextField xpathField = new TextField();
+        xpathField.setPromptText("e.g. //Scene[@name='Page1']/*[@x]");
+        xpathField.setDisable(true);
+        mode.selectedToggleProperty().addListener((obs, oldV, newV) -> {
+            typeBox.setDisable(newV != byType);
+            xpathField.setDisable(newV != byXPath);
+        });
+
+        CheckBox selectedOnly = new CheckBox(selectedNodeLabel == null
+                ? "Only inside the selected node (nothing selected)"
+                : "Only inside the selected node: " + selectedNodeLabel);
+        selectedOnly.setDisable(selectedNodeLabel == null);
+
+        // --- Field and expression ---
+        TreeSet<String> fields = new TreeSet<>(attributeNames);
+        ComboBox<String> fieldBox = new ComboBox<>(FXCollections.observableArrayList(fields));
+        fieldBox.getItems().add(BulkEdit.TEXT_FIELD);
+        fieldBox.setEditable(true);
+        fieldBox.setPromptText("attribute, or " + BulkEdit.TEXT_FIELD);
+
+        TextField expressionField = new TextField();
+        expressionField.setPromptText("+20");
+        Label help = new Label("+n  -n  *n  /n   arithmetic on numeric values\n"
+                + "=value   fixed value; {value} {name} {type} {index} are replaced\n"
+                + "s/regex/replacement/   regular expression replace (add i to ignore case)");
+        help.setStyle("-fx-font-family: monospace; -fx-font-size: 11px;");
+
+        GridPane grid = new GridPane();
+        grid.setHgap(10);
+        grid.setVgap(8);
+        grid.setPadding(new Insets(10));
+        grid.addRow(0, byType, typeBox);
+        grid.addRow(1, byXPath, xpathField);
+        grid.add(selectedOnly, 0, 2, 2, 1);
+        grid.add(new Separator(), 0, 3, 2, 1);
+        grid.addRow(4, new Label("Attribute:"), fieldBox);
+        grid.addRow(5, new Label("New value:"), expressionField);
+        grid.add(help, 0, 6, 2, 1);
+        getDialogPane().setContent(grid);
+
+        // --- Buttons and Result Converter ---
+        ButtonType applyButtonType = new ButtonType("Apply", ButtonBar.ButtonData.OK_DONE);
+        getDialogPane().getButtonTypes().addAll(applyButtonType, ButtonType.CANCEL);
+
+        Button applyButton = (Button) getDialogPane().lookupButton(applyButtonType);
+        Runnable updateApply = () -> applyButton.setDisable(
+                (byType.isSelected() ? text(typeBox) : xpathField.getText().trim()).isEmpty()
+                        || text(fieldBox).isEmpty() || expressionField.getText().trim().isEmpty());
+        typeBox.getEditor().textProperty().addListener((obs, oldV, newV) -> updateApply.run());
+        typeBox.valueProperty().addListener((obs, oldV, newV) -> updateApply.run());
+        xpathField.textProperty().addListener((obs, oldV, newV) -> updateApply.run());
+        fieldBox.getEditor().textProperty().addListener((obs, oldV, newV) -> updateApply.run());
+        fieldBox.valueProperty().addListener((obs, oldV, newV) -> updateApply.run());
+        expressionField.textProperty().addListener((obs, oldV, newV) -> updateApply.run());
+        mode.selectedToggleProperty().addListener((obs, oldV, newV) -> updateApply.run());
+        updateApply.run();
+
+        setResultConverter(dialogButton -> {
+            if (dialogButton != applyButtonType) return null;
+            return new Request(byXPath.isSelected(),
+                    byXPath.isSelected() ? xpathField.getText().trim() : text(typeBox),
+                    selectedOnly.isSelected(), text(fieldBox), expressionField.getText());
+        });
+    }
+
+    // Editable combo boxes only commit their value on Enter: read the editor text
+    private static String text(ComboBox<String> comboBox) {
+        String text = comboBox.getEditor().getText();
+        if (text == null || text.isBlank()) {
+            text = comboBox.getValue();
+        }
+        return text == null ? "" : text.trim();
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.xmleditorapp.ui;
+
+import com.example.xmleditorapp.xml.XmlNodeWrapper;
+import javafx.collections.ObservableList;
+import javafx.scene.control.TreeItem;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * TreeView item for a DOM element whose child items are only created when they are first
+ * needed (when the item is expanded or its children are otherwise requested).
+ * Used for very large documents, where building the complete tree up front is the
+ * dominant cost of opening the file.
+ */
+public class LazyXmlTreeItem extends TreeItem<XmlNodeWrapper> {
+
+    private boolean childrenLoaded = false;
+
+    public LazyXmlTreeItem(XmlNodeWrapper wrapper) {
+        super(wrapper);
+    }
+
+    /**
+     * Creates the item for an element, labelled like the eagerly built tree ("Type (name)").
+     */
+    public static LazyXmlTreeItem forElement(Element element) {
+        String displayName = element.getNodeName();
+        if (element.hasAttribute("name")) {
+            displayName += " (" + element.getAttribute("name") + ")";
+        }
+        return new LazyXmlTreeItem(new XmlNodeWrapper(displayName, element));
+    }
+
+    @Override
+    public ObservableList<TreeItem<XmlNodeWrapper>> getChildren() {
+        if (!childrenLoaded) {
+            childrenLoaded = true;
+            Node node = getValue().getXmlNode();
+            for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+                if (child.getNodeType() == Node.ELEMENT_NODE) {
+                    super.getChildren().add(forElement((Element) child));
+                }
+            }
+        }
+        return super.getChildren();
+    }
+
+    @Override
+    public boolean isLeaf() {
+        if (childrenLoaded) {
+            return super.getChildren().isEmpty();
+        }
+        // Answer without creating the child items
+        for (Node child = getValue().getXmlNode().getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child.getNodeType() == Node.ELEMENT_NODE) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.xmleditorapp.ui;
+
+import com.example.xmleditorapp.xml.ThreeWayMerge;
+import javafx.geometry.Insets;
+import javafx.scene.control.*;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Lists the conflicts of a three-way merge and asks which side to keep for each one (ours by
+ * default). The result is the set of conflicts to resolve with theirs; cancelling the dialog
+ * cancels the whole merge.
+ */
+public class MergeConflictsDialog extends Dialog<Set<ThreeWayMerge.Conflict>> {
+
+    private static final String OURS = "Keep ours";
+    private static final String THEIRS = "Take theirs";
+
+    // Conflicts resolved with theirs
+    private final Set<ThreeWayMerge.Conflict> takeTheirs = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final ListView<ThreeWayMerge.Conflict> conflictList = new ListView<>();
+
+    public MergeConflictsDialog(String theirsTitle, ThreeWayMerge.Plan plan) {
+        setTitle("Merge Conflicts");
+        setHeaderText(String.format("%,d change(s) from %s merged automatically. %,d conflict(s): "
+                        + "choose the version to keep for each one.",
+                plan.getMergedChangeCount(), theirsTitle, plan.getConflicts().size()));
+        setResizable(true);
+
+        conflictList.getItems().setAll(plan.getConflicts());
+        conflictList.setCellFactory(list -> new ConflictCell());
+        conflictList.setPrefSize(900, 420);
+
+        Button allOurs = new Button("Keep Ours for All");
+        allOurs.setOnAction(event -> {
+            takeTheirs.clear();
+            conflictList.refresh();
+        });
+        Button allTheirs = new Button("Take Theirs for All");
+        allTheirs.setOnAction(event -> {
+            takeTheirs.addAll(plan.getConflicts());
+            conflictList.refresh();
+        });
+        HBox buttons = new HBox(8, allOurs, allTheirs);
+        buttons.setPadding(new Insets(8, 0, 0, 0));
+
+        BorderPane content = new BorderPane(conflictList);
+        content.setBottom(buttons);
+        getDialogPane().setContent(content);
+
+        ButtonType merge = new ButtonType("Merge", ButtonBar.ButtonData.OK_DONE);
+        getDialogPane().getButtonTypes().setAll(merge, ButtonType.CANCEL);
+        setResultConverter(button -> button == merge ? new LinkedHashSet<>(takeTheirs) : null);
+    }
+
+    private static String color(ThreeWayMerge.ConflictKind kind) {
+        return switch (kind) {
+            case CHANGED_DELETED, DELETED_CHANGED -> "#c62828";
+            default -> "#e65100";
+        };
+    }
+
+    /**
+     * The conflict, and the side to keep.
+     */
+    private final class ConflictCell extends ListCell<ThreeWayMerge.Conflict> {
+        private final Label label = new Label();
+        private final ChoiceBox<String> choice = new ChoiceBox<>();
+        private final HBox box = new HBox(10, choice, label);
+
+        ConflictCell() {
+            choice.getItems().setAll(OURS, THEIRS);
+            choice.setOnAction(event -> {
+                ThreeWayMerge.Conflict conflict = getItem();
+                if (conflict == null) return;
+                if (THEIRS.equals(choice.getValue())) {
+                    takeTheirs.add(conflict);
+                } else {
+                    takeTheirs.remove(conflict);
+                }
+            });
+            HBox.setHgrow(label, Priority.ALWAYS);
+        }
+
+        @Override
+        protected void updateItem(ThreeWayMerge.Conflict conflict, boolean empty) {
+            super.updateItem(conflict, empty);
+            setText(null);
+            if (empty || conflict == null) {
+                setGraphic(null);
+                return;
+            }
+            label.setText(conflict.toString());
+            label.setStyle("-fx-text-fill: " + color(conflict.getKind()) + ";");
+            choice.setValue(takeTheirs.contains(conflict) ? THEIRS : OURS);
+            setGraphic(box);
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package com.example.xmleditorapp.ui;
+
+import com.example.xmleditorapp.xml.SceneLayout;
+import javafx.geometry.VPos;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.control.ScrollPane;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.TextAlignment;
+import org.w3c.dom.Node;
+
+/**
+ * Lightweight preview of a container (Scene, Dialog, ...) drawn directly on a JavaFX Canvas.
+ * <p>
+ * It draws the same rectangles and labels as the SVG stylesheet (children with x/y, default
+ * size 10, same colors) but without XSLT, SVG text or a JavaScript runtime: the container's
+ * geometry comes from a {@link SceneLayout}, and every frame is an immediate-mode redraw
+ * from it. Hit testing and snap guides use the layout's spatial index; components flagged by
+ * the overlap/out-of-bounds lint are outlined in red. Supports dragging and the edit-dialog
+ * trigger of the SVG version. The duration of the last frame is kept for comparison with
+ * the WebView path.
+ */
+public class ScenePreviewCanvas extends ScrollPane {
+
+    /**
+     * Receives the user actions of the preview (mirrors the SVG bridge calls).
+     */
+    public interface PreviewListener {
+        // A component was dragged to new (XML) coordinates
+        void fireMoveNodeRequest(String nodeName, double x, double y);
+        // A component was clicked without dragging
+        void firePreviewNodeClicked(String nodeName, String nodeType);
+    }
+
+    // Same geometry and palette as esign.xsl
+    private static final double PADDING = 10;
+    private static final double HEADER_HEIGHT = 24;
+    private static final Color CHILD_FILL = Color.web("#B0C4DE", 0.8);
+    private static final Color CHILD_STROKE = Color.web("#4682B4");
+    private static final Color SELECTED_STROKE = Color.web("#FF8C00");
+    private static final Color LINT_STROKE = Color.web("#E53935");
+    private static final Color GUIDE_STROKE = Color.web("#D81B60");
+    private static final Color CONTAINER_STROKE = Color.web("#999999");
+    private static final Font LABEL_FONT = Font.font("System", 10);
+    private static final Font HEADER_FONT = Font.font("System", 14);
+
+    // Drags shorter than this (in pixels) are treated as clicks
+    private static final double DRAG_THRESHOLD = 1;
+    // Snap when an edge or center is this close to a neighbour's (in pixels)
+    private static final double SNAP_TOLERANCE = 5;
+    private static final double SNAP_SEARCH_RANGE = 200;
+
+    private final Canvas canvas = new Canvas(SceneLayout.DEFAULT_CONTAINER_DIM, SceneLayout.DEFAULT_CONTAINER_DIM);
+    private PreviewListener listener;
+
+    // The rendered container and the geometry of its components
+    private Node container;
+    private SceneLayout layout;
+
+    private int selected = -1;
+    // Drag state: the component being dragged, its (snapped) position and the guides shown
+    private int dragged = -1;
+    private double pressX;
+    private double pressY;
+    private double dragX;
+    private double dragY;
+    private SceneLayout.Snap snap;
+
+    private long lastFrameNanos = 0;
+
+    public ScenePreviewCanvas() {
+        setContent(canvas);
+        setStyle("-fx-background: white;");
+        canvas.addEventHandler(MouseEvent.MOUSE_PRESSED, this::onPressed);
+        canvas.addEventHandler(MouseEvent.MOUSE_DRAGGED, this::onDragged);
+        canvas.addEventHandler(MouseEvent.MOUSE_RELEASED, this::onReleased);
+    }
+
+    public void setPreviewListener(PreviewListener listener) {
+        this.listener = listener;
+    }
+
+    public Node getContainer() {
+        return container;
+    }
+
+    public SceneLayout getLayout() {
+        return layout;
+    }
+
+    /**
+     * Shows a container with its (possibly cached) layout and draws one frame.
+     */
+    public void setContainer(Node container, SceneLayout layout) {
+        String selectedName = this.layout != null && selected >= 0 && selected < this.layout.getComponentCount()
+                ? this.layout.getName(selected) : null;
+        boolean sameContainer = this.layout == layout;
+        this.container = container;
+        this.layout = layout;
+        this.dragged = -1;
+        // Keep the highlight when the same layout is shown again (e.g. after a refresh)
+        this.selected = sameContainer && layout != null ? layout.indexOf(selectedName) : -1;
+
+        double width = layout == null ? SceneLayout.DEFAULT_CONTAINER_DIM : layout.getContainerWidth();
+        double height = layout == null ? SceneLayout.DEFAULT_CONTAINER_DIM : layout.getContainerHeight();
+        canvas.setWidth(width + PADDING * 2);
+        canvas.setHeight(height + HEADER_HEIGHT + PADDING * 2);
+        redraw();
+    }
+
+    /**
+     * Highlights the component with the given name (null clears the highlight).
+     */
+    public void setSelectedNodeName(String nodeName) {
+        selected = layout == null ? -1 : layout.indexOf(nodeName);
+        redraw();
+    }
+
+    /**
+     * Duration of the last redraw, in nanoseconds.
+     */
+    public long getLastFrameNanos() {
+        return lastFrameNanos;
+    }
+
+    public int getComponentCount() {
+        return layout == null ? 0 : layout.getComponentCount();
+    }
+
+    // --------------------------------------------------------------
+    // Painting
+    // --------------------------------------------------------------
+
+    /**
+     * Immediate-mode redraw of the whole preview from the layout.
+     */
+    public void redraw() {
+        long start = System.nanoTime();
+        GraphicsContext g = canvas.getGraphicsContext2D();
+        g.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
+        if (layout == null) {
+            lastFrameNanos = System.nanoTime() - start;
+            return;
+        }
+
+        // 1. Header (with the lint summary) and container frame
+        int issueCount = layout.getIssueCount();
+        g.setFill(Color.BLACK);
+        g.setFont(HEADER_FONT);
+        g.setTextAlign(TextAlignment.LEFT);
+        g.setTextBaseline(VPos.TOP);
+        g.fillText(layout.getContainerLabel() + (issueCount > 0 ? "   ⚠ " + issueCount + " layout issue(s)" : ""),
+                PADDING, PADDING / 2);
+        g.setStroke(CONTAINER_STROKE);
+        g.setLineWidth(1);
+        g.strokeRect(originX(), originY(), layout.getContainerWidth(), layout.getContainerHeight());
+
+        // 2. Components in document order (later ones on top, as in SVG)
+        g.setFont(LABEL_FONT);
+        for (int i = 0; i < layout.getComponentCount(); i++) {
+            if (i != dragged) {
+                drawComponent(g, i, layout.getX(i), layout.getY(i));
+            }
+        }
+
+        // 3. The dragged component is drawn last, above everything (like the SVG appendChild),
+        // together with the guides it snapped to
+        if (dragged >= 0) {
+            drawComponent(g, dragged, dragX, dragY);
+            drawGuides(g);
+        }
+        lastFrameNanos = System.nanoTime() - start;
+    }
+
+    private void drawComponent(GraphicsContext g, int i, double componentX, double componentY) {
+        double x = originX() + componentX;
+        double y = originY() + componentY;
+        double w = layout.getWidth(i);
+        double h = layout.getHeight(i);
+        g.setFill(CHILD_FILL);
+        g.fillRect(x, y, w, h);
+        if (i == selected) {
+            g.setStroke(SELECTED_STROKE);
+            g.setLineWidth(4);
+        } else {
+            g.setStroke(i != dragged && layout.isFlagged(i) ? LINT_STROKE : CHILD_STROKE);
+            g.setLineWidth(2);
+        }
+        g.strokeRect(x, y, w, h);
+        g.setFill(Color.BLACK);
+        g.fillText(layout.getType(i) + ": " + layout.getName(i), x + 5, y + 5);
+    }
+
+    private void drawGuides(GraphicsContext g) {
+        if (snap == null) return;
+        g.setStroke(GUIDE_STROKE);
+        g.setLineWidth(1);
+        g.setLineDashes(4, 4);
+        if (!Double.isNaN(snap.guideX())) {
+            double x = originX() + snap.guideX();
+            g.strokeLine(x, originY(), x, originY() + layout.getContainerHeight());
+        }
+        if (!Double.isNaN(snap.guideY())) {
+            double y = originY() + snap.guideY();
+            g.strokeLine(originX(), y, originX() + layout.getContainerWidth(), y);
+        }
+        g.setLineDashes(null);
+    }
+
+    // --------------------------------------------------------------
+    // Hit testing and mouse handling
+    // --------------------------------------------------------------
+
+    /**
+     * Returns the topmost component at the canvas point, or -1.
+     */
+    public int hitTest(double canvasX, double canvasY) {
+        return layout == null ? -1 : layout.hitTest(canvasX - originX(), canvasY - originY());
+    }
+
+    private void onPressed(MouseEvent event) {
+        if (event.getButton() != MouseButton.PRIMARY) return;
+        dragged = hitTest(event.getX(), event.getY());
+        pressX = event.getX();
+        pressY = event.getY();
+        snap = null;
+        if (dragged >= 0) {
+            dragX = layout.getX(dragged);
+            dragY = layout.getY(dragged);
+        }
+    }
+
+    private void onDragged(MouseEvent event) {
+        if (dragged < 0) return;
+        double x = layout.getX(dragged) + event.getX() - pressX;
+        double y = layout.getY(dragged) + event.getY() - pressY;
+        snap = layout.snap(dragged, x, y, SNAP_TOLERANCE, SNAP_SEARCH_RANGE);
+        dragX = snap.x();
+        dragY = snap.y();
+        redraw();
+    }
+
+    private void onReleased(MouseEvent event) {
+        if (dragged < 0) return;
+        int index = dragged;
+        dragged = -1;
+        snap = null;
+
+        boolean moved = Math.abs(event.getX() - pressX) > DRAG_THRESHOLD || Math.abs(event.getY() - pressY) > DRAG_THRESHOLD;
+        if (moved) {
+            // Same rounding as the SVG endDrag; the layout is updated so the preview stays put
+            layout.move(index, Math.round(dragX), Math.round(dragY));
+            redraw();
+            if (listener != null) {
+                listener.fireMoveNodeRequest(layout.getName(index), layout.getX(index), layout.getY(index));
+            }
+        } else {
+            selected = index;
+            redraw();
+            if (listener != null) {
+                listener.firePreviewNodeClicked(layout.getName(index), layout.getType(index));
+            }
+        }
+    }
+
+    // --------------------------------------------------------------
+    // Helpers
+    // --------------------------------------------------------------
+
+    private double originX() {
+        return PADDING;
+    }
+
+    private double originY() {
+        return PADDING + HEADER_HEIGHT;
+    }
+}
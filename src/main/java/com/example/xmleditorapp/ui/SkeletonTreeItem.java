@@ -0,0 +1,53 @@
+package com.example.xmleditorapp.ui;
+
+import com.example.xmleditorapp.xml.XmlNodeWrapper;
+import com.example.xmleditorapp.xml.XmlSkeleton;
+import javafx.collections.ObservableList;
+import javafx.scene.control.TreeItem;
+
+/**
+ * TreeView item of the read-only streaming view. It stands for an element of an
+ * {@link XmlSkeleton} and holds no DOM node: its child items are created from the skeleton
+ * when it is first expanded, and the DOM of the element is only materialized when it is
+ * selected (see {@link com.example.xmleditorapp.xml.StreamingDocument}).
+ */
+public class SkeletonTreeItem extends TreeItem<XmlNodeWrapper> {
+
+    private final XmlSkeleton skeleton;
+    private final int element;
+    private boolean childrenLoaded = false;
+
+    public SkeletonTreeItem(XmlSkeleton skeleton, int element) {
+        super(new XmlNodeWrapper(label(skeleton, element), null));
+        this.skeleton = skeleton;
+        this.element = element;
+    }
+
+    public int getElement() {
+        return element;
+    }
+
+    @Override
+    public ObservableList<TreeItem<XmlNodeWrapper>> getChildren() {
+        if (!childrenLoaded) {
+            childrenLoaded = true;
+            for (int child = skeleton.getFirstChild(element); child >= 0; child = skeleton.getNextSibling(child)) {
+                super.getChildren().add(new SkeletonTreeItem(skeleton, child));
+            }
+        }
+        return super.getChildren();
+    }
+
+    @Override
+    public boolean isLeaf() {
+        return !skeleton.hasChildren(element);
+    }
+
+    /**
+     * Same label as the DOM-backed tree ("Type (name)").
+     */
+    private static String label(XmlSkeleton skeleton, int element) {
+        String name = skeleton.getNameAttribute(element);
+        return skeleton.getName(element) + (name.isEmpty() ? "" : " (" + name + ")");
+    }
+}
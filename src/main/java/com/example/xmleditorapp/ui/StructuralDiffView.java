@@ -0,0 +1,176 @@
+package com.example.xmleditorapp.ui;
+
+import com.example.xmleditorapp.xml.StructuralDiff;
+import javafx.geometry.Insets;
+import javafx.geometry.Orientation;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.control.SplitPane;
+import javafx.scene.control.TreeCell;
+import javafx.scene.control.TreeItem;
+import javafx.scene.control.TreeView;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.VBox;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Side-by-side view of a {@link StructuralDiff}: the old and the new document as trees that
+ * only contain the changed elements and their ancestors, and the list of changes below.
+ * Selecting a change selects its element on both sides.
+ */
+public class StructuralDiffView extends BorderPane {
+
+    /**
+     * Receives the change selected in the list.
+     */
+    public interface DiffListener {
+        void fireDiffChangeSelected(StructuralDiff.Change change);
+    }
+
+    private final TreeView<Element> leftTree = new TreeView<>();
+    private final TreeView<Element> rightTree = new TreeView<>();
+    private final ListView<StructuralDiff.Change> changeList = new ListView<>();
+    private final Map<Element, TreeItem<Element>> leftItems = new IdentityHashMap<>();
+    private final Map<Element, TreeItem<Element>> rightItems = new IdentityHashMap<>();
+    // Kind of change shown on each element (the first one reported for it)
+    private final Map<Element, StructuralDiff.ChangeKind> marks = new IdentityHashMap<>();
+
+    private DiffListener listener;
+
+    public StructuralDiffView(String leftTitle, String rightTitle, StructuralDiff.Result result) {
+        // 1. Pruned trees of the changed elements
+        for (StructuralDiff.Change change : result.getChanges()) {
+            if (change.left() != null) {
+                itemFor(change.left(), leftItems, leftTree);
+                marks.putIfAbsent(change.left(), change.kind());
+            }
+            if (change.right() != null) {
+                itemFor(change.right(), rightItems, rightTree);
+                marks.putIfAbsent(change.right(), change.kind());
+            }
+        }
+        leftTree.setCellFactory(tree -> new ElementCell());
+        rightTree.setCellFactory(tree -> new ElementCell());
+
+        // 2. Change list; a selected change selects its elements on both sides
+        changeList.getItems().setAll(result.getChanges());
+        changeList.setCellFactory(list -> new ChangeCell());
+        changeList.getSelectionModel().selectedItemProperty().addListener((obs, oldV, change) -> {
+            if (change == null) return;
+            select(leftTree, leftItems.get(change.left()));
+            select(rightTree, rightItems.get(change.right()));
+            if (listener != null) listener.fireDiffChangeSelected(change);
+        });
+
+        SplitPane trees = new SplitPane(titled(leftTitle, leftTree), titled(rightTitle, rightTree));
+        SplitPane content = new SplitPane(trees, changeList);
+        content.setOrientation(Orientation.VERTICAL);
+        content.setDividerPositions(0.6);
+
+        Label summary = new Label(describe(result));
+        summary.setPadding(new Insets(4));
+        setTop(summary);
+        setCenter(content);
+    }
+
+    public void setDiffListener(DiffListener listener) {
+        this.listener = listener;
+    }
+
+    private static String describe(StructuralDiff.Result result) {
+        if (result.isIdentical()) {
+            return String.format("The documents are identical (%.1f ms).", result.elapsedMillis());
+        }
+        return String.format("%,d change(s)%s: %d added, %d removed, %d attribute, %d text, %d payload, %d reordered; "
+                        + "%,d element pair(s) compared, %,d identical subtree(s) skipped, %.1f ms",
+                result.getChanges().size(), result.isTruncated() ? " (first ones only)" : "",
+                result.count(StructuralDiff.ChangeKind.ADDED), result.count(StructuralDiff.ChangeKind.REMOVED),
+                result.count(StructuralDiff.ChangeKind.ATTRIBUTE), result.count(StructuralDiff.ChangeKind.TEXT),
+                result.count(StructuralDiff.ChangeKind.PAYLOAD), result.count(StructuralDiff.ChangeKind.REORDERED),
+                result.getComparedElements(), result.getSkippedSubtrees(), result.elapsedMillis());
+    }
+
+    // The item of an element, creating the items of its ancestors as needed
+    private static TreeItem<Element> itemFor(Element element, Map<Element, TreeItem<Element>> items, TreeView<Element> tree) {
+        TreeItem<Element> item = items.get(element);
+        if (item != null) return item;
+        item = new TreeItem<>(element);
+        item.setExpanded(true);
+        items.put(element, item);
+        Node parent = element.getParentNode();
+        if (parent instanceof Element) {
+            itemFor((Element) parent, items, tree).getChildren().add(item);
+        } else {
+            tree.setRoot(item);
+        }
+        return item;
+    }
+
+    private static void select(TreeView<Element> tree, TreeItem<Element> item) {
+        if (item == null) {
+            tree.getSelectionModel().clearSelection();
+            return;
+        }
+        tree.getSelectionModel().select(item);
+        tree.scrollTo(Math.max(0, tree.getRow(item) - 3));
+    }
+
+    private static VBox titled(String title, TreeView<Element> tree) {
+        Label label = new Label(title);
+        label.setStyle("-fx-font-weight: bold;");
+        label.setPadding(new Insets(2, 4, 2, 4));
+        VBox.setVgrow(tree, javafx.scene.layout.Priority.ALWAYS);
+        return new VBox(label, tree);
+    }
+
+    private static String label(Element element) {
+        String name = element.getAttribute("name");
+        return name.isEmpty() ? element.getNodeName() : element.getNodeName() + " '" + name + "'";
+    }
+
+    private static String color(StructuralDiff.ChangeKind kind) {
+        return switch (kind) {
+            case ADDED -> "#2e7d32";
+            case REMOVED -> "#c62828";
+            case REORDERED -> "#1565c0";
+            default -> "#e65100";
+        };
+    }
+
+    /**
+     * Element label, colored by the kind of change (unchanged ancestors in grey).
+     */
+    private final class ElementCell extends TreeCell<Element> {
+        @Override
+        protected void updateItem(Element element, boolean empty) {
+            super.updateItem(element, empty);
+            if (empty || element == null) {
+                setText(null);
+                setStyle(null);
+                return;
+            }
+            StructuralDiff.ChangeKind kind = marks.get(element);
+            setText(kind == null ? label(element) : label(element) + "  [" + kind.name().toLowerCase() + "]");
+            setStyle(kind == null ? "-fx-text-fill: grey;" : "-fx-text-fill: " + color(kind) + ";");
+        }
+    }
+
+    private static final class ChangeCell extends ListCell<StructuralDiff.Change> {
+        @Override
+        protected void updateItem(StructuralDiff.Change change, boolean empty) {
+            super.updateItem(change, empty);
+            if (empty || change == null) {
+                setText(null);
+                setStyle(null);
+                return;
+            }
+            setText(change.toString());
+            setStyle("-fx-text-fill: " + color(change.kind()) + ";");
+        }
+    }
+}
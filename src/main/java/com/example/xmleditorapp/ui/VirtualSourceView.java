@@ -0,0 +1,288 @@
+package com.example.xmleditorapp.ui;
+
+import com.example.xmleditorapp.xml.FoldedSource;
+import com.example.xmleditorapp.xml.LineIndexedSource;
+import com.example.xmleditorapp.xml.XmlLexer;
+import javafx.collections.FXCollections;
+import javafx.scene.control.CheckMenuItem;
+import javafx.scene.control.ContextMenu;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.control.MenuItem;
+import javafx.scene.control.SeparatorMenuItem;
+import javafx.scene.input.Clipboard;
+import javafx.scene.input.ClipboardContent;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.Text;
+import javafx.scene.text.TextFlow;
+
+import javafx.stage.FileChooser;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.AbstractList;
+import java.util.Collections;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Virtualized, syntax-highlighted XML source viewer.
+ * <p>
+ * The document is kept as a {@link LineIndexedSource}; the ListView only creates cells
+ * for the lines in the viewport (plus the small margin the VirtualFlow keeps), and each
+ * cell tokenizes and styles its line when it is shown. Opening a document therefore costs
+ * one line-index pass, independent of how much of it is ever displayed.
+ * <p>
+ * The text content of binary (base64) elements is folded into one placeholder row (see
+ * {@link FoldedSource}); clicking the placeholder reveals the payload in 64 KB chunks.
+ * The context menu copies the source either complete or with the payloads folded, and
+ * saves the payload of the selected placeholder to a file (decoded while it is written).
+ */
+public class VirtualSourceView extends ListView<Integer> {
+
+    // Very long lines (e.g. base64 payloads) are cut for display; the text itself is untouched
+    private static final int MAX_RENDERED_LINE_CHARS = 2000;
+    private static final double LINE_HEIGHT = 17;
+
+    // Same palette as the XmlHighlighter CSS
+    private static final Color TAG = Color.web("#e06c75");
+    private static final Color ATTRIBUTE_NAME = Color.web("#d19a66");
+    private static final Color ATTRIBUTE_VALUE = Color.web("#98c379");
+    private static final Color COMMENT = Color.web("#5c6370");
+    private static final Color TEXT = Color.web("#abb2bf");
+    private static final Color DOCTYPE = Color.web("#c678dd");
+
+    private static final Font FONT = Font.font("Monospaced", 12);
+
+    private LineIndexedSource source = new LineIndexedSource("");
+    private FoldedSource folded = new FoldedSource(source, null);
+    private Set<String> binaryElementTypes = Collections.emptySet();
+    private final CheckMenuItem foldItem = new CheckMenuItem("Fold binary payloads");
+
+    public VirtualSourceView() {
+        setFixedCellSize(LINE_HEIGHT);
+        setStyle("-fx-background-color: #282c34; -fx-control-inner-background: #282c34;");
+        setCellFactory(listView -> new SourceLineCell());
+
+        foldItem.setSelected(true);
+        foldItem.setOnAction(event -> refold());
+        MenuItem copyFolded = new MenuItem("Copy Source (payloads folded)");
+        copyFolded.setOnAction(event -> copyToClipboard(true));
+        MenuItem copyFull = new MenuItem("Copy Source (full)");
+        copyFull.setOnAction(event -> copyToClipboard(false));
+        MenuItem savePayload = new MenuItem("Save Payload As...");
+        savePayload.setOnAction(event -> savePayload(selectedRegion()));
+        ContextMenu menu = new ContextMenu(foldItem, new SeparatorMenuItem(), copyFolded, copyFull,
+                new SeparatorMenuItem(), savePayload);
+        menu.setOnShowing(event -> savePayload.setDisable(selectedRegion() == null));
+        setContextMenu(menu);
+    }
+
+    /**
+     * Replaces the displayed text. Only the line index and the binary regions are built here.
+     */
+    public void setSourceText(CharSequence text) {
+        this.source = new LineIndexedSource(text);
+        refold();
+        scrollTo(0);
+    }
+
+    /**
+     * Sets the element names whose text content is folded (from the active schema).
+     */
+    public void setBinaryElementTypes(Set<String> binaryElementTypes) {
+        this.binaryElementTypes = binaryElementTypes == null ? Collections.emptySet() : binaryElementTypes;
+        refold();
+    }
+
+    public LineIndexedSource getSource() {
+        return source;
+    }
+
+    /**
+     * Scrolls so that the row containing the character offset is visible.
+     */
+    public void scrollToOffset(int offset) {
+        if (getItems().isEmpty()) return;
+        int row = folded.getRowOfOffset(Math.max(0, Math.min(offset, source.getText().length())));
+        scrollTo(Math.max(0, row - 3));
+        getSelectionModel().select(row);
+    }
+
+    private void refold() {
+        folded = new FoldedSource(source, foldItem.isSelected() ? binaryElementTypes : null);
+        refreshRows();
+    }
+
+    private void refreshRows() {
+        int rowCount = source.getText().length() == 0 ? 0 : folded.getRowCount();
+
+        // Row numbers are generated on demand; no per-row objects are stored
+        setItems(FXCollections.observableList(new AbstractList<Integer>() {
+            @Override
+            public Integer get(int index) {
+                return index;
+            }
+
+            @Override
+            public int size() {
+                return rowCount;
+            }
+        }));
+    }
+
+    private void toggleRow(int row) {
+        if (folded.toggle(row)) {
+            // New items reset the scroll position, so bring the toggled row back into view
+            refreshRows();
+            scrollTo(Math.max(0, row - 3));
+            getSelectionModel().select(row);
+        }
+    }
+
+    private void copyToClipboard(boolean foldPayloads) {
+        String text;
+        if (foldPayloads) {
+            StringBuilder builder = new StringBuilder(source.getText().length());
+            try {
+                new FoldedSource(source, binaryElementTypes).writeFolded(builder);
+            } catch (IOException e) {
+                // StringBuilder does not throw
+                throw new IllegalStateException(e);
+            }
+            text = builder.toString();
+        } else {
+            text = source.getText().toString();
+        }
+        ClipboardContent content = new ClipboardContent();
+        content.putString(text);
+        Clipboard.getSystemClipboard().setContent(content);
+    }
+
+    private FoldedSource.BinaryRegion selectedRegion() {
+        int row = getSelectionModel().getSelectedIndex();
+        return row < 0 || row >= folded.getRowCount() ? null : folded.getRowRegion(row);
+    }
+
+    /**
+     * Writes the decoded payload to a file. Payloads stored gzip-compressed by the editor
+     * are decompressed on the way.
+     */
+    private void savePayload(FoldedSource.BinaryRegion region) {
+        if (region == null) return;
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Save " + region.getElementName() + " Payload");
+        fileChooser.setInitialFileName(region.getElementName() + ".bin");
+        File file = fileChooser.showSaveDialog(getScene() == null ? null : getScene().getWindow());
+        if (file == null) return;
+
+        try (InputStream decoded = new BufferedInputStream(region.openDecodedStream())) {
+            decoded.mark(2);
+            boolean gzip = decoded.read() == 0x1f && decoded.read() == 0x8b;
+            decoded.reset();
+            InputStream content = gzip ? new GZIPInputStream(decoded) : decoded;
+            long bytes = Files.copy(content, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            // LOGGING
+            System.out.printf("💾 Saved %s payload to %s: %,d bytes%s%n", region.getElementName(), file.getName(),
+                    bytes, gzip ? " (decompressed)" : "");
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Failed to save payload: " + e.getMessage());
+        }
+    }
+
+    private static Color colorFor(XmlLexer.TokenType type) {
+        switch (type) {
+            case TAG: return TAG;
+            case ATTRIBUTE_NAME: return ATTRIBUTE_NAME;
+            case ATTRIBUTE_VALUE: return ATTRIBUTE_VALUE;
+            case COMMENT: return COMMENT;
+            case DOCTYPE: return DOCTYPE;
+            default: return TEXT;
+        }
+    }
+
+    private static Text styledText(String value, Color color) {
+        Text run = new Text(value);
+        run.setFont(FONT);
+        run.setFill(color);
+        return run;
+    }
+
+    /**
+     * Renders one display row as a TextFlow of colored Text runs.
+     */
+    private class SourceLineCell extends ListCell<Integer> {
+        private final TextFlow flow = new TextFlow();
+
+        SourceLineCell() {
+            setStyle("-fx-background-color: #282c34; -fx-padding: 0 4 0 4;");
+            setOnMouseClicked(event -> {
+                Integer row = getItem();
+                if (row == null || isEmpty()) return;
+                FoldedSource.RowKind kind = folded.getRowKind(row);
+                if (kind == FoldedSource.RowKind.PLACEHOLDER || kind == FoldedSource.RowKind.MORE) {
+                    toggleRow(row);
+                }
+            });
+        }
+
+        @Override
+        protected void updateItem(Integer row, boolean empty) {
+            super.updateItem(row, empty);
+            setText(null);
+            if (empty || row == null || row >= folded.getRowCount()) {
+                setGraphic(null);
+                return;
+            }
+
+            CharSequence text = source.getText();
+            FoldedSource.RowKind kind = folded.getRowKind(row);
+            FoldedSource.BinaryRegion region = folded.getRowRegion(row);
+            flow.getChildren().clear();
+
+            // 1. The "show more" row of a partly revealed payload
+            if (kind == FoldedSource.RowKind.MORE) {
+                int remaining = region.length() - region.getRevealedChars();
+                flow.getChildren().add(styledText(String.format("… show next %d KB (%,d chars remaining)",
+                        FoldedSource.EXPAND_CHUNK_CHARS / 1024, remaining), DOCTYPE));
+                setGraphic(flow);
+                return;
+            }
+
+            // 2. Source text of the row (for a placeholder row: the part before the payload)
+            int rowStart = folded.getRowStart(row);
+            int rowEnd = folded.getRowEnd(row);
+            int renderEnd = Math.min(rowEnd, rowStart + MAX_RENDERED_LINE_CHARS);
+            XmlLexer.TokenSink renderer = (type, start, end) -> {
+                if (start >= renderEnd) return;
+                flow.getChildren().add(styledText(text.subSequence(start, Math.min(end, renderEnd)).toString(), colorFor(type)));
+            };
+            folded.tokenizeRow(row, renderer);
+            if (rowEnd > renderEnd) {
+                flow.getChildren().add(styledText("  … (+" + (rowEnd - renderEnd) + " chars)", COMMENT));
+            }
+
+            // 3. The placeholder itself and whatever follows the payload on the same line
+            if (kind == FoldedSource.RowKind.PLACEHOLDER) {
+                String hint = region.isExpanded() ? "  [click to fold]" : "  [click to expand]";
+                flow.getChildren().add(styledText("⟪" + region.getPlaceholderText() + "⟫" + hint, COMMENT));
+                folded.tokenizePlaceholderSuffix(row, (type, start, end) ->
+                        flow.getChildren().add(styledText(text.subSequence(start, end).toString(), colorFor(type))));
+            }
+            setGraphic(flow);
+        }
+
+        @Override
+        public void updateSelected(boolean selected) {
+            super.updateSelected(selected);
+            setStyle(selected
+                    ? "-fx-background-color: #3e4451; -fx-padding: 0 4 0 4;"
+                    : "-fx-background-color: #282c34; -fx-padding: 0 4 0 4;");
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.example.xmleditorapp.ui;
+
+import com.example.xmleditorapp.xml.XPathSearch;
+import javafx.application.Platform;
+import javafx.geometry.Insets;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.control.TextField;
+import javafx.scene.control.Tooltip;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.VBox;
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+/**
+ * XPath search over the open document: a query field, a status line and a virtualized list of
+ * the selected nodes, filled while the search runs. Clicking a result selects it in the tree.
+ * When the document changes (after every edit), the last query runs again. The search reads a
+ * copy of the document; its results are mapped to the document's nodes here, on the FX thread.
+ */
+public class XPathSearchPanel extends VBox {
+
+    /**
+     * Receives the node of a clicked result.
+     */
+    public interface SearchListener {
+        void fireSearchResultSelected(Node node);
+    }
+
+    private final XPathSearch search = new XPathSearch();
+    private final TextField queryField = new TextField();
+    private final Button searchButton = new Button("Search");
+    private final Button cancelButton = new Button("Cancel");
+    private final Label statusLabel = new Label("Enter an XPath expression, e.g. //Button[@label='']");
+    private final ListView<Node> resultList = new ListView<>();
+
+    private SearchListener listener;
+    private Document document;
+    private String lastQuery;
+    // Identifies the search whose results are shown; chunks of older searches are dropped
+    private long searchId = 0;
+    // Maps the results of the current search (found in a copy) to the document's nodes
+    private UnaryOperator<Node> toDocument;
+
+    public XPathSearchPanel() {
+        setSpacing(4);
+        setPadding(new Insets(4));
+
+        queryField.setPromptText("XPath, e.g. //Signature[@Signed='1']");
+        queryField.setOnAction(event -> runSearch());
+        HBox.setHgrow(queryField, Priority.ALWAYS);
+        searchButton.setOnAction(event -> runSearch());
+        cancelButton.setOnAction(event -> cancelSearch());
+        cancelButton.setDisable(true);
+        cancelButton.setTooltip(new Tooltip("Stop the running search"));
+
+        resultList.setCellFactory(listView -> new ResultCell());
+        resultList.setOnMouseClicked(event -> {
+            Node selected = resultList.getSelectionModel().getSelectedItem();
+            if (selected != null && listener != null) {
+                listener.fireSearchResultSelected(selected);
+            }
+        });
+        VBox.setVgrow(resultList, Priority.ALWAYS);
+
+        statusLabel.setStyle("-fx-font-size: 11px;");
+        getChildren().addAll(new HBox(4, queryField, searchButton, cancelButton), statusLabel, resultList);
+        setDocument(null);
+    }
+
+    public void setSearchListener(SearchListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Searches this document from now on (null: searching is not available, e.g. in the
+     * read-only streaming view). The last query is repeated on the new document.
+     */
+    public void setDocument(Document document) {
+        this.document = document;
+        queryField.setDisable(document == null);
+        searchButton.setDisable(document == null);
+        if (document == null) {
+            cancelSearch();
+            resultList.getItems().clear();
+            lastQuery = null;
+        } else if (lastQuery != null) {
+            start(lastQuery);
+        }
+    }
+
+    public void focusQuery() {
+        queryField.requestFocus();
+        queryField.selectAll();
+    }
+
+    private void runSearch() {
+        String query = queryField.getText().trim();
+        if (document == null || query.isEmpty()) return;
+        lastQuery = query;
+        start(query);
+    }
+
+    private void start(String query) {
+        long id = ++searchId;
+        resultList.getItems().clear();
+        statusLabel.setText("Searching...");
+        cancelButton.setDisable(false);
+        // Chunks are handled by runLater, so only after this method has set toDocument
+        toDocument = search.search(document, query,
+                chunk -> Platform.runLater(() -> {
+                    // Any edit starts a new search, so the document still has the searched structure
+                    if (id != searchId) return;
+                    List<Node> nodes = new ArrayList<>(chunk.size());
+                    for (Node node : chunk) {
+                        Node mapped = toDocument.apply(node);
+                        if (mapped != null) nodes.add(mapped);
+                    }
+                    resultList.getItems().addAll(nodes);
+                }),
+                outcome -> Platform.runLater(() -> {
+                    if (id != searchId) return;
+                    cancelButton.setDisable(true);
+                    statusLabel.setText(describe(outcome));
+                    // LOGGING
+                    System.out.printf("🔎 XPath %s: %s%n", outcome.expression(), describe(outcome));
+                }));
+    }
+
+    private void cancelSearch() {
+        search.cancel();
+        searchId++;
+        cancelButton.setDisable(true);
+        statusLabel.setText("Search cancelled.");
+    }
+
+    private static String describe(XPathSearch.Outcome outcome) {
+        if (outcome.error() != null) {
+            return "Error: " + outcome.error();
+        }
+        if (outcome.cancelled()) {
+            return "Search cancelled.";
+        }
+        if (outcome.scalar() != null) {
+            return "Result: " + outcome.scalar() + String.format(" (%.1f ms)", outcome.elapsedMillis());
+        }
+        return String.format("%,d match(es) in %.1f ms%s", outcome.count(), outcome.elapsedMillis(),
+                outcome.indexed() ? " (attribute index)" : "");
+    }
+
+    /**
+     * The element a result stands for (the owner of an attribute, the parent of text).
+     */
+    public static Element elementOf(Node node) {
+        if (node instanceof Attr attribute) return attribute.getOwnerElement();
+        if (node instanceof Element element) return element;
+        Node parent = node == null ? null : node.getParentNode();
+        return parent instanceof Element ? (Element) parent : null;
+    }
+
+    /**
+     * "Type 'name'  in Parent 'name'", with "@attr = value" for attribute results.
+     */
+    private static final class ResultCell extends ListCell<Node> {
+        @Override
+        protected void updateItem(Node node, boolean empty) {
+            super.updateItem(node, empty);
+            if (empty || node == null) {
+                setText(null);
+                return;
+            }
+            if (node instanceof Attr attribute) {
+                setText(label(attribute.getOwnerElement()) + "  @" + attribute.getName() + " = " + abbreviate(attribute.getValue()));
+            } else if (node instanceof Element element) {
+                Node parent = element.getParentNode();
+                setText(label(element) + (parent instanceof Element ? "  in " + label((Element) parent) : ""));
+            } else {
+                Node parent = node.getParentNode();
+                setText(abbreviate(node.getNodeValue()) + (parent instanceof Element ? "  in " + label((Element) parent) : ""));
+            }
+        }
+
+        private static String label(Element element) {
+            String name = element.getAttribute("name");
+            return name.isEmpty() ? element.getNodeName() : element.getNodeName() + " '" + name + "'";
+        }
+
+        private static String abbreviate(String text) {
+            if (text == null) return "";
+            String line = text.strip().replace('\n', ' ');
+            return line.length() > 80 ? line.substring(0, 80) + "..." : line;
+        }
+    }
+}
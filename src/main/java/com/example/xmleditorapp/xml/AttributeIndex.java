@@ -0,0 +1,312 @@
+package com.example.xmleditorapp.xml;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Secondary index from (element type, attribute, value) to the elements having that value, so
+ * looking an element up by name, label, FieldName text, ... does not walk the whole DOM.
+ * <p>
+ * Every attribute is indexed, and so is the text of an element under the key {@value #TEXT_KEY}
+ * (its direct text, trimmed; e.g. {@code <FieldName>Signature1</FieldName>}). Values longer than
+ * {@value #MAX_VALUE_LENGTH} characters (embedded payloads) are left out, except names; callers
+ * fall back to a scan for those ({@link #isIndexed}). Lookups return elements in document order.
+ * <p>
+ * There is one index per document (kept as DOM user data), built in one pass on first use.
+ * {@link DomTransaction} keeps it up to date; code that changes the DOM directly must call
+ * {@link #remove}/{@link #add} (or the subtree variants) around the change. The methods are
+ * synchronized because the XPath search reads the index on its own thread.
+ */
+public class AttributeIndex {
+
+    public static final String TEXT_KEY = "#text";
+    public static final String NAME_KEY = "name";
+    public static final int MAX_VALUE_LENGTH = 256;
+    private static final String USER_DATA_KEY = AttributeIndex.class.getName();
+
+    // Rough JVM sizes (compressed oops) for estimateMemoryBytes
+    private static final int HASH_MAP_BYTES = 48;
+    private static final int HASH_ENTRY_BYTES = 32;
+    private static final int LINKED_ENTRY_BYTES = 40;
+    private static final int BUCKET_BYTES = 16 + 56 + 16;
+    private static final int REFERENCE_BYTES = 4;
+
+    /**
+     * Elements sharing one value. Kept in document order after a build; elements added later
+     * are appended and the bucket is re-sorted on the next lookup.
+     */
+    private static final class Bucket {
+        final LinkedHashSet<Element> elements = new LinkedHashSet<>();
+        boolean ordered = true;
+    }
+
+    // key (attribute name or TEXT_KEY) -> value -> Element or Bucket
+    private final Map<String, Map<String, Object>> keys = new HashMap<>();
+    private int entryCount = 0;
+    private long buildNanos;
+    // True while the initial build adds elements in document order
+    private boolean building;
+
+    private AttributeIndex() {
+    }
+
+    /**
+     * The index of a document, built in one pass on first use.
+     */
+    public static AttributeIndex forDocument(Document document) {
+        synchronized (AttributeIndex.class) {
+            AttributeIndex index = (AttributeIndex) document.getUserData(USER_DATA_KEY);
+            if (index == null) {
+                long startNanos = System.nanoTime();
+                index = new AttributeIndex();
+                if (document.getDocumentElement() != null) {
+                    index.building = true;
+                    index.addSubtree(document.getDocumentElement());
+                    index.building = false;
+                }
+                index.buildNanos = System.nanoTime() - startNanos;
+                document.setUserData(USER_DATA_KEY, index, null);
+            }
+            return index;
+        }
+    }
+
+    /**
+     * The index of a document if one was already built, otherwise null (nothing to maintain).
+     */
+    public static AttributeIndex ifPresent(Document document) {
+        return document == null ? null : (AttributeIndex) document.getUserData(USER_DATA_KEY);
+    }
+
+    // --------------------------------------------------------------
+    // Lookups
+    // --------------------------------------------------------------
+
+    /**
+     * Elements whose attribute (or {@value #TEXT_KEY}) has this value, in document order.
+     * @param type element type, or null for any type
+     */
+    public synchronized List<Element> find(String type, String key, String value) {
+        Map<String, Object> values = keys.get(key);
+        Object entry = values == null ? null : values.get(value);
+        if (entry == null) return Collections.emptyList();
+        if (entry instanceof Element element) {
+            return type == null || element.getNodeName().equals(type) ? List.of(element) : Collections.emptyList();
+        }
+        List<Element> result = new ArrayList<>();
+        for (Element element : ordered((Bucket) entry)) {
+            if (type == null || element.getNodeName().equals(type)) result.add(element);
+        }
+        return result;
+    }
+
+    /**
+     * The first element (in document order) whose attribute has this value, or null.
+     */
+    public synchronized Element findFirst(String key, String value) {
+        Map<String, Object> values = keys.get(key);
+        Object entry = values == null ? null : values.get(value);
+        if (entry == null || entry instanceof Element) return (Element) entry;
+        return ordered((Bucket) entry).iterator().next();
+    }
+
+    /**
+     * Values of the attribute that more than one element has, with those elements
+     * (e.g. duplicated names). Values in order of first occurrence where possible.
+     */
+    public synchronized Map<String, List<Element>> duplicates(String key) {
+        Map<String, List<Element>> result = new LinkedHashMap<>();
+        Map<String, Object> values = keys.get(key);
+        if (values == null) return result;
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            if (entry.getValue() instanceof Bucket bucket) {
+                result.put(entry.getKey(), new ArrayList<>(ordered(bucket)));
+            }
+        }
+        return result;
+    }
+
+    // --------------------------------------------------------------
+    // Maintenance
+    // --------------------------------------------------------------
+
+    /**
+     * Indexes the current attributes and text of one element.
+     */
+    public synchronized void add(Element element) {
+        NamedNodeMap attributes = element.getAttributes();
+        for (int i = 0; i < attributes.getLength(); i++) {
+            Node attribute = attributes.item(i);
+            put(attribute.getNodeName(), attribute.getNodeValue(), element);
+        }
+        String text = textOf(element);
+        if (text != null) put(TEXT_KEY, text, element);
+    }
+
+    /**
+     * Drops the entries of one element; call before changing its attributes or text.
+     */
+    public synchronized void remove(Element element) {
+        NamedNodeMap attributes = element.getAttributes();
+        for (int i = 0; i < attributes.getLength(); i++) {
+            Node attribute = attributes.item(i);
+            take(attribute.getNodeName(), attribute.getNodeValue(), element);
+        }
+        String text = textOf(element);
+        if (text != null) take(TEXT_KEY, text, element);
+    }
+
+    /**
+     * Indexes every element of a subtree (after it was inserted). Other nodes are ignored.
+     */
+    public synchronized void addSubtree(Node node) {
+        if (!(node instanceof Element root)) return;
+        for (Element element = root; element != null; element = DomNodes.nextElement(element, root)) {
+            add(element);
+        }
+    }
+
+    /**
+     * Drops every element of a subtree (before it is removed).
+     */
+    public synchronized void removeSubtree(Node node) {
+        if (!(node instanceof Element root)) return;
+        for (Element element = root; element != null; element = DomNodes.nextElement(element, root)) {
+            remove(element);
+        }
+    }
+
+    // --------------------------------------------------------------
+    // Statistics
+    // --------------------------------------------------------------
+
+    /**
+     * Number of (element, key, value) entries.
+     */
+    public synchronized int getEntryCount() {
+        return entryCount;
+    }
+
+    public long getBuildNanos() {
+        return buildNanos;
+    }
+
+    /**
+     * Approximate heap used by the index itself. Keys and values are the DOM's own strings
+     * and are not counted.
+     */
+    public synchronized long estimateMemoryBytes() {
+        long bytes = HASH_MAP_BYTES + (long) tableSize(keys.size()) * REFERENCE_BYTES;
+        for (Map<String, Object> values : keys.values()) {
+            bytes += HASH_ENTRY_BYTES + HASH_MAP_BYTES + (long) tableSize(values.size()) * REFERENCE_BYTES;
+            for (Object entry : values.values()) {
+                bytes += HASH_ENTRY_BYTES;
+                if (entry instanceof Bucket bucket) {
+                    int size = bucket.elements.size();
+                    bytes += BUCKET_BYTES + (long) tableSize(size) * REFERENCE_BYTES + (long) size * LINKED_ENTRY_BYTES;
+                }
+            }
+        }
+        return bytes;
+    }
+
+    // --------------------------------------------------------------
+    // Helpers
+    // --------------------------------------------------------------
+
+    /**
+     * True if lookups of this value are answered by the index.
+     */
+    public static boolean isIndexed(String key, String value) {
+        return value.length() <= MAX_VALUE_LENGTH || NAME_KEY.equals(key);
+    }
+
+    /**
+     * The indexed text of an element: its direct text children, trimmed; null if blank or
+     * longer than {@value #MAX_VALUE_LENGTH} characters.
+     */
+    public static String textOf(Element element) {
+        String text = null;
+        StringBuilder joined = null;
+        for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+            short type = child.getNodeType();
+            if (type != Node.TEXT_NODE && type != Node.CDATA_SECTION_NODE) continue;
+            String value = child.getNodeValue();
+            if (text == null) {
+                text = value;
+            } else {
+                if (joined == null) joined = new StringBuilder(text);
+                joined.append(value);
+            }
+            if ((joined == null ? text.length() : joined.length()) > MAX_VALUE_LENGTH * 4) return null;
+        }
+        if (joined != null) text = joined.toString();
+        if (text == null) return null;
+        text = text.strip();
+        return text.isEmpty() || text.length() > MAX_VALUE_LENGTH ? null : text;
+    }
+
+    private void put(String key, String value, Element element) {
+        if (!isIndexed(key, value)) return;
+        Map<String, Object> values = keys.computeIfAbsent(key, k -> new HashMap<>());
+        Object entry = values.get(value);
+        if (entry == null) {
+            values.put(value, element);
+        } else if (entry instanceof Bucket bucket) {
+            if (!bucket.elements.add(element)) return;
+            bucket.ordered &= building;
+        } else if (entry != element) {
+            Bucket bucket = new Bucket();
+            bucket.elements.add((Element) entry);
+            bucket.elements.add(element);
+            bucket.ordered = building;
+            values.put(value, bucket);
+        } else {
+            return;
+        }
+        entryCount++;
+    }
+
+    private void take(String key, String value, Element element) {
+        Map<String, Object> values = keys.get(key);
+        Object entry = values == null ? null : values.get(value);
+        if (entry == element) {
+            values.remove(value);
+            if (values.isEmpty()) keys.remove(key);
+            entryCount--;
+        } else if (entry instanceof Bucket bucket && bucket.elements.remove(element)) {
+            if (bucket.elements.size() == 1) {
+                values.put(value, bucket.elements.iterator().next());
+            }
+            entryCount--;
+        }
+    }
+
+    // Restores document order after elements were added to a bucket out of order
+    private static LinkedHashSet<Element> ordered(Bucket bucket) {
+        if (!bucket.ordered) {
+            List<Element> sorted = new ArrayList<>(bucket.elements);
+            sorted.sort((a, b) -> a == b ? 0
+                    : (a.compareDocumentPosition(b) & Node.DOCUMENT_POSITION_FOLLOWING) != 0 ? -1 : 1);
+            bucket.elements.clear();
+            bucket.elements.addAll(sorted);
+            bucket.ordered = true;
+        }
+        return bucket.elements;
+    }
+
+    private static int tableSize(int entries) {
+        return Integer.highestOneBit(Math.max(1, (int) (entries / 0.75f)) * 2 - 1);
+    }
+
+}
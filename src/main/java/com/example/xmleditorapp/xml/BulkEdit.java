@@ -0,0 +1,303 @@
+package com.example.xmleditorapp.xml;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * One change applied to an attribute (or the text) of many elements at once, e.g. "x of every
+ * component in this Scene + 20" or "Zoom of every DigSig = 100".
+ * <p>
+ * Targets are selected by element type or by XPath. The new value comes from a
+ * {@link ValueFunction}; {@link #parse} builds one from a short expression:
+ * <ul>
+ *   <li>{@code +20}, {@code -20}, {@code *1.5}, {@code /2}: arithmetic on numeric values
+ *       (non-numeric values are left alone)</li>
+ *   <li>{@code =text}: a fixed value, with the placeholders {@code {value}}, {@code {name}},
+ *       {@code {type}} and {@code {index}} (1-based position in the selection)</li>
+ *   <li>{@code s/regex/replacement/} (flag {@code i} for case-insensitive): regular expression
+ *       replacement, with {@code $1} group references</li>
+ * </ul>
+ * All mutations go through one {@link DomTransaction}, so a failed or rejected edit is rolled
+ * back as a whole. The returned {@link Result} keeps that transaction and undoes the edit later
+ * from its journal, on the same DOM as long as nothing else changed it in between.
+ */
+public class BulkEdit {
+
+    /**
+     * Field name standing for an element's text content instead of an attribute.
+     */
+    public static final String TEXT_FIELD = "#text";
+
+    private static final Pattern ARITHMETIC = Pattern.compile("([+\\-*/])\\s*(-?\\d+(?:\\.\\d+)?)");
+    private static final Pattern REPLACE = Pattern.compile("s/((?:[^/\\\\]|\\\\.)*)/((?:[^/\\\\]|\\\\.)*)/(i?)");
+
+    /**
+     * Computes the new value of a field.
+     */
+    @FunctionalInterface
+    public interface ValueFunction {
+        /**
+         * @param value current value ("" if the attribute or text does not exist)
+         * @param index 1-based position of the element in the selection
+         * @return the new value, or null to leave the element unchanged
+         */
+        String apply(Element element, String value, int index);
+    }
+
+    /**
+     * Outcome of an applied edit, able to undo it.
+     */
+    public static final class Result {
+        private final int selected;
+        private final int changed;
+        private final long elapsedNanos;
+        private final DomTransaction transaction;
+        private boolean undone = false;
+
+        private Result(int selected, int changed, long elapsedNanos, DomTransaction transaction) {
+            this.selected = selected;
+            this.changed = changed;
+            this.elapsedNanos = elapsedNanos;
+            this.transaction = transaction;
+        }
+
+        public int getSelectedCount() {
+            return selected;
+        }
+
+        public int getChangedCount() {
+            return changed;
+        }
+
+        public double elapsedMillis() {
+            return elapsedNanos / 1_000_000.0;
+        }
+
+        /**
+         * Restores the previous values by rolling back the edit's transaction, which undoes
+         * every recorded mutation (and keeps the document's indexes up to date). Only valid as
+         * long as the document has not been changed otherwise since the edit.
+         * @return the number of fields restored (0 if already undone or rolled back)
+         */
+        public int undo() {
+            if (undone) return 0;
+            undone = true;
+            transaction.rollback();
+            return changed;
+        }
+    }
+
+    private final String field;
+    private final ValueFunction function;
+
+    public BulkEdit(String field, ValueFunction function) {
+        if (field == null || field.isBlank()) {
+            throw new IllegalArgumentException("No attribute given.");
+        }
+        this.field = field.trim();
+        this.function = function;
+    }
+
+    /**
+     * Builds an edit from an expression (see the class comment).
+     * @throws IllegalArgumentException if the expression is not understood
+     */
+    public static BulkEdit parse(String field, String expression) {
+        String trimmed = expression == null ? "" : expression.trim();
+
+        Matcher arithmetic = ARITHMETIC.matcher(trimmed);
+        if (arithmetic.matches()) {
+            char operator = arithmetic.group(1).charAt(0);
+            BigDecimal operand = new BigDecimal(arithmetic.group(2));
+            if (operator == '/' && operand.signum() == 0) {
+                throw new IllegalArgumentException("Division by zero.");
+            }
+            return new BulkEdit(field, (element, value, index) -> calculate(value, operator, operand));
+        }
+
+        Matcher replace = REPLACE.matcher(trimmed);
+        if (replace.matches()) {
+            Pattern pattern = Pattern.compile(replace.group(1).replace("\\/", "/"),
+                    replace.group(3).isEmpty() ? 0 : Pattern.CASE_INSENSITIVE);
+            String replacement = replace.group(2).replace("\\/", "/");
+            return new BulkEdit(field, (element, value, index) -> pattern.matcher(value).replaceAll(replacement));
+        }
+
+        if (trimmed.startsWith("=")) {
+            String template = expression.substring(expression.indexOf('=') + 1);
+            if (!template.contains("{")) {
+                return new BulkEdit(field, (element, value, index) -> template);
+            }
+            return new BulkEdit(field, (element, value, index) -> template
+                    .replace("{value}", value)
+                    .replace("{name}", element.getAttribute("name"))
+                    .replace("{type}", element.getNodeName())
+                    .replace("{index}", Integer.toString(index)));
+        }
+
+        throw new IllegalArgumentException("Unknown expression '" + trimmed
+                + "'. Use +n, -n, *n, /n, =value (with {value}, {name}, {type}, {index}) or s/regex/replacement/.");
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    // --------------------------------------------------------------
+    // Selection
+    // --------------------------------------------------------------
+
+    /**
+     * The elements of a type within the scope (the scope itself included), in document order.
+     * The type "*" selects every element.
+     */
+    public static List<Element> selectByType(Element scope, String elementType) {
+        List<Element> selected = new ArrayList<>();
+        boolean any = "*".equals(elementType);
+        for (Element element = scope; element != null; element = DomNodes.nextElement(element, scope)) {
+            if (any || element.getNodeName().equals(elementType)) {
+                selected.add(element);
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * The elements an XPath expression selects, evaluated with the scope as context node.
+     * Nodes that are not elements are ignored.
+     */
+    public static List<Element> selectByXPath(Node scope, String expression) throws XPathExpressionException {
+        NodeList nodes = (NodeList) XPathFactory.newInstance().newXPath().evaluate(expression, scope, XPathConstants.NODESET);
+        List<Element> selected = new ArrayList<>(nodes.getLength());
+        for (int i = 0; i < nodes.getLength(); i++) {
+            if (nodes.item(i).getNodeType() == Node.ELEMENT_NODE) {
+                selected.add((Element) nodes.item(i));
+            }
+        }
+        return selected;
+    }
+
+    // --------------------------------------------------------------
+    // Application
+    // --------------------------------------------------------------
+
+    /**
+     * Applies the edit to the targets through the transaction.
+     * @throws IllegalArgumentException if the function fails, or if editing {@code name}
+     *         would give two elements the same name; the transaction should then be rolled back
+     */
+    public Result apply(List<Element> targets, DomTransaction transaction) {
+        long startNanos = System.nanoTime();
+        boolean text = TEXT_FIELD.equals(field);
+        boolean names = "name".equals(field);
+        Set<Element> changed = Collections.newSetFromMap(new IdentityHashMap<>());
+        Set<String> newNames = new HashSet<>();
+
+        int index = 0;
+        for (Element element : targets) {
+            index++;
+            if (changed.contains(element)) continue; // Selected twice (XPath unions)
+            String current = text ? readText(element) : element.getAttribute(field);
+            String value;
+            try {
+                value = function.apply(element, current, index);
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Cannot compute the new value for " + element.getNodeName()
+                        + " '" + element.getAttribute("name") + "': " + e.getMessage(), e);
+            }
+            if (value == null || value.equals(current) && (text || element.hasAttribute(field))) continue;
+            if (names && !newNames.add(value)) {
+                throw new IllegalArgumentException("The edit gives more than one element the name '" + value + "'.");
+            }
+
+            changed.add(element);
+            if (text) {
+                writeText(element, value, transaction);
+            } else {
+                transaction.setAttribute(element, field, value);
+            }
+            transaction.operationApplied();
+        }
+
+        if (names && !changed.isEmpty()) {
+            checkNameCollisions(targets.get(0).getOwnerDocument(), changed, newNames);
+        }
+        return new Result(targets.size(), changed.size(), System.nanoTime() - startNanos, transaction);
+    }
+
+    // Renamed elements must not take the name of an element that keeps its own
+    private static void checkNameCollisions(Document document, Set<Element> changed, Set<String> newNames) {
+        AttributeIndex index = AttributeIndex.forDocument(document);
+        for (String name : newNames) {
+            for (Element element : index.find(null, AttributeIndex.NAME_KEY, name)) {
+                if (!changed.contains(element)) {
+                    throw new IllegalArgumentException("The name '" + name + "' is already used by another "
+                            + element.getNodeName() + ".");
+                }
+            }
+        }
+        NameAllocator allocator = NameAllocator.ifPresent(document);
+        if (allocator != null) {
+            newNames.forEach(allocator::reserve);
+        }
+    }
+
+    // --------------------------------------------------------------
+    // Helpers
+    // --------------------------------------------------------------
+
+    private static String calculate(String value, char operator, BigDecimal operand) {
+        BigDecimal number;
+        try {
+            number = new BigDecimal(value.trim());
+        } catch (NumberFormatException e) {
+            return null; // Not a number: unchanged
+        }
+        BigDecimal result = switch (operator) {
+            case '+' -> number.add(operand);
+            case '-' -> number.subtract(operand);
+            case '*' -> number.multiply(operand);
+            default -> number.divide(operand, MathContext.DECIMAL64);
+        };
+        return result.stripTrailingZeros().toPlainString();
+    }
+
+    // The text of an element is its first text node, as in the attribute editor
+    private static Node firstText(Element element) {
+        for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child.getNodeType() == Node.TEXT_NODE) return child;
+        }
+        return null;
+    }
+
+    private static String readText(Element element) {
+        Node text = firstText(element);
+        return text == null ? "" : text.getNodeValue();
+    }
+
+    private static void writeText(Element element, String value, DomTransaction transaction) {
+        Node text = firstText(element);
+        if (text != null) {
+            transaction.setNodeValue(text, value);
+        } else {
+            transaction.appendChild(element, element.getOwnerDocument().createTextNode(value));
+        }
+    }
+
+}
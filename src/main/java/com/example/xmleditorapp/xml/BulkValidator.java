@@ -0,0 +1,183 @@
+package com.example.xmleditorapp.xml;
+
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+
+import javax.xml.XMLConstants;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.Validator;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Validates many XML files in parallel against one compiled Schema.
+ * The Schema is thread-safe and shared; every worker thread owns its own Validator,
+ * and files are streamed through a StreamSource so no DOM is ever built.
+ */
+public class BulkValidator {
+
+    private final Schema schema;
+    private final int threads;
+    private final int maxIssuesPerFile;
+
+    // One Validator per worker thread (Validator itself is NOT thread-safe)
+    private final ThreadLocal<Validator> workerValidator;
+
+    public BulkValidator(Schema schema, int threads, int maxIssuesPerFile) {
+        if (schema == null) {
+            throw new IllegalArgumentException("Schema cannot be null.");
+        }
+        this.schema = schema;
+        this.threads = Math.max(1, threads);
+        this.maxIssuesPerFile = Math.max(1, maxIssuesPerFile);
+        this.workerValidator = ThreadLocal.withInitial(this::createValidator);
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Validates all files and hands each result to the sink as soon as it is available.
+     * The sink is called from the calling thread only, in completion order.
+     */
+    public void validateAll(List<Path> files, Consumer<FileResult> sink) throws InterruptedException {
+        AtomicInteger threadCounter = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "bulk-validator-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            CompletionService<FileResult> completionService = new ExecutorCompletionService<>(executor);
+            for (Path file : files) {
+                completionService.submit(() -> validateFile(file));
+            }
+
+            for (int i = 0; i < files.size(); i++) {
+                try {
+                    sink.accept(completionService.take().get());
+                } catch (ExecutionException e) {
+                    // validateFile() catches everything itself; this only happens on a programming error
+                    throw new IllegalStateException("Validation worker failed", e.getCause());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Validates a single file on the current thread, using this thread's Validator.
+     */
+    public FileResult validateFile(Path file) {
+        long start = System.nanoTime();
+        long bytes = -1;
+        CollectingErrorHandler handler = new CollectingErrorHandler(maxIssuesPerFile);
+
+        // NOTE: Validator.reset() is deliberately not called; it drops the security
+        // properties set in createValidator(). A fresh ErrorHandler is enough per file.
+        Validator validator = workerValidator.get();
+        validator.setErrorHandler(handler);
+
+        try {
+            bytes = Files.size(file);
+            StreamSource source = new StreamSource(file.toFile());
+            validator.validate(source);
+        } catch (SAXParseException e) {
+            // Already recorded by the handler (fatal error), nothing else to do
+        } catch (SAXException e) {
+            handler.add(Severity.FATAL, -1, -1, e.getMessage());
+        } catch (Exception e) {
+            handler.add(Severity.FATAL, -1, -1, e.getClass().getSimpleName() + ": " + e.getMessage());
+        }
+
+        long elapsedNanos = System.nanoTime() - start;
+        return new FileResult(file, bytes, elapsedNanos, handler.issues, handler.droppedIssues, handler.droppedErrors);
+    }
+
+    private Validator createValidator() {
+        Validator validator = schema.newValidator();
+        try {
+            // Our ESign files never need external DTDs or schemas
+            validator.setProperty(XMLConstants.ACCESS_EXTERNAL_DTD, "");
+            validator.setProperty(XMLConstants.ACCESS_EXTERNAL_SCHEMA, "");
+        } catch (SAXException e) {
+            System.err.println("[BulkValidator WARNING] Could not restrict external access: " + e.getMessage());
+        }
+        return validator;
+    }
+
+    // --------------------------------------------------------------
+    // Result types
+    // --------------------------------------------------------------
+
+    public enum Severity { WARNING, ERROR, FATAL }
+
+    public record Issue(Severity severity, int line, int column, String message) { }
+
+    /**
+     * @param droppedIssues issues beyond the limit that were only counted
+     * @param droppedErrors how many of those were errors (the file is then invalid as well)
+     */
+    public record FileResult(Path file, long bytes, long elapsedNanos, List<Issue> issues, int droppedIssues, int droppedErrors) {
+
+        public boolean isValid() {
+            return droppedErrors == 0 && issues.stream().noneMatch(issue -> issue.severity() != Severity.WARNING);
+        }
+
+        public double elapsedMillis() {
+            return elapsedNanos / 1_000_000.0;
+        }
+    }
+
+    /**
+     * Collects warnings and errors instead of failing on the first one.
+     * Only fatal errors abort the validation of the file.
+     */
+    private static class CollectingErrorHandler implements ErrorHandler {
+        private final int maxIssues;
+        private final List<Issue> collected = new ArrayList<>();
+        private final List<Issue> issues = Collections.unmodifiableList(collected);
+        private int droppedIssues = 0;
+        private int droppedErrors = 0;
+
+        CollectingErrorHandler(int maxIssues) {
+            this.maxIssues = maxIssues;
+        }
+
+        void add(Severity severity, int line, int column, String message) {
+            if (collected.size() < maxIssues) {
+                collected.add(new Issue(severity, line, column, message));
+            } else {
+                droppedIssues++;
+                if (severity != Severity.WARNING) droppedErrors++;
+            }
+        }
+
+        @Override
+        public void warning(SAXParseException e) {
+            add(Severity.WARNING, e.getLineNumber(), e.getColumnNumber(), e.getMessage());
+        }
+
+        @Override
+        public void error(SAXParseException e) {
+            add(Severity.ERROR, e.getLineNumber(), e.getColumnNumber(), e.getMessage());
+        }
+
+        @Override
+        public void fatalError(SAXParseException e) throws SAXException {
+            add(Severity.FATAL, e.getLineNumber(), e.getColumnNumber(), e.getMessage());
+            throw e;
+        }
+    }
+}
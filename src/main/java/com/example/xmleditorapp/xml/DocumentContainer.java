@@ -0,0 +1,348 @@
+package com.example.xmleditorapp.xml;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * How an XML document is stored on disk: plain, gzip-compressed ({@code .xml.gz}) or as the
+ * XML entry of a zip archive ({@code .zip}).
+ * <p>
+ * Existing files are recognised by their magic bytes, so a compressed file is read correctly
+ * whatever its name; new files get the container of their extension. (De)compression is
+ * streamed between the file and the parser or serializer, with no uncompressed temporary copy.
+ * Saving into an existing zip archive replaces its XML entry and keeps all other entries.
+ */
+public enum DocumentContainer {
+
+    PLAIN("XML", ".xml"),
+    GZIP("Gzip-compressed XML", ".xml.gz"),
+    ZIP("Zip archive", ".zip");
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    // Expansion assumed when a compressed file does not record its uncompressed size
+    private static final int ASSUMED_COMPRESSION_RATIO = 5;
+
+    private final String description;
+    private final String extension;
+
+    DocumentContainer(String description, String extension) {
+        this.description = description;
+        this.extension = extension;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    // Default file extension, including the dot
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * The container of an existing file, from its first bytes (plain if unrecognised).
+     */
+    public static DocumentContainer detect(Path file) throws IOException {
+        byte[] magic = new byte[4];
+        int read;
+        try (InputStream in = Files.newInputStream(file)) {
+            read = in.readNBytes(magic, 0, magic.length);
+        }
+        if (read >= 2 && (magic[0] & 0xFF) == 0x1F && (magic[1] & 0xFF) == 0x8B) {
+            return GZIP;
+        }
+        if (read >= 4 && magic[0] == 'P' && magic[1] == 'K' && magic[2] == 3 && magic[3] == 4) {
+            return ZIP;
+        }
+        return PLAIN;
+    }
+
+    /**
+     * The container for a file name, from its extension.
+     */
+    public static DocumentContainer forFileName(String fileName) {
+        String name = fileName.toLowerCase(Locale.ROOT);
+        if (name.endsWith(".gz") || name.endsWith(".xmlz")) {
+            return GZIP;
+        }
+        if (name.endsWith(".zip")) {
+            return ZIP;
+        }
+        return PLAIN;
+    }
+
+    /**
+     * The container to write a file with: the one it already has if it exists and is
+     * compressed (so saving keeps the format it was opened in), otherwise by extension.
+     */
+    public static DocumentContainer forSave(Path file) throws IOException {
+        DocumentContainer byName = forFileName(file.getFileName().toString());
+        if (byName == PLAIN && Files.isRegularFile(file) && Files.size(file) > 0) {
+            return detect(file);
+        }
+        return byName;
+    }
+
+    /**
+     * Opens the (uncompressed) XML content of a file. For a zip archive this is its first
+     * entry ending in .xml, or else its first file entry.
+     */
+    public InputStream openInput(Path file) throws IOException {
+        switch (this) {
+            case GZIP: {
+                InputStream in = new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE);
+                try {
+                    return new GZIPInputStream(in, BUFFER_SIZE);
+                } catch (IOException e) {
+                    in.close();
+                    throw e;
+                }
+            }
+            case ZIP: {
+                ZipFile zip = new ZipFile(file.toFile());
+                try {
+                    ZipEntry entry = findXmlEntry(zip);
+                    if (entry == null) {
+                        throw new IOException(file.getFileName() + " does not contain an XML entry");
+                    }
+                    // Closing the entry stream closes the archive
+                    return new FilterInputStream(new BufferedInputStream(zip.getInputStream(entry), BUFFER_SIZE)) {
+                        @Override
+                        public void close() throws IOException {
+                            try (zip) {
+                                super.close();
+                            }
+                        }
+                    };
+                } catch (IOException | RuntimeException e) {
+                    zip.close();
+                    throw e;
+                }
+            }
+            default:
+                return new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE);
+        }
+    }
+
+    /**
+     * Size of the (uncompressed) XML content of a file, without decompressing it: the file
+     * size for plain files, the size recorded in the gzip trailer (modulo 4 GB, and of the
+     * last member only) or in the zip central directory, or else an estimate from the
+     * compressed size.
+     */
+    public long contentSize(Path file) throws IOException {
+        long size = Files.size(file);
+        switch (this) {
+            case GZIP: {
+                if (size < 18) return size; // Header and trailer alone take 18 bytes
+                ByteBuffer trailer = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                    channel.read(trailer, size - 4); // ISIZE
+                }
+                long recorded = trailer.getInt(0) & 0xFFFFFFFFL;
+                // Deflate output is barely larger than its input: a smaller ISIZE has wrapped
+                while (recorded < size - size / 100 - 18) {
+                    recorded += 1L << 32;
+                }
+                return recorded;
+            }
+            case ZIP: {
+                try (ZipFile zip = new ZipFile(file.toFile())) {
+                    ZipEntry entry = findXmlEntry(zip);
+                    if (entry != null && entry.getSize() >= 0) return entry.getSize();
+                }
+                return size * ASSUMED_COMPRESSION_RATIO;
+            }
+            default:
+                return size;
+        }
+    }
+
+    /**
+     * Opens a stream that writes the XML content to a file in this container.
+     * Closing the stream finishes the compressed data. A zip archive is written next to the
+     * file and moved over it on close, keeping the other entries of an existing archive.
+     */
+    public OutputStream openOutput(Path file) throws IOException {
+        switch (this) {
+            case GZIP:
+                return new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE), BUFFER_SIZE);
+            case ZIP:
+                return ZipDocumentOutput.open(file);
+            default:
+                return new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE);
+        }
+    }
+
+    /**
+     * The file name with this container's extension, unless it already has it
+     * ("doc.xml" becomes "doc.xml.gz" or "doc.zip").
+     */
+    public String withExtension(String fileName) {
+        if (forFileName(fileName) == this && fileName.toLowerCase(Locale.ROOT).endsWith(extension)) {
+            return fileName;
+        }
+        String base = fileName;
+        for (DocumentContainer container : values()) {
+            if (base.toLowerCase(Locale.ROOT).endsWith(container.extension)) {
+                base = base.substring(0, base.length() - container.extension.length());
+                break;
+            }
+        }
+        return base + extension;
+    }
+
+    /**
+     * Name of the XML entry written to a zip archive: "name.zip" holds "name.xml".
+     */
+    static String entryName(Path file) {
+        String name = file.getFileName().toString();
+        String lower = name.toLowerCase(Locale.ROOT);
+        if (lower.endsWith(".zip")) {
+            name = name.substring(0, name.length() - 4);
+        }
+        return name.toLowerCase(Locale.ROOT).endsWith(".xml") ? name : name + ".xml";
+    }
+
+    // The document entry of an archive: its first .xml entry, or else its first file entry
+    private static ZipEntry findXmlEntry(ZipFile zip) {
+        ZipEntry firstFile = null;
+        for (ZipEntry entry : Collections.list(zip.entries())) {
+            if (entry.isDirectory()) continue;
+            if (entry.getName().toLowerCase(Locale.ROOT).endsWith(".xml")) {
+                return entry;
+            }
+            if (firstFile == null) {
+                firstFile = entry;
+            }
+        }
+        return firstFile;
+    }
+
+    /**
+     * Writes the XML entry of a zip archive into a temporary file next to it. On close, the
+     * entries of the existing archive that follow the XML entry are copied after it (those
+     * before it are copied when the stream is opened) and the temporary file replaces the
+     * archive. The XML entry keeps its name in the archive.
+     */
+    private static final class ZipDocumentOutput extends FilterOutputStream {
+        private final Path file;
+        private final Path temp;
+        private final ZipOutputStream zip;
+        private final ZipFile existing;
+        private final List<ZipEntry> following;
+        private boolean closed = false;
+
+        private ZipDocumentOutput(Path file, Path temp, ZipOutputStream zip, ZipFile existing, List<ZipEntry> following) {
+            super(zip);
+            this.file = file;
+            this.temp = temp;
+            this.zip = zip;
+            this.existing = existing;
+            this.following = following;
+        }
+
+        static OutputStream open(Path file) throws IOException {
+            Path target = file.toAbsolutePath();
+            ZipFile existing = Files.isRegularFile(target) && detect(target) == ZIP ? new ZipFile(target.toFile()) : null;
+            Path temp = null;
+            try {
+                temp = Files.createTempFile(target.getParent(), target.getFileName() + ".", ".tmp");
+                ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), BUFFER_SIZE));
+                ZipEntry xmlEntry = existing == null ? null : findXmlEntry(existing);
+                List<ZipEntry> following = new ArrayList<>();
+                if (existing != null) {
+                    // Entries before the XML entry now, the others once it is written
+                    boolean afterXml = false;
+                    for (ZipEntry entry : Collections.list(existing.entries())) {
+                        if (xmlEntry != null && entry.getName().equals(xmlEntry.getName())) {
+                            afterXml = true;
+                        } else if (afterXml) {
+                            following.add(entry);
+                        } else {
+                            copyEntry(existing, entry, zip);
+                        }
+                    }
+                }
+                zip.putNextEntry(new ZipEntry(xmlEntry != null ? xmlEntry.getName() : entryName(target)));
+                return new ZipDocumentOutput(target, temp, zip, existing, following);
+            } catch (IOException | RuntimeException e) {
+                if (existing != null) existing.close();
+                if (temp != null) Files.deleteIfExists(temp);
+                throw e;
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            zip.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) return;
+            closed = true;
+            try {
+                try (ZipFile source = existing; zip) {
+                    zip.closeEntry();
+                    for (ZipEntry entry : following) {
+                        copyEntry(source, entry, zip);
+                    }
+                }
+                if (Files.exists(file)) {
+                    try {
+                        // Keep the archive's permissions (temporary files are private)
+                        Files.setPosixFilePermissions(temp, Files.getPosixFilePermissions(file));
+                    } catch (UnsupportedOperationException e) {
+                        // Not a POSIX file system
+                    }
+                }
+                try {
+                    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(temp);
+                throw e;
+            }
+        }
+
+        // Recompressed: the copy's compressed size is left to the output stream
+        private static void copyEntry(ZipFile source, ZipEntry entry, ZipOutputStream zip) throws IOException {
+            ZipEntry copy = new ZipEntry(entry);
+            if (copy.getMethod() != ZipEntry.STORED) {
+                copy.setCompressedSize(-1);
+            }
+            zip.putNextEntry(copy);
+            if (!entry.isDirectory()) {
+                try (InputStream in = source.getInputStream(entry)) {
+                    in.transferTo(zip);
+                }
+            }
+            zip.closeEntry();
+        }
+    }
+}
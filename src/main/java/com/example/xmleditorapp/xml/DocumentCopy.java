@@ -0,0 +1,121 @@
+package com.example.xmleditorapp.xml;
+
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A deep copy of the open document for reading it in the background: the copy is taken on
+ * the UI thread, after which only the copy is read off it.
+ * <p>
+ * The open document and the same file parsed as it is differ in ways that are not content:
+ * the editor gives unnamed elements synthetic names, and the file's indentation (written on
+ * save) is not the document's. {@link #normalizeForComparison} removes both from a document,
+ * so the copy and a normalized parse of the file have equal {@link SubtreeHashes} wherever
+ * their content is equal, and a {@link StructuralDiff} skips those subtrees. The diff of the
+ * copy is applied to the open document through {@link #toOriginal()}; other results found in
+ * the copy (e.g. by an XPath search) are mapped back with {@link #originalOf}.
+ */
+public class DocumentCopy {
+
+    private final Document original;
+    private final Document copy;
+    // Built on first use
+    private Map<Node, Node> originals;
+
+    private DocumentCopy(Document original, Document copy) {
+        this.original = original;
+        this.copy = copy;
+    }
+
+    /**
+     * Copies a document (on the thread that owns it). The copy has none of the original's
+     * user data (indexes, hashes).
+     */
+    public static DocumentCopy of(Document original) {
+        return new DocumentCopy(original, (Document) original.cloneNode(true));
+    }
+
+    public Document getDocument() {
+        return copy;
+    }
+
+    /**
+     * Maps the document and the elements of the copy to those of the original. Call on the
+     * thread that owns the original, which must not have changed since it was copied (the
+     * copy may have been normalized: elements are never removed from it).
+     */
+    public Map<Node, Node> toOriginal() {
+        if (originals != null) return originals;
+        Map<Node, Node> originals = new IdentityHashMap<>();
+        originals.put(copy, original);
+        Element copyRoot = copy.getDocumentElement();
+        Element originalRoot = original.getDocumentElement();
+        Element element = copyRoot;
+        Element counterpart = originalRoot;
+        while (element != null && counterpart != null) {
+            originals.put(element, counterpart);
+            element = DomNodes.nextElement(element, copyRoot);
+            counterpart = DomNodes.nextElement(counterpart, originalRoot);
+        }
+        if (element != null || counterpart != null) {
+            throw new IllegalStateException("The document changed after it was copied");
+        }
+        this.originals = originals;
+        return originals;
+    }
+
+    /**
+     * The node of the original that a node of the copy stands for: the same element, the
+     * attribute of the same name, or the child at the same position (so only for a copy that
+     * was not normalized). The same conditions as for {@link #toOriginal()} apply.
+     */
+    public Node originalOf(Node node) {
+        if (node instanceof Attr attribute) {
+            Element owner = (Element) toOriginal().get(attribute.getOwnerElement());
+            return owner == null ? null : owner.getAttributeNode(attribute.getName());
+        }
+        Node mapped = toOriginal().get(node);
+        if (mapped != null || node.getParentNode() == null) return mapped;
+        Node parent = originalOf(node.getParentNode());
+        if (parent == null) return null;
+        Node counterpart = parent.getFirstChild();
+        for (Node sibling = node.getParentNode().getFirstChild(); sibling != node && counterpart != null;
+             sibling = sibling.getNextSibling()) {
+            counterpart = counterpart.getNextSibling();
+        }
+        return counterpart;
+    }
+
+    /**
+     * Removes what is not content from a document that is only compared: synthetic names and
+     * whitespace-only text (indentation).
+     * @return the number of attributes and text nodes removed
+     */
+    public static int normalizeForComparison(Document document) {
+        Element root = document.getDocumentElement();
+        int removed = 0;
+        List<Node> blank = new ArrayList<>();
+        for (Element element = root; element != null; element = DomNodes.nextElement(element, root)) {
+            if (NameAllocator.isSynthetic(element.getAttribute("name"))) {
+                element.removeAttribute("name");
+                removed++;
+            }
+            for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+                if (child.getNodeType() == Node.TEXT_NODE && child.getNodeValue().isBlank()) blank.add(child);
+            }
+            for (Node text : blank) {
+                element.removeChild(text);
+            }
+            removed += blank.size();
+            blank.clear();
+        }
+        return removed;
+    }
+}
@@ -0,0 +1,251 @@
+package com.example.xmleditorapp.xml;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * One-pass structural profile of an XML file, read with StAX (no DOM is built).
+ * <p>
+ * Memory stays constant in the document size: the parser state is a stack of a few ints
+ * per open element, element counts are kept per element name (bounded by the vocabulary),
+ * and only the N largest subtrees are remembered (in a min-heap). Text is never turned into
+ * strings; binary payloads are measured by counting their non-whitespace characters.
+ */
+public class DocumentProfiler {
+
+    public static final int DEFAULT_TOP_SUBTREES = 10;
+
+    private final Set<String> binaryElementTypes;
+    private final int topSubtrees;
+
+    /**
+     * @param binaryElementTypes Element names whose text content is a binary (base64) payload.
+     * @param topSubtrees        How many of the largest subtrees to report.
+     */
+    public DocumentProfiler(Set<String> binaryElementTypes, int topSubtrees) {
+        this.binaryElementTypes = binaryElementTypes == null ? Collections.emptySet() : binaryElementTypes;
+        this.topSubtrees = Math.max(0, topSubtrees);
+    }
+
+    /**
+     * A subtree of the document, measured by the number of elements it contains.
+     */
+    public record Subtree(String elementName, String nameAttribute, int depth, int line, long elementCount, long chars) {
+        @Override
+        public String toString() {
+            return elementName + (nameAttribute.isEmpty() ? "" : " (" + nameAttribute + ")")
+                    + " at line " + line + ": " + elementCount + " elements, " + chars + " chars";
+        }
+    }
+
+    /**
+     * Result of profiling one file.
+     */
+    public record DocumentProfile(Path file, long fileBytes, String rootElement, long elementCount,
+                                  long attributeCount, int maxDepth, long textChars,
+                                  Map<String, Long> elementCounts, long binaryPayloadCount,
+                                  long binaryPayloadChars, List<Subtree> largestSubtrees, long elapsedNanos) {
+
+        /**
+         * Approximate decoded size of all binary payloads (base64: 3 bytes per 4 chars).
+         */
+        public long estimatedBinaryBytes() {
+            return binaryPayloadChars / 4 * 3;
+        }
+
+        public double elapsedMillis() {
+            return elapsedNanos / 1_000_000.0;
+        }
+
+        public LoadStrategy recommendedLoadStrategy() {
+            return LoadStrategy.choose(this);
+        }
+
+        /**
+         * Multi-line, human-readable summary (for the UI).
+         */
+        public String toSummaryText() {
+            StringBuilder text = new StringBuilder();
+            text.append("File: ").append(file).append('\n');
+            text.append(String.format("Size: %,d bytes, profiled in %.1f ms%n", fileBytes, elapsedMillis()));
+            text.append("Root element: ").append(rootElement).append('\n');
+            text.append(String.format("Elements: %,d   Attributes: %,d   Max depth: %d   Text chars: %,d%n",
+                    elementCount, attributeCount, maxDepth, textChars));
+            text.append(String.format("Binary payloads: %d (%,d chars, ~%,d bytes decoded)%n",
+                    binaryPayloadCount, binaryPayloadChars, estimatedBinaryBytes()));
+            text.append("Recommended load strategy: ").append(recommendedLoadStrategy()).append("\n\n");
+
+            text.append("Elements per type:\n");
+            elementCounts.forEach((name, count) -> text.append(String.format("  %-30s %,10d%n", name, count)));
+
+            text.append("\nLargest subtrees:\n");
+            for (Subtree subtree : largestSubtrees) {
+                text.append("  ").append(subtree).append('\n');
+            }
+            return text.toString();
+        }
+    }
+
+    /**
+     * Profiles a file in one streaming pass.
+     */
+    public DocumentProfile profile(Path file) throws IOException, XMLStreamException {
+        // Compressed documents are profiled through the decompressing stream, and sized by
+        // their uncompressed content (which is what the load strategy depends on)
+        DocumentContainer container = DocumentContainer.detect(file);
+        try (InputStream in = container.openInput(file)) {
+            return profile(file, container.contentSize(file), in);
+        }
+    }
+
+    /**
+     * Profiles a stream in one pass. The stream is not closed.
+     */
+    public DocumentProfile profile(Path file, long fileBytes, InputStream in) throws XMLStreamException {
+        long start = System.nanoTime();
+        XMLStreamReader reader = createInputFactory().createXMLStreamReader(in);
+
+        // Per open element (indexed by depth): element count and char offset at its start, its line
+        long[] elementsAtStart = new long[32];
+        long[] charsAtStart = new long[32];
+        int[] lines = new int[32];
+        String[] names = new String[32];
+        String[] nameAttributes = new String[32];
+
+        Map<String, long[]> counts = new HashMap<>();
+        PriorityQueue<Subtree> largest = new PriorityQueue<>(Comparator.comparingLong(Subtree::elementCount));
+
+        String rootElement = "";
+        long elementCount = 0;
+        long attributeCount = 0;
+        long textChars = 0;
+        long binaryPayloadCount = 0;
+        long binaryPayloadChars = 0;
+        int depth = 0;
+        int maxDepth = 0;
+        int binaryDepth = -1; // depth of the open binary element, or -1
+
+        try {
+            while (reader.hasNext()) {
+                int event = reader.next();
+                switch (event) {
+                    case XMLStreamConstants.START_ELEMENT: {
+                        String name = reader.getLocalName();
+                        if (depth == 0) {
+                            rootElement = name;
+                        }
+                        if (depth == elementsAtStart.length) {
+                            int newLength = depth * 2;
+                            elementsAtStart = Arrays.copyOf(elementsAtStart, newLength);
+                            charsAtStart = Arrays.copyOf(charsAtStart, newLength);
+                            lines = Arrays.copyOf(lines, newLength);
+                            names = Arrays.copyOf(names, newLength);
+                            nameAttributes = Arrays.copyOf(nameAttributes, newLength);
+                        }
+                        elementsAtStart[depth] = elementCount;
+                        charsAtStart[depth] = reader.getLocation().getCharacterOffset();
+                        lines[depth] = reader.getLocation().getLineNumber();
+                        names[depth] = name;
+                        String nameAttribute = reader.getAttributeValue(null, "name");
+                        nameAttributes[depth] = nameAttribute == null ? "" : nameAttribute;
+
+                        elementCount++;
+                        attributeCount += reader.getAttributeCount();
+                        counts.computeIfAbsent(name, k -> new long[1])[0]++;
+                        if (binaryDepth < 0 && binaryElementTypes.contains(name)) {
+                            binaryDepth = depth;
+                            binaryPayloadCount++;
+                        }
+                        depth++;
+                        maxDepth = Math.max(maxDepth, depth);
+                        break;
+                    }
+                    case XMLStreamConstants.END_ELEMENT: {
+                        depth--;
+                        if (depth == binaryDepth) {
+                            binaryDepth = -1;
+                        }
+                        // The root is the whole document; only its descendants are ranked
+                        if (depth > 0 && topSubtrees > 0) {
+                            long subtreeElements = elementCount - elementsAtStart[depth];
+                            if (largest.size() < topSubtrees || subtreeElements > largest.peek().elementCount()) {
+                                long chars = Math.max(0, reader.getLocation().getCharacterOffset() - charsAtStart[depth]);
+                                largest.add(new Subtree(names[depth], nameAttributes[depth], depth, lines[depth],
+                                        subtreeElements, chars));
+                                if (largest.size() > topSubtrees) {
+                                    largest.poll();
+                                }
+                            }
+                        }
+                        names[depth] = null;
+                        nameAttributes[depth] = null;
+                        break;
+                    }
+                    case XMLStreamConstants.CHARACTERS:
+                    case XMLStreamConstants.CDATA:
+                    case XMLStreamConstants.SPACE: {
+                        int length = reader.getTextLength();
+                        textChars += length;
+                        if (binaryDepth >= 0) {
+                            binaryPayloadChars += countNonWhitespace(reader.getTextCharacters(), reader.getTextStart(), length);
+                        }
+                        break;
+                    }
+                    default:
+                        break;
+                }
+            }
+        } finally {
+            reader.close();
+        }
+
+        // Element types by count, most frequent first
+        Map<String, Long> elementCounts = new LinkedHashMap<>();
+        counts.entrySet().stream()
+                .sorted((a, b) -> Long.compare(b.getValue()[0], a.getValue()[0]))
+                .forEach(entry -> elementCounts.put(entry.getKey(), entry.getValue()[0]));
+
+        List<Subtree> largestSubtrees = new ArrayList<>(largest);
+        largestSubtrees.sort(Comparator.comparingLong(Subtree::elementCount).reversed());
+
+        return new DocumentProfile(file, fileBytes, rootElement, elementCount, attributeCount, maxDepth, textChars,
+                Collections.unmodifiableMap(elementCounts), binaryPayloadCount, binaryPayloadChars,
+                Collections.unmodifiableList(largestSubtrees), System.nanoTime() - start);
+    }
+
+    private static long countNonWhitespace(char[] chars, int start, int length) {
+        long count = 0;
+        for (int i = start; i < start + length; i++) {
+            char c = chars[i];
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        // Profiling must not fetch or expand anything outside the file
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        // Report text in parser-sized chunks instead of merging it into one large string
+        factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+        return factory;
+    }
+}
@@ -0,0 +1,544 @@
+package com.example.xmleditorapp.xml;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Cache of normalized documents in a compact binary form, so that reopening a recent file
+ * skips XML parsing and name normalization.
+ * <p>
+ * After a file is loaded, {@link #encode} turns its DOM (elements, attributes, text, CDATA,
+ * comments and processing instructions; element and attribute names written once and then
+ * referenced by number) into a snapshot in memory, on the thread that owns the document, and
+ * {@link #store} writes it (on any thread) and records the source's path, size, modification
+ * time and content SHA-256 in an index. The file is hashed while it is read for the load, through
+ * a {@link Source}, not in a second pass. {@link #load} accepts a snapshot when size and
+ * modification time still match; if only the modification time differs, the content hash
+ * decides. The DOCTYPE is not kept (documents are parsed without DTD processing anyway).
+ * <p>
+ * The cache lives in {@code ~/.xmleditor/snapshots} (system property
+ * {@code xmleditor.snapshot.dir}) and keeps the {@value #MAX_SNAPSHOTS} most recently used documents.
+ */
+public class DocumentSnapshotCache {
+
+    private static final int MAGIC = 0x58534E50; // "XSNP"
+    private static final short VERSION = 1;
+    private static final int MAX_SNAPSHOTS = 10;
+    private static final String INDEX_FILE = "index.properties";
+
+    // Node records
+    private static final int END = 0;
+    private static final int ELEMENT = 1;
+    private static final int TEXT = 2;
+    private static final int CDATA = 3;
+    private static final int COMMENT = 4;
+    private static final int PROCESSING_INSTRUCTION = 5;
+
+    /**
+     * A document read back from a snapshot, with what the index knows about it.
+     */
+    public record Snapshot(Document document, long elementCount, long loadNanos) {
+    }
+
+    /**
+     * A file as it is read for a load: its size and modification time, taken before reading, and
+     * the SHA-256 of its (uncompressed) content, computed by the stream from {@link #hashing}.
+     */
+    public static final class Source {
+        private final Path file;
+        private final long size;
+        private final long modified;
+        private final MessageDigest digest = digest();
+
+        public Source(Path file) throws IOException {
+            this.file = file;
+            this.size = Files.size(file);
+            this.modified = Files.getLastModifiedTime(file).toMillis();
+        }
+
+        /**
+         * Wraps the stream the document is parsed from. Closing it (as the parser does) hashes
+         * whatever was not read, so the hash always covers the whole content.
+         */
+        public InputStream hashing(InputStream in) {
+            return new DigestInputStream(in, digest) {
+                private boolean closed;
+
+                @Override
+                public void close() throws IOException {
+                    if (closed) return;
+                    closed = true;
+                    try {
+                        transferTo(OutputStream.nullOutputStream());
+                    } finally {
+                        super.close();
+                    }
+                }
+            };
+        }
+    }
+
+    /**
+     * A snapshot encoded in memory, ready to be written by {@link #store}.
+     */
+    public static final class Encoded {
+        private final Path file;
+        private final long size;
+        private final long modified;
+        private final String sha256;
+        private final byte[] bytes;
+        private final long elementCount;
+
+        private Encoded(Source source, byte[] bytes, long elementCount) {
+            this.file = source.file;
+            this.size = source.size;
+            this.modified = source.modified;
+            this.sha256 = HexFormat.of().formatHex(source.digest.digest());
+            this.bytes = bytes;
+            this.elementCount = elementCount;
+        }
+
+        public Path getFile() {
+            return file;
+        }
+    }
+
+    private final Path directory;
+    private final Properties index = new Properties();
+
+    public DocumentSnapshotCache() {
+        this(Paths.get(System.getProperty("xmleditor.snapshot.dir",
+                Paths.get(System.getProperty("user.home"), ".xmleditor", "snapshots").toString())));
+    }
+
+    public DocumentSnapshotCache(Path directory) {
+        this.directory = directory;
+        loadIndex();
+    }
+
+    // --------------------------------------------------------------
+    // Public API
+    // --------------------------------------------------------------
+
+    /**
+     * Returns the cached document for a file, or null if there is no valid snapshot.
+     */
+    public synchronized Snapshot load(Path file) {
+        long start = System.nanoTime();
+        String id = idFor(file);
+        if (index.getProperty(id + ".path") == null) return null;
+
+        try {
+            // 1. Cheap validation: size and modification time
+            long size = Files.size(file);
+            long modified = Files.getLastModifiedTime(file).toMillis();
+            if (size != Long.parseLong(index.getProperty(id + ".size"))) {
+                return null;
+            }
+            if (modified != Long.parseLong(index.getProperty(id + ".mtime"))) {
+                // Touched, or rewritten with the same length: the content decides
+                if (!contentSha256(file).equals(index.getProperty(id + ".sha256"))) {
+                    return null;
+                }
+                index.setProperty(id + ".mtime", Long.toString(modified));
+            }
+
+            // 2. Rebuild the DOM from the snapshot
+            Document document = read(new Reader(Files.readAllBytes(snapshotFile(id))));
+            index.setProperty(id + ".used", Long.toString(System.currentTimeMillis()));
+            saveIndex();
+            return new Snapshot(document, Long.parseLong(index.getProperty(id + ".elements", "0")), System.nanoTime() - start);
+        } catch (IOException | RuntimeException e) {
+            // A damaged or outdated snapshot is only a cache miss
+            System.err.println("Ignoring snapshot of " + file.getFileName() + ": " + e.getMessage());
+            remove(id);
+            return null;
+        }
+    }
+
+    /**
+     * Encodes a freshly loaded (and normalized) document, on the thread that owns it, after the
+     * stream from {@link Source#hashing} was closed.
+     */
+    public static Encoded encode(Source source, Document document) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        long[] elementCount = new long[1];
+        try {
+            Writer out = new Writer(bytes);
+            write(document, out, elementCount);
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // Not thrown by a ByteArrayOutputStream
+        }
+        return new Encoded(source, bytes.toByteArray(), elementCount[0]);
+    }
+
+    /**
+     * Writes an encoded snapshot. Snapshots of the same file must not be stored concurrently.
+     * @return the number of bytes written, or -1 if the snapshot could not be written.
+     */
+    public long store(Encoded encoded) {
+        String id = idFor(encoded.file);
+        try {
+            // Written to a temporary file first, so a crash never leaves a truncated snapshot
+            // behind; only the index is updated under the lock, so loads never wait for the disk
+            Files.createDirectories(directory);
+            Path temporary = directory.resolve(id + ".tmp");
+            Files.write(temporary, encoded.bytes);
+            Files.move(temporary, snapshotFile(id), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            synchronized (this) {
+                index.setProperty(id + ".path", encoded.file.toAbsolutePath().toString());
+                index.setProperty(id + ".size", Long.toString(encoded.size));
+                index.setProperty(id + ".mtime", Long.toString(encoded.modified));
+                index.setProperty(id + ".sha256", encoded.sha256);
+                index.setProperty(id + ".elements", Long.toString(encoded.elementCount));
+                index.setProperty(id + ".used", Long.toString(System.currentTimeMillis()));
+                evict();
+                saveIndex();
+            }
+            return encoded.bytes.length;
+        } catch (IOException e) {
+            System.err.println("Failed to write snapshot of " + encoded.file.getFileName() + ": " + e.getMessage());
+            return -1;
+        }
+    }
+
+    // --------------------------------------------------------------
+    // Encoding
+    // --------------------------------------------------------------
+
+    private static void write(Document document, Writer out, long[] elementCount) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        Map<String, Integer> names = new HashMap<>();
+        writeChildren(document, out, names, elementCount);
+    }
+
+    private static void writeChildren(Node parent, Writer out, Map<String, Integer> names, long[] elementCount) throws IOException {
+        for (Node child = parent.getFirstChild(); child != null; child = child.getNextSibling()) {
+            switch (child.getNodeType()) {
+                case Node.ELEMENT_NODE: {
+                    elementCount[0]++;
+                    out.writeByte(ELEMENT);
+                    writeName(child.getNodeName(), out, names);
+                    NamedNodeMap attributes = child.getAttributes();
+                    writeVarInt(attributes.getLength(), out);
+                    for (int i = 0; i < attributes.getLength(); i++) {
+                        Node attribute = attributes.item(i);
+                        writeName(attribute.getNodeName(), out, names);
+                        writeString(attribute.getNodeValue(), out);
+                    }
+                    writeChildren(child, out, names, elementCount);
+                    break;
+                }
+                case Node.TEXT_NODE:
+                    out.writeByte(TEXT);
+                    writeString(child.getNodeValue(), out);
+                    break;
+                case Node.CDATA_SECTION_NODE:
+                    out.writeByte(CDATA);
+                    writeString(child.getNodeValue(), out);
+                    break;
+                case Node.COMMENT_NODE:
+                    out.writeByte(COMMENT);
+                    writeString(child.getNodeValue(), out);
+                    break;
+                case Node.PROCESSING_INSTRUCTION_NODE:
+                    out.writeByte(PROCESSING_INSTRUCTION);
+                    writeString(child.getNodeName(), out);
+                    writeString(child.getNodeValue(), out);
+                    break;
+                default:
+                    break; // DOCTYPE and entity references are not kept
+            }
+        }
+        out.writeByte(END);
+    }
+
+    private static Document read(Reader in) throws IOException {
+        if (in.readInt() != MAGIC || in.readShort() != VERSION) {
+            throw new IOException("not a snapshot of this version");
+        }
+        Document document;
+        try {
+            document = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+        } catch (ParserConfigurationException e) {
+            throw new IOException(e);
+        }
+        readChildren(document, document, in, new ArrayList<>());
+        if (document.getDocumentElement() == null) {
+            throw new IOException("snapshot has no root element");
+        }
+        return document;
+    }
+
+    private static void readChildren(Document document, Node parent, Reader in, List<String> names) throws IOException {
+        while (true) {
+            int kind = in.readByte();
+            switch (kind) {
+                case END:
+                    return;
+                case ELEMENT: {
+                    Element element = document.createElement(readName(in, names));
+                    int attributeCount = readVarInt(in);
+                    for (int i = 0; i < attributeCount; i++) {
+                        String name = readName(in, names);
+                        element.setAttribute(name, readString(in));
+                    }
+                    parent.appendChild(element);
+                    readChildren(document, element, in, names);
+                    break;
+                }
+                case TEXT:
+                    parent.appendChild(document.createTextNode(readString(in)));
+                    break;
+                case CDATA:
+                    parent.appendChild(document.createCDATASection(readString(in)));
+                    break;
+                case COMMENT:
+                    parent.appendChild(document.createComment(readString(in)));
+                    break;
+                case PROCESSING_INSTRUCTION: {
+                    String target = readString(in);
+                    parent.appendChild(document.createProcessingInstruction(target, readString(in)));
+                    break;
+                }
+                default:
+                    throw new IOException("corrupt snapshot (record " + kind + ")");
+            }
+        }
+    }
+
+    // A name is written in full the first time (as 0 + string), then as its 1-based table index
+    private static void writeName(String name, Writer out, Map<String, Integer> names) throws IOException {
+        Integer known = names.get(name);
+        if (known != null) {
+            writeVarInt(known, out);
+        } else {
+            writeVarInt(0, out);
+            writeString(name, out);
+            names.put(name, names.size() + 1);
+        }
+    }
+
+    private static String readName(Reader in, List<String> names) throws IOException {
+        int reference = readVarInt(in);
+        if (reference == 0) {
+            String name = readString(in);
+            names.add(name);
+            return name;
+        }
+        if (reference > names.size()) throw new IOException("corrupt snapshot (name " + reference + ")");
+        return names.get(reference - 1);
+    }
+
+    // Length-prefixed UTF-8 (writeUTF is limited to 64 KB, payloads are far larger)
+    private static void writeString(String value, Writer out) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(bytes.length, out);
+        out.write(bytes);
+    }
+
+    private static String readString(Reader in) throws IOException {
+        return in.readUtf8(readVarInt(in));
+    }
+
+    private static void writeVarInt(int value, Writer out) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(Reader in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.readByte() & 0xFF;
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("corrupt snapshot (varint)");
+    }
+
+    // Unsynchronized buffered output (the stream classes lock on every byte)
+    private static final class Writer {
+        private final OutputStream out;
+        private final byte[] buffer = new byte[64 * 1024];
+        private int position = 0;
+
+        Writer(OutputStream out) {
+            this.out = out;
+        }
+
+        void writeByte(int value) throws IOException {
+            if (position == buffer.length) flush();
+            buffer[position++] = (byte) value;
+        }
+
+        void writeInt(int value) throws IOException {
+            for (int shift = 24; shift >= 0; shift -= 8) writeByte(value >>> shift);
+        }
+
+        void writeShort(int value) throws IOException {
+            writeByte(value >>> 8);
+            writeByte(value);
+        }
+
+        void write(byte[] bytes) throws IOException {
+            if (bytes.length > buffer.length - position) {
+                flush();
+                if (bytes.length > buffer.length) {
+                    out.write(bytes);
+                    return;
+                }
+            }
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        void flush() throws IOException {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+
+    // Cursor over a snapshot read into memory in one piece
+    private static final class Reader {
+        private final byte[] bytes;
+        private int position = 0;
+
+        Reader(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        byte readByte() throws IOException {
+            if (position >= bytes.length) throw new EOFException("truncated snapshot");
+            return bytes[position++];
+        }
+
+        int readInt() throws IOException {
+            int value = 0;
+            for (int i = 0; i < 4; i++) value = (value << 8) | (readByte() & 0xFF);
+            return value;
+        }
+
+        short readShort() throws IOException {
+            return (short) (((readByte() & 0xFF) << 8) | (readByte() & 0xFF));
+        }
+
+        String readUtf8(int length) throws IOException {
+            if (length < 0 || length > bytes.length - position) throw new EOFException("truncated snapshot");
+            String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+    }
+
+    // --------------------------------------------------------------
+    // Index
+    // --------------------------------------------------------------
+
+    private void loadIndex() {
+        Path file = directory.resolve(INDEX_FILE);
+        if (!Files.isRegularFile(file)) return;
+        try (InputStream in = Files.newInputStream(file)) {
+            index.load(in);
+        } catch (IOException e) {
+            System.err.println("Error loading snapshot index: " + e.getMessage());
+        }
+    }
+
+    private void saveIndex() {
+        try (OutputStream out = Files.newOutputStream(directory.resolve(INDEX_FILE))) {
+            index.store(out, "XML Editor document snapshots");
+        } catch (IOException e) {
+            System.err.println("Error saving snapshot index: " + e.getMessage());
+        }
+    }
+
+    // Drops the least recently used snapshots beyond the limit
+    private void evict() {
+        List<String> ids = new ArrayList<>();
+        for (String key : index.stringPropertyNames()) {
+            if (key.endsWith(".path")) {
+                ids.add(key.substring(0, key.length() - ".path".length()));
+            }
+        }
+        if (ids.size() <= MAX_SNAPSHOTS) return;
+        ids.sort(Comparator.comparingLong(id -> Long.parseLong(index.getProperty(id + ".used", "0"))));
+        for (String id : ids.subList(0, ids.size() - MAX_SNAPSHOTS)) {
+            remove(id);
+        }
+    }
+
+    private void remove(String id) {
+        for (String key : List.of(".path", ".size", ".mtime", ".sha256", ".elements", ".used")) {
+            index.remove(id + key);
+        }
+        try {
+            Files.deleteIfExists(snapshotFile(id));
+        } catch (IOException e) {
+            System.err.println("Failed to delete snapshot " + id + ": " + e.getMessage());
+        }
+        saveIndex();
+    }
+
+    private Path snapshotFile(String id) {
+        return directory.resolve(id + ".snap");
+    }
+
+    // Snapshot id: hash of the absolute path
+    private static String idFor(Path file) {
+        byte[] digest = digest().digest(file.toAbsolutePath().normalize().toString().getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(digest, 0, 8);
+    }
+
+    // Of the content, as the parser reads it (decompressed)
+    private static String contentSha256(Path file) throws IOException {
+        MessageDigest digest = digest();
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = DocumentContainer.detect(file).openInput(file)) {
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static MessageDigest digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.xmleditorapp.xml;
+
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DOM helpers shared by the tree walks, the diff and the merge of this package.
+ * <p>
+ * The "direct text" of an element is its text and CDATA children, ignoring the text of its
+ * child elements.
+ */
+final class DomNodes {
+
+    private DomNodes() {
+    }
+
+    /**
+     * The next element in document order within the subtree of {@code root}, or null after the
+     * last one. Iterative, so deep documents do not overflow the stack.
+     */
+    static Element nextElement(Element element, Element root) {
+        for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child.getNodeType() == Node.ELEMENT_NODE) return (Element) child;
+        }
+        for (Node node = element; node != null && node != root; node = node.getParentNode()) {
+            for (Node sibling = node.getNextSibling(); sibling != null; sibling = sibling.getNextSibling()) {
+                if (sibling.getNodeType() == Node.ELEMENT_NODE) return (Element) sibling;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The direct text of an element, concatenated ("" if it has none).
+     */
+    static String ownText(Element element) {
+        String text = null;
+        StringBuilder joined = null;
+        for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (!isText(child)) continue;
+            if (text == null) {
+                text = child.getNodeValue();
+            } else {
+                if (joined == null) joined = new StringBuilder(text);
+                joined.append(child.getNodeValue());
+            }
+        }
+        return joined != null ? joined.toString() : text == null ? "" : text;
+    }
+
+    /**
+     * Combined hash of the direct text children (each long one is hashed once and cached).
+     */
+    static long textHash(SubtreeHashes hashes, Element element) {
+        long hash = 0;
+        for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (isText(child)) {
+                hash = hash * 31 + hashes.hashOf(child);
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * A payload as reported in diffs and conflicts: its length and hash, not its content.
+     */
+    static String describePayload(String text, long hash) {
+        return text.isEmpty() ? "(none)" : String.format("%,d chars #%016x", text.length(), hash);
+    }
+
+    /**
+     * Replaces the direct text of an element through a transaction (a payload string is
+     * shared, not copied).
+     */
+    static void setText(Element element, String text, DomTransaction transaction) {
+        List<Node> textNodes = new ArrayList<>();
+        for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (isText(child)) {
+                textNodes.add(child);
+            }
+        }
+        if (textNodes.size() == 1) {
+            transaction.setNodeValue(textNodes.getFirst(), text);
+            return;
+        }
+        for (Node node : textNodes) {
+            transaction.removeNode(node);
+        }
+        if (!text.isEmpty()) {
+            transaction.insertBefore(element, element.getOwnerDocument().createTextNode(text), element.getFirstChild());
+        }
+    }
+
+    private static boolean isText(Node node) {
+        return node.getNodeType() == Node.TEXT_NODE || node.getNodeType() == Node.CDATA_SECTION_NODE;
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.xmleditorapp.xml;
+
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Journal of DOM mutations that can be rolled back.
+ * <p>
+ * All edits of a batch go through one transaction; every mutation records how to undo
+ * itself before it is applied. If any operation of the batch fails, {@link #rollback()}
+ * undoes the recorded mutations in reverse order, leaving the document exactly as it was
+ * (same node objects, same attribute values, same sibling order).
+ * <p>
+ * Mutations and their undo steps keep the document's {@link AttributeIndex} and
+ * {@link SubtreeHashes} (if it has them) up to date.
+ */
+public class DomTransaction {
+
+    /**
+     * Undo step for one recorded mutation.
+     */
+    private interface UndoStep {
+        void undo();
+    }
+
+    private final List<UndoStep> journal = new ArrayList<>();
+    private int operationCount = 0;
+
+    /**
+     * Sets an attribute, remembering whether it existed and its previous value.
+     */
+    public void setAttribute(Element element, String name, String value) {
+        boolean existed = element.hasAttribute(name);
+        String previous = element.getAttribute(name);
+        journal.add(() -> reindexed(element, () -> {
+            if (existed) {
+                element.setAttribute(name, previous);
+            } else {
+                element.removeAttribute(name);
+            }
+        }));
+        reindexed(element, () -> element.setAttribute(name, value));
+    }
+
+    /**
+     * Removes an attribute; rollback restores it with its previous value.
+     */
+    public void removeAttribute(Element element, String name) {
+        if (!element.hasAttribute(name)) return;
+        String previous = element.getAttribute(name);
+        journal.add(() -> reindexed(element, () -> element.setAttribute(name, previous)));
+        reindexed(element, () -> element.removeAttribute(name));
+    }
+
+    /**
+     * Changes the value of a text (or other character data) node.
+     */
+    public void setNodeValue(Node node, String value) {
+        String previous = node.getNodeValue();
+        journal.add(() -> {
+            invalidateHashes(node);
+            reindexed(node.getParentNode(), () -> node.setNodeValue(previous));
+        });
+        invalidateHashes(node);
+        reindexed(node.getParentNode(), () -> node.setNodeValue(value));
+    }
+
+    /**
+     * Appends a child; rollback removes it again.
+     */
+    public void appendChild(Node parent, Node child) {
+        insertBefore(parent, child, null);
+    }
+
+    /**
+     * Inserts a child before a sibling (null: at the end); rollback removes it again.
+     */
+    public void insertBefore(Node parent, Node child, Node before) {
+        journal.add(() -> detach(child));
+        insert(parent, child, before);
+    }
+
+    /**
+     * Removes a node from its parent; rollback re-inserts it at its original position.
+     */
+    public void removeNode(Node node) {
+        Node parent = node.getParentNode();
+        Node nextSibling = node.getNextSibling();
+        journal.add(() -> insert(parent, node, nextSibling));
+        detach(node);
+    }
+
+    /**
+     * Counts one logical operation (which may consist of several mutations).
+     */
+    public void operationApplied() {
+        operationCount++;
+    }
+
+    public int getOperationCount() {
+        return operationCount;
+    }
+
+    public int getMutationCount() {
+        return journal.size();
+    }
+
+    /**
+     * Undoes all recorded mutations, newest first.
+     */
+    public void rollback() {
+        for (int i = journal.size() - 1; i >= 0; i--) {
+            journal.get(i).undo();
+        }
+        journal.clear();
+        operationCount = 0;
+    }
+
+    // --------------------------------------------------------------
+    // Index and hash maintenance
+    // --------------------------------------------------------------
+
+    private static void insert(Node parent, Node child, Node before) {
+        if (child instanceof Element) {
+            invalidateHashes(parent);
+            parent.insertBefore(child, before);
+            AttributeIndex index = indexOf(child);
+            if (index != null) index.addSubtree(child);
+        } else {
+            // Text of the parent changes
+            reindexed(parent, () -> parent.insertBefore(child, before));
+        }
+    }
+
+    private static void detach(Node child) {
+        Node parent = child.getParentNode();
+        if (child instanceof Element) {
+            AttributeIndex index = indexOf(child);
+            if (index != null) index.removeSubtree(child);
+            invalidateHashes(parent);
+            parent.removeChild(child);
+        } else {
+            reindexed(parent, () -> parent.removeChild(child));
+        }
+    }
+
+    // Runs a change of an element's attributes or text, re-indexing the element around it
+    private static void reindexed(Node node, Runnable change) {
+        AttributeIndex index = node instanceof Element ? indexOf(node) : null;
+        if (index != null) index.remove((Element) node);
+        invalidateHashes(node);
+        change.run();
+        if (index != null) index.add((Element) node);
+    }
+
+    private static void invalidateHashes(Node node) {
+        SubtreeHashes hashes = SubtreeHashes.ifPresent(node.getOwnerDocument());
+        if (hashes != null) hashes.invalidate(node);
+    }
+
+    // The index of the node's document, if the node is in the document (detached nodes are
+    // indexed when they are inserted)
+    private static AttributeIndex indexOf(Node node) {
+        AttributeIndex index = AttributeIndex.ifPresent(node.getOwnerDocument());
+        if (index == null) return null;
+        for (Node ancestor = node; ancestor != null; ancestor = ancestor.getParentNode()) {
+            if (ancestor.getNodeType() == Node.DOCUMENT_NODE) return index;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.xmleditorapp.xml;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches the open file for changes made by other programs (java.nio WatchService on its
+ * directory, one daemon thread).
+ * <p>
+ * Editors often write a file in several steps (truncate and write in chunks, or write a
+ * temporary file and rename it), which shows up as a burst of events. The events are
+ * debounced: the listener is called once the file has been quiet for
+ * {@code xmleditor.watch.debounceMs} (default 500 ms), and only if its size or modification
+ * time differs from the state recorded by the last {@link #watch} call, so the editor's own
+ * saves (followed by {@link #watch}) are not reported. A deleted file is not reported; it is
+ * reported when it is written again.
+ */
+public class FileChangeWatcher {
+
+    private static final long DEFAULT_DEBOUNCE_MS = 500;
+
+    /**
+     * Receives changes of the watched file, on the watcher thread.
+     */
+    public interface FileChangeListener {
+        void fireFileChangedOnDisk(Path file, int eventCount);
+    }
+
+    // Size and modification time of the file as last seen
+    private record Stamp(long size, long modified) {
+    }
+
+    private final FileChangeListener listener;
+    private final long debounceNanos;
+    private WatchService service;
+    private Thread thread;
+
+    // Guarded by this
+    private Path target;
+    private WatchKey key;
+    private Stamp known;
+
+    public FileChangeWatcher(FileChangeListener listener) {
+        this.listener = listener;
+        this.debounceNanos = TimeUnit.MILLISECONDS.toNanos(Long.getLong("xmleditor.watch.debounceMs", DEFAULT_DEBOUNCE_MS));
+    }
+
+    /**
+     * Watches a file (null: stop watching) and records its current state as known. Call
+     * after loading or saving it.
+     */
+    public synchronized void watch(Path file) {
+        target = file == null ? null : file.toAbsolutePath();
+        known = target == null ? null : stampOf(target);
+        Path directory = target == null ? null : target.getParent();
+        if (key != null && (directory == null || !directory.equals(key.watchable()))) {
+            key.cancel();
+            key = null;
+        }
+        if (directory == null || key != null) return;
+        try {
+            if (service == null) {
+                service = FileSystems.getDefault().newWatchService();
+                thread = new Thread(this::run, "file-watcher");
+                thread.setDaemon(true);
+                thread.start();
+            }
+            key = directory.register(service, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        } catch (IOException e) {
+            // LOGGING
+            System.err.println("⚠️ Cannot watch " + directory + " for external changes: " + e.getMessage());
+        }
+    }
+
+    // --------------------------------------------------------------
+    // Watcher thread
+    // --------------------------------------------------------------
+
+    private void run() {
+        int pendingEvents = 0;
+        long lastEventNanos = 0;
+        try {
+            while (true) {
+                // 1. Wait for events; while a burst is pending, only until it has been quiet long enough
+                WatchKey signalled = pendingEvents == 0
+                        ? service.take()
+                        : service.poll(Math.max(0, debounceNanos - (System.nanoTime() - lastEventNanos)), TimeUnit.NANOSECONDS);
+                if (signalled != null) {
+                    for (WatchEvent<?> event : signalled.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW || concernsTarget(signalled, event)) {
+                            pendingEvents++;
+                            lastEventNanos = System.nanoTime();
+                        }
+                    }
+                    signalled.reset();
+                }
+
+                // 2. Quiet period over: report the burst once, if the file really changed
+                if (pendingEvents > 0 && System.nanoTime() - lastEventNanos >= debounceNanos) {
+                    Path changed = takeChange();
+                    if (changed != null) listener.fireFileChangedOnDisk(changed, pendingEvents);
+                    pendingEvents = 0;
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Watcher stopped
+        }
+    }
+
+    private synchronized boolean concernsTarget(WatchKey signalled, WatchEvent<?> event) {
+        return target != null && signalled == key && target.getFileName().equals(event.context());
+    }
+
+    // The watched file if it exists and differs from the known state (which it then becomes)
+    private synchronized Path takeChange() {
+        if (target == null || !Files.exists(target)) return null;
+        Stamp stamp = stampOf(target);
+        if (stamp == null || stamp.equals(known)) return null;
+        known = stamp;
+        return target;
+    }
+
+    private static Stamp stampOf(Path file) {
+        try {
+            return new Stamp(Files.size(file), Files.getLastModifiedTime(file).toMillis());
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,491 @@
+package com.example.xmleditorapp.xml;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Display model of a {@link LineIndexedSource} in which the text content of binary
+ * (base64) elements is folded into a single placeholder row.
+ * <p>
+ * Binary elements are the ones the schema declares with a binary type (see
+ * {@link XmlSchemaReader#getBinaryContentElementTypes()}). A folded payload shows its decoded
+ * byte count and a SHA-256 prefix, both computed only when the placeholder is first shown.
+ * Expanding a payload reveals it in chunks of {@link #EXPAND_CHUNK_CHARS}, never all at once.
+ * The same folding is used by {@link #writeFolded} when copying source text out.
+ * <p>
+ * Rows are stored as packed ints; without binary regions every row is simply a source line
+ * and nothing is allocated.
+ */
+public class FoldedSource {
+
+    // Payloads shorter than this are not worth folding
+    public static final int MIN_FOLD_CHARS = 256;
+    // How much of a payload each "expand" reveals
+    public static final int EXPAND_CHUNK_CHARS = 64 * 1024;
+    // Revealed payload text is split into rows of at most this many chars
+    private static final int PAYLOAD_ROW_CHARS = 1024;
+
+    public enum RowKind {
+        LINE,        // a complete source line
+        SEGMENT,     // part of a source line [start, end)
+        PLACEHOLDER, // source prefix [start, end), the region placeholder, optional suffix
+        PAYLOAD,     // revealed payload text [start, end), shown as plain text
+        MORE         // "show more" row of an expanded region
+    }
+
+    private static final RowKind[] KINDS = RowKind.values();
+    // Packed row layout: kind, line, start, end, region
+    private static final int STRIDE = 5;
+
+    private final LineIndexedSource source;
+    private final List<BinaryRegion> regions;
+    private int[] rows;
+    private int rowCount;
+
+    public FoldedSource(LineIndexedSource source, Set<String> binaryElementTypes) {
+        this.source = source;
+        this.regions = binaryElementTypes == null || binaryElementTypes.isEmpty()
+                ? Collections.emptyList()
+                : findBinaryRegions(source.getText(), binaryElementTypes);
+        rebuildRows();
+    }
+
+    public LineIndexedSource getSource() {
+        return source;
+    }
+
+    public List<BinaryRegion> getRegions() {
+        return Collections.unmodifiableList(regions);
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public RowKind getRowKind(int row) {
+        return rows == null ? RowKind.LINE : KINDS[rows[row * STRIDE]];
+    }
+
+    public int getRowStart(int row) {
+        return rows == null ? source.getLineStart(row) : rows[row * STRIDE + 2];
+    }
+
+    public int getRowEnd(int row) {
+        return rows == null ? source.getLineEnd(row) : rows[row * STRIDE + 3];
+    }
+
+    /**
+     * The binary region a PLACEHOLDER, PAYLOAD or MORE row belongs to, or null.
+     */
+    public BinaryRegion getRowRegion(int row) {
+        if (rows == null || rows[row * STRIDE + 4] < 0) return null;
+        return regions.get(rows[row * STRIDE + 4]);
+    }
+
+    /**
+     * Returns the row that displays the given character offset.
+     */
+    public int getRowOfOffset(int offset) {
+        if (rows == null) {
+            return source.getLineOfOffset(offset);
+        }
+        int low = 0;
+        int high = rowCount - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (rows[mid * STRIDE + 2] <= offset) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Tokenizes the source part of a row. For PLACEHOLDER rows only the prefix before the
+     * payload is reported; the suffix is reported by {@link #tokenizePlaceholderSuffix}.
+     */
+    public void tokenizeRow(int row, XmlLexer.TokenSink sink) {
+        RowKind kind = getRowKind(row);
+        switch (kind) {
+            case LINE:
+                source.tokenizeLine(rows == null ? row : rows[row * STRIDE + 1], sink);
+                break;
+            case SEGMENT:
+            case PLACEHOLDER:
+                source.tokenizeLineRange(rows[row * STRIDE + 1], getRowStart(row), getRowEnd(row), sink);
+                break;
+            case PAYLOAD:
+                sink.token(XmlLexer.TokenType.TEXT, getRowStart(row), getRowEnd(row));
+                break;
+            case MORE:
+                break;
+        }
+    }
+
+    /**
+     * Reports the tokens after a folded payload that ends on the same line it starts on
+     * (e.g. "&lt;/PDF&gt;" in "&lt;PDF&gt;JVBERi0...&lt;/PDF&gt;").
+     */
+    public void tokenizePlaceholderSuffix(int row, XmlLexer.TokenSink sink) {
+        BinaryRegion region = getRowRegion(row);
+        if (getRowKind(row) != RowKind.PLACEHOLDER || region.isExpanded()) return;
+        int line = rows[row * STRIDE + 1];
+        if (source.getLineOfOffset(region.getEnd()) == line) {
+            source.tokenizeLineRange(line, region.getEnd(), getSuffixEnd(rows[row * STRIDE + 4], line), sink);
+        }
+    }
+
+    /**
+     * Expands a folded region by one chunk, or collapses it if it is fully shown
+     * and the PLACEHOLDER row was clicked.
+     * @return true if the rows changed.
+     */
+    public boolean toggle(int row) {
+        BinaryRegion region = getRowRegion(row);
+        if (region == null) return false;
+
+        RowKind kind = getRowKind(row);
+        if (kind == RowKind.PLACEHOLDER && region.isExpanded()) {
+            region.revealedChars = 0;
+        } else if (kind == RowKind.PLACEHOLDER || kind == RowKind.MORE) {
+            region.revealedChars = Math.min(region.length(), region.revealedChars + EXPAND_CHUNK_CHARS);
+        } else {
+            return false;
+        }
+        rebuildRows();
+        return true;
+    }
+
+    /**
+     * Writes the source with every folded payload replaced by an XML comment that records
+     * its size and hash, so the copied text stays well-formed and recognizable.
+     */
+    public void writeFolded(Appendable out) throws IOException {
+        CharSequence text = source.getText();
+        int position = 0;
+        for (BinaryRegion region : regions) {
+            out.append(text, position, region.getStart());
+            out.append("<!-- ").append(region.getElementName()).append(" payload folded: ")
+                    .append(Long.toString(region.getDecodedByteCount())).append(" bytes, sha256=")
+                    .append(region.getSha256()).append(" -->");
+            position = region.getEnd();
+        }
+        out.append(text, position, text.length());
+    }
+
+    // --------------------------------------------------------------
+    // Row layout
+    // --------------------------------------------------------------
+
+    private void rebuildRows() {
+        if (regions.isEmpty()) {
+            rows = null;
+            rowCount = source.getLineCount();
+            return;
+        }
+
+        rows = new int[Math.max(16, (source.getLineCount() + regions.size() * 2) * STRIDE)];
+        rowCount = 0;
+        CharSequence text = source.getText();
+
+        int line = 0;
+        int lineCount = source.getLineCount();
+        for (int r = 0; r < regions.size(); r++) {
+            BinaryRegion region = regions.get(r);
+            int startLine = source.getLineOfOffset(region.getStart());
+            int endLine = source.getLineOfOffset(region.getEnd());
+
+            // 1. Whole lines before the region
+            for (; line < startLine; line++) {
+                addRow(RowKind.LINE, line, source.getLineStart(line), source.getLineEnd(line), -1);
+            }
+
+            // 2. The line the payload starts on (its prefix) with the placeholder.
+            // If the previous payload ended on this line, its row already shows the text in between.
+            int rowStart = startLine < line ? region.getStart() : source.getLineStart(startLine);
+            addRow(RowKind.PLACEHOLDER, startLine, rowStart, region.getStart(), r);
+
+            // 3. Revealed payload chunks, split at line breaks and at PAYLOAD_ROW_CHARS
+            if (region.isExpanded()) {
+                int revealedEnd = region.getStart() + region.revealedChars;
+                int position = region.getStart();
+                while (position < revealedEnd) {
+                    int rowEnd = Math.min(revealedEnd, position + PAYLOAD_ROW_CHARS);
+                    for (int i = position; i < rowEnd; i++) {
+                        if (text.charAt(i) == '\n') {
+                            rowEnd = i;
+                            break;
+                        }
+                    }
+                    if (rowEnd > position) {
+                        addRow(RowKind.PAYLOAD, source.getLineOfOffset(position), position, rowEnd, r);
+                    }
+                    position = rowEnd;
+                    while (position < revealedEnd && (text.charAt(position) == '\n' || text.charAt(position) == '\r')) {
+                        position++;
+                    }
+                }
+                if (region.revealedChars < region.length()) {
+                    addRow(RowKind.MORE, source.getLineOfOffset(revealedEnd), revealedEnd, revealedEnd, r);
+                }
+            }
+
+            // 4. The rest of the line the payload ends on (up to the next payload, if on the same line)
+            if (endLine != startLine || region.isExpanded()) {
+                addRow(RowKind.SEGMENT, endLine, region.getEnd(), getSuffixEnd(r, endLine), -1);
+            }
+            line = endLine + 1;
+        }
+
+        // 5. Whole lines after the last region
+        for (; line < lineCount; line++) {
+            addRow(RowKind.LINE, line, source.getLineStart(line), source.getLineEnd(line), -1);
+        }
+    }
+
+    private int getSuffixEnd(int regionIndex, int line) {
+        int lineEnd = source.getLineEnd(line);
+        if (regionIndex + 1 < regions.size()) {
+            return Math.min(lineEnd, regions.get(regionIndex + 1).getStart());
+        }
+        return lineEnd;
+    }
+
+    private void addRow(RowKind kind, int line, int start, int end, int region) {
+        if ((rowCount + 1) * STRIDE > rows.length) {
+            rows = Arrays.copyOf(rows, rows.length + (rows.length >> 1) + STRIDE * 16);
+        }
+        int base = rowCount * STRIDE;
+        rows[base] = kind.ordinal();
+        rows[base + 1] = line;
+        rows[base + 2] = start;
+        rows[base + 3] = end;
+        rows[base + 4] = region;
+        rowCount++;
+    }
+
+    // --------------------------------------------------------------
+    // Region detection
+    // --------------------------------------------------------------
+
+    /**
+     * Finds the content of all binary elements with one forward scan over the markup.
+     * Comments, CDATA sections and processing instructions outside payloads are skipped.
+     */
+    static List<BinaryRegion> findBinaryRegions(CharSequence text, Set<String> binaryElementTypes) {
+        List<BinaryRegion> result = new ArrayList<>();
+        int length = text.length();
+        int i = indexOf(text, "<", 0);
+        while (i >= 0 && i < length) {
+            if (startsWith(text, i, "<!--")) {
+                i = skipPast(text, i, "-->");
+            } else if (startsWith(text, i, "<![CDATA[")) {
+                i = skipPast(text, i, "]]>");
+            } else if (startsWith(text, i, "<?")) {
+                i = skipPast(text, i, "?>");
+            } else if (startsWith(text, i, "</") || startsWith(text, i, "<!")) {
+                i = skipPast(text, i, ">");
+            } else {
+                int nameEnd = i + 1;
+                while (nameEnd < length && XmlLexer.isNameChar(text.charAt(nameEnd))) {
+                    nameEnd++;
+                }
+                String name = text.subSequence(i + 1, nameEnd).toString();
+                int tagEnd = findTagEnd(text, nameEnd);
+                if (tagEnd < 0) break;
+
+                boolean emptyElement = text.charAt(tagEnd - 1) == '/';
+                if (!emptyElement && binaryElementTypes.contains(name)) {
+                    int contentStart = tagEnd + 1;
+                    int contentEnd = indexOf(text, "</" + name, contentStart);
+                    if (contentEnd < 0) break;
+                    if (contentEnd - contentStart >= MIN_FOLD_CHARS) {
+                        result.add(new BinaryRegion(text, name, contentStart, contentEnd));
+                    }
+                    i = contentEnd;
+                    continue;
+                }
+                i = tagEnd + 1;
+            }
+            if (i < 0) break;
+            i = indexOf(text, "<", i);
+        }
+        return result;
+    }
+
+    private static int findTagEnd(CharSequence text, int from) {
+        char quote = 0;
+        for (int i = from; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quote != 0) {
+                if (c == quote) quote = 0;
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+            } else if (c == '>') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int skipPast(CharSequence text, int from, String terminator) {
+        int index = indexOf(text, terminator, from + 1);
+        return index < 0 ? -1 : index + terminator.length();
+    }
+
+    private static boolean startsWith(CharSequence text, int at, String prefix) {
+        if (at + prefix.length() > text.length()) return false;
+        for (int k = 0; k < prefix.length(); k++) {
+            if (text.charAt(at + k) != prefix.charAt(k)) return false;
+        }
+        return true;
+    }
+
+    private static int indexOf(CharSequence text, String target, int from) {
+        if (text instanceof String) {
+            return ((String) text).indexOf(target, from);
+        }
+        char first = target.charAt(0);
+        for (int i = Math.max(0, from); i <= text.length() - target.length(); i++) {
+            if (text.charAt(i) == first && startsWith(text, i, target)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // --------------------------------------------------------------
+    // Binary region
+    // --------------------------------------------------------------
+
+    /**
+     * The text content of one binary element. Size and hash are computed on first request.
+     */
+    public static class BinaryRegion {
+        private final CharSequence text;
+        private final String elementName;
+        private final int start;
+        private final int end;
+        private int revealedChars = 0;
+
+        private long decodedByteCount = -1;
+        private String sha256;
+
+        BinaryRegion(CharSequence text, String elementName, int start, int end) {
+            this.text = text;
+            this.elementName = elementName;
+            this.start = start;
+            this.end = end;
+        }
+
+        public String getElementName() { return elementName; }
+        public int getStart() { return start; }
+        public int getEnd() { return end; }
+        public int length() { return end - start; }
+        public boolean isExpanded() { return revealedChars > 0; }
+        public int getRevealedChars() { return revealedChars; }
+
+        public long getDecodedByteCount() {
+            computeSummary();
+            return decodedByteCount;
+        }
+
+        /**
+         * Hex SHA-256 of the payload text (base64 characters only, whitespace and CDATA
+         * markers excluded), so re-indented copies of the same payload hash the same.
+         */
+        public String getSha256() {
+            computeSummary();
+            return sha256;
+        }
+
+        /**
+         * Short placeholder text for the source view.
+         */
+        public String getPlaceholderText() {
+            String hash = getSha256();
+            return String.format("%s payload: %,d bytes · sha256 %s…", elementName, getDecodedByteCount(),
+                    hash.substring(0, Math.min(12, hash.length())));
+        }
+
+        private void computeSummary() {
+            if (sha256 != null) return;
+            MessageDigest digest;
+            try {
+                digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 not available", e);
+            }
+
+            int[] payload = payloadRange();
+            int from = payload[0];
+            int to = payload[1];
+
+            byte[] buffer = new byte[8192];
+            int filled = 0;
+            long base64Chars = 0;
+            int padding = 0;
+            for (int i = from; i < to; i++) {
+                char c = text.charAt(i);
+                boolean isBase64 = (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')
+                        || c == '+' || c == '/' || c == '=';
+                if (!isBase64) continue; // whitespace, CDATA markers
+                if (c == '=') padding++;
+                base64Chars++;
+                buffer[filled++] = (byte) c;
+                if (filled == buffer.length) {
+                    digest.update(buffer, 0, filled);
+                    filled = 0;
+                }
+            }
+            digest.update(buffer, 0, filled);
+
+            decodedByteCount = Math.max(0, base64Chars / 4 * 3 - Math.min(2, padding));
+            sha256 = HexFormat.of().formatHex(digest.digest());
+        }
+
+        /**
+         * Decodes the payload while it is read, straight from the source text (which may be
+         * a memory-mapped file), so the payload is never copied into a String or byte array.
+         */
+        public InputStream openDecodedStream() {
+            int[] payload = payloadRange();
+            InputStream base64 = new InputStream() {
+                private int position = payload[0];
+
+                @Override
+                public int read() {
+                    return position < payload[1] ? text.charAt(position++) & 0xFF : -1;
+                }
+            };
+            // The MIME decoder skips line breaks and indentation inside the payload
+            return Base64.getMimeDecoder().wrap(new BufferedInputStream(base64, 8192));
+        }
+
+        // [from, to) of the base64 text: surrounding whitespace and a CDATA wrapper excluded
+        private int[] payloadRange() {
+            int from = start;
+            int to = end;
+            while (from < to && Character.isWhitespace(text.charAt(from))) from++;
+            while (to > from && Character.isWhitespace(text.charAt(to - 1))) to--;
+            // Look inside a CDATA wrapper, so its markers do not count as payload
+            if (startsWith(text, from, "<![CDATA[") && to - from >= 12 && startsWith(text, to - 3, "]]>")) {
+                from += 9;
+                to -= 3;
+            }
+            return new int[] {from, to};
+        }
+    }
+}
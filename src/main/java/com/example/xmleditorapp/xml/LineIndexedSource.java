@@ -0,0 +1,163 @@
+package com.example.xmleditorapp.xml;
+
+import java.util.Arrays;
+
+/**
+ * Read-only view of XML source text with a line-offset index, for virtualized display.
+ * <p>
+ * Building the index is one tight pass over the characters that stores one int per line;
+ * nothing else is precomputed. Lines are tokenized with {@link XmlLexer} only when asked
+ * for, and the lexer state at the start of a line is remembered (one byte per line) so
+ * scrolling forward continues where the previous line ended. When jumping far into the
+ * document, the start state is re-synchronized from the nearest markup character instead
+ * of lexing everything above the viewport. Such a state is only a guess (a '&gt;' inside a
+ * comment, CDATA section or attribute value looks like the end of a tag), so it is remembered
+ * as one: only states reached by lexing forward from the first line are exact, and an exact
+ * state within reach always wins over a guess.
+ */
+public class LineIndexedSource {
+
+    // How far back (in lines) we are willing to lex to reach a line with a known start state
+    private static final int MAX_LINES_TO_RELEX = 64;
+    // How far back (in chars) we look for '<' or '>' when re-synchronizing the lexer
+    private static final int RESYNC_WINDOW = 4096;
+
+    private static final XmlLexer.State[] STATES = XmlLexer.State.values();
+
+    private final CharSequence text;
+    private final int[] lineStarts;
+    private final int lineCount;
+    // Lexer state at the start of each line: 0 = unknown, ordinal + 1 = exact,
+    // -(ordinal + 1) = guessed by re-synchronizing (or lexed forward from a guess)
+    private final byte[] lineStartStates;
+
+    public LineIndexedSource(CharSequence text) {
+        this.text = text == null ? "" : text;
+
+        // 1. Index the line starts (LF, CR and CRLF terminated lines)
+        int[] starts = new int[Math.max(16, this.text.length() / 48)];
+        int count = 0;
+        starts[count++] = 0;
+        int length = this.text.length();
+        for (int i = 0; i < length; i++) {
+            char c = this.text.charAt(i);
+            if (c == '\n' || (c == '\r' && (i + 1 >= length || this.text.charAt(i + 1) != '\n'))) {
+                if (count == starts.length) {
+                    starts = Arrays.copyOf(starts, count + (count >> 1) + 16);
+                }
+                starts[count++] = i + 1;
+            }
+        }
+        this.lineStarts = starts;
+        this.lineCount = count;
+
+        // 2. The first line always starts outside of any markup
+        this.lineStartStates = new byte[count];
+        this.lineStartStates[0] = (byte) (XmlLexer.State.CONTENT.ordinal() + 1);
+    }
+
+    public CharSequence getText() {
+        return text;
+    }
+
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    public int getLineStart(int line) {
+        return lineStarts[line];
+    }
+
+    /**
+     * End of the line's content, excluding the line terminator.
+     */
+    public int getLineEnd(int line) {
+        int end = line + 1 < lineCount ? lineStarts[line + 1] : text.length();
+        while (end > lineStarts[line] && (text.charAt(end - 1) == '\n' || text.charAt(end - 1) == '\r')) {
+            end--;
+        }
+        return end;
+    }
+
+    /**
+     * Returns the (0-based) line containing the given character offset.
+     */
+    public int getLineOfOffset(int offset) {
+        int index = Arrays.binarySearch(lineStarts, 0, lineCount, offset);
+        return index >= 0 ? index : -index - 2;
+    }
+
+    /**
+     * Tokenizes a single line. Tokens are reported with absolute document offsets.
+     */
+    public void tokenizeLine(int line, XmlLexer.TokenSink sink) {
+        XmlLexer.State startState = getStartState(line);
+        XmlLexer.State endState = XmlLexer.lex(text, getLineStart(line), getLineEnd(line), startState, sink);
+        rememberStartState(line + 1, endState, lineStartStates[line] > 0);
+    }
+
+    /**
+     * Tokenizes a single line but only reports the tokens (clipped) inside [from, to).
+     * The lexer still runs from the start of the line, so the state at 'from' is exact.
+     */
+    public void tokenizeLineRange(int line, int from, int to, XmlLexer.TokenSink sink) {
+        tokenizeLine(line, (type, start, end) -> {
+            int clippedStart = Math.max(start, from);
+            int clippedEnd = Math.min(end, to);
+            if (clippedStart < clippedEnd) {
+                sink.token(type, clippedStart, clippedEnd);
+            }
+        });
+    }
+
+    private XmlLexer.State getStartState(int line) {
+        byte known = lineStartStates[line];
+        if (known > 0) {
+            return STATES[known - 1];
+        }
+
+        // 1. Walk back a few lines to one with an exact state and lex forward from there (also
+        // when this line has a guessed state: the exact one replaces it)
+        int exact = line - 1;
+        while (exact > 0 && exact > line - MAX_LINES_TO_RELEX && lineStartStates[exact] <= 0) {
+            exact--;
+        }
+        XmlLexer.TokenSink ignore = (type, start, end) -> { };
+        if (lineStartStates[exact] > 0) {
+            XmlLexer.State state = STATES[lineStartStates[exact] - 1];
+            for (int l = exact; l < line; l++) {
+                // The line terminator never changes the state, so lex only the content
+                state = XmlLexer.lex(text, getLineStart(l), getLineEnd(l), state, ignore);
+                rememberStartState(l + 1, state, true);
+            }
+            return state;
+        }
+        if (known < 0) {
+            return STATES[-known - 1];
+        }
+
+        // 2. Too far away: re-synchronize on the nearest markup boundary before the line
+        int lineStart = getLineStart(line);
+        int limit = Math.max(0, lineStart - RESYNC_WINDOW);
+        XmlLexer.State state = XmlLexer.State.CONTENT;
+        for (int i = lineStart - 1; i >= limit; i--) {
+            char c = text.charAt(i);
+            if (c == '>') {
+                state = XmlLexer.lex(text, i + 1, lineStart, XmlLexer.State.CONTENT, ignore);
+                break;
+            } else if (c == '<') {
+                state = XmlLexer.lex(text, i, lineStart, XmlLexer.State.CONTENT, ignore);
+                break;
+            }
+        }
+        rememberStartState(line, state, false);
+        return state;
+    }
+
+    // A guess never replaces an exact state
+    private void rememberStartState(int line, XmlLexer.State state, boolean exact) {
+        if (line < lineCount && (exact || lineStartStates[line] <= 0)) {
+            lineStartStates[line] = (byte) (exact ? state.ordinal() + 1 : -(state.ordinal() + 1));
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.xmleditorapp.xml;
+
+/**
+ * How a document is loaded into the editor, chosen from its {@link DocumentProfiler.DocumentProfile}
+ * before the DOM is built.
+ * <p>
+ * The element count above which the tree is built lazily can be changed with the
+ * system property {@code xmleditor.lazyTree.elements} (default 20000). Files larger than
+ * {@code xmleditor.streaming.bytes} (default 256 MB) are opened read-only, without a DOM.
+ */
+public enum LoadStrategy {
+
+    // Build the complete TreeView up front
+    FULL_TREE,
+    // Create TreeView items only when their parent is expanded
+    LAZY_TREE,
+    // No DOM: structural skeleton only, subtrees parsed on demand (see StreamingDocument)
+    STREAMING_READ_ONLY;
+
+    static final long DEFAULT_LAZY_TREE_ELEMENTS = 20_000;
+    static final long DEFAULT_STREAMING_BYTES = 256L * 1024 * 1024;
+
+    /**
+     * True if a file of this size should be opened read-only in streaming mode. Checked
+     * before profiling, as even a streaming profile pass is wasted on such files.
+     */
+    public static boolean requiresStreaming(long fileBytes) {
+        return fileBytes > Long.getLong("xmleditor.streaming.bytes", DEFAULT_STREAMING_BYTES);
+    }
+
+    /**
+     * Picks the strategy for a profiled document.
+     */
+    public static LoadStrategy choose(DocumentProfiler.DocumentProfile profile) {
+        return choose(profile.fileBytes(), profile.elementCount());
+    }
+
+    /**
+     * Picks the strategy from the file size and element count alone (e.g. as recorded
+     * with a document snapshot, see {@link DocumentSnapshotCache}).
+     */
+    public static LoadStrategy choose(long fileBytes, long elementCount) {
+        if (requiresStreaming(fileBytes)) {
+            return STREAMING_READ_ONLY;
+        }
+        long elementThreshold = Long.getLong("xmleditor.lazyTree.elements", DEFAULT_LAZY_TREE_ELEMENTS);
+        return elementCount > elementThreshold ? LAZY_TREE : FULL_TREE;
+    }
+}
@@ -0,0 +1,447 @@
+package com.example.xmleditorapp.xml;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.foreign.Arena;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * An XML file mapped into memory once with {@link FileChannel#map} while it is loaded: the
+ * DOM parser reads the mapping ({@link #openStream()}) without a heap copy of the file. The
+ * mapping belongs to an {@link Arena}, so it can be released without unsupported APIs.
+ * <p>
+ * The mapping must not outlive the load: another program may rewrite the file in place
+ * (reads past a shortened file fault with an {@link InternalError}), and on Windows a
+ * mapped file cannot be truncated, so saving it would fail until the mapping is garbage
+ * collected. {@link #close()} closes the arena, which releases the mapping right away, and {@link #getText()}, which
+ * the source view keeps, reads a private heap copy of the bytes.
+ * <p>
+ * For UTF-8 and single-byte encodings, {@link #getText()} is a {@link CharSequence} that
+ * decodes from that copy as it is read: pure ASCII files (the usual case, base64 payloads
+ * included) take one byte per char; other UTF-8 files keep one byte offset per 1024 chars
+ * and decode the block that is accessed. Other encodings (e.g. UTF-16) are decoded into a
+ * String.
+ * <p>
+ * Compressed documents (see {@link DocumentContainer}) cannot be mapped: {@link #openStream()}
+ * streams their decompressed content straight into the parser, and {@link #getText()}
+ * decompresses them once into its heap copy, presized from the size recorded in the file.
+ */
+public class MappedXmlFile implements Closeable {
+
+    // Enough to read the BOM and the XML declaration
+    private static final int HEAD_BYTES = 512;
+    private static final int MAX_ARRAY_BYTES = Integer.MAX_VALUE - 8;
+
+    private final Path file;
+    private final DocumentContainer container;
+    // The mapping of a plain file and the arena that owns it (null for compressed documents)
+    private ByteBuffer bytes;
+    private final Arena arena;
+    // Exact for plain files; recorded or estimated for compressed ones until decompressed
+    private long byteLength;
+    private final Charset charset;
+    private final int bomLength;
+    private CharSequence text;
+    private boolean closed = false;
+
+    private MappedXmlFile(Path file, DocumentContainer container, Arena arena, ByteBuffer bytes, long byteLength, byte[] head) throws IOException {
+        this.file = file;
+        this.container = container;
+        this.arena = arena;
+        this.bytes = bytes;
+        this.byteLength = byteLength;
+
+        if (head.length >= 2 && head[0] == (byte) 0xFE && head[1] == (byte) 0xFF) {
+            charset = StandardCharsets.UTF_16BE;
+            bomLength = 2;
+        } else if (head.length >= 2 && head[0] == (byte) 0xFF && head[1] == (byte) 0xFE) {
+            charset = StandardCharsets.UTF_16LE;
+            bomLength = 2;
+        } else {
+            bomLength = head.length >= 3 && head[0] == (byte) 0xEF && head[1] == (byte) 0xBB && head[2] == (byte) 0xBF ? 3 : 0;
+            charset = XmlSkeleton.declaredCharset(head, bomLength);
+        }
+    }
+
+    /**
+     * Opens a document in any {@link DocumentContainer}: plain files are mapped, compressed
+     * ones are read through a decompressing stream (only their first bytes, to detect the
+     * encoding, until they are parsed).
+     */
+    public static MappedXmlFile open(Path file) throws IOException {
+        DocumentContainer container = DocumentContainer.detect(file);
+        if (container == DocumentContainer.PLAIN) {
+            return map(file);
+        }
+        byte[] head;
+        try (InputStream in = container.openInput(file)) {
+            head = in.readNBytes(HEAD_BYTES);
+        }
+        return new MappedXmlFile(file, container, null, null, container.contentSize(file), head);
+    }
+
+    /**
+     * Maps a file read-only. The channel is closed right away; the mapping stays valid
+     * until {@link #close()}.
+     * @throws IOException if the file cannot be read or is larger than 2 GB.
+     */
+    public static MappedXmlFile map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException(file.getFileName() + " is too large to map (" + size + " bytes); use the streaming view");
+            }
+            // Shared: the mapping may be read on another thread than the one that closes it
+            Arena arena = Arena.ofShared();
+            try {
+                ByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, size, arena).asByteBuffer();
+                byte[] head = new byte[(int) Math.min(HEAD_BYTES, size)];
+                bytes.get(0, head);
+                return new MappedXmlFile(file, DocumentContainer.PLAIN, arena, bytes, size, head);
+            } catch (IOException | RuntimeException e) {
+                arena.close();
+                throw e;
+            }
+        }
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public DocumentContainer getContainer() {
+        return container;
+    }
+
+    // Size of the (uncompressed) XML content; for compressed documents, as recorded in the
+    // file (or estimated) until getText() has decompressed them
+    public long getByteLength() {
+        return byteLength;
+    }
+
+    public Charset getCharset() {
+        return charset;
+    }
+
+    /**
+     * A stream over the content (BOM and XML declaration included), for the parser: the
+     * mapped bytes, or a new decompressing stream. Valid until {@link #close()}.
+     */
+    public synchronized InputStream openStream() throws IOException {
+        checkOpen();
+        return bytes != null ? new MappedInputStream(bytes.duplicate()) : container.openInput(file);
+    }
+
+    /**
+     * The decoded text, built on first use from a private heap copy of the bytes, so it stays
+     * valid after {@link #close()} and whatever happens to the file. See the class comment
+     * for how it is stored.
+     */
+    public synchronized CharSequence getText() throws IOException {
+        if (text == null) {
+            checkOpen();
+            ByteBuffer content;
+            if (bytes != null) {
+                content = ByteBuffer.allocate((int) byteLength - bomLength);
+                content.put(0, bytes, bomLength, content.capacity());
+            } else {
+                byte[] decompressed = decompress();
+                byteLength = decompressed.length;
+                content = ByteBuffer.wrap(decompressed).slice(bomLength, decompressed.length - bomLength);
+            }
+            if (charset.equals(StandardCharsets.UTF_8) || charset.equals(StandardCharsets.US_ASCII)) {
+                text = MappedText.utf8(content);
+            } else if (isSingleByte(charset)) {
+                text = MappedText.singleByte(content, charset);
+            } else {
+                text = charset.decode(content).toString();
+            }
+        }
+        return text;
+    }
+
+    /**
+     * Releases the mapping now instead of when it is garbage collected (the text from
+     * {@link #getText()} is not affected). Streams from {@link #openStream()} must no
+     * longer be read; reading them throws an {@link IllegalStateException}.
+     */
+    @Override
+    public synchronized void close() {
+        if (arena != null && !closed) {
+            arena.close();
+        }
+        bytes = null;
+        closed = true;
+    }
+
+    private void checkOpen() {
+        if (closed) throw new IllegalStateException(file.getFileName() + " is closed");
+    }
+
+    // The whole decompressed content in one array, presized from the recorded size
+    private byte[] decompress() throws IOException {
+        try (InputStream in = container.openInput(file)) {
+            byte[] content = new byte[(int) Math.min(byteLength, MAX_ARRAY_BYTES)];
+            int filled = in.readNBytes(content, 0, content.length);
+            if (filled < content.length) {
+                return Arrays.copyOf(content, filled);
+            }
+            byte[] rest = in.readAllBytes(); // Size recorded modulo 4 GB, or estimated
+            if (rest.length == 0) {
+                return content;
+            }
+            if ((long) filled + rest.length > MAX_ARRAY_BYTES) {
+                throw new IOException(file.getFileName() + " is too large to decompress into memory");
+            }
+            byte[] all = Arrays.copyOf(content, filled + rest.length);
+            System.arraycopy(rest, 0, all, filled, rest.length);
+            return all;
+        } catch (OutOfMemoryError e) {
+            throw new IOException(file.getFileName() + " is too large to decompress into memory", e);
+        }
+    }
+
+    private static boolean isSingleByte(Charset charset) {
+        return charset.canEncode() && charset.newEncoder().maxBytesPerChar() == 1
+                && charset.newDecoder().maxCharsPerByte() == 1;
+    }
+
+    /**
+     * Read-only text view over mapped bytes. subSequence and toString copy, as they must
+     * return independent sequences; everything else reads the mapping.
+     */
+    static final class MappedText implements CharSequence {
+        private static final int BLOCK_SHIFT = 10;
+        private static final int BLOCK_CHARS = 1 << BLOCK_SHIFT;
+
+        private final ByteBuffer bytes;
+        private final int length;
+        // Single-byte decoding table, or null for UTF-8
+        private final char[] table;
+        // UTF-8 with non-ASCII bytes: per block, (byte offset << 1) | (1 if the block starts
+        // on the low half of a surrogate pair); null when every byte is one char
+        private final long[] blockStarts;
+        // Last decoded block; replaced as a whole, so concurrent readers see a consistent pair
+        private volatile DecodedBlock lastBlock;
+
+        private record DecodedBlock(int index, char[] chars) {
+        }
+
+        private MappedText(ByteBuffer bytes, int length, char[] table, long[] blockStarts) {
+            this.bytes = bytes;
+            this.length = length;
+            this.table = table;
+            this.blockStarts = blockStarts;
+        }
+
+        static MappedText singleByte(ByteBuffer bytes, Charset charset) {
+            byte[] all = new byte[256];
+            for (int i = 0; i < 256; i++) {
+                all[i] = (byte) i;
+            }
+            CharsetDecoder decoder = charset.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            char[] table = new char[256];
+            try {
+                CharBuffer decoded = decoder.decode(ByteBuffer.wrap(all));
+                decoded.get(table, 0, Math.min(256, decoded.remaining()));
+            } catch (IOException e) {
+                // REPLACE never throws
+                throw new IllegalStateException(e);
+            }
+            return new MappedText(bytes, bytes.capacity(), table, null);
+        }
+
+        /**
+         * Scans the bytes once: pure ASCII needs no index, otherwise the block starts are recorded.
+         */
+        static MappedText utf8(ByteBuffer bytes) {
+            int size = bytes.capacity();
+            int firstNonAscii = -1;
+            for (int i = 0; i < size; i++) {
+                if (bytes.get(i) < 0) {
+                    firstNonAscii = i;
+                    break;
+                }
+            }
+            if (firstNonAscii < 0) {
+                return new MappedText(bytes, size, null, null);
+            }
+
+            // Everything before the first non-ASCII byte is one char per byte
+            long[] starts = new long[(firstNonAscii >> BLOCK_SHIFT) + 16];
+            int blocks = 0;
+            for (int b = 0; (long) b << BLOCK_SHIFT <= firstNonAscii; b++) {
+                starts[blocks++] = (long) b << BLOCK_SHIFT << 1;
+            }
+            long chars = firstNonAscii;
+            long nextBlock = (long) blocks << BLOCK_SHIFT;
+            int i = firstNonAscii;
+            while (i < size) {
+                int sequence = sequenceLength(bytes, i, size);
+                int produced = sequence == 4 ? 2 : 1;
+                if (chars + produced > nextBlock) {
+                    if (blocks == starts.length) {
+                        starts = Arrays.copyOf(starts, blocks + (blocks >> 1) + 16);
+                    }
+                    starts[blocks++] = ((long) i << 1) | (nextBlock - chars);
+                    nextBlock += BLOCK_CHARS;
+                }
+                chars += produced;
+                i += sequence;
+            }
+            if (chars > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Text too long: " + chars + " chars");
+            }
+            return new MappedText(bytes, (int) chars, null, starts);
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= length) {
+                throw new IndexOutOfBoundsException("index " + index + ", length " + length);
+            }
+            if (blockStarts == null) {
+                int b = bytes.get(index) & 0xFF;
+                return table != null ? table[b] : (char) b;
+            }
+            int block = index >> BLOCK_SHIFT;
+            DecodedBlock decoded = lastBlock;
+            if (decoded == null || decoded.index() != block) {
+                decoded = new DecodedBlock(block, decodeBlock(block));
+                lastBlock = decoded;
+            }
+            return decoded.chars()[index & (BLOCK_CHARS - 1)];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            if (start < 0 || end > length || start > end) {
+                throw new IndexOutOfBoundsException("[" + start + ", " + end + "), length " + length);
+            }
+            char[] chars = new char[end - start];
+            for (int i = start; i < end; i++) {
+                chars[i - start] = charAt(i);
+            }
+            return new String(chars);
+        }
+
+        @Override
+        public String toString() {
+            return subSequence(0, length).toString();
+        }
+
+        private char[] decodeBlock(int block) {
+            int count = Math.min(BLOCK_CHARS, length - (block << BLOCK_SHIFT));
+            char[] chars = new char[count];
+            long start = blockStarts[block];
+            int i = (int) (start >>> 1);
+            int skip = (int) (start & 1);
+            int size = bytes.capacity();
+            int filled = 0;
+            while (filled < count && i < size) {
+                int sequence = sequenceLength(bytes, i, size);
+                int codePoint = decode(bytes, i, sequence);
+                i += sequence;
+                if (sequence == 4) {
+                    if (skip == 0) {
+                        chars[filled++] = Character.highSurrogate(codePoint);
+                    }
+                    skip = 0;
+                    if (filled < count) {
+                        chars[filled++] = Character.lowSurrogate(codePoint);
+                    }
+                } else {
+                    chars[filled++] = (char) codePoint;
+                }
+            }
+            return chars;
+        }
+
+        /**
+         * Length of the UTF-8 sequence at i; malformed bytes count as one byte (decoded as U+FFFD).
+         */
+        private static int sequenceLength(ByteBuffer bytes, int i, int size) {
+            int lead = bytes.get(i) & 0xFF;
+            int length;
+            if (lead < 0x80) return 1;
+            else if (lead >= 0xC2 && lead < 0xE0) length = 2;
+            else if (lead >= 0xE0 && lead < 0xF0) length = 3;
+            else if (lead >= 0xF0 && lead < 0xF5) length = 4;
+            else return 1;
+            if (i + length > size) return 1;
+            for (int k = 1; k < length; k++) {
+                if ((bytes.get(i + k) & 0xC0) != 0x80) return 1;
+            }
+            return length;
+        }
+
+        private static int decode(ByteBuffer bytes, int i, int sequence) {
+            int lead = bytes.get(i) & 0xFF;
+            switch (sequence) {
+                case 1:
+                    return lead < 0x80 ? lead : 0xFFFD;
+                case 2:
+                    return ((lead & 0x1F) << 6) | (bytes.get(i + 1) & 0x3F);
+                case 3:
+                    return ((lead & 0x0F) << 12) | ((bytes.get(i + 1) & 0x3F) << 6) | (bytes.get(i + 2) & 0x3F);
+                default:
+                    return ((lead & 0x07) << 18) | ((bytes.get(i + 1) & 0x3F) << 12)
+                            | ((bytes.get(i + 2) & 0x3F) << 6) | (bytes.get(i + 3) & 0x3F);
+            }
+        }
+    }
+
+    /**
+     * InputStream over a ByteBuffer (no copy).
+     */
+    private static final class MappedInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        MappedInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) return 0;
+            if (!buffer.hasRemaining()) return -1;
+            int count = Math.min(len, buffer.remaining());
+            buffer.get(b, off, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+
+        @Override
+        public long skip(long n) {
+            int count = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + count);
+            return count;
+        }
+    }
+}
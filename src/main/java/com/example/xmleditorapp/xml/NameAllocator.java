@@ -0,0 +1,150 @@
+package com.example.xmleditorapp.xml;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Hands out unique values for the {@code name} attribute that identifies elements.
+ * <p>
+ * Names are a prefix followed by a counter ({@code synth_Button_1}, {@code synth_Button_2},
+ * {@code NewNode-1}, ...). Every allocation is checked against the set of names in use, which
+ * is collected in one pass when the allocator of a document is first requested; the counters
+ * start after the highest number already used with each prefix, so names stay unique and
+ * reopening a document continues the sequence instead of probing through it.
+ * <p>
+ * There is one allocator per document (kept as DOM user data). Like the DOM itself it is not
+ * thread-safe. Names set by hand should be {@link #reserve reserved}; names of removed elements
+ * stay reserved, which only makes the allocator skip them.
+ */
+public class NameAllocator {
+
+    private static final String USER_DATA_KEY = NameAllocator.class.getName();
+    private static final String SYNTHETIC_PREFIX = "synth_";
+
+    private final Set<String> used = new HashSet<>();
+    private final Map<String, Integer> counters = new HashMap<>();
+
+    private NameAllocator() {
+    }
+
+    /**
+     * The allocator of a document, built from the names it contains on first use.
+     */
+    public static NameAllocator forDocument(Document document) {
+        NameAllocator allocator = (NameAllocator) document.getUserData(USER_DATA_KEY);
+        if (allocator == null) {
+            allocator = new NameAllocator();
+            if (document.getDocumentElement() != null) {
+                allocator.collect(document.getDocumentElement());
+            }
+            document.setUserData(USER_DATA_KEY, allocator, null);
+        }
+        return allocator;
+    }
+
+    /**
+     * The allocator of a document if one was already built, otherwise null (a later
+     * {@link #forDocument} collects the names then in the document anyway).
+     */
+    public static NameAllocator ifPresent(Document document) {
+        return (NameAllocator) document.getUserData(USER_DATA_KEY);
+    }
+
+    /**
+     * Returns a name that is not in use (prefix + number) and marks it as used.
+     */
+    public String allocate(String prefix) {
+        int next = counters.getOrDefault(prefix, 0);
+        String name;
+        do {
+            name = prefix + (++next);
+        } while (!used.add(name));
+        counters.put(prefix, next);
+        return name;
+    }
+
+    /**
+     * Records a name chosen elsewhere (e.g. typed by the user) so it is never handed out.
+     */
+    public void reserve(String name) {
+        if (used.add(name)) {
+            int digits = numericSuffixStart(name);
+            if (digits < name.length()) {
+                counters.merge(name.substring(0, digits), parseSuffix(name, digits), Math::max);
+            }
+        }
+    }
+
+    /**
+     * Gives every element of the subtree that has no (or a blank) name a synthetic one.
+     * @return the number of names assigned
+     */
+    public int normalize(Element root) {
+        int assigned = 0;
+        for (Element element = root; element != null; element = DomNodes.nextElement(element, root)) {
+            if (element.getAttribute("name").trim().isEmpty()) {
+                element.setAttribute("name", allocate(syntheticPrefix(element)));
+                assigned++;
+            }
+        }
+        return assigned;
+    }
+
+    /**
+     * Gives every element of a copied subtree a new synthetic name, so the copy does not
+     * share names with the original.
+     * @return the number of names assigned
+     */
+    public int renameAll(Element root) {
+        int assigned = 0;
+        for (Element element = root; element != null; element = DomNodes.nextElement(element, root)) {
+            element.setAttribute("name", allocate(syntheticPrefix(element)));
+            assigned++;
+        }
+        return assigned;
+    }
+
+    /**
+     * True for names given by {@link #normalize} (they depend on the load order, so two loads
+     * of similar documents give different elements the same synthetic name).
+     */
+    public static boolean isSynthetic(String name) {
+        return name.startsWith(SYNTHETIC_PREFIX);
+    }
+
+    // --------------------------------------------------------------
+    // Helpers
+    // --------------------------------------------------------------
+
+    private static String syntheticPrefix(Element element) {
+        return SYNTHETIC_PREFIX + element.getNodeName() + "_";
+    }
+
+    private void collect(Element root) {
+        for (Element element = root; element != null; element = DomNodes.nextElement(element, root)) {
+            if (element.hasAttribute("name")) {
+                reserve(element.getAttribute("name"));
+            }
+        }
+    }
+
+
+    private static int numericSuffixStart(String name) {
+        int start = name.length();
+        while (start > 0 && Character.isDigit(name.charAt(start - 1)) && name.charAt(start - 1) < 128) {
+            start--;
+        }
+        return start;
+    }
+
+    private static int parseSuffix(String name, int start) {
+        // Suffixes too long for an int do not move the counter (their names are still reserved)
+        return name.length() - start > 9 ? 0 : Integer.parseInt(name.substring(start));
+    }
+}
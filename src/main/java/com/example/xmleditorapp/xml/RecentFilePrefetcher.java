@@ -0,0 +1,292 @@
+package com.example.xmleditorapp.xml;
+
+import org.w3c.dom.Document;
+import org.xml.sax.InputSource;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.lang.ref.SoftReference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Low-priority background work on the recent files list: checks which recent files still
+ * exist (and their container) off the UI thread, then loads the documents most likely to be
+ * opened next, so that opening them from the Open Recent menu does not wait for a parse.
+ * <p>
+ * A document is loaded from its {@link DocumentSnapshotCache snapshot} if it has one, otherwise
+ * parsed, normalized and snapshotted. Prefetching runs on a single minimum-priority thread and
+ * starts only after a quiet period ({@code xmleditor.prefetch.delayMs}, default 1500 ms); any
+ * foreground load cancels it. At most {@value #MAX_DOCUMENTS} documents are kept, only while
+ * their estimated size fits in the ceiling {@code xmleditor.prefetch.maxBytes} (default a
+ * quarter of the maximum heap) and in the currently free heap, and only through soft
+ * references, so the garbage collector can drop them under memory pressure.
+ */
+public class RecentFilePrefetcher {
+
+    private static final int MAX_DOCUMENTS = 2;
+    private static final long DEFAULT_DELAY_MS = 1500;
+    // Rough DOM size per byte of (uncompressed) XML: UTF-16 strings plus node objects
+    private static final int DOM_BYTES_PER_XML_BYTE = 3;
+
+    /**
+     * A prefetched, normalized document. It is handed out once and then belongs to the caller.
+     */
+    public record Prefetched(Document document, long elementCount, long size, long modified, long estimatedBytes) {
+    }
+
+    private final DocumentSnapshotCache snapshotCache;
+    private final Consumer<Document> normalizer;
+    private final long memoryCeiling;
+    private final long delayMillis;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "recent-prefetch");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+
+    // One scheduled check-and-prefetch pass; a cancelled pass stops at its next read
+    private static final class Run {
+        volatile boolean cancelled;
+        Future<?> future;
+        Path inFlight; // Guarded by the prefetcher
+        // Set when a foreground load takes the document in flight: completed with it, then the pass stops
+        volatile CompletableFuture<Prefetched> handOff;
+    }
+
+    private final Map<Path, SoftReference<Prefetched>> documents = new LinkedHashMap<>();
+    private Run current;
+
+    /**
+     * @param normalizer applied to a freshly parsed document (the same normalization as a foreground load)
+     */
+    public RecentFilePrefetcher(DocumentSnapshotCache snapshotCache, Consumer<Document> normalizer) {
+        this.snapshotCache = snapshotCache;
+        this.normalizer = normalizer;
+        this.memoryCeiling = Long.getLong("xmleditor.prefetch.maxBytes", Runtime.getRuntime().maxMemory() / 4);
+        this.delayMillis = Long.getLong("xmleditor.prefetch.delayMs", DEFAULT_DELAY_MS);
+    }
+
+    /**
+     * Schedules a check of the recent files and a prefetch of the most likely next ones,
+     * replacing any earlier schedule.
+     * @param recentFiles most recent first
+     * @param currentFile the open document (not prefetched), or null
+     * @param onChecked called on the prefetch thread with the recent files that exist, in order,
+     *                  mapped to their container
+     */
+    public synchronized void refresh(List<String> recentFiles, Path currentFile, Consumer<Map<String, DocumentContainer>> onChecked) {
+        cancel();
+        List<String> candidates = List.copyOf(recentFiles);
+        Run run = new Run();
+        run.future = executor.schedule(() -> run(run, candidates, currentFile, onChecked), delayMillis, TimeUnit.MILLISECONDS);
+        current = run;
+    }
+
+    /**
+     * Returns the prefetched document for a file if it is still valid (null otherwise). If it is
+     * being prefetched right now, the future completes on the prefetch thread when that load is
+     * done, without blocking the caller; the rest of the pass is dropped. Anything else in
+     * progress is cancelled, as the foreground load takes priority.
+     */
+    public synchronized CompletableFuture<Prefetched> take(Path file) {
+        Path key = file.toAbsolutePath().normalize();
+        if (current != null && key.equals(current.inFlight)) {
+            Run run = current;
+            run.handOff = new CompletableFuture<>();
+            run.future.cancel(false);
+            current = null;
+            return run.handOff;
+        }
+        cancel();
+        return CompletableFuture.completedFuture(remove(key));
+    }
+
+    /**
+     * Runs other background work of the editor on the prefetch thread (minimum priority), after
+     * the pass in progress, e.g. writing the snapshot of a document opened in the foreground.
+     */
+    public void execute(Runnable task) {
+        executor.execute(task);
+    }
+
+    // --------------------------------------------------------------
+    // Background work
+    // --------------------------------------------------------------
+
+    private void run(Run run, List<String> recentFiles, Path currentFile, Consumer<Map<String, DocumentContainer>> onChecked) {
+        // 1. Existence and container of every recent file
+        Map<String, DocumentContainer> existing = new LinkedHashMap<>();
+        for (String path : recentFiles) {
+            Path file = Paths.get(path);
+            if (Files.isRegularFile(file)) {
+                try {
+                    existing.put(path, DocumentContainer.detect(file));
+                } catch (IOException e) {
+                    existing.put(path, DocumentContainer.forFileName(path));
+                }
+            }
+        }
+        onChecked.accept(existing);
+
+        // 2. Prefetch the most recent files other than the open one, within the memory budget
+        Path current = currentFile == null ? null : currentFile.toAbsolutePath().normalize();
+        long budget = memoryCeiling;
+        int count = 0;
+        for (Map.Entry<String, DocumentContainer> entry : existing.entrySet()) {
+            if (run.cancelled || run.handOff != null || count == MAX_DOCUMENTS) break;
+            Path file = Paths.get(entry.getKey()).toAbsolutePath().normalize();
+            if (file.equals(current)) continue;
+            count++;
+
+            Prefetched cached = peek(file);
+            if (cached != null && isCurrent(file, cached)) {
+                budget -= cached.estimatedBytes();
+                continue;
+            }
+            try {
+                long size = entry.getValue().contentSize(file);
+                long estimate = size * DOM_BYTES_PER_XML_BYTE;
+                Runtime runtime = Runtime.getRuntime();
+                long free = runtime.maxMemory() - (runtime.totalMemory() - runtime.freeMemory());
+                if (LoadStrategy.requiresStreaming(size) || estimate > budget || estimate * 2 > free) {
+                    // LOGGING
+                    System.out.printf("⏭️ Not prefetching %s: ~%,d KB needed, %,d KB budget, %,d KB free%n",
+                            file.getFileName(), estimate / 1024, budget / 1024, free / 1024);
+                    continue;
+                }
+                Prefetched prefetched = load(run, file, entry.getValue(), estimate);
+                if (prefetched != null) {
+                    budget -= estimate;
+                    synchronized (this) { // Stored before inFlight is cleared, so a hand-off finds it
+                        documents.put(file, new SoftReference<>(prefetched));
+                        while (documents.size() > MAX_DOCUMENTS) {
+                            documents.remove(documents.keySet().iterator().next());
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                if (!run.cancelled) {
+                    System.err.println("Prefetch of " + file.getFileName() + " failed: " + e.getMessage());
+                }
+            } catch (Exception e) {
+                System.err.println("Prefetch of " + file.getFileName() + " failed: " + e.getMessage());
+            } finally {
+                synchronized (this) {
+                    run.inFlight = null;
+                    if (run.handOff != null) run.handOff.complete(remove(file));
+                }
+            }
+        }
+    }
+
+    private Prefetched load(Run run, Path file, DocumentContainer container, long estimate) throws Exception {
+        synchronized (this) {
+            if (run.cancelled) return null;
+            run.inFlight = file;
+        }
+        long startNanos = System.nanoTime();
+        long size = Files.size(file);
+        long modified = Files.getLastModifiedTime(file).toMillis();
+
+        Document document;
+        long elementCount;
+        DocumentSnapshotCache.Snapshot snapshot = snapshotCache.load(file);
+        if (snapshot != null) {
+            document = snapshot.document();
+            elementCount = snapshot.elementCount();
+        } else {
+            DocumentSnapshotCache.Source read = new DocumentSnapshotCache.Source(file);
+            try (InputStream in = read.hashing(new CancellableInputStream(container.openInput(file), run))) {
+                InputSource source = new InputSource(in);
+                source.setSystemId(file.toUri().toString());
+                document = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(source);
+            }
+            document.normalize();
+            normalizer.accept(document);
+            elementCount = document.getElementsByTagName("*").getLength();
+            if (run.cancelled) return null;
+            snapshotCache.store(DocumentSnapshotCache.encode(read, document));
+        }
+        if (run.cancelled) return null;
+        // LOGGING
+        System.out.printf("🔮 Prefetched %s (%s): %,d elements, ~%,d KB, %.1f ms%n", file.getFileName(),
+                snapshot != null ? "snapshot" : "parsed", elementCount, estimate / 1024, (System.nanoTime() - startNanos) / 1_000_000.0);
+        return new Prefetched(document, elementCount, size, modified, estimate);
+    }
+
+    // --------------------------------------------------------------
+    // Helpers
+    // --------------------------------------------------------------
+
+    private synchronized Prefetched peek(Path file) {
+        SoftReference<Prefetched> reference = documents.get(file);
+        return reference == null ? null : reference.get();
+    }
+
+    private Prefetched remove(Path file) {
+        SoftReference<Prefetched> reference = documents.remove(file);
+        Prefetched prefetched = reference == null ? null : reference.get();
+        return prefetched != null && isCurrent(file, prefetched) ? prefetched : null;
+    }
+
+    // The file has not changed since it was prefetched
+    private static boolean isCurrent(Path file, Prefetched prefetched) {
+        try {
+            return Files.size(file) == prefetched.size()
+                    && Files.getLastModifiedTime(file).toMillis() == prefetched.modified();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    // Does not wait: a running parse stops at its next read
+    private synchronized void cancel() {
+        if (current != null) {
+            current.cancelled = true;
+            current.future.cancel(false);
+            current = null;
+        }
+    }
+
+    // Lets a foreground load stop a background parse
+    private static final class CancellableInputStream extends FilterInputStream {
+
+        private final Run run;
+
+        CancellableInputStream(InputStream in, Run run) {
+            super(in);
+            this.run = run;
+        }
+
+        @Override
+        public int read() throws IOException {
+            checkCancelled();
+            return super.read();
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            checkCancelled();
+            return super.read(buffer, offset, length);
+        }
+
+        private void checkCancelled() throws InterruptedIOException {
+            if (run.cancelled) throw new InterruptedIOException("prefetch cancelled");
+        }
+    }
+}
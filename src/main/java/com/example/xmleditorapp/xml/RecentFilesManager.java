@@ -9,6 +9,7 @@ import java.util.stream.Collectors;
 public class RecentFilesManager {
     private static final String PROPERTIES_FILE = "xmleditor.properties";
     private static final int MAX_RECENT_FILES = 5;
+    private static final String LAST_SAVE_CONTAINER = "save.container";
     private final Properties properties = new Properties();
 
     public RecentFilesManager() {
@@ -38,11 +39,17 @@ public class RecentFilesManager {
 
     // --- Recent Files Logic ---
 
+    /**
+     * The recent files, most recent first. Existence is not checked here (that would touch
+     * the disk on every menu rebuild); {@link RecentFilePrefetcher} checks it in the background
+     * and missing files are only hidden from the menu, as they may come back (e.g. a share
+     * that is not mounted right now).
+     */
     public List<String> getRecentFiles() {
         List<String> recentFiles = new ArrayList<>();
         for (int i = 0; i < MAX_RECENT_FILES; i++) {
             String path = properties.getProperty("recent." + i);
-            if (path != null && new File(path).exists()) {
+            if (path != null) {
                 recentFiles.add(path);
             }
         }
@@ -61,11 +68,35 @@ public class RecentFilesManager {
             files = files.subList(0, MAX_RECENT_FILES);
         }
 
-        // Save back to properties
-        properties.clear();
+        setRecentFiles(files);
+    }
+
+    private void setRecentFiles(List<String> files) {
+        // Save back to properties (other settings are kept)
+        for (int i = 0; i < MAX_RECENT_FILES; i++) {
+            properties.remove("recent." + i);
+        }
         for (int i = 0; i < files.size(); i++) {
             properties.setProperty("recent." + i, files.get(i));
         }
         save();
     }
+
+    // --- Save format ---
+
+    /**
+     * The container format last chosen in Save As (plain XML until one is chosen).
+     */
+    public DocumentContainer getLastSaveContainer() {
+        try {
+            return DocumentContainer.valueOf(properties.getProperty(LAST_SAVE_CONTAINER, DocumentContainer.PLAIN.name()));
+        } catch (IllegalArgumentException e) {
+            return DocumentContainer.PLAIN;
+        }
+    }
+
+    public void setLastSaveContainer(DocumentContainer container) {
+        properties.setProperty(LAST_SAVE_CONTAINER, container.name());
+        save();
+    }
 }
\ No newline at end of file
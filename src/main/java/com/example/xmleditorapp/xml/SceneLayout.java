@@ -0,0 +1,364 @@
+package com.example.xmleditorapp.xml;
+
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Geometry of the positioned components of one container (Scene, Dialog, ...), backed by a
+ * {@link SpatialIndex}.
+ * <p>
+ * Components are the element children with an x or y attribute, in document order (which
+ * is also paint order). The layout is built once per container and then kept up to date
+ * one component at a time ({@link #update}) as nodes are moved, so hit testing, the
+ * overlap/out-of-bounds lint and snapping never rescan the whole scene: after the first full
+ * lint, a moved component is only checked again against its grid neighbours.
+ */
+public class SceneLayout {
+
+    // Same defaults as the SVG stylesheet
+    public static final double DEFAULT_CONTAINER_DIM = 500;
+    public static final double DEFAULT_COMPONENT_DIM = 10;
+    // Grid cell size of the index; typical components are 20-200 px wide
+    private static final double CELL_SIZE = 64;
+
+    public enum IssueKind { OVERLAP, OUT_OF_BOUNDS }
+
+    /**
+     * One lint finding. For OUT_OF_BOUNDS, otherNodeName is null.
+     */
+    public record Issue(IssueKind kind, String nodeName, String otherNodeName) {
+        @Override
+        public String toString() {
+            return kind == IssueKind.OVERLAP
+                    ? nodeName + " overlaps " + otherNodeName
+                    : nodeName + " is outside the container bounds";
+        }
+    }
+
+    /**
+     * Result of {@link #snap}: the adjusted position and the guide lines it snapped to
+     * (NaN when there is no guide on that axis).
+     */
+    public record Snap(double x, double y, double guideX, double guideY) {
+    }
+
+    private final String containerLabel;
+    private final double containerWidth;
+    private final double containerHeight;
+
+    private final int count;
+    private final double[] xs;
+    private final double[] ys;
+    private final double[] widths;
+    private final double[] heights;
+    private final String[] names;
+    private final String[] types;
+    private final Map<String, Integer> indexByName = new HashMap<>();
+    private final SpatialIndex index = new SpatialIndex(CELL_SIZE);
+
+    // Lint state, computed in full on first use and then kept up to date one component at a
+    // time: per component, whether it is out of bounds and the components it overlaps
+    private boolean linted;
+    private boolean[] outOfBounds;
+    private int[][] partners;
+    private int[] partnerCounts;
+    private int issueCount;
+    // The issue list, built from that state when asked for (null after a change)
+    private List<Issue> issues;
+
+    private SceneLayout(Element container, List<Element> components) {
+        this.containerWidth = positiveOrDefault(container.getAttribute("width"), DEFAULT_CONTAINER_DIM);
+        this.containerHeight = positiveOrDefault(container.getAttribute("height"), DEFAULT_CONTAINER_DIM);
+        this.containerLabel = container.getNodeName()
+                + (container.hasAttribute("name") ? ": " + container.getAttribute("name") : "");
+
+        this.count = components.size();
+        this.xs = new double[count];
+        this.ys = new double[count];
+        this.widths = new double[count];
+        this.heights = new double[count];
+        this.names = new String[count];
+        this.types = new String[count];
+        for (int i = 0; i < count; i++) {
+            Element component = components.get(i);
+            names[i] = component.getAttribute("name");
+            types[i] = component.getNodeName();
+            if (!names[i].isEmpty()) {
+                indexByName.put(names[i], i);
+            }
+            readGeometry(i, component);
+        }
+    }
+
+    /**
+     * Builds the layout of a container from its positioned element children.
+     */
+    public static SceneLayout of(Element container) {
+        List<Element> components = new ArrayList<>();
+        NodeList children = container.getChildNodes();
+        for (int i = 0; i < children.getLength(); i++) {
+            if (children.item(i) instanceof Element) {
+                Element child = (Element) children.item(i);
+                // Same rule as the stylesheet: only children with a position are drawn
+                if (child.hasAttribute("x") || child.hasAttribute("y")) {
+                    components.add(child);
+                }
+            }
+        }
+        return new SceneLayout(container, components);
+    }
+
+    public String getContainerLabel() { return containerLabel; }
+    public double getContainerWidth() { return containerWidth; }
+    public double getContainerHeight() { return containerHeight; }
+    public int getComponentCount() { return count; }
+    public double getX(int i) { return xs[i]; }
+    public double getY(int i) { return ys[i]; }
+    public double getWidth(int i) { return widths[i]; }
+    public double getHeight(int i) { return heights[i]; }
+    public String getName(int i) { return names[i]; }
+    public String getType(int i) { return types[i]; }
+
+    /**
+     * Index of the component with the given name, or -1.
+     */
+    public int indexOf(String nodeName) {
+        Integer i = nodeName == null ? null : indexByName.get(nodeName);
+        return i == null ? -1 : i;
+    }
+
+    /**
+     * Re-reads the geometry of one component after its attributes changed.
+     * @return false if the element is not a component of this layout (e.g. it was renamed);
+     * the caller should then rebuild the layout.
+     */
+    public boolean update(Element component) {
+        int i = indexOf(component.getAttribute("name"));
+        if (i < 0 || !types[i].equals(component.getNodeName())) return false;
+        readGeometry(i, component);
+        return true;
+    }
+
+    /**
+     * Moves one component (e.g. while dragging in a preview).
+     */
+    public void move(int i, double x, double y) {
+        xs[i] = x;
+        ys[i] = y;
+        index.put(i, x, y, widths[i], heights[i]);
+        relint(i);
+    }
+
+    /**
+     * Returns the topmost component at the point (container coordinates), or -1.
+     */
+    public int hitTest(double x, double y) {
+        return index.topmostAt(x, y);
+    }
+
+    // --------------------------------------------------------------
+    // Lint
+    // --------------------------------------------------------------
+
+    /**
+     * Overlapping components and components outside the container bounds, in component order.
+     * Each overlap is checked against the index neighbours only.
+     */
+    public List<Issue> getIssues() {
+        computeLint();
+        if (issues == null) {
+            List<Issue> result = new ArrayList<>(issueCount);
+            for (int i = 0; i < count; i++) {
+                if (outOfBounds[i]) {
+                    result.add(new Issue(IssueKind.OUT_OF_BOUNDS, names[i], null));
+                }
+                int[] others = Arrays.copyOf(partners[i], partnerCounts[i]);
+                Arrays.sort(others);
+                for (int other : others) {
+                    // Each pair once
+                    if (other > i) result.add(new Issue(IssueKind.OVERLAP, names[i], names[other]));
+                }
+            }
+            issues = Collections.unmodifiableList(result);
+        }
+        return issues;
+    }
+
+    /**
+     * Number of lint issues (without building the list).
+     */
+    public int getIssueCount() {
+        computeLint();
+        return issueCount;
+    }
+
+    /**
+     * True if the component is involved in a lint issue.
+     */
+    public boolean isFlagged(int i) {
+        computeLint();
+        return outOfBounds[i] || partnerCounts[i] > 0;
+    }
+
+    private void computeLint() {
+        if (linted) return;
+        outOfBounds = new boolean[count];
+        partners = new int[count][];
+        partnerCounts = new int[count];
+        issueCount = 0;
+        for (int i = 0; i < count; i++) {
+            partners[i] = new int[2];
+        }
+        for (int i = 0; i < count; i++) {
+            final int current = i;
+            checkBounds(i);
+            // Each pair once: the other one finds this one again
+            index.forEachInRect(xs[i], ys[i], xs[i] + widths[i], ys[i] + heights[i], other -> {
+                if (other > current && overlap(current, other)) addOverlap(current, other);
+            });
+        }
+        linted = true;
+        issues = null;
+    }
+
+    // After component i changed: forget its findings and check it again, against its grid
+    // neighbours only
+    private void relint(int i) {
+        if (!linted) return;
+        if (outOfBounds[i]) issueCount--;
+        for (int k = 0; k < partnerCounts[i]; k++) {
+            removePartner(partners[i][k], i);
+            issueCount--;
+        }
+        partnerCounts[i] = 0;
+
+        checkBounds(i);
+        index.forEachInRect(xs[i], ys[i], xs[i] + widths[i], ys[i] + heights[i], other -> {
+            if (other != i && overlap(i, other)) addOverlap(i, other);
+        });
+        issues = null;
+    }
+
+    private void checkBounds(int i) {
+        outOfBounds[i] = xs[i] < 0 || ys[i] < 0 || xs[i] + widths[i] > containerWidth || ys[i] + heights[i] > containerHeight;
+        if (outOfBounds[i]) issueCount++;
+    }
+
+    // Touching edges are not an overlap
+    private boolean overlap(int a, int b) {
+        return xs[b] < xs[a] + widths[a] && xs[b] + widths[b] > xs[a]
+                && ys[b] < ys[a] + heights[a] && ys[b] + heights[b] > ys[a];
+    }
+
+    private void addOverlap(int a, int b) {
+        addPartner(a, b);
+        addPartner(b, a);
+        issueCount++;
+    }
+
+    private void addPartner(int i, int other) {
+        if (partnerCounts[i] == partners[i].length) {
+            partners[i] = Arrays.copyOf(partners[i], partnerCounts[i] * 2);
+        }
+        partners[i][partnerCounts[i]++] = other;
+    }
+
+    private void removePartner(int i, int other) {
+        for (int k = 0; k < partnerCounts[i]; k++) {
+            if (partners[i][k] == other) {
+                partners[i][k] = partners[i][--partnerCounts[i]];
+                return;
+            }
+        }
+    }
+
+    // --------------------------------------------------------------
+    // Snapping
+    // --------------------------------------------------------------
+
+    /**
+     * Snaps a component being dragged to (x, y) so that its left/center/right and
+     * top/middle/bottom line up with a nearby component or the container edges, if one is
+     * within the tolerance. Only neighbours within the search range are looked at.
+     */
+    public Snap snap(int i, double x, double y, double tolerance, double searchRange) {
+        double w = widths[i];
+        double h = heights[i];
+        double[] bestX = {tolerance + 1, Double.NaN, 0}; // distance, guide, adjusted x
+        double[] bestY = {tolerance + 1, Double.NaN, 0};
+
+        // 1. Container edges
+        considerEdges(bestX, x, w, 0, containerWidth, tolerance);
+        considerEdges(bestY, y, h, 0, containerHeight, tolerance);
+
+        // 2. Neighbours around the dragged position
+        index.forEachInRect(x - searchRange, y - searchRange, x + w + searchRange, y + h + searchRange, other -> {
+            if (other == i) return;
+            considerEdges(bestX, x, w, xs[other], xs[other] + widths[other], tolerance);
+            considerEdges(bestY, y, h, ys[other], ys[other] + heights[other], tolerance);
+        });
+
+        boolean snappedX = bestX[0] <= tolerance;
+        boolean snappedY = bestY[0] <= tolerance;
+        return new Snap(snappedX ? bestX[2] : x, snappedY ? bestY[2] : y,
+                snappedX ? bestX[1] : Double.NaN, snappedY ? bestY[1] : Double.NaN);
+    }
+
+    /**
+     * Compares the start/center/end of [position, position + size] with the start/center/end
+     * of [otherStart, otherEnd] and keeps the closest match in best.
+     */
+    private static void considerEdges(double[] best, double position, double size,
+                                      double otherStart, double otherEnd, double tolerance) {
+        double[] own = {0, size / 2, size};
+        double[] guides = {otherStart, (otherStart + otherEnd) / 2, otherEnd};
+        for (double offset : own) {
+            for (double guide : guides) {
+                double distance = Math.abs(position + offset - guide);
+                if (distance <= tolerance && distance < best[0]) {
+                    best[0] = distance;
+                    best[1] = guide;
+                    best[2] = guide - offset;
+                }
+            }
+        }
+    }
+
+    // --------------------------------------------------------------
+    // Helpers
+    // --------------------------------------------------------------
+
+    private void readGeometry(int i, Element component) {
+        xs[i] = number(component.getAttribute("x"));
+        ys[i] = number(component.getAttribute("y"));
+        widths[i] = positiveOrDefault(component.getAttribute("width"), DEFAULT_COMPONENT_DIM);
+        heights[i] = positiveOrDefault(component.getAttribute("height"), DEFAULT_COMPONENT_DIM);
+        index.put(i, xs[i], ys[i], widths[i], heights[i]);
+        relint(i);
+    }
+
+    private static double number(String value) {
+        try {
+            return value == null || value.isEmpty() ? 0 : Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static double positiveOrDefault(String value, double defaultValue) {
+        double number = number(value);
+        return number > 0 ? number : defaultValue;
+    }
+
+    @Override
+    public String toString() {
+        return containerLabel + " (" + count + " components)";
+    }
+}
@@ -0,0 +1,292 @@
+package com.example.xmleditorapp.xml;
+
+import org.w3c.dom.ls.LSInput;
+import org.w3c.dom.ls.LSResourceResolver;
+import org.xml.sax.SAXException;
+
+import javax.xml.XMLConstants;
+import javax.xml.transform.Source;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+import java.io.ByteArrayInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.net.URI;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Process-wide pool of compiled XSD grammars.
+ * <p>
+ * Every XSD bundle (a resource directory such as "esign/xsd") is compiled at most once
+ * and the thread-safe Schema is shared by the editor, the CLI validators and any other
+ * reader. Compiled grammars are keyed by the content of the XSDs they are built from: the
+ * bundle's own files plus everything they include, import or redefine. Bundles whose XSDs
+ * are identical (e.g. a form generation that copies the previous one's schemas unchanged)
+ * therefore share one Schema object. A javax.xml.validation Schema cannot be composed from
+ * others, so bundles that only have some XSDs in common (e.g. shared common types) are
+ * compiled separately; for those, the raw XSD bytes are cached and served to the
+ * SchemaFactory through a resource resolver, so the shared files are read only once.
+ * Thread-safe Singleton implementation.
+ */
+public final class SchemaPool {
+
+    private static class Holder {
+        private static final SchemaPool INSTANCE = new SchemaPool();
+    }
+
+    public static SchemaPool getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    private static final Pattern SCHEMA_LOCATION = Pattern.compile(
+            "<(?:[\\w.-]+:)?(?:include|import|redefine)\\b[^>]*?\\bschemaLocation\\s*=\\s*[\"']([^\"']*)[\"']");
+
+    // bundle directory -> compiled grammar
+    private final Map<String, Schema> compiledBundles = new ConcurrentHashMap<>();
+    // grammar key (digest of the XSDs a grammar is compiled from) -> compiled grammar
+    private final Map<String, Schema> compiledGrammars = new ConcurrentHashMap<>();
+    // resource path (relative to this package) -> raw XSD bytes
+    private final Map<String, byte[]> resourceBytes = new ConcurrentHashMap<>();
+    // resource URL (external form) -> resource path, for resolving includes/imports
+    private final Map<String, String> pathsByUrl = new ConcurrentHashMap<>();
+
+    private SchemaPool() {
+        for (String path : XsdResourceIndex.getAllEntries()) {
+            URL url = SchemaPool.class.getResource(path);
+            if (url != null) {
+                pathsByUrl.put(url.toExternalForm(), path);
+            }
+        }
+    }
+
+    /**
+     * Returns the compiled Schema for a bundle directory, compiling it on first use.
+     */
+    public Schema getSchema(String bundleDirectory) throws SAXException, IOException {
+        Schema schema = compiledBundles.get(bundleDirectory);
+        if (schema != null) {
+            return schema;
+        }
+        synchronized (this) {
+            // Re-check: another thread may have compiled it while we waited
+            schema = compiledBundles.get(bundleDirectory);
+            if (schema == null) {
+                // Bundles with the same XSDs share the grammar compiled for the first of them
+                String key = grammarKey(bundleDirectory);
+                schema = compiledGrammars.get(key);
+                if (schema != null) {
+                    System.out.println("✅ Bundle '" + bundleDirectory + "' shares an already compiled schema (identical XSDs)."); // LOGGING
+                } else {
+                    schema = compileBundle(bundleDirectory);
+                    compiledGrammars.put(key, schema);
+                }
+                compiledBundles.put(bundleDirectory, schema);
+            }
+            return schema;
+        }
+    }
+
+    /**
+     * Returns true if the bundle's grammar is already compiled.
+     */
+    public boolean isCompiled(String bundleDirectory) {
+        return compiledBundles.containsKey(bundleDirectory);
+    }
+
+    /**
+     * Drops a compiled bundle from the pool (the cached XSD bytes are kept). Its grammar is
+     * dropped too unless another compiled bundle shares it.
+     */
+    public synchronized void evict(String bundleDirectory) {
+        Schema schema = compiledBundles.remove(bundleDirectory);
+        if (schema != null) {
+            if (!compiledBundles.containsValue(schema)) {
+                compiledGrammars.values().remove(schema);
+            }
+            System.out.println("ℹ️ Evicted compiled schema bundle: " + bundleDirectory); // LOGGING
+        }
+    }
+
+    /**
+     * Returns the XSD resource paths that make up a bundle, in index order.
+     */
+    public List<String> getBundleResources(String bundleDirectory) throws FileNotFoundException {
+        List<String> resources = XsdResourceIndex.getBundleEntries(bundleDirectory);
+        if (resources.isEmpty()) {
+            throw new FileNotFoundException("❌ No XSD files indexed for bundle: " + bundleDirectory);
+        }
+        return resources;
+    }
+
+    /**
+     * Opens an indexed XSD resource as a StreamSource (served from the byte cache).
+     * The system id is set to the resource URL so relative includes still resolve.
+     */
+    public StreamSource openSource(String resourcePath) throws IOException {
+        StreamSource source = new StreamSource(new ByteArrayInputStream(readBytes(resourcePath)));
+        URL url = SchemaPool.class.getResource(resourcePath);
+        source.setSystemId(url != null ? url.toExternalForm() : resourcePath);
+        return source;
+    }
+
+    private Schema compileBundle(String bundleDirectory) throws SAXException, IOException {
+        List<String> resources = getBundleResources(bundleDirectory);
+
+        long start = System.nanoTime();
+        List<Source> sources = new ArrayList<>();
+        for (String resource : resources) {
+            System.out.println("✅ Compiling schema source: " + resource); // LOGGING
+            sources.add(openSource(resource));
+        }
+
+        // SchemaFactory is not thread-safe: one per compilation (we hold the pool lock anyway)
+        SchemaFactory factory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+        factory.setResourceResolver(new CachedResourceResolver());
+        try {
+            Schema schema = factory.newSchema(sources.toArray(new Source[0]));
+            System.out.printf("✅ Compiled %d schema(s) of bundle '%s' in %.1f ms.%n",
+                    resources.size(), bundleDirectory, (System.nanoTime() - start) / 1_000_000.0); // LOGGING
+            return schema;
+        } catch (SAXException e) {
+            System.err.println("❌ Failed to compile schemas of bundle " + bundleDirectory); // LOGGING
+            throw new SAXException("Failed to compile schemas: " + e.getMessage(), e);
+        }
+    }
+
+    // --------------------------------------------------------------
+    // Grammar keys
+    // --------------------------------------------------------------
+
+    /**
+     * Digest of the XSDs a bundle compiles from: its own files in index order, each followed by
+     * the files it includes, imports or redefines (depth first, each file once). References
+     * outside the index go into the key as written.
+     */
+    private String grammarKey(String bundleDirectory) throws IOException {
+        MessageDigest digest = sha256();
+        Set<String> visited = new HashSet<>();
+        for (String resource : getBundleResources(bundleDirectory)) {
+            addToKey(resource, digest, visited);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private void addToKey(String resourcePath, MessageDigest digest, Set<String> visited) throws IOException {
+        if (!visited.add(resourcePath)) return;
+        byte[] bytes = readBytes(resourcePath);
+        digest.update(sha256().digest(bytes));
+
+        // schemaLocation values are ASCII in practice; ISO-8859-1 maps every byte to one char
+        Matcher location = SCHEMA_LOCATION.matcher(new String(bytes, StandardCharsets.ISO_8859_1));
+        while (location.find()) {
+            String referenced = location.group(1);
+            String path;
+            try {
+                path = URI.create(resourcePath).resolve(referenced).toString();
+            } catch (IllegalArgumentException e) {
+                path = null;
+            }
+            if (path != null && pathsByUrl.containsValue(path)) {
+                addToKey(path, digest, visited);
+            } else {
+                digest.update(referenced.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private byte[] readBytes(String resourcePath) throws IOException {
+        byte[] bytes = resourceBytes.get(resourcePath);
+        if (bytes != null) {
+            return bytes;
+        }
+        try (InputStream in = SchemaPool.class.getResourceAsStream(resourcePath)) {
+            if (in == null) {
+                throw new FileNotFoundException("❌ XSD resource not found on classpath: " + resourcePath);
+            }
+            bytes = in.readAllBytes();
+        }
+        resourceBytes.put(resourcePath, bytes);
+        return bytes;
+    }
+
+    // --------------------------------------------------------------
+    // Include/import resolution from the byte cache
+    // --------------------------------------------------------------
+
+    private class CachedResourceResolver implements LSResourceResolver {
+        @Override
+        public LSInput resolveResource(String type, String namespaceURI, String publicId, String systemId, String baseURI) {
+            if (systemId == null) {
+                return null;
+            }
+            try {
+                String resolved = baseURI != null ? URI.create(baseURI).resolve(systemId).toString() : systemId;
+                String path = pathsByUrl.get(resolved);
+                if (path == null) {
+                    return null; // Not one of ours: let the factory use its default resolution
+                }
+                return new CachedInput(publicId, resolved, baseURI, readBytes(path));
+            } catch (Exception e) {
+                System.err.println("⚠️ Could not resolve schema resource " + systemId + ": " + e.getMessage()); // LOGGING
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Minimal LSInput backed by cached bytes.
+     */
+    private static class CachedInput implements LSInput {
+        private String publicId;
+        private String systemId;
+        private String baseURI;
+        private final byte[] bytes;
+
+        CachedInput(String publicId, String systemId, String baseURI, byte[] bytes) {
+            this.publicId = publicId;
+            this.systemId = systemId;
+            this.baseURI = baseURI;
+            this.bytes = bytes;
+        }
+
+        @Override public Reader getCharacterStream() { return null; }
+        @Override public void setCharacterStream(Reader characterStream) { }
+        @Override public InputStream getByteStream() { return new ByteArrayInputStream(bytes); }
+        @Override public void setByteStream(InputStream byteStream) { }
+        @Override public String getStringData() { return null; }
+        @Override public void setStringData(String stringData) { }
+        @Override public String getSystemId() { return systemId; }
+        @Override public void setSystemId(String systemId) { this.systemId = systemId; }
+        @Override public String getPublicId() { return publicId; }
+        @Override public void setPublicId(String publicId) { this.publicId = publicId; }
+        @Override public String getBaseURI() { return baseURI; }
+        @Override public void setBaseURI(String baseURI) { this.baseURI = baseURI; }
+        @Override public String getEncoding() { return null; }
+        @Override public void setEncoding(String encoding) { }
+        @Override public boolean getCertifiedText() { return false; }
+        @Override public void setCertifiedText(boolean certifiedText) { }
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.xmleditorapp.xml;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Maps documents to the XSD bundle of their form generation.
+ * <p>
+ * The mapping (root element and namespace -> bundle directory) comes from
+ * schema-registry.properties. Namespace URIs contain ':', which a .properties key must escape
+ * ({@code {http\://example.com/esign}ESign=...}); an unescaped key is cut at the first ':' and
+ * reported when the registry is loaded. A bundle's {@link XmlSchemaReader} is only created when a
+ * document of that generation is opened, and readers live in a small LRU cache:
+ * when it is full, the least recently used bundle is evicted together with its
+ * compiled grammar in the {@link SchemaPool}.
+ * Thread-safe Singleton implementation.
+ */
+public final class SchemaRegistry {
+
+    private static final String REGISTRY_RESOURCE = "schema-registry.properties";
+    private static final String DEFAULT_KEY = "default";
+    private static final String FALLBACK_BUNDLE = "esign/xsd";
+
+    // Maximum number of schema bundles kept compiled at the same time
+    private static final int MAX_CACHED_BUNDLES = Integer.getInteger("xmleditor.schemaCache.size", 3);
+
+    private static class Holder {
+        private static final SchemaRegistry INSTANCE = new SchemaRegistry();
+    }
+
+    public static SchemaRegistry getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    private final Properties mappings = new Properties();
+
+    // bundle directory -> reader, in access order (LRU)
+    private final LinkedHashMap<String, XmlSchemaReader> readers =
+            new LinkedHashMap<>(8, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, XmlSchemaReader> eldest) {
+                    if (size() > Math.max(1, MAX_CACHED_BUNDLES)) {
+                        System.out.println("ℹ️ Schema cache full, evicting bundle: " + eldest.getKey()); // LOGGING
+                        SchemaPool.getInstance().evict(eldest.getKey());
+                        return true;
+                    }
+                    return false;
+                }
+            };
+
+    private String activeBundle;
+
+    private SchemaRegistry() {
+        try (InputStream in = SchemaRegistry.class.getResourceAsStream(REGISTRY_RESOURCE)) {
+            if (in != null) {
+                mappings.load(in);
+            } else {
+                System.err.println("⚠️ " + REGISTRY_RESOURCE + " not found. Using " + FALLBACK_BUNDLE + " for all documents."); // LOGGING
+            }
+        } catch (IOException e) {
+            System.err.println("❌ Failed to read " + REGISTRY_RESOURCE + ": " + e.getMessage()); // LOGGING
+        }
+        this.activeBundle = mappings.getProperty(DEFAULT_KEY, FALLBACK_BUNDLE);
+        checkKeys(mappings);
+    }
+
+    // A "{namespace}LocalName" key whose ':' or '=' was not escaped is split into a key like
+    // "{http" and a value like "//example.com/esign}ESign=esign/xsd"
+    static int checkKeys(Properties mappings) {
+        int malformed = 0;
+        for (String key : mappings.stringPropertyNames()) {
+            if (key.startsWith("{") && key.indexOf('}') < 0) {
+                malformed++;
+                System.err.println("❌ " + REGISTRY_RESOURCE + ": malformed key \"" + key + "=" + mappings.getProperty(key)
+                        + "\" (escape ':' and '=' in namespace URIs as \\: and \\=)"); // LOGGING
+            }
+        }
+        return malformed;
+    }
+
+    /**
+     * Returns the bundle directory registered for a root element.
+     * Lookup order: "{namespace}LocalName", "LocalName", "default".
+     */
+    public String resolveBundle(String namespaceUri, String localName) {
+        String bundle = null;
+        if (namespaceUri != null && !namespaceUri.isEmpty()) {
+            bundle = mappings.getProperty("{" + namespaceUri + "}" + localName);
+        }
+        if (bundle == null) {
+            bundle = mappings.getProperty(localName);
+        }
+        if (bundle == null) {
+            bundle = mappings.getProperty(DEFAULT_KEY, FALLBACK_BUNDLE);
+        }
+        return bundle;
+    }
+
+    /**
+     * Makes the schema of the given document the active one. Nothing is compiled here;
+     * the bundle is loaded when the active reader is first requested.
+     * @return The bundle directory that is now active.
+     */
+    public synchronized String activateFor(Document document) {
+        if (document == null || document.getDocumentElement() == null) {
+            return activeBundle;
+        }
+        Element root = document.getDocumentElement();
+        String localName = root.getLocalName();
+        String namespaceUri = root.getNamespaceURI();
+        if (localName == null) {
+            // Not parsed namespace-aware: split "ns:ESign" and look the prefix up in the root's declarations
+            String nodeName = root.getNodeName();
+            int colon = nodeName.indexOf(':');
+            localName = nodeName.substring(colon + 1);
+            String declaration = colon < 0 ? "xmlns" : "xmlns:" + nodeName.substring(0, colon);
+            namespaceUri = root.hasAttribute(declaration) ? root.getAttribute(declaration) : null;
+        }
+        String bundle = resolveBundle(namespaceUri, localName);
+
+        if (!bundle.equals(activeBundle)) {
+            System.out.println("ℹ️ Active schema bundle changed: " + activeBundle + " -> " + bundle); // LOGGING
+            activeBundle = bundle;
+        }
+        return bundle;
+    }
+
+    public synchronized String getActiveBundle() {
+        return activeBundle;
+    }
+
+    /**
+     * Returns the reader for the active bundle, creating it on first use.
+     */
+    public XmlSchemaReader getActiveReader() {
+        return getReader(getActiveBundle());
+    }
+
+    /**
+     * Returns the reader of a bundle, creating it on first use.
+     */
+    public synchronized XmlSchemaReader getReader(String bundleDirectory) {
+        XmlSchemaReader reader = readers.get(bundleDirectory);
+        if (reader == null) {
+            reader = new XmlSchemaReader(bundleDirectory); // Reads nothing until queried
+            readers.put(bundleDirectory, reader);
+        }
+        return reader;
+    }
+}
@@ -0,0 +1,217 @@
+package com.example.xmleditorapp.xml;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+/**
+ * Uniform-grid spatial index of axis-aligned rectangles identified by small int ids.
+ * <p>
+ * Each rectangle is registered in every grid cell it touches. A point or rectangle query
+ * only visits the cells it covers, so its cost depends on the local density, not on the
+ * total number of rectangles. Rectangles can be moved one at a time ({@link #put} again),
+ * which only touches the cells of the old and the new position. Coordinates far outside the
+ * usual range (or infinite) share the outermost grid cells.
+ */
+public class SpatialIndex {
+
+    // Rectangles spanning more cells than this (e.g. a full-size background) are kept in
+    // one separate list that every query checks, instead of being copied into every cell
+    private static final long MAX_CELLS_PER_RECT = 1024;
+    // Cell coordinates are clamped to +-MAX_CELL: coordinates of any size (even infinite) map
+    // to the outermost cells, and loops up to a cell coordinate never overflow
+    private static final int MAX_CELL = 1 << 30;
+
+    private final double cellSize;
+    // Cell key (cx, cy packed into a long) -> ids of the rectangles touching the cell
+    private final Map<Long, IntBag> cells = new HashMap<>();
+    private final IntBag oversized = new IntBag();
+
+    private double[] minX = new double[16];
+    private double[] minY = new double[16];
+    private double[] maxX = new double[16];
+    private double[] maxY = new double[16];
+    private boolean[] present = new boolean[16];
+    private int size = 0;
+
+    // De-duplication of ids found in several cells of one query
+    private int[] visitStamps = new int[16];
+    private int currentStamp = 0;
+
+    public SpatialIndex(double cellSize) {
+        if (cellSize <= 0) {
+            throw new IllegalArgumentException("cellSize must be positive: " + cellSize);
+        }
+        this.cellSize = cellSize;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(int id) {
+        return id >= 0 && id < present.length && present[id];
+    }
+
+    /**
+     * Inserts a rectangle, or moves it if the id is already indexed.
+     */
+    public void put(int id, double x, double y, double width, double height) {
+        if (contains(id)) {
+            remove(id);
+        }
+        ensureCapacity(id + 1);
+        minX[id] = x;
+        minY[id] = y;
+        maxX[id] = x + Math.max(0, width);
+        maxY[id] = y + Math.max(0, height);
+        present[id] = true;
+        size++;
+
+        if (isOversized(id)) {
+            oversized.add(id);
+            return;
+        }
+        for (int cx = cell(minX[id]); cx <= cell(maxX[id]); cx++) {
+            for (int cy = cell(minY[id]); cy <= cell(maxY[id]); cy++) {
+                cells.computeIfAbsent(key(cx, cy), k -> new IntBag()).add(id);
+            }
+        }
+    }
+
+    public void remove(int id) {
+        if (!contains(id)) return;
+        if (isOversized(id)) {
+            oversized.remove(id);
+            present[id] = false;
+            size--;
+            return;
+        }
+        for (int cx = cell(minX[id]); cx <= cell(maxX[id]); cx++) {
+            for (int cy = cell(minY[id]); cy <= cell(maxY[id]); cy++) {
+                long key = key(cx, cy);
+                IntBag bag = cells.get(key);
+                if (bag != null && bag.remove(id) && bag.size == 0) {
+                    cells.remove(key);
+                }
+            }
+        }
+        present[id] = false;
+        size--;
+    }
+
+    /**
+     * Reports (once each) every rectangle intersecting [x1, x2] x [y1, y2], edges included.
+     */
+    public void forEachInRect(double x1, double y1, double x2, double y2, IntConsumer action) {
+        int stamp = nextStamp();
+        visit(oversized, stamp, x1, y1, x2, y2, action);
+        // A huge query rectangle is answered by scanning instead of visiting empty cells
+        if (((long) cell(x2) - cell(x1) + 1) * ((long) cell(y2) - cell(y1) + 1) > cells.size()) {
+            for (IntBag bag : cells.values()) {
+                visit(bag, stamp, x1, y1, x2, y2, action);
+            }
+            return;
+        }
+        for (int cx = cell(x1); cx <= cell(x2); cx++) {
+            for (int cy = cell(y1); cy <= cell(y2); cy++) {
+                IntBag bag = cells.get(key(cx, cy));
+                if (bag != null) {
+                    visit(bag, stamp, x1, y1, x2, y2, action);
+                }
+            }
+        }
+    }
+
+    private void visit(IntBag bag, int stamp, double x1, double y1, double x2, double y2, IntConsumer action) {
+        for (int k = 0; k < bag.size; k++) {
+            int id = bag.ids[k];
+            if (visitStamps[id] == stamp) continue;
+            visitStamps[id] = stamp;
+            if (minX[id] <= x2 && maxX[id] >= x1 && minY[id] <= y2 && maxY[id] >= y1) {
+                action.accept(id);
+            }
+        }
+    }
+
+    /**
+     * Returns the highest id whose rectangle contains the point (the topmost one when ids
+     * follow paint order), or -1.
+     */
+    public int topmostAt(double x, double y) {
+        int result = topmostIn(oversized, x, y, -1);
+        IntBag bag = cells.get(key(cell(x), cell(y)));
+        return bag == null ? result : topmostIn(bag, x, y, result);
+    }
+
+    private int topmostIn(IntBag bag, double x, double y, int best) {
+        for (int k = 0; k < bag.size; k++) {
+            int id = bag.ids[k];
+            if (id > best && x >= minX[id] && x <= maxX[id] && y >= minY[id] && y <= maxY[id]) {
+                best = id;
+            }
+        }
+        return best;
+    }
+
+    private boolean isOversized(int id) {
+        long spanX = (long) cell(maxX[id]) - cell(minX[id]) + 1;
+        long spanY = (long) cell(maxY[id]) - cell(minY[id]) + 1;
+        return spanX * spanY > MAX_CELLS_PER_RECT;
+    }
+
+    // Clamped before the cast: (int) saturates at Integer.MAX_VALUE, where cx++ would wrap
+    // (NaN becomes cell 0)
+    private int cell(double coordinate) {
+        return (int) Math.max(-MAX_CELL, Math.min(MAX_CELL, Math.floor(coordinate / cellSize)));
+    }
+
+    private static long key(int cx, int cy) {
+        return ((long) cx << 32) | (cy & 0xFFFFFFFFL);
+    }
+
+    private int nextStamp() {
+        if (++currentStamp == Integer.MAX_VALUE) {
+            Arrays.fill(visitStamps, 0);
+            currentStamp = 1;
+        }
+        return currentStamp;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= present.length) return;
+        int newLength = Math.max(capacity, present.length * 2);
+        minX = Arrays.copyOf(minX, newLength);
+        minY = Arrays.copyOf(minY, newLength);
+        maxX = Arrays.copyOf(maxX, newLength);
+        maxY = Arrays.copyOf(maxY, newLength);
+        present = Arrays.copyOf(present, newLength);
+        visitStamps = Arrays.copyOf(visitStamps, newLength);
+    }
+
+    /**
+     * Minimal growable int list (no boxing).
+     */
+    private static final class IntBag {
+        int[] ids = new int[4];
+        int size = 0;
+
+        void add(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+
+        boolean remove(int id) {
+            for (int k = 0; k < size; k++) {
+                if (ids[k] == id) {
+                    ids[k] = ids[--size];
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package com.example.xmleditorapp.xml;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.xml.sax.InputSource;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Read-only view of a (very large) XML file: a {@link XmlSkeleton} for the structure, with
+ * subtrees parsed into small DOM fragments only when they are needed.
+ * <p>
+ * Fragments are read with positioned {@link FileChannel} reads of the element's byte range,
+ * so only the bytes of the requested element are touched. Subtrees larger than the fragment
+ * limit are materialized shallow (the element with its attributes, without children; the
+ * children stay in the skeleton). Parsed fragments are kept in a small LRU cache bounded by
+ * their source size; a child of a cached fragment is taken from that fragment instead of
+ * being read again, so navigating inside a container keeps working on one DOM.
+ * <p>
+ * The fragment limit (bytes) and the cache budget (bytes) can be changed with the system
+ * properties {@code xmleditor.streaming.fragmentBytes} (default 8 MB) and
+ * {@code xmleditor.streaming.cacheBytes} (default 64 MB).
+ */
+public class StreamingDocument implements Closeable {
+
+    static final long DEFAULT_FRAGMENT_BYTES = 8L * 1024 * 1024;
+    static final long DEFAULT_CACHE_BYTES = 64L * 1024 * 1024;
+
+    /**
+     * A parsed element. A shallow fragment has the element's attributes but none of its content.
+     */
+    private record Fragment(Element element, boolean shallow, long bytes) {
+    }
+
+    private final XmlSkeleton skeleton;
+    private final FileChannel channel;
+    private final long fragmentLimit;
+    private final long cacheBudget;
+    private final DocumentBuilder builder;
+
+    // Access-ordered: the eldest entry is the least recently used
+    private final LinkedHashMap<Integer, Fragment> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private long cachedBytes = 0;
+
+    private StreamingDocument(XmlSkeleton skeleton, FileChannel channel) throws IOException {
+        this.skeleton = skeleton;
+        this.channel = channel;
+        this.fragmentLimit = Long.getLong("xmleditor.streaming.fragmentBytes", DEFAULT_FRAGMENT_BYTES);
+        this.cacheBudget = Long.getLong("xmleditor.streaming.cacheBytes", DEFAULT_CACHE_BYTES);
+        try {
+            this.builder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+        } catch (Exception e) {
+            throw new IOException("Cannot create the XML parser", e);
+        }
+    }
+
+    /**
+     * Scans the file into a skeleton and keeps it open for positioned reads.
+     */
+    public static StreamingDocument open(Path file) throws IOException {
+        XmlSkeleton skeleton = XmlSkeleton.build(file);
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return new StreamingDocument(skeleton, channel);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public XmlSkeleton getSkeleton() {
+        return skeleton;
+    }
+
+    public Path getFile() {
+        return skeleton.getFile();
+    }
+
+    /**
+     * True if the element is too large to be materialized with its content.
+     */
+    public boolean isShallow(int element) {
+        return skeleton.getByteLength(element) > fragmentLimit;
+    }
+
+    /**
+     * Returns the DOM element for a skeleton element, parsing its fragment if it is not cached.
+     * The element belongs to a small document of its own and must not be modified.
+     */
+    public synchronized Element materialize(int element) throws IOException {
+        Fragment fragment = cache.get(element);
+        if (fragment != null) {
+            return fragment.element();
+        }
+
+        // 1. A child of a cached, complete fragment is already parsed
+        Element fromParent = findInCachedAncestor(element);
+        if (fromParent != null) {
+            return fromParent;
+        }
+
+        // 2. Read and parse the element's own bytes (only the start tag if it is too large)
+        boolean shallow = isShallow(element);
+        byte[] bytes = shallow ? readStartTag(element) : read(skeleton.getStartOffset(element), skeleton.getByteLength(element));
+        Element parsed = parse(bytes);
+        fragment = new Fragment(parsed, shallow, bytes.length);
+        cache.put(element, fragment);
+        cachedBytes += fragment.bytes();
+        evict(element);
+        return parsed;
+    }
+
+    /**
+     * Source text of an element for display: the whole element if it is within the
+     * fragment limit, otherwise its start tag followed by a note.
+     */
+    public String readSource(int element) throws IOException {
+        if (!isShallow(element)) {
+            return new String(read(skeleton.getStartOffset(element), skeleton.getByteLength(element)), skeleton.getCharset());
+        }
+        long startTagLength = skeleton.getStartTagEnd(element) - skeleton.getStartOffset(element);
+        String startTag = new String(read(skeleton.getStartOffset(element), startTagLength), skeleton.getCharset());
+        return startTag + "\n<!-- " + String.format("%,d", skeleton.getByteLength(element) - startTagLength)
+                + " bytes of content not loaded (read-only streaming view); select a child element to see its source -->\n";
+    }
+
+    /**
+     * Number of parsed fragments currently cached and their total source size.
+     */
+    public synchronized String getCacheSummary() {
+        return cache.size() + " fragment(s), " + String.format("%,d", cachedBytes) + " bytes";
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        cache.clear();
+        cachedBytes = 0;
+        channel.close();
+    }
+
+    // --------------------------------------------------------------
+    // Helpers
+    // --------------------------------------------------------------
+
+    private Element findInCachedAncestor(int element) {
+        // Walk up until a cached ancestor is found, remembering the child indexes on the way
+        int[] path = new int[16];
+        int length = 0;
+        int current = element;
+        while (skeleton.getParent(current) >= 0) {
+            if (length == path.length) {
+                path = Arrays.copyOf(path, length * 2);
+            }
+            path[length++] = skeleton.getChildIndex(current);
+            current = skeleton.getParent(current);
+            Fragment fragment = cache.get(current);
+            if (fragment != null) {
+                if (fragment.shallow()) return null;
+                Element result = fragment.element();
+                for (int i = length - 1; i >= 0 && result != null; i--) {
+                    result = elementChild(result, path[i]);
+                }
+                return result;
+            }
+        }
+        return null;
+    }
+
+    private static Element elementChild(Element parent, int index) {
+        int seen = 0;
+        for (Node child = parent.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child.getNodeType() == Node.ELEMENT_NODE && seen++ == index) {
+                return (Element) child;
+            }
+        }
+        return null;
+    }
+
+    private byte[] readStartTag(int element) throws IOException {
+        long start = skeleton.getStartOffset(element);
+        byte[] tag = read(start, skeleton.getStartTagEnd(element) - start);
+        int end = tag.length - 1;
+        if (end > 0 && tag[end - 1] == '/') {
+            return tag; // Already an empty-element tag
+        }
+        // Turn "<Name a="1">" into "<Name a="1"/>"
+        byte[] empty = Arrays.copyOf(tag, tag.length + 1);
+        empty[end] = '/';
+        empty[end + 1] = '>';
+        return empty;
+    }
+
+    private byte[] read(long position, long length) throws IOException {
+        if (length > Integer.MAX_VALUE - 8) {
+            throw new IOException("Fragment too large to read: " + length + " bytes");
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) length);
+        long offset = position;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, offset);
+            if (read < 0) {
+                throw new IOException("File " + skeleton.getFile().getFileName() + " was truncated while open");
+            }
+            offset += read;
+        }
+        return buffer.array();
+    }
+
+    private Element parse(byte[] bytes) throws IOException {
+        InputSource source = new InputSource(new ByteArrayInputStream(bytes));
+        source.setEncoding(skeleton.getCharset().name());
+        try {
+            Document document = builder.parse(source);
+            return document.getDocumentElement();
+        } catch (Exception e) {
+            throw new IOException("Cannot parse fragment: " + e.getMessage(), e);
+        }
+    }
+
+    private void evict(int keep) {
+        Iterator<Map.Entry<Integer, Fragment>> iterator = cache.entrySet().iterator();
+        while (cachedBytes > cacheBudget && iterator.hasNext()) {
+            Map.Entry<Integer, Fragment> eldest = iterator.next();
+            if (eldest.getKey() == keep) continue;
+            cachedBytes -= eldest.getValue().bytes();
+            iterator.remove();
+        }
+    }
+}
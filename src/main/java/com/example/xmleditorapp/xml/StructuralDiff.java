@@ -0,0 +1,504 @@
+package com.example.xmleditorapp.xml;
+
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Element-level diff of two documents (an older "left" one and a newer "right" one).
+ * <p>
+ * Child elements are aligned by their {@code name} attribute; unnamed ones (or ones with a
+ * synthetic name, which differ between two loads) by equal subtree hash, then by type in order.
+ * Aligned subtrees with equal {@link SubtreeHashes hashes} are identical and skipped without
+ * looking inside, so the cost depends on how much changed, not on the document size (apart
+ * from hashing each document once).
+ * <p>
+ * Reported are added and removed elements, attribute and text changes, reordered children and
+ * changed binary payloads. Payloads (elements of a binary schema type, or text of at least
+ * {@value #PAYLOAD_LENGTH} characters) are compared by hash only; they are never decoded or
+ * compared as text.
+ * <p>
+ * A complete result can also be {@link Result#apply applied} to the left document, which then
+ * matches the right one while only the changed attributes, texts and elements are touched
+ * (the rest of the left document keeps its node objects).
+ */
+public class StructuralDiff {
+
+    public static final int PAYLOAD_LENGTH = 1024;
+    // Longest text value reported as it is; longer values are shortened
+    private static final int MAX_REPORTED_TEXT = 200;
+
+    public enum ChangeKind { ADDED, REMOVED, ATTRIBUTE, TEXT, PAYLOAD, REORDERED }
+
+    /**
+     * One difference. {@code left}/{@code right} are the element on each side (null for the
+     * side where it does not exist); {@code field} is the attribute name for ATTRIBUTE changes.
+     * Values of an absent attribute are null.
+     */
+    public record Change(ChangeKind kind, String path, String field, String oldValue, String newValue,
+                         Element left, Element right) {
+
+        /**
+         * The element the change is about (the new one if it exists).
+         */
+        public Element element() {
+            return right != null ? right : left;
+        }
+
+        @Override
+        public String toString() {
+            return switch (kind) {
+                case ADDED -> "+ " + path;
+                case REMOVED -> "- " + path;
+                case ATTRIBUTE -> "~ " + path + " @" + field + ": " + quote(oldValue) + " → " + quote(newValue);
+                case TEXT -> "~ " + path + " text: " + quote(oldValue) + " → " + quote(newValue);
+                case PAYLOAD -> "~ " + path + " payload: " + oldValue + " → " + newValue;
+                case REORDERED -> "↕ " + path + " children reordered: " + newValue;
+            };
+        }
+
+        private static String quote(String value) {
+            return value == null ? "(none)" : "\"" + value + "\"";
+        }
+    }
+
+    /**
+     * The changes found (in document order), with statistics.
+     */
+    public static final class Result {
+        private final List<Change> changes;
+        // Aligned nodes: right (new) -> left (old), for applying the changes
+        private final Map<Node, Node> counterparts;
+        private final int comparedElements;
+        private final int skippedSubtrees;
+        private final boolean truncated;
+        private final long elapsedNanos;
+
+        private Result(List<Change> changes, Map<Node, Node> counterparts, int comparedElements, int skippedSubtrees,
+                       boolean truncated, long elapsedNanos) {
+            this.changes = Collections.unmodifiableList(changes);
+            this.counterparts = counterparts;
+            this.comparedElements = comparedElements;
+            this.skippedSubtrees = skippedSubtrees;
+            this.truncated = truncated;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public List<Change> getChanges() { return changes; }
+        public boolean isIdentical() { return changes.isEmpty(); }
+        // Pairs of elements looked at; identical subtrees count once
+        public int getComparedElements() { return comparedElements; }
+        public int getSkippedSubtrees() { return skippedSubtrees; }
+        // True if the diff stopped at the change limit
+        public boolean isTruncated() { return truncated; }
+        public double elapsedMillis() { return elapsedNanos / 1_000_000.0; }
+
+        public int count(ChangeKind kind) {
+            int count = 0;
+            for (Change change : changes) {
+                if (change.kind() == kind) count++;
+            }
+            return count;
+        }
+
+        /**
+         * The same changes, for a document the left one was copied from ({@link DocumentCopy}),
+         * so that applying them changes that document.
+         * @param originals the left document and its elements mapped to the other document's
+         */
+        public Result onOriginal(Map<Node, Node> originals) {
+            List<Change> retargeted = new ArrayList<>(changes.size());
+            for (Change change : changes) {
+                Element left = change.left() == null ? null : (Element) originals.get(change.left());
+                retargeted.add(new Change(change.kind(), change.path(), change.field(), change.oldValue(), change.newValue(),
+                        left, change.right()));
+            }
+            Map<Node, Node> aligned = new IdentityHashMap<>();
+            counterparts.forEach((right, left) -> aligned.put(right, originals.get(left)));
+            return new Result(retargeted, aligned, comparedElements, skippedSubtrees, truncated, elapsedNanos);
+        }
+
+        /**
+         * The same changes, for a document the right one was copied from ({@link DocumentCopy}),
+         * so that their new-side elements are that document's.
+         * @param originals the right document and its elements mapped to the other document's
+         */
+        public Result onOriginalRight(Map<Node, Node> originals) {
+            List<Change> retargeted = new ArrayList<>(changes.size());
+            for (Change change : changes) {
+                Element right = change.right() == null ? null : (Element) originals.get(change.right());
+                retargeted.add(new Change(change.kind(), change.path(), change.field(), change.oldValue(), change.newValue(),
+                        change.left(), right));
+            }
+            Map<Node, Node> aligned = new IdentityHashMap<>();
+            counterparts.forEach((right, left) -> aligned.put(originals.get(right), left));
+            return new Result(retargeted, aligned, comparedElements, skippedSubtrees, truncated, elapsedNanos);
+        }
+
+        /**
+         * Changes the left document to match the right one: attributes and texts are set,
+         * removed elements removed, added ones copied in after their aligned sibling, reordered
+         * children moved. Nothing else in the left document is touched.
+         * @param prepareCopy applied to each copied element before it is inserted (e.g. name normalization)
+         * @return the number of changes applied
+         * @throws IllegalStateException if the diff stopped at its change limit (it would be incomplete)
+         */
+        public int apply(DomTransaction transaction, Consumer<Element> prepareCopy) {
+            if (truncated) {
+                throw new IllegalStateException("The diff stopped after " + changes.size() + " changes and cannot be applied");
+            }
+            // Aligned nodes plus the copies inserted so far (later additions are placed after them)
+            Map<Node, Node> placed = new IdentityHashMap<>(counterparts);
+            for (Change change : changes) {
+                Element left = change.left();
+                Element right = change.right();
+                switch (change.kind()) {
+                    case ATTRIBUTE -> {
+                        if (change.newValue() == null) {
+                            transaction.removeAttribute(left, change.field());
+                        } else {
+                            transaction.setAttribute(left, change.field(), change.newValue());
+                        }
+                    }
+                    case TEXT, PAYLOAD -> DomNodes.setText(left, DomNodes.ownText(right), transaction);
+                    case REMOVED -> transaction.removeNode(left);
+                    case ADDED -> {
+                        Node parent = placed.get(right.getParentNode());
+                        Document document = parent instanceof Document ? (Document) parent : parent.getOwnerDocument();
+                        Element copy = (Element) document.importNode(right, true);
+                        prepareCopy.accept(copy);
+                        transaction.insertBefore(parent, copy, followingPosition(parent, right, placed));
+                        placed.put(right, copy);
+                    }
+                    case REORDERED -> reorder(left, right, placed, transaction);
+                }
+                transaction.operationApplied();
+            }
+            return changes.size();
+        }
+
+        // Where a copy of an added element goes in the left parent: after the left node of its
+        // nearest preceding right sibling, or before the first child element
+        private static Node followingPosition(Node leftParent, Element right, Map<Node, Node> placed) {
+            for (Node sibling = right.getPreviousSibling(); sibling != null; sibling = sibling.getPreviousSibling()) {
+                Node left = sibling instanceof Element ? placed.get(sibling) : null;
+                if (left != null && left.getParentNode() == leftParent) return left.getNextSibling();
+            }
+            Node first = leftParent.getFirstChild();
+            while (first != null && !(first instanceof Element)) first = first.getNextSibling();
+            return first;
+        }
+
+        // Moves the left children into the order of the right ones; children already in place
+        // (and the whitespace around them) are not moved
+        private static void reorder(Element left, Element right, Map<Node, Node> placed, DomTransaction transaction) {
+            Node previous = null;
+            for (Node child = right.getFirstChild(); child != null; child = child.getNextSibling()) {
+                Node match = child instanceof Element ? placed.get(child) : null;
+                if (match == null || match.getParentNode() != left) continue;
+                Node expected = previous == null ? left.getFirstChild() : previous.getNextSibling();
+                while (expected != null && !(expected instanceof Element)) expected = expected.getNextSibling();
+                if (expected != match) {
+                    transaction.removeNode(match);
+                    Node before = previous == null ? left.getFirstChild() : previous.getNextSibling();
+                    transaction.insertBefore(left, match, before);
+                }
+                previous = match;
+            }
+        }
+
+    }
+
+    private final Set<String> binaryElementTypes;
+    private final int maxChanges;
+
+    /**
+     * @param binaryElementTypes element types whose text is a binary payload
+     * @param maxChanges         stop after this many changes (0: no limit)
+     */
+    public StructuralDiff(Set<String> binaryElementTypes, int maxChanges) {
+        this.binaryElementTypes = binaryElementTypes;
+        this.maxChanges = maxChanges <= 0 ? Integer.MAX_VALUE : maxChanges;
+    }
+
+    /**
+     * Compares two documents. Neither is changed; their {@link SubtreeHashes} are computed as needed.
+     */
+    public Result compare(Document left, Document right) {
+        long startNanos = System.nanoTime();
+        SubtreeHashes leftHashes = SubtreeHashes.forDocument(left);
+        SubtreeHashes rightHashes = SubtreeHashes.forDocument(right);
+        // The first step needs both root hashes: hash the two documents at the same time
+        CompletableFuture<Long> leftRootHash = CompletableFuture.supplyAsync(leftHashes::getRootHash);
+        rightHashes.getRootHash();
+        leftRootHash.join();
+
+        Comparison comparison = new Comparison(leftHashes, rightHashes);
+        comparison.counterparts.put(right, left);
+        Element leftRoot = left.getDocumentElement();
+        Element rightRoot = right.getDocumentElement();
+        if (leftRoot.getNodeName().equals(rightRoot.getNodeName())) {
+            comparison.run(leftRoot, rightRoot);
+        } else {
+            comparison.add(ChangeKind.REMOVED, leftRoot, null, null, null, null);
+            comparison.add(ChangeKind.ADDED, null, rightRoot, null, null, null);
+        }
+        return new Result(comparison.changes, comparison.counterparts, comparison.compared, comparison.skipped,
+                comparison.changes.size() >= maxChanges, System.nanoTime() - startNanos);
+    }
+
+    // --------------------------------------------------------------
+    // Comparison
+    // --------------------------------------------------------------
+
+    private final class Comparison {
+        final SubtreeHashes leftHashes;
+        final SubtreeHashes rightHashes;
+        final List<Change> changes = new ArrayList<>();
+        final Map<Node, Node> counterparts = new IdentityHashMap<>();
+        int compared = 0;
+        int skipped = 0;
+
+        Comparison(SubtreeHashes leftHashes, SubtreeHashes rightHashes) {
+            this.leftHashes = leftHashes;
+            this.rightHashes = rightHashes;
+        }
+
+        // Depth-first over aligned pairs (iterative, for deep documents); siblings in document order
+        void run(Element leftRoot, Element rightRoot) {
+            ArrayDeque<Element[]> pending = new ArrayDeque<>();
+            pending.push(new Element[]{leftRoot, rightRoot});
+            counterparts.put(rightRoot, leftRoot);
+            while (!pending.isEmpty() && changes.size() < maxChanges) {
+                Element[] pair = pending.pop();
+                compared++;
+                if (leftHashes.hashOf(pair[0]) == rightHashes.hashOf(pair[1])) {
+                    skipped++;
+                    continue;
+                }
+                compareAttributes(pair[0], pair[1]);
+                compareText(pair[0], pair[1]);
+                List<Element[]> children = alignChildren(pair[0], pair[1]);
+                for (int i = children.size() - 1; i >= 0; i--) {
+                    pending.push(children.get(i));
+                }
+            }
+        }
+
+        void compareAttributes(Element left, Element right) {
+            NamedNodeMap leftAttributes = left.getAttributes();
+            for (int i = 0; i < leftAttributes.getLength(); i++) {
+                Attr attribute = (Attr) leftAttributes.item(i);
+                String name = attribute.getName();
+                Attr other = right.getAttributeNode(name);
+                if (other != null && other.getValue().equals(attribute.getValue())) continue;
+                if (name.equals("name") && (isSynthetic(attribute.getValue()) || other != null && isSynthetic(other.getValue()))) continue;
+                add(ChangeKind.ATTRIBUTE, left, right, name, attribute.getValue(), other == null ? null : other.getValue());
+            }
+            NamedNodeMap rightAttributes = right.getAttributes();
+            for (int i = 0; i < rightAttributes.getLength(); i++) {
+                Attr attribute = (Attr) rightAttributes.item(i);
+                if (left.hasAttribute(attribute.getName())) continue;
+                if (attribute.getName().equals("name") && isSynthetic(attribute.getValue())) continue;
+                add(ChangeKind.ATTRIBUTE, left, right, attribute.getName(), null, attribute.getValue());
+            }
+        }
+
+        void compareText(Element left, Element right) {
+            String leftText = DomNodes.ownText(left);
+            String rightText = DomNodes.ownText(right);
+            boolean payload = binaryElementTypes.contains(left.getNodeName())
+                    || leftText.length() >= PAYLOAD_LENGTH || rightText.length() >= PAYLOAD_LENGTH;
+            if (payload) {
+                long leftHash = DomNodes.textHash(leftHashes, left);
+                long rightHash = DomNodes.textHash(rightHashes, right);
+                if (leftHash != rightHash) {
+                    add(ChangeKind.PAYLOAD, left, right, null, DomNodes.describePayload(leftText, leftHash), DomNodes.describePayload(rightText, rightHash));
+                }
+            } else if (!leftText.strip().equals(rightText.strip())) {
+                add(ChangeKind.TEXT, left, right, null, shorten(leftText.strip()), shorten(rightText.strip()));
+            }
+        }
+
+        /**
+         * Pairs the child elements of two aligned elements and reports the unpaired ones and
+         * changes of order. Returns the pairs in the order of the right (newer) document.
+         */
+        List<Element[]> alignChildren(Element left, Element right) {
+            List<Element> leftChildren = childElements(left);
+            List<Element> rightChildren = childElements(right);
+            Map<Element, Element> leftToRight = new IdentityHashMap<>();
+            Map<Element, Element> rightToLeft = new IdentityHashMap<>();
+
+            // 1. By name (names that are unique among the right siblings)
+            Map<String, Element> rightByName = new HashMap<>();
+            Set<String> ambiguousNames = new HashSet<>();
+            for (Element child : rightChildren) {
+                String name = realName(child);
+                if (name != null && rightByName.putIfAbsent(name, child) != null) {
+                    ambiguousNames.add(name); // Align by the other rules, however often the name repeats
+                }
+            }
+            rightByName.keySet().removeAll(ambiguousNames);
+            for (Element child : leftChildren) {
+                String name = realName(child);
+                Element match = name == null ? null : rightByName.get(name);
+                if (match != null && match.getNodeName().equals(child.getNodeName()) && !rightToLeft.containsKey(match)) {
+                    leftToRight.put(child, match);
+                    rightToLeft.put(match, child);
+                }
+            }
+
+            // 2. Unnamed elements with an identical subtree
+            Map<Long, ArrayDeque<Element>> rightByHash = new HashMap<>();
+            for (Element child : rightChildren) {
+                if (!rightToLeft.containsKey(child) && realName(child) == null) {
+                    rightByHash.computeIfAbsent(rightHashes.hashOf(child), key -> new ArrayDeque<>()).add(child);
+                }
+            }
+            for (Element child : leftChildren) {
+                if (leftToRight.containsKey(child) || realName(child) != null || rightByHash.isEmpty()) continue;
+                ArrayDeque<Element> candidates = rightByHash.get(leftHashes.hashOf(child));
+                Element match = candidates == null ? null : candidates.poll();
+                if (match != null) {
+                    leftToRight.put(child, match);
+                    rightToLeft.put(match, child);
+                }
+            }
+
+            // 3. The rest by type in order, if at least one side has no name of its own
+            Map<String, ArrayDeque<Element>> rightUnnamed = new HashMap<>();
+            Map<String, ArrayDeque<Element>> rightNamed = new HashMap<>();
+            for (Element child : rightChildren) {
+                if (rightToLeft.containsKey(child)) continue;
+                (realName(child) == null ? rightUnnamed : rightNamed)
+                        .computeIfAbsent(child.getNodeName(), key -> new ArrayDeque<>()).add(child);
+            }
+            for (Element child : leftChildren) {
+                if (leftToRight.containsKey(child)) continue;
+                Element match = poll(rightUnnamed, child.getNodeName());
+                if (match == null && realName(child) == null) {
+                    match = poll(rightNamed, child.getNodeName());
+                }
+                if (match != null) {
+                    leftToRight.put(child, match);
+                    rightToLeft.put(match, child);
+                }
+            }
+
+            // 4. Unpaired elements, and pairs whose order changed
+            for (Element child : leftChildren) {
+                if (!leftToRight.containsKey(child)) add(ChangeKind.REMOVED, child, null, null, null, null);
+            }
+            List<Element[]> pairs = new ArrayList<>();
+            List<String> moved = new ArrayList<>();
+            Map<Element, Integer> leftPositions = new IdentityHashMap<>();
+            for (int i = 0; i < leftChildren.size(); i++) {
+                leftPositions.put(leftChildren.get(i), i);
+            }
+            int lastPosition = -1;
+            for (Element child : rightChildren) {
+                Element match = rightToLeft.get(child);
+                if (match == null) {
+                    add(ChangeKind.ADDED, null, child, null, null, null);
+                    continue;
+                }
+                pairs.add(new Element[]{match, child});
+                counterparts.put(child, match);
+                int position = leftPositions.get(match);
+                if (position < lastPosition) {
+                    moved.add(label(child));
+                } else {
+                    lastPosition = position;
+                }
+            }
+            if (!moved.isEmpty()) {
+                String list = String.join(", ", moved.subList(0, Math.min(5, moved.size())))
+                        + (moved.size() > 5 ? " and " + (moved.size() - 5) + " more" : "");
+                add(ChangeKind.REORDERED, left, right, null, null, moved.size() + " moved (" + list + ")");
+            }
+            return pairs;
+        }
+
+        void add(ChangeKind kind, Element left, Element right, String field, String oldValue, String newValue) {
+            if (changes.size() >= maxChanges) return;
+            changes.add(new Change(kind, pathOf(right != null ? right : left), field, oldValue, newValue, left, right));
+        }
+    }
+
+    // --------------------------------------------------------------
+    // Helpers
+    // --------------------------------------------------------------
+
+    /**
+     * An XPath-like location: {@code /ESign/Scene[@name='Page1']/Button[2]} (position among the
+     * siblings of the same type where there is no real name).
+     */
+    public static String pathOf(Element element) {
+        List<String> steps = new ArrayList<>();
+        for (Node node = element; node instanceof Element; node = node.getParentNode()) {
+            Element current = (Element) node;
+            String name = realName(current);
+            if (name != null) {
+                steps.add(current.getNodeName() + "[@name='" + name + "']");
+            } else if (current.getParentNode() instanceof Element) {
+                int position = 1;
+                for (Node sibling = current.getPreviousSibling(); sibling != null; sibling = sibling.getPreviousSibling()) {
+                    if (sibling.getNodeName().equals(current.getNodeName())) position++;
+                }
+                steps.add(current.getNodeName() + "[" + position + "]");
+            } else {
+                steps.add(current.getNodeName());
+            }
+        }
+        Collections.reverse(steps);
+        return "/" + String.join("/", steps);
+    }
+
+    private static boolean isSynthetic(String name) {
+        return NameAllocator.isSynthetic(name);
+    }
+
+    // The name attribute, unless absent, blank or synthetic
+    private static String realName(Element element) {
+        String name = element.getAttribute("name");
+        return name.isBlank() || isSynthetic(name) ? null : name;
+    }
+
+    private static String label(Element element) {
+        String name = realName(element);
+        return name == null ? element.getNodeName() : element.getNodeName() + " '" + name + "'";
+    }
+
+    private static List<Element> childElements(Element element) {
+        List<Element> children = new ArrayList<>();
+        for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child instanceof Element) children.add((Element) child);
+        }
+        return children;
+    }
+
+    private static Element poll(Map<String, ArrayDeque<Element>> byType, String type) {
+        ArrayDeque<Element> candidates = byType.get(type);
+        return candidates == null ? null : candidates.poll();
+    }
+
+    private static String shorten(String text) {
+        String line = text.replace('\n', ' ');
+        return line.length() > MAX_REPORTED_TEXT ? line.substring(0, MAX_REPORTED_TEXT) + "..." : line;
+    }
+}
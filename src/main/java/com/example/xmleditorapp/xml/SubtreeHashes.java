@@ -0,0 +1,220 @@
+package com.example.xmleditorapp.xml;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+import java.util.ArrayDeque;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * 64-bit content hashes of the elements of a document (Merkle style): the hash of an element
+ * combines its type, its attributes (in any order) and the hashes of its children in order
+ * (child elements, text, CDATA, comments and processing instructions). Two subtrees with the
+ * same hash have the same content, so callers can tell whether a subtree changed without
+ * serializing it.
+ * <p>
+ * Hashes are computed on demand and cached. A mutation only drops the cached hashes on the path
+ * from the changed node to the root ({@link #invalidate}); the next request rehashes that path,
+ * reusing the cached hashes of every unchanged sibling subtree. {@link DomTransaction} invalidates
+ * for every mutation it applies or rolls back; code that changes the DOM directly must call
+ * {@link #invalidate} itself.
+ * <p>
+ * The root hash also gives the document's "dirty since last save" state ({@link #markSaved},
+ * {@link #isDirty}). Marking a document as saved costs nothing: the saved root hash is only
+ * computed when the first change is announced, so opening a file does not hash it. Changes must
+ * therefore be announced before they are applied. There is one instance per document (kept as
+ * DOM user data).
+ */
+public class SubtreeHashes {
+
+    private static final String USER_DATA_KEY = SubtreeHashes.class.getName();
+    // Text at least this long keeps its own cached hash, so rehashing its parent does not read it again
+    private static final int CACHED_TEXT_LENGTH = 1024;
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final long CHILD_MULTIPLIER = 0x9e3779b97f4a7c15L;
+
+    private final Document document;
+    private final Map<Node, Long> hashes = new IdentityHashMap<>();
+    private long savedRootHash;
+    private boolean saved = false;
+    // Saved, but the saved root hash is not computed yet (no change since)
+    private boolean savedPending = false;
+    private long hashedElements = 0;
+
+    private SubtreeHashes(Document document) {
+        this.document = document;
+    }
+
+    /**
+     * The hashes of a document (nothing is hashed until asked for).
+     */
+    public static SubtreeHashes forDocument(Document document) {
+        synchronized (SubtreeHashes.class) {
+            SubtreeHashes hashes = (SubtreeHashes) document.getUserData(USER_DATA_KEY);
+            if (hashes == null) {
+                hashes = new SubtreeHashes(document);
+                document.setUserData(USER_DATA_KEY, hashes, null);
+            }
+            return hashes;
+        }
+    }
+
+    /**
+     * The hashes of a document if any were requested, otherwise null (nothing to invalidate).
+     */
+    public static SubtreeHashes ifPresent(Document document) {
+        return document == null ? null : (SubtreeHashes) document.getUserData(USER_DATA_KEY);
+    }
+
+    // --------------------------------------------------------------
+    // Hashes
+    // --------------------------------------------------------------
+
+    /**
+     * Content hash of a node and everything below it.
+     */
+    public synchronized long hashOf(Node node) {
+        if (!(node instanceof Element)) return leafHash(node);
+        Long cached = hashes.get(node);
+        if (cached != null) return cached;
+
+        // Post-order over the elements without a cached hash (iterative, for deep documents)
+        ArrayDeque<Element> stack = new ArrayDeque<>();
+        stack.push((Element) node);
+        while (!stack.isEmpty()) {
+            Element element = stack.peek();
+            boolean pending = false;
+            for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+                if (child instanceof Element && !hashes.containsKey(child)) {
+                    stack.push((Element) child);
+                    pending = true;
+                }
+            }
+            if (!pending) {
+                stack.pop();
+                hashes.put(element, elementHash(element));
+                hashedElements++;
+            }
+        }
+        return hashes.get(node);
+    }
+
+    /**
+     * Hash of the document element (0 for an empty document).
+     */
+    public long getRootHash() {
+        Element root = document.getDocumentElement();
+        return root == null ? 0 : hashOf(root);
+    }
+
+    /**
+     * Element hashes computed so far (an element rehashed after a change counts again).
+     */
+    public synchronized long getHashedElementCount() {
+        return hashedElements;
+    }
+
+    /**
+     * Drops the cached hashes of a node and its ancestors; call before the node's attributes,
+     * text or children change. Ancestors of a node without a cached hash have none either,
+     * so repeated changes under the same subtree stop early.
+     */
+    public synchronized void invalidate(Node node) {
+        if (savedPending) {
+            savedRootHash = getRootHash();
+            savedPending = false;
+        }
+        for (Node current = node; current != null; current = current.getParentNode()) {
+            if (hashes.remove(current) == null && current instanceof Element) return;
+        }
+    }
+
+    // --------------------------------------------------------------
+    // Dirty state
+    // --------------------------------------------------------------
+
+    /**
+     * Records the current content as saved (after loading or saving the document).
+     */
+    public synchronized void markSaved() {
+        saved = true;
+        savedPending = true;
+    }
+
+    /**
+     * True if the document was never saved or its content differs from the saved one
+     * (an edit that is reverted by hand makes it clean again).
+     */
+    public synchronized boolean isDirty() {
+        return !saved || !savedPending && getRootHash() != savedRootHash;
+    }
+
+    // --------------------------------------------------------------
+    // Hash functions
+    // --------------------------------------------------------------
+
+    // Children are all hashed (elements are cached) when this runs
+    private long elementHash(Element element) {
+        long hash = mix(stringHash(element.getNodeName()));
+        // Attributes: order-independent sum, so attribute order does not matter
+        long attributes = 0;
+        NamedNodeMap map = element.getAttributes();
+        for (int i = 0; i < map.getLength(); i++) {
+            Node attribute = map.item(i);
+            attributes += mix(stringHash(attribute.getNodeName()) * 31 + stringHash(attribute.getNodeValue()));
+        }
+        hash = hash * CHILD_MULTIPLIER + mix(attributes ^ map.getLength());
+        for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+            long childHash = child instanceof Element ? hashes.get(child) : leafHash(child);
+            hash = hash * CHILD_MULTIPLIER + childHash;
+        }
+        return mix(hash);
+    }
+
+    private long leafHash(Node node) {
+        String value = node.getNodeValue() == null ? "" : node.getNodeValue();
+        boolean cache = value.length() >= CACHED_TEXT_LENGTH;
+        Long cached = cache ? hashes.get(node) : null;
+        if (cached != null) return cached;
+        long hash = stringHash(value) + node.getNodeType();
+        if (node.getNodeType() == Node.PROCESSING_INSTRUCTION_NODE) {
+            hash = hash * 31 + stringHash(node.getNodeName());
+        }
+        hash = mix(hash);
+        if (cache) hashes.put(node, hash);
+        return hash;
+    }
+
+    // FNV-1a over four interleaved lanes (independent multiplications, so long payloads hash
+    // several times faster than with one chain)
+    private static long stringHash(String text) {
+        int length = text.length();
+        long lane0 = FNV_OFFSET ^ length;
+        long lane1 = lane0 + 1;
+        long lane2 = lane0 + 2;
+        long lane3 = lane0 + 3;
+        int i = 0;
+        for (; i + 4 <= length; i += 4) {
+            lane0 = (lane0 ^ text.charAt(i)) * FNV_PRIME;
+            lane1 = (lane1 ^ text.charAt(i + 1)) * FNV_PRIME;
+            lane2 = (lane2 ^ text.charAt(i + 2)) * FNV_PRIME;
+            lane3 = (lane3 ^ text.charAt(i + 3)) * FNV_PRIME;
+        }
+        for (; i < length; i++) {
+            lane0 = (lane0 ^ text.charAt(i)) * FNV_PRIME;
+        }
+        return mix(lane0) + 31 * mix(lane1) + 961 * mix(lane2) + 29791 * mix(lane3);
+    }
+
+    // Final mixing step of SplitMix64
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+        value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+        return value ^ (value >>> 31);
+    }
+}
@@ -0,0 +1,549 @@
+package com.example.xmleditorapp.xml;
+
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Element-level three-way merge: the changes made between a common base and "theirs" are
+ * merged into "ours" (the document open in the editor).
+ * <p>
+ * Child elements are matched across the three documents by their {@code name} attribute;
+ * unnamed ones (or ones with a synthetic name, which differ between loads) by type and position
+ * among the unnamed siblings of that type. For each matched element:
+ * <ul>
+ *   <li>equal {@link SubtreeHashes hashes} in ours and theirs, or an unchanged subtree in
+ *       theirs: nothing to merge, the subtree is skipped without looking inside;</li>
+ *   <li>unchanged in ours: theirs replaces the whole subtree;</li>
+ *   <li>changed on both sides: attributes and text are merged one by one and the children are
+ *       matched again. A value changed on both sides to different values is a conflict, and so
+ *       is an element deleted on one side and changed on the other. Elements added by theirs
+ *       are inserted after their preceding sibling; a change of order in theirs is not merged.</li>
+ * </ul>
+ * Payloads (elements of a binary schema type, or text of at least
+ * {@value StructuralDiff#PAYLOAD_LENGTH} characters) are compared by hash and copied as they
+ * are; they are never decoded or compared as text.
+ * <p>
+ * {@link #merge} only plans: it reads the three documents and changes none of them.
+ * {@link Plan#apply} then applies the non-conflicting changes to ours through a
+ * {@link DomTransaction}, and {@link Plan#takeTheirs} resolves a conflict in favor of theirs
+ * (ours is kept otherwise), so the whole merge can be rolled back.
+ * <p>
+ * To plan in the background, merge a {@link DocumentCopy} of the open document (with the three
+ * documents {@link DocumentCopy#normalizeForComparison normalized}, so unchanged subtrees hash
+ * the same) and apply the plan {@link Plan#onOriginal to the original}.
+ */
+public class ThreeWayMerge {
+
+    public enum ConflictKind {
+        // Both sides changed an attribute (field) to different values
+        ATTRIBUTE,
+        // Both sides changed the text differently
+        TEXT,
+        // Both sides changed a binary payload differently
+        PAYLOAD,
+        // Ours changed the element, theirs deleted it
+        CHANGED_DELETED,
+        // Ours deleted the element, theirs changed it
+        DELETED_CHANGED
+    }
+
+    /**
+     * Mutation of ours, run when the plan (or a conflict resolution) is applied.
+     */
+    private interface Operation {
+        void apply(DomTransaction transaction);
+    }
+
+    /**
+     * The nodes operations change: the planned ones, or the ones of the document that ours
+     * was copied from.
+     */
+    private static final class Targets {
+        private Map<Node, Node> originals;
+
+        @SuppressWarnings("unchecked")
+        <T extends Node> T of(T node) {
+            if (node == null || originals == null) return node;
+            Node original = originals.get(node);
+            if (original == null) throw new IllegalStateException("No original for " + node.getNodeName());
+            return (T) original;
+        }
+    }
+
+    /**
+     * A change made on both sides. Values of an absent attribute (or element) are null;
+     * payloads are described by length and hash. {@code ours}/{@code theirs} are the element in
+     * each document (null where it was deleted).
+     */
+    public static final class Conflict {
+        private final ConflictKind kind;
+        private final String path;
+        private final String field;
+        private final String baseValue;
+        private final String oursValue;
+        private final String theirsValue;
+        private final Element ours;
+        private final Element theirs;
+        private final Operation takeTheirs;
+        private final Targets targets;
+
+        private Conflict(ConflictKind kind, String path, String field, String baseValue, String oursValue,
+                         String theirsValue, Element ours, Element theirs, Operation takeTheirs, Targets targets) {
+            this.kind = kind;
+            this.path = path;
+            this.field = field;
+            this.baseValue = baseValue;
+            this.oursValue = oursValue;
+            this.theirsValue = theirsValue;
+            this.ours = ours;
+            this.theirs = theirs;
+            this.takeTheirs = takeTheirs;
+            this.targets = targets;
+        }
+
+        public ConflictKind getKind() { return kind; }
+        public String getPath() { return path; }
+        public String getField() { return field; }
+        public String getBaseValue() { return baseValue; }
+        public String getOursValue() { return oursValue; }
+        public String getTheirsValue() { return theirsValue; }
+        public Element getOurs() { return targets.of(ours); }
+        public Element getTheirs() { return theirs; }
+
+        @Override
+        public String toString() {
+            return switch (kind) {
+                case ATTRIBUTE -> path + " @" + field + ": base " + quote(baseValue)
+                        + ", ours " + quote(oursValue) + ", theirs " + quote(theirsValue);
+                case TEXT -> path + " text: base " + quote(baseValue)
+                        + ", ours " + quote(oursValue) + ", theirs " + quote(theirsValue);
+                case PAYLOAD -> path + " payload: base " + baseValue + ", ours " + oursValue + ", theirs " + theirsValue;
+                case CHANGED_DELETED -> path + ": changed in ours, deleted in theirs";
+                case DELETED_CHANGED -> path + ": deleted in ours, changed in theirs";
+            };
+        }
+
+        private static String quote(String value) {
+            return value == null ? "(none)" : "\"" + value + "\"";
+        }
+    }
+
+    /**
+     * The planned merge: the changes taken from theirs and the conflicts, with statistics.
+     */
+    public static final class Plan {
+        private final Document ours;
+        private final Targets targets;
+        private final List<Operation> operations;
+        private final List<Conflict> conflicts;
+        private final int comparedElements;
+        private final int skippedSubtrees;
+        private final long elapsedNanos;
+
+        private Plan(Document ours, Targets targets, List<Operation> operations, List<Conflict> conflicts,
+                     int comparedElements, int skippedSubtrees, long elapsedNanos) {
+            this.ours = ours;
+            this.targets = targets;
+            this.operations = operations;
+            this.conflicts = Collections.unmodifiableList(conflicts);
+            this.comparedElements = comparedElements;
+            this.skippedSubtrees = skippedSubtrees;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        // Changes from theirs that merge without conflict
+        public int getMergedChangeCount() { return operations.size(); }
+        public List<Conflict> getConflicts() { return conflicts; }
+        public boolean hasChanges() { return !operations.isEmpty() || !conflicts.isEmpty(); }
+        // Matched elements looked at; skipped subtrees count once
+        public int getComparedElements() { return comparedElements; }
+        public int getSkippedSubtrees() { return skippedSubtrees; }
+        public double elapsedMillis() { return elapsedNanos / 1_000_000.0; }
+
+        public Document getOurs() { return targets.of(ours); }
+
+        /**
+         * Makes the plan change the document ours was copied from, instead of the copy.
+         * @param originals from {@link DocumentCopy#toOriginal()}, taken before anything is applied
+         */
+        public Plan onOriginal(Map<Node, Node> originals) {
+            targets.originals = originals;
+            return this;
+        }
+
+        /**
+         * Applies the non-conflicting changes to ours. Conflicts keep ours until resolved.
+         */
+        public void apply(DomTransaction transaction) {
+            for (Operation operation : operations) {
+                operation.apply(transaction);
+                transaction.operationApplied();
+            }
+        }
+
+        /**
+         * Resolves a conflict with theirs (call after {@link #apply}, in the same transaction).
+         */
+        public void takeTheirs(Conflict conflict, DomTransaction transaction) {
+            conflict.takeTheirs.apply(transaction);
+            transaction.operationApplied();
+        }
+
+        public int count(ConflictKind kind) {
+            int count = 0;
+            for (Conflict conflict : conflicts) {
+                if (conflict.kind == kind) count++;
+            }
+            return count;
+        }
+    }
+
+    private final Set<String> binaryElementTypes;
+
+    /**
+     * @param binaryElementTypes element types whose text is a binary payload
+     */
+    public ThreeWayMerge(Set<String> binaryElementTypes) {
+        this.binaryElementTypes = binaryElementTypes;
+    }
+
+    /**
+     * Plans the merge of the changes from base to theirs into ours. None of the documents is
+     * changed; their {@link SubtreeHashes} are computed as needed.
+     */
+    public Plan merge(Document base, Document ours, Document theirs) {
+        long startNanos = System.nanoTime();
+        SubtreeHashes baseHashes = SubtreeHashes.forDocument(base);
+        SubtreeHashes oursHashes = SubtreeHashes.forDocument(ours);
+        SubtreeHashes theirsHashes = SubtreeHashes.forDocument(theirs);
+        // The first step needs all three root hashes: hash the documents at the same time
+        CompletableFuture<Long> baseRootHash = CompletableFuture.supplyAsync(baseHashes::getRootHash);
+        CompletableFuture<Long> theirsRootHash = CompletableFuture.supplyAsync(theirsHashes::getRootHash);
+        oursHashes.getRootHash();
+        baseRootHash.join();
+        theirsRootHash.join();
+
+        Merge merge = new Merge(ours, baseHashes, oursHashes, theirsHashes);
+        Element baseRoot = base.getDocumentElement();
+        Element oursRoot = ours.getDocumentElement();
+        Element theirsRoot = theirs.getDocumentElement();
+        if (!oursRoot.getNodeName().equals(theirsRoot.getNodeName())
+                || !baseRoot.getNodeName().equals(oursRoot.getNodeName())) {
+            throw new IllegalArgumentException("The documents have different root elements ("
+                    + baseRoot.getNodeName() + ", " + oursRoot.getNodeName() + ", " + theirsRoot.getNodeName() + ")");
+        }
+        merge.run(baseRoot, oursRoot, theirsRoot);
+        return new Plan(ours, merge.targets, merge.operations, merge.conflicts, merge.compared, merge.skipped,
+                System.nanoTime() - startNanos);
+    }
+
+    // --------------------------------------------------------------
+    // Merge
+    // --------------------------------------------------------------
+
+    private final class Merge {
+        final Document oursDocument;
+        final SubtreeHashes baseHashes;
+        final SubtreeHashes oursHashes;
+        final SubtreeHashes theirsHashes;
+        final Targets targets = new Targets();
+        final List<Operation> operations = new ArrayList<>();
+        final List<Conflict> conflicts = new ArrayList<>();
+        int compared = 0;
+        int skipped = 0;
+
+        Merge(Document oursDocument, SubtreeHashes baseHashes, SubtreeHashes oursHashes, SubtreeHashes theirsHashes) {
+            this.oursDocument = oursDocument;
+            this.baseHashes = baseHashes;
+            this.oursHashes = oursHashes;
+            this.theirsHashes = theirsHashes;
+        }
+
+        // Depth-first over matched triples (iterative, for deep documents); base is null for an
+        // element added on both sides
+        void run(Element baseRoot, Element oursRoot, Element theirsRoot) {
+            ArrayDeque<Element[]> pending = new ArrayDeque<>();
+            pending.push(new Element[]{baseRoot, oursRoot, theirsRoot});
+            while (!pending.isEmpty()) {
+                Element[] triple = pending.pop();
+                Element base = triple[0];
+                Element ours = triple[1];
+                Element theirs = triple[2];
+                compared++;
+
+                // 1. Whole subtrees: same on both sides, unchanged in theirs, or unchanged in ours
+                long theirsHash = theirsHashes.hashOf(theirs);
+                long baseHash = base == null ? 0 : baseHashes.hashOf(base);
+                if (oursHashes.hashOf(ours) == theirsHash || base != null && baseHash == theirsHash) {
+                    skipped++;
+                    continue;
+                }
+                if (base != null && unchanged(base, ours)) {
+                    operations.add(transaction -> replace(targets.of(ours), theirs, transaction));
+                    continue;
+                }
+
+                // 2. Changed on both sides: attributes, text, then the children
+                mergeAttributes(base, ours, theirs);
+                mergeText(base, ours, theirs);
+                List<Element[]> children = mergeChildren(base, ours, theirs);
+                for (int i = children.size() - 1; i >= 0; i--) {
+                    pending.push(children.get(i));
+                }
+            }
+        }
+
+        void mergeAttributes(Element base, Element ours, Element theirs) {
+            Set<String> names = new LinkedHashSet<>();
+            addAttributeNames(ours, names);
+            addAttributeNames(theirs, names);
+            if (base != null) addAttributeNames(base, names);
+            for (String name : names) {
+                String baseValue = attribute(base, name);
+                String oursValue = attribute(ours, name);
+                String theirsValue = attribute(theirs, name);
+                if (name.equals("name") && (oursValue == null || NameAllocator.isSynthetic(oursValue))
+                        && (theirsValue == null || NameAllocator.isSynthetic(theirsValue))) {
+                    continue; // Synthetic names are not part of the content
+                }
+                if (Objects.equals(oursValue, theirsValue) || base != null && Objects.equals(baseValue, theirsValue)) {
+                    continue;
+                }
+                Operation takeTheirs = transaction -> {
+                    if (theirsValue == null) {
+                        transaction.removeAttribute(targets.of(ours), name);
+                    } else {
+                        transaction.setAttribute(targets.of(ours), name, theirsValue);
+                    }
+                };
+                if (base != null && Objects.equals(baseValue, oursValue)) {
+                    operations.add(takeTheirs);
+                } else {
+                    conflicts.add(new Conflict(ConflictKind.ATTRIBUTE, StructuralDiff.pathOf(ours), name,
+                            baseValue, oursValue, theirsValue, ours, theirs, takeTheirs, targets));
+                }
+            }
+        }
+
+        void mergeText(Element base, Element ours, Element theirs) {
+            String oursText = DomNodes.ownText(ours);
+            String theirsText = DomNodes.ownText(theirs);
+            String baseText = base == null ? null : DomNodes.ownText(base);
+            boolean payload = binaryElementTypes.contains(ours.getNodeName())
+                    || oursText.length() >= StructuralDiff.PAYLOAD_LENGTH || theirsText.length() >= StructuralDiff.PAYLOAD_LENGTH
+                    || baseText != null && baseText.length() >= StructuralDiff.PAYLOAD_LENGTH;
+            Operation takeTheirs = transaction -> DomNodes.setText(targets.of(ours), theirsText, transaction);
+            if (payload) {
+                long oursHash = DomNodes.textHash(oursHashes, ours);
+                long theirsHash = DomNodes.textHash(theirsHashes, theirs);
+                long baseHash = base == null ? 0 : DomNodes.textHash(baseHashes, base);
+                if (oursHash == theirsHash || base != null && baseHash == theirsHash) return;
+                if (base != null && baseHash == oursHash) {
+                    operations.add(takeTheirs);
+                } else {
+                    conflicts.add(new Conflict(ConflictKind.PAYLOAD, StructuralDiff.pathOf(ours), null,
+                            base == null ? null : DomNodes.describePayload(baseText, baseHash),
+                            DomNodes.describePayload(oursText, oursHash), DomNodes.describePayload(theirsText, theirsHash),
+                            ours, theirs, takeTheirs, targets));
+                }
+                return;
+            }
+            // Plain text: surrounding whitespace (indentation) does not count
+            String oursValue = oursText.strip();
+            String theirsValue = theirsText.strip();
+            String baseValue = baseText == null ? null : baseText.strip();
+            if (oursValue.equals(theirsValue) || theirsValue.equals(baseValue)) return;
+            if (oursValue.equals(baseValue)) {
+                operations.add(takeTheirs);
+            } else {
+                conflicts.add(new Conflict(ConflictKind.TEXT, StructuralDiff.pathOf(ours), null,
+                        baseValue, oursValue, theirsValue, ours, theirs, takeTheirs, targets));
+            }
+        }
+
+        /**
+         * Matches the child elements of a merged triple. Plans the additions and deletions
+         * from theirs and reports the conflicting ones; returns the triples to merge further,
+         * in the order of ours.
+         */
+        List<Element[]> mergeChildren(Element base, Element ours, Element theirs) {
+            Map<String, Element> baseChildren = base == null ? Collections.emptyMap() : childrenByKey(base);
+            Map<String, Element> oursChildren = childrenByKey(ours);
+            Map<String, Element> theirsChildren = childrenByKey(theirs);
+            List<Element[]> triples = new ArrayList<>();
+
+            // 1. Children of ours: merge further, or delete them where theirs did
+            for (Map.Entry<String, Element> entry : oursChildren.entrySet()) {
+                Element oursChild = entry.getValue();
+                Element baseChild = baseChildren.get(entry.getKey());
+                Element theirsChild = theirsChildren.get(entry.getKey());
+                if (theirsChild != null) {
+                    triples.add(new Element[]{baseChild, oursChild, theirsChild});
+                } else if (baseChild != null) {
+                    Operation delete = transaction -> transaction.removeNode(targets.of(oursChild));
+                    if (unchanged(baseChild, oursChild)) {
+                        operations.add(delete);
+                    } else {
+                        conflicts.add(new Conflict(ConflictKind.CHANGED_DELETED, StructuralDiff.pathOf(oursChild), null,
+                                null, null, null, oursChild, null, delete, targets));
+                    }
+                }
+                // Otherwise added in ours: kept
+            }
+
+            // 2. Children only in theirs: added there, or deleted in ours
+            Element previous = null; // Last child of theirs that ours has too
+            for (Map.Entry<String, Element> entry : theirsChildren.entrySet()) {
+                Element theirsChild = entry.getValue();
+                Element oursChild = oursChildren.get(entry.getKey());
+                if (oursChild != null) {
+                    previous = oursChild;
+                    continue;
+                }
+                Element baseChild = baseChildren.get(entry.getKey());
+                Element after = previous;
+                Operation insert = transaction -> insertAfter(targets.of(ours), targets.of(after), theirsChild, transaction);
+                if (baseChild == null) {
+                    operations.add(insert);
+                } else if (baseHashes.hashOf(baseChild) != theirsHashes.hashOf(theirsChild)) {
+                    conflicts.add(new Conflict(ConflictKind.DELETED_CHANGED, StructuralDiff.pathOf(theirsChild), null,
+                            null, null, null, null, theirsChild, insert, targets));
+                }
+                // Otherwise deleted in ours and unchanged in theirs: stays deleted
+            }
+            return triples;
+        }
+
+        /**
+         * True if an element of ours has the same content as in base. Equal hashes answer it
+         * directly; otherwise the subtrees are compared, ignoring the synthetic names that ours
+         * got when it was loaded (base, read as it is, has none where ours has them).
+         */
+        boolean unchanged(Element base, Element ours) {
+            ArrayDeque<Element[]> pending = new ArrayDeque<>();
+            pending.push(new Element[]{base, ours});
+            while (!pending.isEmpty()) {
+                Element[] pair = pending.pop();
+                if (baseHashes.hashOf(pair[0]) == oursHashes.hashOf(pair[1])) continue;
+                if (!pair[0].getNodeName().equals(pair[1].getNodeName())) return false;
+                Set<String> names = new LinkedHashSet<>();
+                addAttributeNames(pair[0], names);
+                addAttributeNames(pair[1], names);
+                for (String name : names) {
+                    String baseValue = attribute(pair[0], name);
+                    String oursValue = attribute(pair[1], name);
+                    if (Objects.equals(baseValue, oursValue)) continue;
+                    if (name.equals("name") && baseValue == null && NameAllocator.isSynthetic(oursValue)) continue;
+                    return false;
+                }
+                if (DomNodes.textHash(baseHashes, pair[0]) != DomNodes.textHash(oursHashes, pair[1])) return false;
+                Node baseChild = firstElement(pair[0].getFirstChild());
+                Node oursChild = firstElement(pair[1].getFirstChild());
+                while (baseChild != null && oursChild != null) {
+                    pending.push(new Element[]{(Element) baseChild, (Element) oursChild});
+                    baseChild = firstElement(baseChild.getNextSibling());
+                    oursChild = firstElement(oursChild.getNextSibling());
+                }
+                if (baseChild != null || oursChild != null) return false;
+            }
+            return true;
+        }
+
+        // --------------------------------------------------------------
+        // Operations on ours
+        // --------------------------------------------------------------
+
+        // Removed first, so the document element can be replaced too
+        void replace(Element ours, Element theirs, DomTransaction transaction) {
+            Element copy = importCopy(theirs);
+            Node parent = ours.getParentNode();
+            Node before = ours.getNextSibling();
+            transaction.removeNode(ours);
+            transaction.insertBefore(parent, copy, before);
+        }
+
+        // After the given child of ours, or first if it is null (or no longer there)
+        void insertAfter(Element parent, Element after, Element theirs, DomTransaction transaction) {
+            Node before;
+            if (after != null && after.getParentNode() == parent) {
+                before = after.getNextSibling();
+            } else {
+                before = firstElement(parent.getFirstChild());
+            }
+            transaction.insertBefore(parent, importCopy(theirs), before);
+        }
+
+        // A copy of an element of theirs for ours: its names are reserved and unnamed
+        // elements get synthetic ones, as after loading
+        Element importCopy(Element theirs) {
+            Document document = targets.of(oursDocument);
+            Element copy = (Element) document.importNode(theirs, true);
+            NameAllocator allocator = NameAllocator.forDocument(document);
+            for (Element element = copy; element != null; element = DomNodes.nextElement(element, copy)) {
+                String name = element.getAttribute("name");
+                if (!name.isBlank()) allocator.reserve(name);
+            }
+            allocator.normalize(copy);
+            return copy;
+        }
+    }
+
+    // --------------------------------------------------------------
+    // Helpers
+    // --------------------------------------------------------------
+
+    /**
+     * Child elements keyed for matching: by real name ({@code name}), otherwise by type and
+     * position among the unnamed siblings of that type ({@code #Button[2]}). A duplicated name
+     * is keyed by position too. In document order.
+     */
+    private static Map<String, Element> childrenByKey(Element element) {
+        Map<String, Element> children = new LinkedHashMap<>();
+        Map<String, Integer> positions = new LinkedHashMap<>();
+        for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (!(child instanceof Element childElement)) continue;
+            String name = childElement.getAttribute("name");
+            String key = name.isBlank() || NameAllocator.isSynthetic(name) || children.containsKey(name) ? null : name;
+            if (key == null) {
+                int position = positions.merge(childElement.getNodeName(), 1, Integer::sum);
+                key = "#" + childElement.getNodeName() + "[" + position + "]";
+            }
+            children.put(key, childElement);
+        }
+        return children;
+    }
+
+    // The node itself or its first following sibling that is an element, or null
+    private static Node firstElement(Node node) {
+        while (node != null && !(node instanceof Element)) node = node.getNextSibling();
+        return node;
+    }
+
+    private static void addAttributeNames(Element element, Set<String> names) {
+        NamedNodeMap attributes = element.getAttributes();
+        for (int i = 0; i < attributes.getLength(); i++) {
+            names.add(((Attr) attributes.item(i)).getName());
+        }
+    }
+
+    private static String attribute(Element element, String name) {
+        if (element == null) return null;
+        Attr attribute = element.getAttributeNode(name);
+        return attribute == null ? null : attribute.getValue();
+    }
+
+}
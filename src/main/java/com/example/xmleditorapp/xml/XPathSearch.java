@@ -0,0 +1,174 @@
+package com.example.xmleditorapp.xml;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathEvaluationResult;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+import javax.xml.xpath.XPathNodes;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Runs XPath queries over a document on a background thread.
+ * <p>
+ * Compiled expressions are kept in an LRU cache of {@value #CACHE_SIZE} entries, so repeating
+ * or refining a query does not compile it again. Results are handed out in chunks while they
+ * are collected. A new search cancels the previous one: a running evaluation cannot be
+ * interrupted, but its results are dropped and no further chunks are delivered.
+ * <p>
+ * Simple attribute-equality queries ({@code //Type[@attr='value']}, {@code //*[@attr='value']})
+ * are answered from the document's {@link AttributeIndex}, on the calling thread.
+ * <p>
+ * The search thread never reads the document itself, which the editor keeps changing: any
+ * other query is evaluated on a {@link DocumentCopy} taken when the search starts, on the
+ * calling thread (which must own the document). The nodes delivered belong to that copy and
+ * are mapped to the document's own by the operator {@link #search} returns.
+ */
+public class XPathSearch {
+
+    static final int CACHE_SIZE = 64;
+    private static final int CHUNK_SIZE = 256;
+    private static final Pattern ATTRIBUTE_EQUALS = Pattern.compile(
+            "\\s*//(\\*|[\\w.\\-]+(?::[\\w.\\-]+)?)\\[\\s*@([\\w.\\-]+(?::[\\w.\\-]+)?)\\s*=\\s*(?:'([^']*)'|\"([^\"]*)\")\\s*]\\s*");
+
+    /**
+     * How a search ended. For a query that does not select nodes (e.g. {@code count(//Button)})
+     * {@code scalar} holds its value.
+     */
+    public record Outcome(String expression, int count, String scalar, boolean indexed, boolean cancelled,
+                          String error, long elapsedNanos) {
+
+        public double elapsedMillis() {
+            return elapsedNanos / 1_000_000.0;
+        }
+    }
+
+    // A search in progress
+    private static final class Run {
+        volatile boolean cancelled;
+    }
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "xpath-search");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Used on the search thread only
+    private final XPath xpath = XPathFactory.newInstance().newXPath();
+    private final LinkedHashMap<String, XPathExpression> expressions = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, XPathExpression> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    private Run current;
+
+    /**
+     * Starts a search, cancelling the previous one. Call on the thread that owns the document.
+     * Both callbacks are called on the search thread.
+     * @param onChunk receives the selected nodes in document order, a chunk at a time
+     * @param onDone  called once at the end (also when the search failed or was cancelled)
+     * @return maps a delivered node to the node of the document; call it on the thread that owns
+     *         the document, while the document has the structure it had when the search started
+     */
+    public synchronized UnaryOperator<Node> search(Document document, String expression,
+                                                   Consumer<List<Node>> onChunk, Consumer<Outcome> onDone) {
+        cancel();
+        Run run = new Run();
+        current = run;
+        long startNanos = System.nanoTime();
+
+        // 1. Attribute equality: served from the value index
+        Matcher equality = ATTRIBUTE_EQUALS.matcher(expression);
+        String value = !equality.matches() ? null : equality.group(3) != null ? equality.group(3) : equality.group(4);
+        if (value != null && AttributeIndex.isIndexed(equality.group(2), value)) {
+            String type = equality.group(1).equals("*") ? null : equality.group(1);
+            List<Element> matches = AttributeIndex.forDocument(document).find(type, equality.group(2), value);
+            executor.execute(() -> {
+                int count = deliver(run, matches, onChunk);
+                onDone.accept(new Outcome(expression, count, null, true, run.cancelled, null, System.nanoTime() - startNanos));
+            });
+            return UnaryOperator.identity();
+        }
+
+        // 2. Anything else: XPath over a copy
+        DocumentCopy copy = DocumentCopy.of(document);
+        executor.execute(() -> evaluate(run, copy.getDocument(), expression, startNanos, onChunk, onDone));
+        return copy::originalOf;
+    }
+
+    /**
+     * Stops delivering results of the running search.
+     */
+    public synchronized void cancel() {
+        if (current != null) {
+            current.cancelled = true;
+            current = null;
+        }
+    }
+
+    // --------------------------------------------------------------
+    // Evaluation (search thread)
+    // --------------------------------------------------------------
+
+    // Over a copy of the document that nothing else reads until its nodes are delivered
+    private void evaluate(Run run, Document document, String expression, long startNanos,
+                          Consumer<List<Node>> onChunk, Consumer<Outcome> onDone) {
+        if (run.cancelled) {
+            onDone.accept(new Outcome(expression, 0, null, false, true, null, 0));
+            return;
+        }
+        try {
+            // Compiled (or cached) XPath
+            XPathExpression compiled = expressions.get(expression);
+            if (compiled == null) {
+                compiled = xpath.compile(expression);
+                expressions.put(expression, compiled);
+            }
+            XPathEvaluationResult<?> result = compiled.evaluateExpression(document);
+            if (result.type() == XPathEvaluationResult.XPathResultType.NODESET) {
+                List<Node> nodes = new ArrayList<>();
+                for (Node node : (XPathNodes) result.value()) {
+                    nodes.add(node);
+                }
+                int count = deliver(run, nodes, onChunk);
+                onDone.accept(new Outcome(expression, count, null, false, run.cancelled, null, System.nanoTime() - startNanos));
+            } else if (result.type() == XPathEvaluationResult.XPathResultType.NODE) {
+                List<Node> nodes = result.value() == null ? List.of() : List.of((Node) result.value());
+                int count = deliver(run, nodes, onChunk);
+                onDone.accept(new Outcome(expression, count, null, false, run.cancelled, null, System.nanoTime() - startNanos));
+            } else {
+                onDone.accept(new Outcome(expression, 0, String.valueOf(result.value()), false, run.cancelled, null,
+                        System.nanoTime() - startNanos));
+            }
+        } catch (XPathExpressionException | RuntimeException e) {
+            // XPathExpressionException wraps the parser's TransformerException, whose message is the useful one
+            String message = e.getCause() != null && e.getCause().getMessage() != null ? e.getCause().getMessage()
+                    : e.getMessage() != null ? e.getMessage() : e.toString();
+            onDone.accept(new Outcome(expression, 0, null, false, run.cancelled, message, System.nanoTime() - startNanos));
+        }
+    }
+
+    private static int deliver(Run run, List<? extends Node> nodes, Consumer<List<Node>> onChunk) {
+        for (int start = 0; start < nodes.size(); start += CHUNK_SIZE) {
+            if (run.cancelled) return start;
+            onChunk.accept(new ArrayList<>(nodes.subList(start, Math.min(nodes.size(), start + CHUNK_SIZE))));
+        }
+        return nodes.size();
+    }
+}
@@ -1,8 +1,5 @@
 package com.example.xmleditorapp.xml;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 public class XmlHighlighter {
 
     // CSS styles for highlighting
@@ -18,27 +15,13 @@ public class XmlHighlighter {
         </style>
         """;
 
-    // Combined regex pattern to match all XML components
-    private static final Pattern XML_PATTERN = Pattern.compile(
-            // Group 1: Comment (<!--...-->)
-            "(<!--[\\s\\S]*?-->)" +
-                    // Group 2: Doctype/Processing Instruction (<?...?> or <!DOCTYPE ...>)
-                    "|(<\\?.*\\?>|<!DOCTYPE[^>]*>)" +
-                    // Group 3: Tag name (e.g., <book>)
-                    "|(<[/]?[a-zA-Z0-9_:-]+)" +
-                    // Group 4: Attribute name (e.g., id=)
-                    "|([a-zA-Z_:-]+)(?=\\s*=)" +
-                    // Group 5: Attribute value (e.g., "123")
-                    "|(=[\"']?.*[\"'])" +
-                    // Group 6: Closing tag characters (e.g., > or />)
-                    "|([/]?\\s*>)" +
-                    // Group 7: Regular text content (everything else)
-                    "|([^<]+)",
-            Pattern.DOTALL
-    );
+    private static final String HTML_START = "<html>" + CSS_STYLE + "<body><pre>";
+    private static final String HTML_END = "</pre></body></html>";
 
     /**
      * Converts raw XML text into HTML with inline CSS styling for syntax highlighting.
+     * Uses the linear-time {@link XmlLexer}; the escaped, span-wrapped output is written
+     * directly into one preallocated builder (no regex backtracking, no substrings).
      * @param xmlSource The raw XML content.
      * @return The HTML content with syntax highlighting.
      */
@@ -47,65 +30,92 @@ public class XmlHighlighter {
             return "<html>" + CSS_STYLE + "<body>No XML Source Available</body></html>";
         }
 
-        StringBuilder htmlBuilder = new StringBuilder();
-        htmlBuilder.append("<html>").append(CSS_STYLE).append("<body><pre>");
-
-        Matcher matcher = XML_PATTERN.matcher(xmlSource);
+        // Escaping and span tags typically add 20-30% to the text size
+        int capacity = HTML_START.length() + xmlSource.length() + (xmlSource.length() >> 2) + HTML_END.length();
+        StringBuilder htmlBuilder = new StringBuilder(capacity);
+        htmlBuilder.append(HTML_START);
 
-        int lastEnd = 0;
+        HtmlTokenWriter writer = new HtmlTokenWriter(xmlSource, htmlBuilder);
+        XmlLexer.lex(xmlSource, 0, xmlSource.length(), XmlLexer.State.CONTENT, writer);
+        writer.finish();
 
-        while (matcher.find()) {
-            int start = matcher.start();
+        htmlBuilder.append(HTML_END);
+        return htmlBuilder.toString();
+    }
 
-            // Append any plain text content that was missed between matches (should be handled by Group 7, but for safety)
-            if (start > lastEnd) {
-                htmlBuilder.append(escapeHtml(xmlSource.substring(lastEnd, start)));
-            }
+    /**
+     * Returns the CSS class used for a token type, or null if the token is not wrapped in a span.
+     */
+    public static String cssClassFor(XmlLexer.TokenType type) {
+        switch (type) {
+            case TAG: return "tag";
+            case ATTRIBUTE_NAME: return "attribute-name";
+            case ATTRIBUTE_VALUE: return "attribute-value";
+            case COMMENT: return "comment";
+            case DOCTYPE: return "doctype";
+            case CDATA:
+            case TEXT: return "text-content";
+            default: return null;
+        }
+    }
 
-            String match = matcher.group(0);
-            String escapedMatch = escapeHtml(match);
+    /**
+     * Writes lexer tokens as escaped HTML. Adjacent tokens with the same CSS class share
+     * one span (e.g. '=' and the quoted attribute value).
+     */
+    private static class HtmlTokenWriter implements XmlLexer.TokenSink {
+        private final CharSequence source;
+        private final StringBuilder out;
+        private String openClass = null;
+
+        HtmlTokenWriter(CharSequence source, StringBuilder out) {
+            this.source = source;
+            this.out = out;
+        }
 
-            if (matcher.group(1) != null) {
-                // Comment
-                htmlBuilder.append("<span class=\"comment\">").append(escapedMatch).append("</span>");
-            } else if (matcher.group(2) != null) {
-                // Doctype / Processing Instruction
-                htmlBuilder.append("<span class=\"doctype\">").append(escapedMatch).append("</span>");
-            } else if (matcher.group(3) != null) {
-                // Tag Name (start/end of tag: <name, </name)
-                htmlBuilder.append("<span class=\"tag\">").append(escapedMatch).append("</span>");
-            } else if (matcher.group(4) != null) {
-                // Attribute Name
-                htmlBuilder.append("<span class=\"attribute-name\">").append(escapedMatch).append("</span>");
-            } else if (matcher.group(5) != null) {
-                // Attribute Value
-                htmlBuilder.append("<span class=\"attribute-value\">").append(escapedMatch).append("</span>");
-            } else if (matcher.group(6) != null) {
-                // Tag Closing (>)
-                htmlBuilder.append("<span class=\"tag\">").append(escapedMatch).append("</span>");
-            } else if (matcher.group(7) != null) {
-                // Text Content between tags
-                htmlBuilder.append("<span class=\"text-content\">").append(escapedMatch).append("</span>");
+        @Override
+        public void token(XmlLexer.TokenType type, int start, int end) {
+            String cssClass = cssClassFor(type);
+            if (!java.util.Objects.equals(cssClass, openClass)) {
+                closeSpan();
+                if (cssClass != null) {
+                    out.append("<span class=\"").append(cssClass).append("\">");
+                }
+                openClass = cssClass;
             }
-
-            lastEnd = matcher.end();
+            appendEscaped(source, start, end, out);
         }
 
-        // Append any remaining text after the last match
-        if (lastEnd < xmlSource.length()) {
-            htmlBuilder.append(escapeHtml(xmlSource.substring(lastEnd)));
+        void finish() {
+            closeSpan();
         }
 
-        htmlBuilder.append("</pre></body></html>");
-        return htmlBuilder.toString();
+        private void closeSpan() {
+            if (openClass != null) {
+                out.append("</span>");
+                openClass = null;
+            }
+        }
     }
 
-    private static String escapeHtml(String s) {
-        if (s == null) return "";
-        return s.replace("&", "&amp;")
-                .replace("<", "&lt;")
-                .replace(">", "&gt;")
-                .replace("\"", "&quot;")
-                .replace("'", "&#39;");
+    /**
+     * Appends text[start, end) to the builder, escaping HTML special characters on the fly.
+     */
+    static void appendEscaped(CharSequence text, int start, int end, StringBuilder out) {
+        int runStart = start;
+        for (int i = start; i < end; i++) {
+            String entity;
+            switch (text.charAt(i)) {
+                case '&': entity = "&amp;"; break;
+                case '<': entity = "&lt;"; break;
+                case '>': entity = "&gt;"; break;
+                case '"': entity = "&quot;"; break;
+                case '\'': entity = "&#39;"; break;
+                default: continue;
+            }
+            out.append(text, runStart, i).append(entity);
+            runStart = i + 1;
+        }
+        out.append(text, runStart, end);
     }
-}
\ No newline at end of file
+}
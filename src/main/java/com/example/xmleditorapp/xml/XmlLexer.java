@@ -0,0 +1,290 @@
+package com.example.xmleditorapp.xml;
+
+/**
+ * Single-pass, state-machine tokenizer for XML source text (used for syntax highlighting).
+ * <p>
+ * Every character is looked at a constant number of times, so the cost is linear in the
+ * input, no matter how long a line or an attribute value is. The lexer is resumable:
+ * {@link #lex} tokenizes any window [from, to) starting in a given {@link State} and returns
+ * the state at the end of the window, so callers can highlight a document line by line.
+ * Tokens never extend past the window; a token that continues in the next window is
+ * simply reported again from there.
+ * <p>
+ * The lexer is lenient: malformed input never throws, it is just highlighted as plain text.
+ */
+public final class XmlLexer {
+
+    public enum TokenType {
+        TAG,              // "<name", "</name", ">" and "/>"
+        ATTRIBUTE_NAME,   // "id"
+        ATTRIBUTE_VALUE,  // "=\"123\"" (the '=' is part of the value token)
+        COMMENT,          // "<!-- ... -->"
+        DOCTYPE,          // "<?...?>" and "<!DOCTYPE ...>"
+        CDATA,            // "<![CDATA[ ... ]]>"
+        TEXT,             // character data between tags
+        PLAIN             // anything else (whitespace inside tags, stray characters)
+    }
+
+    public enum State {
+        CONTENT, IN_TAG, AFTER_EQUALS, VALUE_DOUBLE_QUOTED, VALUE_SINGLE_QUOTED,
+        COMMENT, CDATA, PROCESSING_INSTRUCTION, DOCTYPE, DOCTYPE_SUBSET
+    }
+
+    /**
+     * Receives the tokens of a window in document order.
+     */
+    public interface TokenSink {
+        void token(TokenType type, int start, int end);
+    }
+
+    private XmlLexer() {
+    }
+
+    /**
+     * Tokenizes text[from, to) starting in the given state.
+     * @return The lexer state at position {@code to}.
+     */
+    public static State lex(CharSequence text, int from, int to, State state, TokenSink sink) {
+        int i = from;
+        while (i < to) {
+            switch (state) {
+                case CONTENT: {
+                    if (text.charAt(i) != '<') {
+                        int end = indexOf(text, '<', i, to);
+                        sink.token(TokenType.TEXT, i, end);
+                        i = end;
+                        break;
+                    }
+                    // Markup start: decide what kind of construct this is
+                    if (startsWith(text, i, to, "<!--")) {
+                        state = State.COMMENT;
+                        sink.token(TokenType.COMMENT, i, i + 4);
+                        i += 4;
+                    } else if (startsWith(text, i, to, "<![CDATA[")) {
+                        state = State.CDATA;
+                        sink.token(TokenType.CDATA, i, i + 9);
+                        i += 9;
+                    } else if (startsWith(text, i, to, "<?")) {
+                        state = State.PROCESSING_INSTRUCTION;
+                        sink.token(TokenType.DOCTYPE, i, i + 2);
+                        i += 2;
+                    } else if (startsWith(text, i, to, "<!")) {
+                        state = State.DOCTYPE;
+                        sink.token(TokenType.DOCTYPE, i, i + 2);
+                        i += 2;
+                    } else {
+                        int nameStart = i + 1;
+                        if (nameStart < to && text.charAt(nameStart) == '/') {
+                            nameStart++;
+                        }
+                        int nameEnd = skipName(text, nameStart, to);
+                        if (nameEnd == nameStart) {
+                            // "<" not followed by a name: not a tag, keep it as text
+                            sink.token(TokenType.TEXT, i, nameStart);
+                            i = nameStart;
+                        } else {
+                            sink.token(TokenType.TAG, i, nameEnd);
+                            state = State.IN_TAG;
+                            i = nameEnd;
+                        }
+                    }
+                    break;
+                }
+                case IN_TAG: {
+                    char c = text.charAt(i);
+                    if (c == '>') {
+                        sink.token(TokenType.TAG, i, i + 1);
+                        state = State.CONTENT;
+                        i++;
+                    } else if (c == '/' && i + 1 < to && text.charAt(i + 1) == '>') {
+                        sink.token(TokenType.TAG, i, i + 2);
+                        state = State.CONTENT;
+                        i += 2;
+                    } else if (c == '=') {
+                        sink.token(TokenType.ATTRIBUTE_VALUE, i, i + 1);
+                        state = State.AFTER_EQUALS;
+                        i++;
+                    } else if (c == '"' || c == '\'') {
+                        // Value without '=' (malformed, but highlight it anyway)
+                        state = c == '"' ? State.VALUE_DOUBLE_QUOTED : State.VALUE_SINGLE_QUOTED;
+                        sink.token(TokenType.ATTRIBUTE_VALUE, i, i + 1);
+                        i++;
+                    } else if (isNameChar(c)) {
+                        int end = skipName(text, i, to);
+                        sink.token(TokenType.ATTRIBUTE_NAME, i, end);
+                        i = end;
+                    } else {
+                        int end = i + 1;
+                        while (end < to && isWhitespace(text.charAt(end))) {
+                            end++;
+                        }
+                        sink.token(TokenType.PLAIN, i, end);
+                        i = end;
+                    }
+                    break;
+                }
+                case AFTER_EQUALS: {
+                    char c = text.charAt(i);
+                    if (isWhitespace(c)) {
+                        int end = i + 1;
+                        while (end < to && isWhitespace(text.charAt(end))) {
+                            end++;
+                        }
+                        sink.token(TokenType.ATTRIBUTE_VALUE, i, end);
+                        i = end;
+                    } else if (c == '"' || c == '\'') {
+                        state = c == '"' ? State.VALUE_DOUBLE_QUOTED : State.VALUE_SINGLE_QUOTED;
+                        sink.token(TokenType.ATTRIBUTE_VALUE, i, i + 1);
+                        i++;
+                    } else if (isNameChar(c)) {
+                        // Unquoted value (HTML style)
+                        int end = skipName(text, i, to);
+                        sink.token(TokenType.ATTRIBUTE_VALUE, i, end);
+                        state = State.IN_TAG;
+                        i = end;
+                    } else {
+                        state = State.IN_TAG;
+                    }
+                    break;
+                }
+                case VALUE_DOUBLE_QUOTED:
+                case VALUE_SINGLE_QUOTED: {
+                    char quote = state == State.VALUE_DOUBLE_QUOTED ? '"' : '\'';
+                    int close = indexOf(text, quote, i, to);
+                    if (close < to) {
+                        sink.token(TokenType.ATTRIBUTE_VALUE, i, close + 1);
+                        state = State.IN_TAG;
+                        i = close + 1;
+                    } else {
+                        sink.token(TokenType.ATTRIBUTE_VALUE, i, to);
+                        i = to;
+                    }
+                    break;
+                }
+                case COMMENT:
+                    i = scanUntil(text, i, to, "-->", TokenType.COMMENT, sink);
+                    if (i >= 0) {
+                        state = State.CONTENT;
+                    } else {
+                        i = to;
+                    }
+                    break;
+                case CDATA:
+                    i = scanUntil(text, i, to, "]]>", TokenType.CDATA, sink);
+                    if (i >= 0) {
+                        state = State.CONTENT;
+                    } else {
+                        i = to;
+                    }
+                    break;
+                case PROCESSING_INSTRUCTION:
+                    i = scanUntil(text, i, to, "?>", TokenType.DOCTYPE, sink);
+                    if (i >= 0) {
+                        state = State.CONTENT;
+                    } else {
+                        i = to;
+                    }
+                    break;
+                case DOCTYPE: {
+                    // Ends at the first '>' outside of an internal subset [ ... ]
+                    int end = i;
+                    while (end < to && text.charAt(end) != '>' && text.charAt(end) != '[') {
+                        end++;
+                    }
+                    if (end < to && text.charAt(end) == '>') {
+                        sink.token(TokenType.DOCTYPE, i, end + 1);
+                        state = State.CONTENT;
+                        i = end + 1;
+                    } else if (end < to) {
+                        sink.token(TokenType.DOCTYPE, i, end + 1);
+                        state = State.DOCTYPE_SUBSET;
+                        i = end + 1;
+                    } else {
+                        sink.token(TokenType.DOCTYPE, i, to);
+                        i = to;
+                    }
+                    break;
+                }
+                case DOCTYPE_SUBSET: {
+                    int close = indexOf(text, ']', i, to);
+                    if (close < to) {
+                        sink.token(TokenType.DOCTYPE, i, close + 1);
+                        state = State.DOCTYPE;
+                        i = close + 1;
+                    } else {
+                        sink.token(TokenType.DOCTYPE, i, to);
+                        i = to;
+                    }
+                    break;
+                }
+            }
+        }
+        return state;
+    }
+
+    // --------------------------------------------------------------
+    // Scanning helpers (all bounded by 'to')
+    // --------------------------------------------------------------
+
+    /**
+     * Emits a token up to and including the terminator.
+     * @return The index after the terminator, or -1 if it does not occur before 'to'
+     * (in which case the rest of the window was emitted).
+     */
+    private static int scanUntil(CharSequence text, int from, int to, String terminator, TokenType type, TokenSink sink) {
+        char last = terminator.charAt(terminator.length() - 1);
+        int firstPossible = from + terminator.length() - 1;
+        for (int i = firstPossible; i < to; i++) {
+            if (text.charAt(i) == last && endsWith(text, i + 1, from, terminator)) {
+                sink.token(type, from, i + 1);
+                return i + 1;
+            }
+        }
+        if (from < to) {
+            sink.token(type, from, to);
+        }
+        return -1;
+    }
+
+    private static boolean endsWith(CharSequence text, int end, int lowerBound, String suffix) {
+        int start = end - suffix.length();
+        if (start < lowerBound) return false;
+        for (int k = 0; k < suffix.length(); k++) {
+            if (text.charAt(start + k) != suffix.charAt(k)) return false;
+        }
+        return true;
+    }
+
+    private static boolean startsWith(CharSequence text, int at, int to, String prefix) {
+        if (at + prefix.length() > to) return false;
+        for (int k = 0; k < prefix.length(); k++) {
+            if (text.charAt(at + k) != prefix.charAt(k)) return false;
+        }
+        return true;
+    }
+
+    private static int indexOf(CharSequence text, char c, int from, int to) {
+        int i = from;
+        while (i < to && text.charAt(i) != c) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int skipName(CharSequence text, int from, int to) {
+        int i = from;
+        while (i < to && isNameChar(text.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    static boolean isNameChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                || c == '_' || c == ':' || c == '-' || c == '.' || c >= 0x80;
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+    }
+}
@@ -3,14 +3,11 @@ package com.example.xmleditorapp.xml;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.NodeList;
-import org.xml.sax.SAXException;
 
-import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.transform.Source;
 import javax.xml.transform.stream.StreamSource;
 import javax.xml.validation.Schema;
-import javax.xml.validation.SchemaFactory;
 import javax.xml.xpath.*;
 import java.io.File;
 import java.io.FileNotFoundException;
@@ -18,17 +15,27 @@ import java.nio.file.Paths;
 import java.util.*;
 import java.util.stream.Collectors;
 
+/**
+ * Answers schema questions (attributes, allowed children, content types) for one XSD bundle.
+ * Instances are created lazily by the {@link SchemaRegistry}, one per bundle; the
+ * {@link #getInstance()} shortcut returns the reader of the currently loaded document.
+ * <p>
+ * Creating a reader reads nothing: the XSDs of the bundle are parsed on the first query, each
+ * kept as its own xs:schema element (with its targetNamespace) below one lookup document.
+ */
 public class XmlSchemaReader {
 
-    // --- Singleton Instance ---
-    private static XmlSchemaReader instance;
-
     // --- XSD Data ---
-    // The Schema object for validation (compiled from all XSDs)
-    private final Schema compiledSchema;
-    // The Document object for XPath queries (loaded from the primary XSD)
-    private final Document schemaDocument;
+    // The XSD bundle (resource directory) this reader describes
+    private final String bundleDirectory;
+    // The Schema object for validation (compiled from all XSDs on first use)
+    private volatile Schema compiledSchema;
+    // The Document object for XPath queries (every xs:schema of the bundle below one root),
+    // parsed on first use
+    private volatile Document schemaDocument;
     private final XPath xpath;
+    // Lazily computed names of elements with binary (base64) content
+    private volatile Set<String> binaryContentElementTypes;
     private static final String XSD_NAMESPACE = "http://www.w3.org/2001/XMLSchema";
 
     // Define a set of XSD types that should be treated as binary content
@@ -40,71 +47,84 @@ public class XmlSchemaReader {
             "PDFDataType"
     );
 
-    // --- Private Constructor to enforce Singleton ---
-    private XmlSchemaReader() throws Exception {
-        List<File> xsdFiles = loadAllXsdFilesFromRessourceDirectory("esign/xsd");
-        if (xsdFiles.isEmpty()) {
-            throw new IllegalArgumentException("XSD file list cannot be empty.");
-        }
+    // --- Constructor (use SchemaRegistry.getReader() instead of calling this directly) ---
+    XmlSchemaReader(String bundleDirectory) {
+        this.bundleDirectory = bundleDirectory;
 
-        System.out.println("--- XSD Schema Reader Initialization ---");
+        // Initialize XPath (the XSDs are only read by the first query, see schemaDocument())
+        this.xpath = XPathFactory.newInstance().newXPath();
+        NamespaceResolver resolver = new NamespaceResolver(XSD_NAMESPACE, "xs");
+        this.xpath.setNamespaceContext(resolver);
 
-        // 1. Convert File objects to JAXP Source objects for compilation
-        List<Source> sources = xsdFiles.stream()
-                .map(file -> {
-                    System.out.println("✅ Compiling schema source: " + file.getName()); // LOGGING
-                    return new StreamSource(file);
-                })
-                .collect(Collectors.toList());
+        // NOTE: The validation grammar is compiled lazily by getCompiledSchema()
+    }
 
-        // 2. Combine and Compile the Schemas for validation
-        SchemaFactory factory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
-        try {
-            this.compiledSchema = factory.newSchema(sources.toArray(new Source[0]));
-            System.out.println("✅ All " + xsdFiles.size() + " schemas compiled successfully."); // LOGGING
-        } catch (SAXException e) {
-            System.err.println("❌ Failed to compile schemas!"); // LOGGING
-            throw new SAXException("Failed to compile schemas: " + e.getMessage(), e);
+    // The lookup document, parsed on first use: every XSD of the bundle as its own xs:schema
+    // element (so each keeps its targetNamespace) below a <bundle> root
+    private Document schemaDocument() {
+        Document document = schemaDocument;
+        if (document != null) {
+            return document;
         }
+        synchronized (this) {
+            if (schemaDocument != null) {
+                return schemaDocument;
+            }
+            try {
+                SchemaPool schemaPool = SchemaPool.getInstance();
+                System.out.println("--- XSD Schema Reader Initialization (" + bundleDirectory + ") ---");
+
+                DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
+                dbf.setNamespaceAware(true);
+                DocumentBuilder builder = dbf.newDocumentBuilder();
+                document = builder.newDocument();
+                Element bundleRoot = document.createElementNS(null, "bundle");
+                document.appendChild(bundleRoot);
+
+                for (String xsdResource : schemaPool.getBundleResources(bundleDirectory)) {
+                    System.out.println("ℹ️ Loading XSD for XPath lookups: " + xsdResource); // LOGGING
+                    StreamSource source = schemaPool.openSource(xsdResource);
+                    Element xsdRoot = builder.parse(source.getInputStream(), source.getSystemId()).getDocumentElement();
+                    org.w3c.dom.Node adopted = document.adoptNode(xsdRoot);
+                    bundleRoot.appendChild(adopted != null ? adopted : document.importNode(xsdRoot, true));
+                }
+                document.normalize();
+            } catch (Exception e) {
+                throw new RuntimeException("Failed to read schema bundle " + bundleDirectory, e);
+            }
+            schemaDocument = document;
+            return document;
+        }
+    }
 
-        // 3. For XPath Queries: Load the primary XSD into a DOM Document
-        File primaryXsd = xsdFiles.get(0);
-        System.out.println("ℹ️ Using primary XSD for XPath lookups: " + primaryXsd.getName()); // LOGGING
-
-        DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
-        dbf.setNamespaceAware(true);
-        this.schemaDocument = dbf.newDocumentBuilder().parse(primaryXsd);
-        this.schemaDocument.normalize();
-
-        // 4. Initialize XPath
-        this.xpath = XPathFactory.newInstance().newXPath();
-        // Assuming 'xpath' is your javax.xml.xpath.XPath instance
-        NamespaceResolver resolver = new NamespaceResolver(XSD_NAMESPACE, "xs");
-        xpath.setNamespaceContext(resolver); // <--- This is the crucial line you might be missing
+    // --- Public Access Method ---
 
-        this.xpath.setNamespaceContext(resolver);
+    /**
+     * Gets the reader for the schema of the currently loaded document.
+     * The active schema follows the document (see {@link SchemaRegistry#activateFor}).
+     * @return The active XmlSchemaReader instance.
+     */
+    public static XmlSchemaReader getInstance()  {
+        return SchemaRegistry.getInstance().getActiveReader();
     }
 
-    // --- Public Access Method (The Singleton Getter) ---
+    public String getBundleDirectory() {
+        return bundleDirectory;
+    }
 
     /**
-     * Gets the singleton instance of XmlSchemaReader, initializing it if necessary.
-     * This version requires the list of XSD files for the first call.
-      * @return The single XmlSchemaReader instance.
+     * Returns the targetNamespace of the XSD that declares a global element, or null if the
+     * element is not declared globally or its XSD has no target namespace.
      */
-    public static XmlSchemaReader getInstance()  {
-        if (instance == null) {
-            synchronized (XmlSchemaReader.class) {
-                if (instance == null) {
-                    try {
-                        instance = new XmlSchemaReader();
-                    } catch (Exception e) {
-                        throw new RuntimeException(e);
-                    }
-                }
-            }
+    public String getTargetNamespace(String elementType) {
+        try {
+            String expression = String.format("/bundle/xs:schema[xs:element[@name='%s']]/@targetNamespace", elementType);
+            String namespace = xpath.evaluate(expression, schemaDocument());
+            return namespace.isEmpty() ? null : namespace;
+        } catch (XPathExpressionException e) {
+            System.err.println("Error querying XSD for the namespace of " + elementType + ": " + e.getMessage());
+            return null;
         }
-        return instance;
     }
 
     /**
@@ -135,7 +155,9 @@ public class XmlSchemaReader {
      * * @param resourceDirectory The path to the directory relative to the classpath root (e.g., "/xsd").
      * @return A list of File objects for all .xsd files found.
      * @throws FileNotFoundException if the directory is not found or is empty.
+     * @deprecated Fails inside a jar or jlink image. Use {@link XsdResourceIndex} and {@link SchemaPool}.
      */
+    @Deprecated
     public static List<File> loadAllXsdFilesFromRessourceDirectory(String resourceDirectory) throws FileNotFoundException {
 
         // Use the class loader to get the URL for the resource directory
@@ -186,7 +208,7 @@ public class XmlSchemaReader {
         String expression = String.format("//xs:element[@name='%s']//xs:attribute", elementType);
 
         try {
-            NodeList attributeNodes = (NodeList) xpath.evaluate(expression, schemaDocument, XPathConstants.NODESET);
+            NodeList attributeNodes = (NodeList) xpath.evaluate(expression, schemaDocument(), XPathConstants.NODESET);
 
             for (int i = 0; i < attributeNodes.getLength(); i++) {
                 org.w3c.dom.Element attr = (org.w3c.dom.Element) attributeNodes.item(i);
@@ -229,7 +251,7 @@ public class XmlSchemaReader {
 
         try {
             // 2. Execute the XPath query
-            NodeList nodeNames = (NodeList) xpath.compile(CONTAINER_XPATH).evaluate(schemaDocument, XPathConstants.NODESET);
+            NodeList nodeNames = (NodeList) xpath.compile(CONTAINER_XPATH).evaluate(schemaDocument(), XPathConstants.NODESET);
 
             // 3. Collect the resulting element names
             for (int i = 0; i < nodeNames.getLength(); i++) {
@@ -248,9 +270,19 @@ public class XmlSchemaReader {
         return containerTypes;
     }
 
-    // Getter for the Schema object (useful for validation outside this class)
+    // Getter for the Schema object (useful for validation outside this class).
+    // The bundle is compiled through the shared SchemaPool on first use.
     public Schema getCompiledSchema() {
-        return compiledSchema;
+        Schema schema = compiledSchema;
+        if (schema == null) {
+            try {
+                schema = SchemaPool.getInstance().getSchema(bundleDirectory);
+            } catch (Exception e) {
+                throw new RuntimeException("Failed to compile schema bundle " + bundleDirectory, e);
+            }
+            compiledSchema = schema;
+        }
+        return schema;
     }
 
     /**
@@ -268,7 +300,7 @@ public class XmlSchemaReader {
             // STEP 1: Find the type name for the parent element
             // Find the global element definition (e.g., <xs:element name="Dialogs" type="DialogsType"/>)
             String elementTypeExpr = String.format("//xs:element[@name='%s']", parentElementType);
-            NodeList parentElements = (NodeList) xpath.compile(elementTypeExpr).evaluate(schemaDocument, XPathConstants.NODESET);
+            NodeList parentElements = (NodeList) xpath.compile(elementTypeExpr).evaluate(schemaDocument(), XPathConstants.NODESET);
 
             if (parentElements.getLength() > 0) {
                 Element parentElement = (Element) parentElements.item(0);
@@ -290,7 +322,7 @@ public class XmlSchemaReader {
 
             // --- Execute the combined XPath ---
             XPathExpression xpathExpr = xpath.compile(expression);
-            NodeList elements = (NodeList) xpathExpr.evaluate(schemaDocument, XPathConstants.NODESET);
+            NodeList elements = (NodeList) xpathExpr.evaluate(schemaDocument(), XPathConstants.NODESET);
 
             for (int i = 0; i < elements.getLength(); i++) {
                 Element element = (Element) elements.item(i);
@@ -327,7 +359,7 @@ public class XmlSchemaReader {
         try {
             String typeName = null;
             String elementPath = String.format("//xs:element[@name='%s']", elementType);
-            NodeList parentElements = (NodeList) xpath.compile(elementPath).evaluate(schemaDocument, XPathConstants.NODESET);
+            NodeList parentElements = (NodeList) xpath.compile(elementPath).evaluate(schemaDocument(), XPathConstants.NODESET);
 
             if (parentElements.getLength() > 0) {
                 Element parentElement = (Element) parentElements.item(0);
@@ -344,7 +376,7 @@ public class XmlSchemaReader {
             }
 
             // Execute XPath to find all attributes associated with this element's definition
-            NodeList attributeNodes = (NodeList) xpath.evaluate(expression, schemaDocument, XPathConstants.NODESET);
+            NodeList attributeNodes = (NodeList) xpath.evaluate(expression, schemaDocument(), XPathConstants.NODESET);
 
             for (int i = 0; i < attributeNodes.getLength(); i++) {
                 Element attr = (Element) attributeNodes.item(i);
@@ -390,7 +422,7 @@ public class XmlSchemaReader {
         try {
             // 1. Find the element definition
             String elementPath = String.format("//xs:element[@name='%s']", elementType);
-            NodeList elements = (NodeList) xpath.compile(elementPath).evaluate(schemaDocument, XPathConstants.NODESET);
+            NodeList elements = (NodeList) xpath.compile(elementPath).evaluate(schemaDocument(), XPathConstants.NODESET);
 
             if (elements.getLength() > 0) {
                 Element element = (Element) elements.item(0);
@@ -424,6 +456,34 @@ public class XmlSchemaReader {
     }
 
 
+    /**
+     * Returns the names of all elements whose declared type is one of the binary content
+     * types (e.g. PDF, BackGroundImage). Computed once per schema bundle.
+     */
+    public Set<String> getBinaryContentElementTypes() {
+        Set<String> result = binaryContentElementTypes;
+        if (result != null) {
+            return result;
+        }
+
+        Set<String> binaryTypes = new HashSet<>();
+        try {
+            NodeList elements = (NodeList) xpath.compile("//xs:element[@name and @type]").evaluate(schemaDocument(), XPathConstants.NODESET);
+            for (int i = 0; i < elements.getLength(); i++) {
+                Element element = (Element) elements.item(i);
+                if (BINARY_XSD_TYPES.contains(element.getAttribute("type"))) {
+                    binaryTypes.add(element.getAttribute("name"));
+                }
+            }
+        } catch (XPathExpressionException e) {
+            System.err.println("Error querying XSD for binary element types: " + e.getMessage());
+        }
+
+        result = Collections.unmodifiableSet(binaryTypes);
+        binaryContentElementTypes = result;
+        return result;
+    }
+
     /**
      * Checks if an element's type is one of the designated types for binary content.
      */
@@ -431,7 +491,7 @@ public class XmlSchemaReader {
         try {
             // Find the element definition
             String elementPath = String.format("//xs:element[@name='%s']", elementType);
-            NodeList elements = (NodeList) xpath.compile(elementPath).evaluate(schemaDocument, XPathConstants.NODESET);
+            NodeList elements = (NodeList) xpath.compile(elementPath).evaluate(schemaDocument(), XPathConstants.NODESET);
 
             if (elements.getLength() > 0) {
                 Element element = (Element) elements.item(0);
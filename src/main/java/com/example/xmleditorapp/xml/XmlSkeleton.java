@@ -0,0 +1,449 @@
+package com.example.xmleditorapp.xml;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compact structural skeleton of an XML file: for every element its name, its 'name'
+ * attribute, its attribute count, its parent/child/sibling links and the byte offsets of
+ * its start tag and end in the file. No DOM and no copy of the text is kept, so the
+ * skeleton of a file is a few dozen bytes per element whatever the size of its content
+ * (binary payloads, text).
+ * <p>
+ * The offsets are exact byte positions, which the StAX location API cannot provide (its
+ * character offsets are not byte offsets and drift with CRLF normalisation), so the file is
+ * read with a small markup scanner instead. It recognises tags, comments, CDATA sections,
+ * processing instructions and the DOCTYPE; it does not check well-formedness, which is left
+ * to the DOM parser when a subtree is materialized. Only ASCII-compatible encodings
+ * (UTF-8, ISO-8859-x, windows-125x, ...) are supported.
+ */
+public class XmlSkeleton {
+
+    private static final Pattern ENCODING_DECLARATION = Pattern.compile("encoding\\s*=\\s*[\"']([A-Za-z0-9._-]+)[\"']");
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final Path file;
+    private final long fileBytes;
+    private final Charset charset;
+
+    private int count = 0;
+    private String[] names = new String[INITIAL_CAPACITY];
+    private String[] nameAttributes = new String[INITIAL_CAPACITY];
+    private int[] attributeCounts = new int[INITIAL_CAPACITY];
+    private int[] parents = new int[INITIAL_CAPACITY];
+    private int[] firstChildren = new int[INITIAL_CAPACITY];
+    private int[] nextSiblings = new int[INITIAL_CAPACITY];
+    // Position among the element children of the parent
+    private int[] childIndexes = new int[INITIAL_CAPACITY];
+    private long[] startOffsets = new long[INITIAL_CAPACITY];
+    private long[] startTagEnds = new long[INITIAL_CAPACITY];
+    private long[] endOffsets = new long[INITIAL_CAPACITY];
+    private long elapsedNanos;
+
+    private XmlSkeleton(Path file, long fileBytes, Charset charset) {
+        this.file = file;
+        this.fileBytes = fileBytes;
+        this.charset = charset;
+    }
+
+    /**
+     * Scans a file once and builds its skeleton.
+     * @throws IOException if the file cannot be read, uses an unsupported encoding or has no root element.
+     */
+    public static XmlSkeleton build(Path file) throws IOException {
+        long start = System.nanoTime();
+        if (DocumentContainer.detect(file) != DocumentContainer.PLAIN) {
+            // Byte offsets into a compressed stream cannot be read back with positioned reads
+            throw new IOException("Compressed files cannot be opened in streaming mode; use Open... instead");
+        }
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file), 64 * 1024)) {
+            in.mark(512);
+            byte[] head = in.readNBytes(512);
+            in.reset();
+
+            int bomLength = 0;
+            if (head.length >= 2 && ((head[0] == (byte) 0xFE && head[1] == (byte) 0xFF) || (head[0] == (byte) 0xFF && head[1] == (byte) 0xFE))) {
+                throw new IOException("UTF-16 files cannot be opened in streaming mode");
+            }
+            if (head.length >= 3 && head[0] == (byte) 0xEF && head[1] == (byte) 0xBB && head[2] == (byte) 0xBF) {
+                bomLength = 3;
+            }
+            Charset charset = detectCharset(head, bomLength);
+
+            XmlSkeleton skeleton = new XmlSkeleton(file, Files.size(file), charset);
+            in.skipNBytes(bomLength);
+            new Scanner(in, bomLength, skeleton).run();
+            if (skeleton.count == 0) {
+                throw new IOException("No root element found in " + file.getFileName());
+            }
+            skeleton.elapsedNanos = System.nanoTime() - start;
+            return skeleton;
+        }
+    }
+
+    public Path getFile() { return file; }
+    public long getFileBytes() { return fileBytes; }
+    public Charset getCharset() { return charset; }
+    public int getElementCount() { return count; }
+    public long getElapsedNanos() { return elapsedNanos; }
+
+    // The root is always element 0
+    public int getRoot() { return 0; }
+    public String getName(int element) { return names[element]; }
+    // Empty if the element has no 'name' attribute
+    public String getNameAttribute(int element) { return nameAttributes[element] == null ? "" : nameAttributes[element]; }
+    public int getAttributeCount(int element) { return attributeCounts[element]; }
+    // -1 for the root
+    public int getParent(int element) { return parents[element]; }
+    // -1 if none
+    public int getFirstChild(int element) { return firstChildren[element]; }
+    public int getNextSibling(int element) { return nextSiblings[element]; }
+    public int getChildIndex(int element) { return childIndexes[element]; }
+    public long getStartOffset(int element) { return startOffsets[element]; }
+    public long getStartTagEnd(int element) { return startTagEnds[element]; }
+    public long getEndOffset(int element) { return endOffsets[element]; }
+
+    public boolean hasChildren(int element) {
+        return firstChildren[element] >= 0;
+    }
+
+    // Size of the element's source in bytes (start tag to end tag)
+    public long getByteLength(int element) {
+        return endOffsets[element] - startOffsets[element];
+    }
+
+    /**
+     * Finds the child of an element with the given 'name' attribute, or -1.
+     */
+    public int findChildByName(int parent, String nameAttribute) {
+        for (int child = firstChildren[parent]; child >= 0; child = nextSiblings[child]) {
+            if (nameAttribute.equals(nameAttributes[child])) {
+                return child;
+            }
+        }
+        return -1;
+    }
+
+    // --------------------------------------------------------------
+    // Building
+    // --------------------------------------------------------------
+
+    private int addElement(String name, int parent, int childIndex, long startOffset) {
+        if (count == names.length) {
+            int capacity = count * 2;
+            names = Arrays.copyOf(names, capacity);
+            nameAttributes = Arrays.copyOf(nameAttributes, capacity);
+            attributeCounts = Arrays.copyOf(attributeCounts, capacity);
+            parents = Arrays.copyOf(parents, capacity);
+            firstChildren = Arrays.copyOf(firstChildren, capacity);
+            nextSiblings = Arrays.copyOf(nextSiblings, capacity);
+            childIndexes = Arrays.copyOf(childIndexes, capacity);
+            startOffsets = Arrays.copyOf(startOffsets, capacity);
+            startTagEnds = Arrays.copyOf(startTagEnds, capacity);
+            endOffsets = Arrays.copyOf(endOffsets, capacity);
+        }
+        int element = count++;
+        names[element] = name;
+        parents[element] = parent;
+        firstChildren[element] = -1;
+        nextSiblings[element] = -1;
+        childIndexes[element] = childIndex;
+        startOffsets[element] = startOffset;
+        return element;
+    }
+
+    private static Charset detectCharset(byte[] head, int bomLength) throws IOException {
+        Charset charset = declaredCharset(head, bomLength);
+        // The scanner looks for markup bytes, so '<', '>', quotes etc. must be single ASCII bytes
+        String markup = "<>/?!=\"' \t\r\n[]-";
+        if (!Arrays.equals(markup.getBytes(charset), markup.getBytes(StandardCharsets.US_ASCII))) {
+            throw new IOException("Encoding " + charset + " cannot be opened in streaming mode");
+        }
+        return charset;
+    }
+
+    /**
+     * The encoding named in the XML declaration at the start of the file (after the BOM),
+     * UTF-8 if there is none.
+     */
+    static Charset declaredCharset(byte[] head, int bomLength) throws IOException {
+        String declaration = new String(head, bomLength, head.length - bomLength, StandardCharsets.ISO_8859_1);
+        Charset charset = StandardCharsets.UTF_8;
+        if (declaration.startsWith("<?xml")) {
+            int end = declaration.indexOf("?>");
+            Matcher matcher = ENCODING_DECLARATION.matcher(end < 0 ? declaration : declaration.substring(0, end));
+            if (matcher.find()) {
+                try {
+                    charset = Charset.forName(matcher.group(1));
+                } catch (IllegalArgumentException e) {
+                    throw new IOException("Unsupported encoding: " + matcher.group(1));
+                }
+            }
+        }
+        return charset;
+    }
+
+    /**
+     * Byte-level markup scanner. Tracks the open elements on a stack and records the
+     * offsets of each element as its tags are seen.
+     */
+    private static final class Scanner {
+        private final InputStream in;
+        private final XmlSkeleton skeleton;
+        private final byte[] buffer = new byte[64 * 1024];
+        private int length = 0;
+        private int index = 0;
+        private long bufferStart;
+
+        // Open elements and, per open element, the last child added and the number of children
+        private int[] stack = new int[64];
+        private int[] lastChild = new int[64];
+        private int[] childCounts = new int[64];
+        private int depth = 0;
+
+        // Interned element names (the vocabulary is small)
+        private final Map<String, String> internedNames = new HashMap<>();
+        // KMP fallback tables of the terminators passed to skipUntil
+        private final Map<String, int[]> fallbacks = new HashMap<>();
+        private final ByteToken token = new ByteToken();
+        private final ByteToken value = new ByteToken();
+
+        Scanner(InputStream in, long startOffset, XmlSkeleton skeleton) {
+            this.in = in;
+            this.bufferStart = startOffset;
+            this.skeleton = skeleton;
+        }
+
+        private int next() throws IOException {
+            if (index == length) {
+                bufferStart += length;
+                length = in.read(buffer);
+                index = 0;
+                if (length <= 0) {
+                    length = 0;
+                    return -1;
+                }
+            }
+            return buffer[index++] & 0xFF;
+        }
+
+        // Offset of the next byte that next() returns
+        private long position() {
+            return bufferStart + index;
+        }
+
+        void run() throws IOException {
+            int b;
+            while ((b = next()) >= 0) {
+                if (b != '<') continue;
+                long tagStart = position() - 1;
+                int c = next();
+                if (c == '/') {
+                    skipUntil(">");
+                    closeElement(position());
+                } else if (c == '?') {
+                    skipUntil("?>");
+                } else if (c == '!') {
+                    skipDeclaration();
+                } else if (c >= 0) {
+                    startTag(c, tagStart);
+                }
+            }
+            if (depth > 0) {
+                throw new IOException("Unexpected end of file: " + depth + " element(s) not closed");
+            }
+        }
+
+        private void startTag(int first, long tagStart) throws IOException {
+            // 1. Element name
+            token.reset();
+            int c = first;
+            while (c >= 0 && !isSpace(c) && c != '>' && c != '/') {
+                token.append(c);
+                c = next();
+            }
+            String name = internedNames.computeIfAbsent(token.toString(skeleton.charset), k -> k);
+            if (depth == 0 && skeleton.count > 0) {
+                throw new IOException("More than one root element (found <" + name + ">)");
+            }
+            int parent = depth == 0 ? -1 : stack[depth - 1];
+            int childIndex = depth == 0 ? 0 : childCounts[depth - 1]++;
+            int element = skeleton.addElement(name, parent, childIndex, tagStart);
+            if (depth > 0) {
+                int previous = lastChild[depth - 1];
+                if (previous < 0) {
+                    skeleton.firstChildren[parent] = element;
+                } else {
+                    skeleton.nextSiblings[previous] = element;
+                }
+                lastChild[depth - 1] = element;
+            }
+
+            // 2. Attributes, up to the end of the start tag
+            int attributes = 0;
+            while (true) {
+                while (c >= 0 && isSpace(c)) c = next();
+                if (c < 0) throw new IOException("Unexpected end of file in <" + name + ">");
+                if (c == '>') {
+                    skeleton.attributeCounts[element] = attributes;
+                    skeleton.startTagEnds[element] = position();
+                    push(element);
+                    return;
+                }
+                if (c == '/') {
+                    skipUntil(">");
+                    skeleton.attributeCounts[element] = attributes;
+                    skeleton.startTagEnds[element] = position();
+                    skeleton.endOffsets[element] = position();
+                    return;
+                }
+                token.reset();
+                while (c >= 0 && c != '=' && !isSpace(c) && c != '>' && c != '/') {
+                    token.append(c);
+                    c = next();
+                }
+                while (c >= 0 && isSpace(c)) c = next();
+                if (c != '=') continue; // Malformed; left for the DOM parser to report
+                c = next();
+                while (c >= 0 && isSpace(c)) c = next();
+                if (c != '"' && c != '\'') continue;
+                int quote = c;
+                boolean isName = token.equalsAscii("name");
+                value.reset();
+                while ((c = next()) >= 0 && c != quote) {
+                    if (isName) value.append(c);
+                }
+                if (isName) {
+                    skeleton.nameAttributes[element] = unescape(value.toString(skeleton.charset));
+                }
+                attributes++;
+                c = next();
+            }
+        }
+
+        private void closeElement(long endOffset) throws IOException {
+            if (depth == 0) throw new IOException("Unexpected end tag at byte " + endOffset);
+            depth--;
+            skeleton.endOffsets[stack[depth]] = endOffset;
+        }
+
+        private void push(int element) {
+            if (depth == stack.length) {
+                stack = Arrays.copyOf(stack, depth * 2);
+                lastChild = Arrays.copyOf(lastChild, depth * 2);
+                childCounts = Arrays.copyOf(childCounts, depth * 2);
+            }
+            stack[depth] = element;
+            lastChild[depth] = -1;
+            childCounts[depth] = 0;
+            depth++;
+        }
+
+        // After "<!": comment, CDATA section or DOCTYPE (with an optional internal subset)
+        private void skipDeclaration() throws IOException {
+            int c = next();
+            if (c == '-') {
+                next(); // second '-'
+                skipUntil("-->");
+            } else if (c == '[') {
+                skipUntil("]]>");
+            } else {
+                int brackets = 0;
+                int quote = 0;
+                while ((c = next()) >= 0) {
+                    if (quote != 0) {
+                        if (c == quote) quote = 0;
+                    } else if (c == '"' || c == '\'') {
+                        quote = c;
+                    } else if (c == '[') {
+                        brackets++;
+                    } else if (c == ']') {
+                        brackets--;
+                    } else if (c == '>' && brackets <= 0) {
+                        return;
+                    }
+                }
+            }
+        }
+
+        // Skips past the next occurrence of the (ASCII) terminator. On a mismatch the partial
+        // match falls back to its longest suffix that is also a prefix of the terminator (KMP),
+        // so overlapping runs such as "]]]>" or "--->" do not hide the real terminator.
+        private void skipUntil(String terminator) throws IOException {
+            int[] fallback = fallbacks.computeIfAbsent(terminator, Scanner::fallbackTable);
+            int matched = 0;
+            int c;
+            while ((c = next()) >= 0) {
+                while (matched > 0 && c != terminator.charAt(matched)) {
+                    matched = fallback[matched - 1];
+                }
+                if (c == terminator.charAt(matched) && ++matched == terminator.length()) return;
+            }
+        }
+
+        // fallback[i]: length of the longest proper prefix of terminator[0..i] that is also its suffix
+        private static int[] fallbackTable(String terminator) {
+            int[] fallback = new int[terminator.length()];
+            int k = 0;
+            for (int i = 1; i < terminator.length(); i++) {
+                while (k > 0 && terminator.charAt(i) != terminator.charAt(k)) {
+                    k = fallback[k - 1];
+                }
+                if (terminator.charAt(i) == terminator.charAt(k)) k++;
+                fallback[i] = k;
+            }
+            return fallback;
+        }
+
+        private static boolean isSpace(int c) {
+            return c == ' ' || c == '\n' || c == '\r' || c == '\t';
+        }
+
+        private static String unescape(String text) {
+            if (text.indexOf('&') < 0) return text;
+            return text.replace("&lt;", "<").replace("&gt;", ">").replace("&quot;", "\"")
+                    .replace("&apos;", "'").replace("&amp;", "&");
+        }
+    }
+
+    /**
+     * Growable byte buffer for names and attribute values.
+     */
+    private static final class ByteToken {
+        private byte[] bytes = new byte[64];
+        private int size = 0;
+
+        void reset() {
+            size = 0;
+        }
+
+        void append(int b) {
+            if (size == bytes.length) {
+                bytes = Arrays.copyOf(bytes, size * 2);
+            }
+            bytes[size++] = (byte) b;
+        }
+
+        boolean equalsAscii(String text) {
+            if (size != text.length()) return false;
+            for (int i = 0; i < size; i++) {
+                if (bytes[i] != text.charAt(i)) return false;
+            }
+            return true;
+        }
+
+        String toString(Charset charset) {
+            return new String(bytes, 0, size, charset);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.xmleditorapp.xml;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Reads the build-time generated index of bundled XSD files (xsd.index).
+ * <p>
+ * The index is written by the maven-antrun-plugin during process-resources and lists
+ * every *.xsd below this package, one resource path per line (e.g. "esign/xsd/ng_esign.xsd").
+ * Resources are then opened with getResourceAsStream(), which works for exploded class
+ * directories, packaged jars and jlink images alike.
+ */
+public final class XsdResourceIndex {
+
+    public static final String INDEX_RESOURCE = "xsd.index";
+
+    // Loaded once; the bundled resources cannot change at runtime
+    private static volatile List<String> entries;
+
+    private XsdResourceIndex() {
+    }
+
+    /**
+     * Returns all indexed XSD resource paths (relative to this package).
+     */
+    public static List<String> getAllEntries() {
+        List<String> result = entries;
+        if (result == null) {
+            synchronized (XsdResourceIndex.class) {
+                result = entries;
+                if (result == null) {
+                    result = Collections.unmodifiableList(readIndex());
+                    entries = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the XSD resource paths inside the given bundle directory (e.g. "esign/xsd"),
+     * in index order. Subdirectories of the bundle are included.
+     */
+    public static List<String> getBundleEntries(String bundleDirectory) {
+        String prefix = normalizeDirectory(bundleDirectory);
+        return getAllEntries().stream()
+                .filter(entry -> entry.startsWith(prefix))
+                .collect(Collectors.toList());
+    }
+
+    private static List<String> readIndex() {
+        InputStream in = XsdResourceIndex.class.getResourceAsStream(INDEX_RESOURCE);
+        if (in == null) {
+            System.err.println("⚠️ " + INDEX_RESOURCE + " not found on classpath. Falling back to directory scan (exploded layout only)."); // LOGGING
+            return scanExplodedDirectory();
+        }
+
+        List<String> list = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    list.add(line);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("❌ Failed to read " + INDEX_RESOURCE + ": " + e.getMessage()); // LOGGING
+        }
+        System.out.println("✅ Loaded XSD index with " + list.size() + " entr" + (list.size() == 1 ? "y" : "ies") + "."); // LOGGING
+        return list;
+    }
+
+    /**
+     * Fallback for runs without the generated index (e.g. launched directly from an IDE
+     * that skips Maven resource processing). Only works when resources are plain files.
+     */
+    private static List<String> scanExplodedDirectory() {
+        List<String> list = new ArrayList<>();
+        java.net.URL rootUrl = XsdResourceIndex.class.getResource("");
+        if (rootUrl == null || !"file".equals(rootUrl.getProtocol())) {
+            return list;
+        }
+        try {
+            File root = new File(rootUrl.toURI());
+            collectXsdFiles(root, "", list);
+        } catch (Exception e) {
+            System.err.println("❌ Error scanning resource directory: " + e.getMessage()); // LOGGING
+        }
+        Collections.sort(list);
+        return list;
+    }
+
+    private static void collectXsdFiles(File dir, String relativePath, List<String> result) {
+        File[] files = dir.listFiles();
+        if (files == null) return;
+        for (File file : files) {
+            if (file.isDirectory()) {
+                collectXsdFiles(file, relativePath + file.getName() + "/", result);
+            } else if (file.getName().toLowerCase().endsWith(".xsd")) {
+                result.add(relativePath + file.getName());
+            }
+        }
+    }
+
+    private static String normalizeDirectory(String directory) {
+        String dir = directory.replace('\\', '/');
+        while (dir.startsWith("/")) {
+            dir = dir.substring(1);
+        }
+        return dir.endsWith("/") ? dir : dir + "/";
+    }
+}
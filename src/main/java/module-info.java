@@ -10,4 +10,5 @@ module com.example.xmleditorapp {
     opens com.example.xmleditorapp to javafx.fxml;
     exports com.example.xmleditorapp;
     exports com.example.xmleditorapp.xml;
+    exports com.example.xmleditorapp.ui;
 }
\ No newline at end of file
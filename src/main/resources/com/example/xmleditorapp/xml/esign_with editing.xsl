@@ -42,6 +42,10 @@
         <svg version="1.1" width="{$TOTAL_WIDTH}" height="{$TOTAL_HEIGHT}" viewBox="0 0 {$TOTAL_WIDTH} {$TOTAL_HEIGHT}">
             <title>Visualization of <xsl:value-of select="name(/*)"/></title>
 
+            <style type="text/css">
+                g.child-node.selected-node &gt; rect { stroke: #FF8C00 !important; stroke-width: 4 !important; }
+            </style>
+
             <script type="text/ecmascript">
                 <![CDATA[
                 var selectedElement = null;
@@ -113,15 +117,20 @@
 
                     // If the position changed significantly, send update
                     if (Math.abs(translateX) > 1 || Math.abs(translateY) > 1) {
-                        var updateData = {
-                            action: 'UPDATE',
-                            originalName: nodeName,
-                            attributes: {
-                                x: newX,
-                                y: newY
-                            }
-                        };
-                        sendServerRequest(updateData);
+                        // Typed bridge call: no JSON encoding on the drag path
+                        if (window.xmlEditorBridge && typeof window.xmlEditorBridge.moveNode === 'function') {
+                            window.xmlEditorBridge.moveNode(nodeName, newX, newY);
+                        } else {
+                            var updateData = {
+                                action: 'UPDATE',
+                                originalName: nodeName,
+                                attributes: {
+                                    x: newX,
+                                    y: newY
+                                }
+                            };
+                            sendServerRequest(updateData); // JSON compatibility path
+                        }
                     }
 
                     selectedElement = null;
@@ -184,21 +193,31 @@
                     var originalName = panel.getAttribute('data-target-name');
                     var form = document.getElementById('attributeForm');
 
-                    var data = {
-                        action: 'UPDATE',
-                        originalName: originalName,
-                        attributes: {}
-                    };
+                    var names = [];
+                    var values = [];
 
                     for (var i = 0; i < form.elements.length; i++) {
                         var element = form.elements[i];
                         if (element.id.startsWith('attr_')) {
-                            var attrName = element.id.substring(5);
-                            data.attributes[attrName] = element.value;
+                            names.push(element.id.substring(5));
+                            values.push(element.value);
                         }
                     }
 
-                    sendServerRequest(data);
+                    // Typed bridge call with parallel arrays; JSON only as compatibility path
+                    if (window.xmlEditorBridge && typeof window.xmlEditorBridge.setAttributesFromJs === 'function') {
+                        window.xmlEditorBridge.setAttributesFromJs(originalName, names, values);
+                    } else {
+                        var data = {
+                            action: 'UPDATE',
+                            originalName: originalName,
+                            attributes: {}
+                        };
+                        for (var k = 0; k < names.length; k++) {
+                            data.attributes[names[k]] = values[k];
+                        }
+                        sendServerRequest(data);
+                    }
                     document.getElementById('editPanelContainer').style.display='none';
                 }
 
@@ -227,6 +246,24 @@
                     }
                 }
 
+                // --- SELECTION SYNC (TreeView <-> SVG) ---
+                // Called from Java when a child of the rendered container is selected in the TreeView
+                function selectNodeInSvg(nodeName) {
+                    var groups = document.querySelectorAll('g.child-node');
+                    for (var i = 0; i < groups.length; i++) {
+                        groups[i].classList.toggle('selected-node', groups[i].getAttribute('data-node-name') === nodeName);
+                    }
+                }
+
+                // Tells Java which node was clicked, so the TreeView selection follows the SVG
+                function notifySelection(element) {
+                    var nodeName = element.getAttribute('data-node-name');
+                    selectNodeInSvg(nodeName);
+                    if (window.xmlEditorBridge && typeof window.xmlEditorBridge.selectNodeFromSvg === 'function') {
+                        window.xmlEditorBridge.selectNodeFromSvg(nodeName);
+                    }
+                }
+
                 // --- SERVER INTERACTION (Java Bridge) ---
                 function sendServerRequest(data) {
                     var jsonString = JSON.stringify(data);
@@ -241,6 +278,16 @@
                         alert("Cannot update data: Java bridge not connected.");
                     }
                 }
+
+                // Sends several UPDATE/ADD/DELETE requests as one atomic batch:
+                // Java applies all of them (or none) and refreshes the view only once.
+                function sendBatchRequest(operations) {
+                    if (!operations || operations.length === 0) return;
+                    sendServerRequest({
+                        action: "BATCH",
+                        operations: operations
+                    });
+                }
             ]]>
             </script>
             <xsl:call-template name="info-section">
@@ -341,7 +388,7 @@
         <xsl:if test="@x or @y">
             <g class="child-node"
                onmousedown="startDrag(evt)"
-               onclick="openEditPanel(this)"
+               onclick="notifySelection(this); openEditPanel(this)"
                transform="translate(0,0)"
                data-node-name="{@name}"
                data-node-type="{name()}"
@@ -0,0 +1,127 @@
+package com.example.xmleditorapp.xml;
+
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.xml.sax.InputSource;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The index is maintained by {@link DomTransaction} mutations (and their rollback) and answers
+ * like an index built from scratch.
+ */
+class AttributeIndexTest {
+
+    private static final String XML = "<form name=\"root\">"
+            + "<button name=\"ok\" group=\"g\"/>"
+            + "<button name=\"cancel\" group=\"g\"/>"
+            + "<FieldName name=\"f1\">Signature1</FieldName>"
+            + "</form>";
+
+    @Test
+    void findsAttributesAndText() throws Exception {
+        Document document = parse(XML);
+        AttributeIndex index = AttributeIndex.forDocument(document);
+
+        assertEquals("ok", index.findFirst(AttributeIndex.NAME_KEY, "ok").getAttribute("name"));
+        assertEquals(List.of("ok", "cancel"), names(index.find(null, "group", "g")));
+        assertEquals(List.of("ok", "cancel"), names(index.find("button", "group", "g")));
+        assertTrue(index.find("label", "group", "g").isEmpty());
+        assertEquals("f1", index.findFirst(AttributeIndex.TEXT_KEY, "Signature1").getAttribute("name"));
+        assertEquals(1, index.duplicates("group").size());
+        assertSame(index, AttributeIndex.forDocument(document), "Built once per document");
+    }
+
+    @Test
+    void followsAddedChangedAndRemovedValues() throws Exception {
+        Document document = parse(XML);
+        AttributeIndex index = AttributeIndex.forDocument(document);
+        Element ok = index.findFirst(AttributeIndex.NAME_KEY, "ok");
+        int entries = index.getEntryCount();
+
+        DomTransaction transaction = new DomTransaction();
+        transaction.setAttribute(ok, "name", "accept");
+        assertNull(index.findFirst(AttributeIndex.NAME_KEY, "ok"));
+        assertSame(ok, index.findFirst(AttributeIndex.NAME_KEY, "accept"));
+
+        transaction.removeAttribute(ok, "group");
+        assertEquals(List.of("cancel"), names(index.find(null, "group", "g")));
+        assertTrue(index.duplicates("group").isEmpty(), "A bucket of one is a single entry again");
+
+        Element field = index.findFirst(AttributeIndex.NAME_KEY, "f1");
+        transaction.setNodeValue(field.getFirstChild(), "Signature2");
+        assertNull(index.findFirst(AttributeIndex.TEXT_KEY, "Signature1"));
+        assertSame(field, index.findFirst(AttributeIndex.TEXT_KEY, "Signature2"));
+
+        Element cancel = index.findFirst(AttributeIndex.NAME_KEY, "cancel");
+        transaction.removeNode(cancel);
+        assertNull(index.findFirst(AttributeIndex.NAME_KEY, "cancel"));
+        assertTrue(index.find(null, "group", "g").isEmpty());
+
+        transaction.rollback();
+        assertSame(ok, index.findFirst(AttributeIndex.NAME_KEY, "ok"));
+        assertSame(cancel, index.findFirst(AttributeIndex.NAME_KEY, "cancel"));
+        assertEquals(List.of("ok", "cancel"), names(index.find(null, "group", "g")));
+        assertSame(field, index.findFirst(AttributeIndex.TEXT_KEY, "Signature1"));
+        assertEquals(entries, index.getEntryCount());
+    }
+
+    @Test
+    void keepsBucketsInDocumentOrderAfterInsertions() throws Exception {
+        Document document = parse(XML);
+        AttributeIndex index = AttributeIndex.forDocument(document);
+        Element root = document.getDocumentElement();
+
+        // Inserted first in the document, but added to the bucket last
+        Element first = document.createElement("button");
+        first.setAttribute("name", "help");
+        first.setAttribute("group", "g");
+        new DomTransaction().insertBefore(root, first, root.getFirstChild());
+        Element last = document.createElement("button");
+        last.setAttribute("name", "more");
+        last.setAttribute("group", "g");
+        new DomTransaction().appendChild(root, last);
+
+        assertEquals(List.of("help", "ok", "cancel", "more"), names(index.find(null, "group", "g")));
+        assertSame(first, index.findFirst("group", "g"));
+        assertEquals(List.of("help", "ok", "cancel", "more"), names(index.duplicates("group").get("g")));
+        assertEquals(AttributeIndex.forDocument((Document) document.cloneNode(true)).getEntryCount(), index.getEntryCount());
+    }
+
+    @Test
+    void leavesLongValuesOutExceptNames() throws Exception {
+        String limit = "v".repeat(AttributeIndex.MAX_VALUE_LENGTH);
+        String tooLong = limit + "v";
+        assertTrue(AttributeIndex.isIndexed("label", limit));
+        assertFalse(AttributeIndex.isIndexed("label", tooLong));
+        assertFalse(AttributeIndex.isIndexed(AttributeIndex.TEXT_KEY, tooLong));
+        assertTrue(AttributeIndex.isIndexed(AttributeIndex.NAME_KEY, tooLong));
+
+        Document document = parse("<form><a label=\"" + limit + "\"/><b label=\"" + tooLong + "\" name=\"" + tooLong + "\"/>"
+                + "<c>" + limit + "</c><d>  " + tooLong + "  </d></form>");
+        AttributeIndex index = AttributeIndex.forDocument(document);
+        assertEquals("a", index.findFirst("label", limit).getNodeName());
+        assertNull(index.findFirst("label", tooLong));
+        assertEquals("b", index.findFirst(AttributeIndex.NAME_KEY, tooLong).getNodeName());
+        assertEquals("c", index.findFirst(AttributeIndex.TEXT_KEY, limit).getNodeName());
+        assertNull(index.findFirst(AttributeIndex.TEXT_KEY, tooLong));
+        assertNull(AttributeIndex.textOf((Element) document.getElementsByTagName("d").item(0)));
+    }
+
+    private static List<String> names(List<Element> elements) {
+        return elements.stream().map(element -> element.getAttribute("name")).toList();
+    }
+
+    private static Document parse(String xml) throws Exception {
+        return DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(new InputSource(new StringReader(xml)));
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.xmleditorapp.xml;
+
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.xml.sax.InputSource;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Arithmetic, template and regular expression edits of attributes and text, each undone from
+ * the transaction's journal back to the original document.
+ */
+class BulkEditTest {
+
+    private static final String SCENE = "<Scene name=\"s\">"
+            + "<Button name=\"ok\" x=\"10\" width=\"80\">OK</Button>"
+            + "<Button name=\"cancel\" x=\"12.5\">Cancel</Button>"
+            + "<Label name=\"title\" x=\"auto\"/>"
+            + "<Button name=\"help\"/>"
+            + "</Scene>";
+
+    @Test
+    void addsToNumericAttributesOnly() throws Exception {
+        Document document = parse(SCENE);
+        String before = serialize(document);
+        BulkEdit.Result result = apply(document, "x", "*", "+20");
+
+        assertEquals(List.of("", "30", "32.5", "auto", ""), values(document, "x"));
+        assertEquals(5, result.getSelectedCount());
+        assertEquals(2, result.getChangedCount());
+
+        assertEquals(2, result.undo());
+        assertEquals(before, serialize(document));
+        assertEquals(0, result.undo(), "Already undone");
+    }
+
+    @Test
+    void fillsTemplatesIntoAttributesAndText() throws Exception {
+        Document document = parse(SCENE);
+        String before = serialize(document);
+        BulkEdit.Result attributes = apply(document, "tooltip", "Button", "={type} {index}: {name}");
+        assertEquals(List.of("", "Button 1: ok", "Button 2: cancel", "", "Button 3: help"), values(document, "tooltip"));
+
+        BulkEdit.Result text = apply(document, BulkEdit.TEXT_FIELD, "Button", "=[{value}]");
+        assertEquals(List.of("[OK]", "[Cancel]", "[]"), texts(document, "Button"));
+        assertEquals(3, text.getChangedCount(), "The button without text gets a text node");
+
+        // Newest first, as the editor only undoes the last edit
+        text.undo();
+        attributes.undo();
+        assertEquals(before, serialize(document));
+    }
+
+    @Test
+    void replacesWithRegularExpressionsInAttributesAndText() throws Exception {
+        Document document = parse(SCENE);
+        String before = serialize(document);
+        BulkEdit.Result names = apply(document, "name", "Button", "s/^(.)/btn_$1/");
+        assertEquals(List.of("s", "btn_ok", "btn_cancel", "title", "btn_help"), values(document, "name"));
+        assertEquals(1, AttributeIndex.forDocument(document).find(null, AttributeIndex.NAME_KEY, "btn_ok").size());
+
+        BulkEdit.Result text = apply(document, BulkEdit.TEXT_FIELD, "Button", "s/C(ANCEL)?/X/i");
+        assertEquals(List.of("OK", "X", ""), texts(document, "Button"));
+
+        text.undo();
+        names.undo();
+        assertEquals(before, serialize(document));
+        assertEquals(1, AttributeIndex.forDocument(document).find(null, AttributeIndex.NAME_KEY, "ok").size(), "Re-indexed by the undo");
+        assertEquals(0, AttributeIndex.forDocument(document).find(null, AttributeIndex.NAME_KEY, "btn_ok").size());
+    }
+
+    @Test
+    void rejectsDuplicateNamesAndUnknownExpressions() throws Exception {
+        Document document = parse(SCENE);
+        AttributeIndex.forDocument(document);
+        DomTransaction transaction = new DomTransaction();
+        List<Element> buttons = BulkEdit.selectByType(document.getDocumentElement(), "Button");
+
+        assertThrows(IllegalArgumentException.class, () -> BulkEdit.parse("name", "=title").apply(buttons, transaction));
+        assertThrows(IllegalArgumentException.class, () -> BulkEdit.parse("x", "/0"));
+        assertThrows(IllegalArgumentException.class, () -> BulkEdit.parse("x", "double"));
+    }
+
+    private static BulkEdit.Result apply(Document document, String field, String type, String expression) {
+        AttributeIndex.forDocument(document);
+        return BulkEdit.parse(field, expression)
+                .apply(BulkEdit.selectByType(document.getDocumentElement(), type), new DomTransaction());
+    }
+
+    private static List<String> values(Document document, String attribute) {
+        return BulkEdit.selectByType(document.getDocumentElement(), "*").stream()
+                .map(element -> element.getAttribute(attribute)).toList();
+    }
+
+    private static List<String> texts(Document document, String type) {
+        return BulkEdit.selectByType(document.getDocumentElement(), type).stream()
+                .map(Element::getTextContent).toList();
+    }
+
+    private static Document parse(String xml) throws Exception {
+        return DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(new InputSource(new StringReader(xml)));
+    }
+
+    private static String serialize(Document document) throws Exception {
+        var transformer = TransformerFactory.newInstance().newTransformer();
+        transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
+        StringWriter writer = new StringWriter();
+        transformer.transform(new DOMSource(document), new StreamResult(writer));
+        return writer.toString();
+    }
+}
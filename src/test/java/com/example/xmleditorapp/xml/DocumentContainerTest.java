@@ -0,0 +1,115 @@
+package com.example.xmleditorapp.xml;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compressed documents are sized by their uncompressed content, streamed into the parser,
+ * and saving into a zip archive keeps its other entries.
+ */
+class DocumentContainerTest {
+
+    private static final String XML = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<root name=\"r\">" + "<item name=\"i\">payload</item>".repeat(5_000) + "</root>\n";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void gzipIsSizedAndStreamedUncompressed() throws IOException {
+        Path file = directory.resolve("doc.xml.gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(file))) {
+            out.write(XML.getBytes(StandardCharsets.UTF_8));
+        }
+        assertEquals(DocumentContainer.GZIP, DocumentContainer.detect(file));
+        assertEquals(XML.length(), DocumentContainer.GZIP.contentSize(file));
+
+        try (MappedXmlFile opened = MappedXmlFile.open(file)) {
+            assertEquals(XML.length(), opened.getByteLength());
+            try (InputStream in = opened.openStream()) {
+                assertEquals(XML, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            }
+            assertEquals(XML, opened.getText().toString());
+        }
+    }
+
+    @Test
+    void zipIsSizedByItsXmlEntry() throws IOException {
+        Path file = directory.resolve("bundle.zip");
+        writeZip(file, "readme.txt", "read me", "form.xml", XML, "images/logo.png", "png");
+        assertEquals(XML.length(), DocumentContainer.ZIP.contentSize(file));
+        try (InputStream in = DocumentContainer.ZIP.openInput(file)) {
+            assertEquals(XML, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void savingIntoZipKeepsTheOtherEntries() throws IOException {
+        Path file = directory.resolve("bundle.zip");
+        writeZip(file, "readme.txt", "read me", "form.xml", "<old/>", "images/logo.png", "png");
+
+        String saved = "<new name=\"n\"/>";
+        assertEquals(DocumentContainer.ZIP, DocumentContainer.forSave(file));
+        try (OutputStream out = DocumentContainer.ZIP.openOutput(file)) {
+            out.write(saved.getBytes(StandardCharsets.UTF_8));
+        }
+
+        try (ZipFile zip = new ZipFile(file.toFile())) {
+            List<String> names = new ArrayList<>();
+            for (ZipEntry entry : Collections.list(zip.entries())) {
+                names.add(entry.getName());
+            }
+            assertEquals(List.of("readme.txt", "form.xml", "images/logo.png"), names);
+            assertEquals("read me", read(zip, "readme.txt"));
+            assertEquals(saved, read(zip, "form.xml"));
+            assertEquals("png", read(zip, "images/logo.png"));
+        }
+        try (var files = Files.list(directory)) {
+            assertEquals(1, files.count(), "No temporary file is left behind");
+        }
+    }
+
+    @Test
+    void newZipGetsOneEntryNamedAfterTheArchive() throws IOException {
+        Path file = directory.resolve("fresh.zip");
+        try (OutputStream out = DocumentContainer.ZIP.openOutput(file)) {
+            out.write(XML.getBytes(StandardCharsets.UTF_8));
+        }
+        try (ZipFile zip = new ZipFile(file.toFile())) {
+            assertEquals(1, zip.size());
+            assertEquals(XML, read(zip, "fresh.xml"));
+        }
+    }
+
+    private static void writeZip(Path file, String... namesAndContents) throws IOException {
+        try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(file))) {
+            for (int i = 0; i < namesAndContents.length; i += 2) {
+                zip.putNextEntry(new ZipEntry(namesAndContents[i]));
+                zip.write(namesAndContents[i + 1].getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+        }
+    }
+
+    private static String read(ZipFile zip, String name) throws IOException {
+        try (InputStream in = zip.getInputStream(zip.getEntry(name))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.xmleditorapp.xml;
+
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.xml.sax.InputSource;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.StringReader;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The open document (synthetic names, its own whitespace) is compared with the file on disk
+ * (indented on save) through a normalized copy, and the changes are applied to the original;
+ * a copy compared as the new side maps its changes back to the original as well.
+ */
+class DocumentCopyTest {
+
+    private static final String OPEN = "<r><a><b v=\"1\"/><c>text</c></a><d/></r>";
+    private static final String INDENTED = "<r>\n  <a>\n    <b v=\"1\"/>\n    <c>text</c>\n  </a>\n  <d/>\n</r>\n";
+
+    @Test
+    void skipsTheUnchangedDocumentDespiteNamesAndIndentation() throws Exception {
+        Document open = parse(OPEN);
+        NameAllocator.forDocument(open).normalize(open.getDocumentElement());
+        Document disk = parse(INDENTED);
+
+        DocumentCopy copy = DocumentCopy.of(open);
+        DocumentCopy.normalizeForComparison(copy.getDocument());
+        DocumentCopy.normalizeForComparison(disk);
+        StructuralDiff.Result result = new StructuralDiff(Set.of(), 0).compare(copy.getDocument(), disk);
+
+        assertTrue(result.isIdentical(), result.getChanges()::toString);
+        assertEquals(1, result.getSkippedSubtrees());
+        assertTrue(open.getDocumentElement().hasAttribute("name"), "The original keeps its synthetic names");
+    }
+
+    @Test
+    void appliesTheChangesOfTheCopyToTheOriginal() throws Exception {
+        Document open = parse(OPEN);
+        NameAllocator.forDocument(open).normalize(open.getDocumentElement());
+        Document disk = parse(INDENTED.replace("v=\"1\"", "v=\"2\"").replace("  <d/>\n", ""));
+
+        DocumentCopy copy = DocumentCopy.of(open);
+        DocumentCopy.normalizeForComparison(copy.getDocument());
+        DocumentCopy.normalizeForComparison(disk);
+        StructuralDiff.Result result = new StructuralDiff(Set.of(), 0).compare(copy.getDocument(), disk);
+        result.onOriginal(copy.toOriginal()).apply(new DomTransaction(), element -> { });
+
+        Element b = (Element) open.getElementsByTagName("b").item(0);
+        assertEquals("2", b.getAttribute("v"));
+        assertEquals(0, open.getElementsByTagName("d").getLength());
+        assertFalse(b.getAttribute("name").isEmpty(), "Unchanged synthetic names are kept");
+        assertEquals("1", ((Element) copy.getDocument().getElementsByTagName("b").item(0)).getAttribute("v"));
+    }
+
+    @Test
+    void mapsTheNewSideOfACompareToTheOriginal() throws Exception {
+        Document open = parse(OPEN);
+        Document other = parse(OPEN.replace("v=\"1\"", "v=\"0\""));
+
+        DocumentCopy copy = DocumentCopy.of(open);
+        StructuralDiff.Result result = new StructuralDiff(Set.of(), 0).compare(other, copy.getDocument())
+                .onOriginalRight(copy.toOriginal());
+
+        assertEquals(1, result.getChanges().size());
+        assertSame(open.getElementsByTagName("b").item(0), result.getChanges().get(0).right());
+        assertSame(other.getElementsByTagName("b").item(0), result.getChanges().get(0).left());
+    }
+
+    private static Document parse(String xml) throws Exception {
+        return DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(new InputSource(new StringReader(xml)));
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.xmleditorapp.xml;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.w3c.dom.Document;
+import org.xml.sax.InputSource;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Snapshots record the content hash computed while the file was parsed, which decides when only
+ * the modification time changed.
+ */
+class DocumentSnapshotCacheTest {
+
+    private static final String XML = "<form name=\"root\"><button name=\"ok\">Press<!-- note --></button></form>";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void reloadsATouchedFileWithTheSameContent() throws Exception {
+        Path file = directory.resolve("form.xml");
+        Files.writeString(file, XML);
+        DocumentSnapshotCache cache = new DocumentSnapshotCache(directory.resolve("snapshots"));
+        assertTrue(cache.store(parseAndEncode(file)) > 0);
+
+        touch(file);
+        DocumentSnapshotCache.Snapshot snapshot = new DocumentSnapshotCache(directory.resolve("snapshots")).load(file);
+        assertNotNull(snapshot, "The content hash matches");
+        assertEquals(2, snapshot.elementCount());
+        assertEquals("Press", snapshot.document().getElementsByTagName("button").item(0).getFirstChild().getNodeValue());
+
+        Files.writeString(file, XML.replace("ok", "no"));
+        touch(file);
+        assertNull(cache.load(file), "Same size, other content");
+    }
+
+    @Test
+    void hashesTheContentOfCompressedFiles() throws Exception {
+        Path file = directory.resolve("form.xml.gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(file))) {
+            out.write(XML.getBytes(StandardCharsets.UTF_8));
+        }
+        DocumentSnapshotCache cache = new DocumentSnapshotCache(directory.resolve("snapshots"));
+        cache.store(parseAndEncode(file));
+
+        touch(file);
+        assertNotNull(cache.load(file));
+    }
+
+    // As a cold load does: parsed through the hashing stream
+    private static DocumentSnapshotCache.Encoded parseAndEncode(Path file) throws Exception {
+        DocumentSnapshotCache.Source source = new DocumentSnapshotCache.Source(file);
+        Document document;
+        try (InputStream in = source.hashing(DocumentContainer.detect(file).openInput(file))) {
+            document = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(new InputSource(in));
+        }
+        return DocumentSnapshotCache.encode(source, document);
+    }
+
+    private static void touch(Path file) throws Exception {
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 60_000));
+    }
+}
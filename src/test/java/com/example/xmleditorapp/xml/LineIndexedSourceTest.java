@@ -0,0 +1,69 @@
+package com.example.xmleditorapp.xml;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * A viewport jump into a comment, CDATA section or multi-line attribute value guesses the
+ * lexer state (wrongly: the lines inside look like markup); the exact state replaces the guess
+ * as soon as it is within reach, and the guess never spreads into the exact states below.
+ */
+class LineIndexedSourceTest {
+
+    private static final int INNER_LINES = 150;
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "<!--|<old attr=\"1\">text</old>|-->",
+            "<![CDATA[|if (a < b) { x = \"<tag>\"; }|]]>",
+            "<a v=\"|x > y <b/>|\"/>"
+    })
+    void replacesAGuessedStateWithTheExactOne(String construct) {
+        String[] parts = construct.split("\\|");
+        StringBuilder xml = new StringBuilder("<root>\n").append(parts[0]).append('\n');
+        for (int i = 0; i < INNER_LINES; i++) {
+            xml.append(parts[1]).append('\n');
+        }
+        xml.append(parts[2]).append("\n<after name=\"x\"/>\n</root>\n");
+        List<List<String>> expected = tokensFromTheTop(xml);
+
+        LineIndexedSource source = new LineIndexedSource(xml);
+        int jump = 100;
+        assertNotEquals(expected.get(jump), tokens(source, jump), "Re-synchronizing inside the construct guesses wrong");
+
+        // Scrolled from the top far enough that exact states are within reach of the lines
+        // jumped to, then a jump a little below the first one: its nearest known state is the
+        // guess, but the exact one is close enough
+        for (int line = 0; line < 60; line++) {
+            tokens(source, line);
+        }
+        assertEquals(expected.get(jump + 10), tokens(source, jump + 10));
+        assertEquals(expected.get(jump), tokens(source, jump), "The guess was replaced");
+        for (int line = jump + 11; line < source.getLineCount(); line++) {
+            assertEquals(expected.get(line), tokens(source, line), "line " + line);
+        }
+    }
+
+    // Every line lexed in order: all start states exact
+    private static List<List<String>> tokensFromTheTop(CharSequence xml) {
+        LineIndexedSource source = new LineIndexedSource(xml);
+        List<List<String>> lines = new ArrayList<>();
+        for (int line = 0; line < source.getLineCount(); line++) {
+            lines.add(tokens(source, line));
+        }
+        return lines;
+    }
+
+    private static List<String> tokens(LineIndexedSource source, int line) {
+        List<String> tokens = new ArrayList<>();
+        CharSequence text = source.getText();
+        source.tokenizeLine(line, (type, start, end) -> tokens.add(type + ":" + text.subSequence(start, end)));
+        return tokens;
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.xmleditorapp.xml;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * The text kept by the source view must not depend on the mapping: the file may be
+ * rewritten (shorter) by another program once it is loaded.
+ */
+class MappedXmlFileTest {
+
+    @TempDir
+    Path directory;
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "<root name=\"ascii\">plain text</root>",
+            "<root name=\"utf8\">Grüße € 😀</root>"
+    })
+    void textOutlivesTheMappingAndTheFile(String xml) throws IOException {
+        Path file = directory.resolve("mapped.xml");
+        String content = xml.repeat(2_000);
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+
+        CharSequence text;
+        try (MappedXmlFile mapped = MappedXmlFile.open(file)) {
+            try (InputStream in = mapped.openStream()) {
+                assertArrayEquals(content.getBytes(StandardCharsets.UTF_8), in.readAllBytes());
+            }
+            text = mapped.getText();
+            assertEquals(content.getBytes(StandardCharsets.UTF_8).length, mapped.getByteLength());
+        }
+
+        // Rewritten in place, much shorter, after the load
+        Files.writeString(file, "<root/>", StandardCharsets.UTF_8);
+        assertEquals(content.length(), text.length());
+        assertEquals(content.charAt(content.length() - 1), text.charAt(text.length() - 1));
+        assertEquals(content, text.toString());
+    }
+
+    @Test
+    void streamsAreNotAvailableAfterClose() throws IOException {
+        Path file = directory.resolve("closed.xml");
+        Files.writeString(file, "<root/>", StandardCharsets.UTF_8);
+        MappedXmlFile mapped = MappedXmlFile.open(file);
+        InputStream open = mapped.openStream();
+        mapped.close();
+        // The mapping is released: reading it fails instead of faulting
+        assertThrows(IllegalStateException.class, open::read);
+        assertThrows(IllegalStateException.class, mapped::openStream);
+        assertThrows(IllegalStateException.class, mapped::getText);
+        mapped.close();
+    }
+}
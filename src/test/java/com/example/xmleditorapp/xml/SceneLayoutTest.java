@@ -0,0 +1,98 @@
+package com.example.xmleditorapp.xml;
+
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.xml.sax.InputSource;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.StringReader;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The lint kept up to date one moved component at a time equals the lint of a layout built
+ * from scratch.
+ */
+class SceneLayoutTest {
+
+    @Test
+    void lintsOverlapsAndBounds() throws Exception {
+        SceneLayout layout = SceneLayout.of(parse("<Scene width=\"100\" height=\"100\">"
+                + "<Button name=\"a\" x=\"0\" y=\"0\" width=\"50\" height=\"50\"/>"
+                + "<Button name=\"b\" x=\"40\" y=\"40\" width=\"20\" height=\"20\"/>"
+                + "<Label name=\"c\" x=\"50\" y=\"0\" width=\"10\" height=\"10\"/>"
+                + "<Label name=\"d\" x=\"95\" y=\"95\" width=\"10\" height=\"10\"/>"
+                + "<Label name=\"e\">not positioned</Label>"
+                + "</Scene>").getDocumentElement());
+
+        assertEquals(4, layout.getComponentCount());
+        assertEquals(List.of("a overlaps b", "d is outside the container bounds"), describe(layout.getIssues()));
+        assertFalse(layout.isFlagged(layout.indexOf("c")), "Touching edges are not an overlap");
+        assertEquals(1, layout.hitTest(45, 45), "The later component is on top");
+
+        layout.move(layout.indexOf("b"), 70, 70);
+        layout.move(layout.indexOf("d"), 65, 75);
+        assertEquals(List.of("b overlaps d"), describe(layout.getIssues()));
+        assertEquals(1, layout.getIssueCount());
+        assertFalse(layout.isFlagged(layout.indexOf("a")));
+        assertTrue(layout.isFlagged(layout.indexOf("d")));
+    }
+
+    @Test
+    void keepsTheLintOfMovedComponentsUpToDate() throws Exception {
+        Document document = parse("<Scene width=\"800\" height=\"600\"/>");
+        Element scene = document.getDocumentElement();
+        Random random = new Random(11);
+        for (int i = 0; i < 400; i++) {
+            Element component = document.createElement(i % 2 == 0 ? "Button" : "Label");
+            component.setAttribute("name", "c" + i);
+            setGeometry(component, random);
+            scene.appendChild(component);
+        }
+        SceneLayout layout = SceneLayout.of(scene);
+        layout.getIssues();
+
+        for (int step = 0; step < 300; step++) {
+            Element component = (Element) scene.getChildNodes().item(random.nextInt(400));
+            if (step % 3 == 0) {
+                setGeometry(component, random);
+                assertTrue(layout.update(component));
+            } else {
+                int i = layout.indexOf(component.getAttribute("name"));
+                double x = random.nextInt(820) - 10;
+                double y = random.nextInt(620) - 10;
+                layout.move(i, x, y);
+                component.setAttribute("x", Double.toString(x));
+                component.setAttribute("y", Double.toString(y));
+            }
+            if (step % 25 == 0) {
+                SceneLayout rebuilt = SceneLayout.of(scene);
+                assertEquals(rebuilt.getIssues(), layout.getIssues(), "after step " + step);
+                assertEquals(rebuilt.getIssueCount(), layout.getIssueCount());
+                for (int i = 0; i < layout.getComponentCount(); i++) {
+                    assertEquals(rebuilt.isFlagged(i), layout.isFlagged(i), "component " + i);
+                }
+            }
+        }
+    }
+
+    private static void setGeometry(Element component, Random random) {
+        component.setAttribute("x", Integer.toString(random.nextInt(820) - 10));
+        component.setAttribute("y", Integer.toString(random.nextInt(620) - 10));
+        component.setAttribute("width", Integer.toString(5 + random.nextInt(60)));
+        component.setAttribute("height", Integer.toString(5 + random.nextInt(30)));
+    }
+
+    private static List<String> describe(List<SceneLayout.Issue> issues) {
+        return issues.stream().map(SceneLayout.Issue::toString).toList();
+    }
+
+    private static Document parse(String xml) throws Exception {
+        return DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(new InputSource(new StringReader(xml)));
+    }
+}
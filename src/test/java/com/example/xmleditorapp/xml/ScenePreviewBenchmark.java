@@ -0,0 +1,97 @@
+package com.example.xmleditorapp.xml;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The display-independent part of a frame of the scene preview on a synthetic Scene
+ * (1600x1200, four component types, seeded random geometry): the canvas preview's layout and
+ * lint against the XSLT that produces the WebView's SVG, both as the editor runs them.
+ * Rasterising the canvas and loading the SVG into a WebView need a display and are not
+ * measured here. Run with {@code mvn -Pbenchmark test-compile exec:exec -Djmh.args=ScenePreviewBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ScenePreviewBenchmark {
+
+    private static final List<String> TYPES = List.of("Button", "Label", "TextField", "Image");
+
+    @Param({"5000"})
+    public int components;
+
+    private Element scene;
+    private SceneLayout layout;
+    private Random drag;
+
+    @Setup
+    public void buildScene() throws Exception {
+        Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+        scene = document.createElement("Scene");
+        scene.setAttribute("name", "scene");
+        scene.setAttribute("width", "1600");
+        scene.setAttribute("height", "1200");
+        document.appendChild(scene);
+        Random random = new Random(42);
+        for (int i = 0; i < components; i++) {
+            Element component = document.createElement(TYPES.get(i % TYPES.size()));
+            component.setAttribute("name", "c" + i);
+            component.setAttribute("x", Integer.toString(random.nextInt(1560)));
+            component.setAttribute("y", Integer.toString(random.nextInt(1180)));
+            component.setAttribute("width", Integer.toString(20 + random.nextInt(180)));
+            component.setAttribute("height", Integer.toString(10 + random.nextInt(40)));
+            scene.appendChild(component);
+        }
+        layout = SceneLayout.of(scene);
+        layout.getIssues();
+        drag = new Random(7);
+    }
+
+    // Showing the container in the canvas preview, or after an edit: layout and lint
+    @Benchmark
+    public int canvasLayout() {
+        return SceneLayout.of(scene).getIssueCount();
+    }
+
+    // One drag frame: a component moved, then the lint the frame draws
+    @Benchmark
+    public int canvasDragFrame() {
+        int i = drag.nextInt(components);
+        layout.move(i, layout.getX(i) + drag.nextInt(5) - 2, layout.getY(i) + drag.nextInt(5) - 2);
+        return layout.getIssueCount();
+    }
+
+    // Showing the container in the SVG preview, or after an edit (each committed drag move)
+    @Benchmark
+    public int svgTransform() throws Exception {
+        Transformer transformer = TransformerFactory.newInstance()
+                .newTransformer(XSLTFileManager.getInstance().getActiveStyle());
+        StringWriter writer = new StringWriter();
+        transformer.transform(new DOMSource(scene), new StreamResult(writer));
+        return writer.getBuffer().length();
+    }
+}
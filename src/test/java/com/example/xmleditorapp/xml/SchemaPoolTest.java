@@ -0,0 +1,39 @@
+package com.example.xmleditorapp.xml;
+
+import org.junit.jupiter.api.Test;
+
+import javax.xml.validation.Schema;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Bundles built from the same XSDs share one compiled Schema, which outlives the eviction of
+ * either bundle as long as the other one still uses it.
+ */
+class SchemaPoolTest {
+
+    @Test
+    void sharesTheGrammarOfBundlesWithTheSameXsds() throws Exception {
+        SchemaPool pool = SchemaPool.getInstance();
+        // Two registry entries naming the same directory differently: two bundles, same XSDs
+        String bundle = "esign/xsd";
+        String alias = "esign/xsd/";
+        pool.evict(bundle);
+        pool.evict(alias);
+
+        Schema schema = pool.getSchema(bundle);
+        assertFalse(pool.isCompiled(alias));
+        assertSame(schema, pool.getSchema(alias));
+
+        pool.evict(bundle);
+        assertTrue(pool.isCompiled(alias));
+        assertSame(schema, pool.getSchema(bundle), "Still shared by the other bundle");
+
+        pool.evict(bundle);
+        pool.evict(alias);
+        assertNotSame(schema, pool.getSchema(bundle), "Compiled again once no bundle uses it");
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.xmleditorapp.xml;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.util.Properties;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Namespace-qualified registry keys survive the .properties syntax only escaped, and a bundle's
+ * reader reads its XSDs on the first query.
+ */
+class SchemaRegistryTest {
+
+    @Test
+    void readsEscapedNamespaceKeysAndReportsUnescapedOnes() throws Exception {
+        Properties mappings = new Properties();
+        mappings.load(new StringReader("{http\\://example.com/esign/2}ESign=esign2/xsd\n"
+                + "{http://example.com/esign/3}ESign=esign3/xsd\n"));
+
+        assertEquals("esign2/xsd", mappings.getProperty("{http://example.com/esign/2}ESign"));
+        assertEquals("//example.com/esign/3}ESign=esign3/xsd", mappings.getProperty("{http"), "Cut at the first ':'");
+        assertEquals(1, SchemaRegistry.checkKeys(mappings));
+    }
+
+    @Test
+    void readsTheBundleOnTheFirstQuery() {
+        XmlSchemaReader reader = new XmlSchemaReader("esign/xsd");
+
+        Set<String> containers = reader.getContainerNodeTypes();
+        assertTrue(containers.contains("ESign") && containers.contains("Dialogs"), containers::toString);
+        assertEquals("", reader.getDefaultAttributes("Dialog").get("width"), "A required attribute of DialogType");
+        assertNull(reader.getTargetNamespace("ESign"), "The bundle's XSD has no target namespace");
+        assertNull(reader.getTargetNamespace("NoSuchElement"));
+    }
+}
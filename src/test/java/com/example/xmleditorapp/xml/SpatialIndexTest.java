@@ -0,0 +1,89 @@
+package com.example.xmleditorapp.xml;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Queries answer like a scan of all rectangles, also after moves and for coordinates far outside
+ * the grid's usual range.
+ */
+class SpatialIndexTest {
+
+    @Test
+    void answersLikeAScanAfterMoves() {
+        SpatialIndex index = new SpatialIndex(64);
+        Random random = new Random(3);
+        double[][] rects = new double[300][];
+        for (int id = 0; id < rects.length; id++) {
+            rects[id] = new double[]{random.nextInt(2000), random.nextInt(2000), 1 + random.nextInt(200), 1 + random.nextInt(200)};
+            index.put(id, rects[id][0], rects[id][1], rects[id][2], rects[id][3]);
+        }
+        // A full-size background (kept outside the cells) and some moves
+        rects[0] = new double[]{0, 0, 100_000, 100_000};
+        index.put(0, 0, 0, 100_000, 100_000);
+        for (int move = 0; move < 100; move++) {
+            int id = 1 + random.nextInt(rects.length - 1);
+            rects[id] = new double[]{random.nextInt(2000), random.nextInt(2000), rects[id][2], rects[id][3]};
+            index.put(id, rects[id][0], rects[id][1], rects[id][2], rects[id][3]);
+        }
+        index.remove(5);
+        rects[5] = null;
+
+        for (int query = 0; query < 200; query++) {
+            double x = random.nextInt(2200) - 100;
+            double y = random.nextInt(2200) - 100;
+            double w = random.nextInt(query % 10 == 0 ? 5000 : 300);
+            double h = random.nextInt(300);
+            List<Integer> expected = new ArrayList<>();
+            int topmost = -1;
+            for (int id = 0; id < rects.length; id++) {
+                double[] r = rects[id];
+                if (r == null) continue;
+                if (r[0] <= x + w && r[0] + r[2] >= x && r[1] <= y + h && r[1] + r[3] >= y) expected.add(id);
+                if (x >= r[0] && x <= r[0] + r[2] && y >= r[1] && y <= r[1] + r[3]) topmost = id;
+            }
+            List<Integer> found = new ArrayList<>();
+            index.forEachInRect(x, y, x + w, y + h, found::add);
+            found.sort(null);
+            assertEquals(expected, found);
+            assertEquals(topmost, index.topmostAt(x, y));
+        }
+        assertEquals(rects.length - 1, index.size());
+        assertFalse(index.contains(5));
+    }
+
+    @Test
+    @Timeout(5)
+    void handlesHugeAndInfiniteCoordinates() {
+        SpatialIndex index = new SpatialIndex(1);
+        index.put(0, 1e15, 1e15, 10, 10);
+        index.put(1, -1e300, 0, 5, 5);
+        index.put(2, 0, 0, Double.POSITIVE_INFINITY, 1);
+        index.put(3, 10, 10, 5, 5);
+
+        List<Integer> found = new ArrayList<>();
+        index.forEachInRect(1e15, 1e15, 1e15 + 1, 1e15 + 1, found::add);
+        assertEquals(List.of(0), found);
+        assertEquals(0, index.topmostAt(1e15 + 5, 1e15 + 5));
+        assertEquals(3, index.topmostAt(12, 12));
+
+        found.clear();
+        index.forEachInRect(Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY,
+                Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, found::add);
+        found.sort(null);
+        assertEquals(List.of(0, 1, 2, 3), found);
+
+        index.put(0, 1, 1, 1, 1);
+        index.remove(1);
+        assertTrue(index.contains(0));
+        assertEquals(3, index.size());
+    }
+}
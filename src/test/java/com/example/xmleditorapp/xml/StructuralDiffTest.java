@@ -0,0 +1,45 @@
+package com.example.xmleditorapp.xml;
+
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+import org.xml.sax.InputSource;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.StringReader;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Children are aligned by name only when the name is unique among the new siblings.
+ */
+class StructuralDiffTest {
+
+    @Test
+    void doesNotAlignByANameRepeatedThreeTimes() throws Exception {
+        Document left = parse("<r><a name=\"x\"/></r>");
+        Document right = parse("<r><a name=\"x\"/><a name=\"x\"/><a name=\"x\" v=\"3\"/></r>");
+
+        StructuralDiff.Result result = new StructuralDiff(Set.of(), 0).compare(left, right);
+
+        assertEquals(1, result.count(StructuralDiff.ChangeKind.REMOVED), result.getChanges()::toString);
+        assertEquals(3, result.count(StructuralDiff.ChangeKind.ADDED), result.getChanges()::toString);
+        assertEquals(0, result.count(StructuralDiff.ChangeKind.ATTRIBUTE), result.getChanges()::toString);
+    }
+
+    @Test
+    void alignsByAUniqueName() throws Exception {
+        Document left = parse("<r><a name=\"x\"/><a name=\"y\"/></r>");
+        Document right = parse("<r><a name=\"y\" v=\"2\"/><a name=\"x\"/></r>");
+
+        StructuralDiff.Result result = new StructuralDiff(Set.of(), 0).compare(left, right);
+
+        assertEquals(1, result.count(StructuralDiff.ChangeKind.ATTRIBUTE), result.getChanges()::toString);
+        assertEquals(1, result.count(StructuralDiff.ChangeKind.REORDERED), result.getChanges()::toString);
+        assertEquals(0, result.count(StructuralDiff.ChangeKind.ADDED), result.getChanges()::toString);
+    }
+
+    private static Document parse(String xml) throws Exception {
+        return DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(new InputSource(new StringReader(xml)));
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.xmleditorapp.xml;
+
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.xml.sax.InputSource;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Mutations through a {@link DomTransaction} only rehash the path from the changed node to the
+ * root, and the dirty state follows the content, not the history of edits.
+ */
+class SubtreeHashesTest {
+
+    // 1 root, 3 groups, 9 items
+    private static final String XML = "<form>"
+            + "<group name=\"a\"><item name=\"a1\"/><item name=\"a2\"/><item name=\"a3\"/></group>"
+            + "<group name=\"b\"><item name=\"b1\"/><item name=\"b2\" x=\"1\"/><item name=\"b3\"/></group>"
+            + "<group name=\"c\"><item name=\"c1\"/><item name=\"c2\"/><item name=\"c3\">text</item></group>"
+            + "</form>";
+
+    @Test
+    void rehashesOnlyThePathToTheRoot() throws Exception {
+        Document document = parse(XML);
+        SubtreeHashes hashes = SubtreeHashes.forDocument(document);
+        long rootHash = hashes.getRootHash();
+        assertEquals(13, hashes.getHashedElementCount());
+
+        DomTransaction transaction = new DomTransaction();
+        transaction.setAttribute(item(document, "b2"), "x", "2");
+        long changedHash = hashes.getRootHash();
+        assertNotEquals(rootHash, changedHash);
+        assertEquals(13 + 3, hashes.getHashedElementCount(), "b2, its group and the root");
+
+        transaction.setNodeValue(item(document, "c3").getFirstChild(), "other");
+        hashes.getRootHash();
+        assertEquals(16 + 3, hashes.getHashedElementCount(), "c3, its group and the root");
+
+        transaction.rollback();
+        assertEquals(rootHash, hashes.getRootHash());
+        assertEquals(fresh(document), hashes.getRootHash(), "Incremental and full hashes agree");
+    }
+
+    @Test
+    void isCleanAgainWhenAnEditIsReverted() throws Exception {
+        Document document = parse(XML);
+        SubtreeHashes hashes = SubtreeHashes.forDocument(document);
+        hashes.markSaved();
+        assertFalse(hashes.isDirty());
+        assertEquals(0, hashes.getHashedElementCount(), "Marking as saved hashes nothing");
+
+        Element item = item(document, "b2");
+        new DomTransaction().setAttribute(item, "x", "5");
+        assertTrue(hashes.isDirty());
+
+        // Reverted by hand (a new edit), not by rollback
+        new DomTransaction().setAttribute(item, "x", "1");
+        assertFalse(hashes.isDirty());
+
+        DomTransaction transaction = new DomTransaction();
+        transaction.removeNode(item(document, "a1"));
+        assertTrue(hashes.isDirty());
+        transaction.rollback();
+        assertFalse(hashes.isDirty());
+    }
+
+    private static long fresh(Document document) throws Exception {
+        return SubtreeHashes.forDocument((Document) document.cloneNode(true)).getRootHash();
+    }
+
+    private static Element item(Document document, String name) {
+        return AttributeIndex.forDocument(document).findFirst(AttributeIndex.NAME_KEY, name);
+    }
+
+    private static Document parse(String xml) throws Exception {
+        return DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(new InputSource(new StringReader(xml)));
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.xmleditorapp.xml;
+
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.xml.sax.InputSource;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Merges of the changes from base to theirs into ours: what is taken, what conflicts, and
+ * that rolling the transaction back restores ours.
+ */
+class ThreeWayMergeTest {
+
+    private static final String BASE = "<form><button name=\"ok\" x=\"1\" y=\"1\"/><label name=\"title\">Hello</label></form>";
+
+    @Test
+    void takesChangesMadeOnlyByTheirs() throws Exception {
+        Document ours = parse(BASE.replace("y=\"1\"", "y=\"5\""));
+        ThreeWayMerge.Plan plan = merge(BASE, ours, BASE.replace("x=\"1\"", "x=\"9\""));
+
+        assertTrue(plan.getConflicts().isEmpty(), plan.getConflicts()::toString);
+        assertEquals(1, plan.getMergedChangeCount());
+        plan.apply(new DomTransaction());
+        Element button = element(ours, "button");
+        assertEquals("9", button.getAttribute("x"));
+        assertEquals("5", button.getAttribute("y"));
+    }
+
+    @Test
+    void reportsAnAttributeChangedDifferentlyOnBothSides() throws Exception {
+        Document ours = parse(BASE.replace("x=\"1\"", "x=\"2\""));
+        ThreeWayMerge.Plan plan = merge(BASE, ours, BASE.replace("x=\"1\"", "x=\"3\""));
+
+        assertEquals(1, plan.getConflicts().size());
+        ThreeWayMerge.Conflict conflict = plan.getConflicts().getFirst();
+        assertEquals(ThreeWayMerge.ConflictKind.ATTRIBUTE, conflict.getKind());
+        assertEquals("x", conflict.getField());
+        assertEquals("1", conflict.getBaseValue());
+        assertEquals("2", conflict.getOursValue());
+        assertEquals("3", conflict.getTheirsValue());
+
+        DomTransaction transaction = new DomTransaction();
+        plan.apply(transaction);
+        assertEquals("2", element(ours, "button").getAttribute("x"), "Ours is kept until the conflict is resolved");
+        plan.takeTheirs(conflict, transaction);
+        assertEquals("3", element(ours, "button").getAttribute("x"));
+        transaction.rollback();
+        assertEquals("2", element(ours, "button").getAttribute("x"));
+    }
+
+    @Test
+    void reportsAnElementChangedInOursAndDeletedInTheirs() throws Exception {
+        Document ours = parse(BASE.replace(">Hello<", ">Hello world<"));
+        ThreeWayMerge.Plan plan = merge(BASE, ours, BASE.replace("<label name=\"title\">Hello</label>", ""));
+
+        assertEquals(1, plan.getConflicts().size());
+        ThreeWayMerge.Conflict conflict = plan.getConflicts().getFirst();
+        assertEquals(ThreeWayMerge.ConflictKind.CHANGED_DELETED, conflict.getKind());
+        assertSame(element(ours, "label"), conflict.getOurs());
+        assertNull(conflict.getTheirs());
+
+        DomTransaction transaction = new DomTransaction();
+        plan.apply(transaction);
+        plan.takeTheirs(conflict, transaction);
+        assertEquals(0, ours.getElementsByTagName("label").getLength());
+    }
+
+    @Test
+    void deletesAnElementUnchangedInOurs() throws Exception {
+        Document ours = parse(BASE);
+        ThreeWayMerge.Plan plan = merge(BASE, ours, BASE.replace("<label name=\"title\">Hello</label>", ""));
+
+        assertTrue(plan.getConflicts().isEmpty(), plan.getConflicts()::toString);
+        plan.apply(new DomTransaction());
+        assertEquals(0, ours.getElementsByTagName("label").getLength());
+    }
+
+    @Test
+    void insertsAnElementAddedByTheirsAfterItsPrecedingSibling() throws Exception {
+        Document ours = parse(BASE.replace("y=\"1\"", "y=\"5\"").replace("</form>", "<image name=\"logo\"/></form>"));
+        ThreeWayMerge.Plan plan = merge(BASE, ours,
+                BASE.replace("<label", "<field name=\"email\"/><label"));
+
+        assertTrue(plan.getConflicts().isEmpty(), plan.getConflicts()::toString);
+        plan.apply(new DomTransaction());
+        assertEquals(List.of("ok", "email", "title", "logo"), childNames(ours.getDocumentElement()));
+    }
+
+    @Test
+    void comparesPayloadsByHashAndCopiesTheirs() throws Exception {
+        String payload = "A".repeat(StructuralDiff.PAYLOAD_LENGTH);
+        String base = "<form><image name=\"logo\">" + payload + "</image><button name=\"ok\" x=\"1\"/></form>";
+        Document ours = parse(base.replace("x=\"1\"", "x=\"2\""));
+        String theirsPayload = "B" + payload.substring(1);
+        ThreeWayMerge.Plan plan = merge(base, ours, base.replace(payload, theirsPayload));
+
+        assertTrue(plan.getConflicts().isEmpty(), plan.getConflicts()::toString);
+        plan.apply(new DomTransaction());
+        assertEquals(theirsPayload, element(ours, "image").getTextContent());
+        assertEquals("2", element(ours, "button").getAttribute("x"));
+
+        // Changed differently on both sides: a payload conflict, described by length and hash
+        Document oursChanged = parse(base.replace(payload, "C" + payload.substring(1)));
+        ThreeWayMerge.Plan conflicting = merge(base, oursChanged, base.replace(payload, theirsPayload));
+        assertEquals(1, conflicting.count(ThreeWayMerge.ConflictKind.PAYLOAD));
+        ThreeWayMerge.Conflict conflict = conflicting.getConflicts().getFirst();
+        assertTrue(conflict.getTheirsValue().startsWith(String.format("%,d chars #", payload.length())), conflict::toString);
+        assertFalse(conflict.getTheirsValue().contains("BAAA"));
+    }
+
+    @Test
+    void plansOnANormalizedCopyAndAppliesToTheOriginal() throws Exception {
+        // The open document: synthetic names and its own indentation; the spacer was changed
+        // the same way as in theirs
+        Document ours = parse("<form>\n<button name=\"ok\" x=\"1\" y=\"1\"/>\n<label name=\"title\">Hello</label><spacer w=\"2\"/></form>");
+        NameAllocator.forDocument(ours).normalize(ours.getDocumentElement());
+        String base = "<form>\n  <button name=\"ok\" x=\"1\" y=\"1\"/>\n  <label name=\"title\">Hello</label>\n  <spacer/>\n</form>";
+        Document baseDocument = parse(base);
+        Document theirs = parse(base.replace(">Hello<", ">Bye<").replace("<spacer/>", "<spacer w=\"2\"/>"));
+
+        DocumentCopy copy = DocumentCopy.of(ours);
+        DocumentCopy.normalizeForComparison(copy.getDocument());
+        DocumentCopy.normalizeForComparison(baseDocument);
+        DocumentCopy.normalizeForComparison(theirs);
+        ThreeWayMerge.Plan plan = new ThreeWayMerge(Set.of()).merge(baseDocument, copy.getDocument(), theirs);
+        assertEquals(2, plan.getSkippedSubtrees(), "The button (unchanged in theirs) and the spacer (same in ours and theirs)");
+        assertTrue(plan.getConflicts().isEmpty(), plan.getConflicts()::toString);
+
+        plan.onOriginal(copy.toOriginal()).apply(new DomTransaction());
+        assertEquals("Bye", element(ours, "label").getTextContent());
+        assertEquals("Hello", element(copy.getDocument(), "label").getTextContent());
+        assertSame(ours, plan.getOurs());
+        assertTrue(NameAllocator.isSynthetic(element(ours, "spacer").getAttribute("name")));
+    }
+
+    private static ThreeWayMerge.Plan merge(String base, Document ours, String theirs) throws Exception {
+        return new ThreeWayMerge(Set.of()).merge(parse(base), ours, parse(theirs));
+    }
+
+    private static Element element(Document document, String type) {
+        return (Element) document.getElementsByTagName(type).item(0);
+    }
+
+    private static List<String> childNames(Element parent) {
+        List<String> names = new ArrayList<>();
+        for (Node child = parent.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child instanceof Element element) names.add(element.getAttribute("name"));
+        }
+        return names;
+    }
+
+    private static Document parse(String xml) throws Exception {
+        return DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(new InputSource(new StringReader(xml)));
+    }
+}
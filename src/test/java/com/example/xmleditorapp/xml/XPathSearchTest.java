@@ -0,0 +1,93 @@
+package com.example.xmleditorapp.xml;
+
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+import org.xml.sax.InputSource;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Searches read a copy taken when they start (or the index, on the calling thread), and their
+ * results are mapped to the nodes of the searched document.
+ */
+class XPathSearchTest {
+
+    private static final String XML = "<form><button name=\"ok\" label=\"OK\">Press</button>"
+            + "<button name=\"cancel\" label=\"Cancel\"/></form>";
+
+    @Test
+    void mapsElementsAttributesAndTextToTheDocument() throws Exception {
+        Document document = parse(XML);
+        Node ok = document.getDocumentElement().getFirstChild();
+
+        assertEquals(List.of(ok, ok.getNextSibling()), search(document, "//button[@label]"));
+        assertEquals(List.of(ok.getAttributes().getNamedItem("label")), search(document, "//button[@name='ok']/@label"));
+        assertEquals(List.of(ok.getFirstChild()), search(document, "//button/text()"));
+    }
+
+    @Test
+    void answersAttributeEqualityFromTheIndex() throws Exception {
+        Document document = parse(XML);
+        Searched searched = start(document, "//button[@name='cancel']");
+
+        XPathSearch.Outcome outcome = searched.done.get(10, TimeUnit.SECONDS);
+        assertTrue(outcome.indexed());
+        assertSame(document.getDocumentElement().getLastChild(), searched.toDocument.apply(searched.nodes.getFirst()));
+    }
+
+    @Test
+    void readsTheDocumentAsItWasWhenTheSearchStarted() throws Exception {
+        Document document = parse(XML);
+        Searched searched = start(document, "count(//button)");
+        // Changed right away, while the search thread may be evaluating
+        document.getDocumentElement().removeChild(document.getDocumentElement().getLastChild());
+
+        XPathSearch.Outcome outcome = searched.done.get(10, TimeUnit.SECONDS);
+        assertFalse(outcome.indexed());
+        assertEquals("2.0", outcome.scalar());
+    }
+
+    private static final class Searched {
+        final List<Node> nodes = new ArrayList<>();
+        final CompletableFuture<XPathSearch.Outcome> done = new CompletableFuture<>();
+        UnaryOperator<Node> toDocument;
+    }
+
+    private static Searched start(Document document, String expression) {
+        Searched searched = new Searched();
+        searched.toDocument = new XPathSearch().search(document, expression,
+                chunk -> {
+                    synchronized (searched) {
+                        searched.nodes.addAll(chunk);
+                    }
+                },
+                searched.done::complete);
+        return searched;
+    }
+
+    private static List<Node> search(Document document, String expression) throws Exception {
+        Searched searched = start(document, expression);
+        XPathSearch.Outcome outcome = searched.done.get(10, TimeUnit.SECONDS);
+        assertNull(outcome.error());
+        synchronized (searched) {
+            return searched.nodes.stream().map(searched.toDocument).toList();
+        }
+    }
+
+    private static Document parse(String xml) throws Exception {
+        return DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(new InputSource(new StringReader(xml)));
+    }
+}
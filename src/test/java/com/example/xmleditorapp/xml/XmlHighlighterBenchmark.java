@@ -0,0 +1,54 @@
+package com.example.xmleditorapp.xml;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Highlighting time of the bundled samples, lexer-based highlighter against the regex
+ * highlighter it replaced. Run with {@code mvn -Pbenchmark test-compile exec:exec}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class XmlHighlighterBenchmark {
+
+    @Param({
+            "esign/samples/Placeholder_Sample1.xml",
+            "esign/samples/DigSig_Sample1.xml",
+            "esign/samples/Static_Sample1.xml",
+            "esign/samples/NextGen_dialog_form_data.xml"
+    })
+    public String sample;
+
+    private String xml;
+
+    @Setup
+    public void load() throws IOException {
+        xml = XmlHighlighterTest.loadSample(sample);
+    }
+
+    @Benchmark
+    public String lexer() {
+        return XmlHighlighter.highlight(xml);
+    }
+
+    @Benchmark
+    public String regex() {
+        return LegacyRegexHighlighter.highlight(xml);
+    }
+}
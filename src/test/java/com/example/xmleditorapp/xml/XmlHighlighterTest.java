@@ -0,0 +1,162 @@
+package com.example.xmleditorapp.xml;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * The lexer-based highlighter must produce the same highlight spans as the regex highlighter
+ * it replaced ({@link LegacyRegexHighlighter}) on well-formed input.
+ * <p>
+ * Both outputs are decoded into one CSS class per source character. The decoded text must
+ * be the source everywhere. The classes must match everywhere except where the old regex is
+ * known to be wrong: after the first attribute of a start tag its "text content" group
+ * swallows the rest of the tag up to the next '&lt;', and it has no rule for CDATA sections.
+ * Those characters are masked using the new lexer's own tokens.
+ */
+class XmlHighlighterTest {
+
+    static final List<String> SAMPLES = List.of(
+            "esign/samples/Placeholder_Sample1.xml",
+            "esign/samples/DigSig_Sample1.xml",
+            "esign/samples/Static_Sample1.xml",
+            "esign/samples/NextGen_dialog_form_data.xml");
+
+    static Stream<String> samples() {
+        return SAMPLES.stream();
+    }
+
+    static String loadSample(String resource) throws IOException {
+        try (InputStream in = XmlHighlighterTest.class.getResourceAsStream(resource)) {
+            assertNotNull(in, resource);
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("samples")
+    void matchesRegexHighlighterOnBundledSamples(String resource) throws IOException {
+        assertSameHighlighting(loadSample(resource));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "<a/>",
+            "<root>text</root>",
+            "<?xml version=\"1.0\"?>\n<root>\n  <child>value &amp; more</child>\n</root>\n",
+            "<!DOCTYPE root>\n<root><!-- a comment --><x>1</x><!-- two\nlines --></root>",
+            "<ns:root><ns:child>&lt;escaped&gt;</ns:child></ns:root>",
+            "<root id=\"1\" name='two'>\n  <item key=\"k\"/>\n  <item>plain</item>\n</root>",
+            "<root><![CDATA[ <not> & markup ]]><x>after</x></root>"
+    })
+    void matchesRegexHighlighterOnSnippets(String xml) {
+        assertSameHighlighting(xml);
+    }
+
+    @Test
+    void classifiesAttributesInsideTags() {
+        String xml = "<item key=\"k\" other='v'/>";
+        String[] classes = decode(XmlHighlighter.highlight(xml), xml);
+        assertEquals("tag", classes[xml.indexOf("item")]);
+        assertEquals("attribute-name", classes[xml.indexOf("key")]);
+        assertEquals("attribute-value", classes[xml.indexOf("=\"k\"")]);
+        assertEquals("attribute-value", classes[xml.indexOf("\"k\"") + 1]);
+        assertEquals("attribute-name", classes[xml.indexOf("other")]);
+        assertEquals("attribute-value", classes[xml.indexOf('v')]);
+        assertEquals("tag", classes[xml.indexOf("/>")]);
+    }
+
+    private static void assertSameHighlighting(String xml) {
+        String[] expected = decode(LegacyRegexHighlighter.highlight(xml), xml);
+        String[] actual = decode(XmlHighlighter.highlight(xml), xml);
+        boolean[] masked = knownRegexDefects(xml);
+        for (int i = 0; i < xml.length(); i++) {
+            if (masked[i]) continue;
+            int offset = i;
+            assertEquals(expected[i], actual[i], () -> "Class differs in " + context(xml, offset));
+        }
+    }
+
+    /**
+     * Marks the attribute section of each start tag (from the first character after the tag
+     * name through the closing '&gt;' or '/&gt;', if anything precedes it) and CDATA sections.
+     */
+    private static boolean[] knownRegexDefects(String xml) {
+        boolean[] masked = new boolean[xml.length()];
+        boolean[] inAttributes = {false};
+        XmlLexer.lex(xml, 0, xml.length(), XmlLexer.State.CONTENT, (type, start, end) -> {
+            boolean mask = switch (type) {
+                case ATTRIBUTE_NAME, ATTRIBUTE_VALUE, PLAIN, CDATA -> {
+                    if (type != XmlLexer.TokenType.CDATA) inAttributes[0] = true;
+                    yield true;
+                }
+                case TAG -> {
+                    // '<name' opens a tag, '>' or '/>' closes it
+                    boolean section = xml.charAt(start) != '<' && inAttributes[0];
+                    inAttributes[0] = false;
+                    yield section;
+                }
+                default -> false;
+            };
+            if (mask) Arrays.fill(masked, start, end, true);
+        });
+        return masked;
+    }
+
+    /**
+     * Decodes highlighter HTML into the CSS class of each source character (null outside any
+     * span), checking that the visible text is exactly the source.
+     */
+    static String[] decode(String html, String source) {
+        int start = html.indexOf("<pre>") + "<pre>".length();
+        int end = html.lastIndexOf("</pre>");
+        StringBuilder text = new StringBuilder(source.length());
+        List<String> classes = new ArrayList<>(source.length());
+        String open = null;
+        for (int i = start; i < end; ) {
+            if (html.startsWith("<span class=\"", i)) {
+                int close = html.indexOf("\">", i);
+                open = html.substring(i + "<span class=\"".length(), close);
+                i = close + 2;
+            } else if (html.startsWith("</span>", i)) {
+                open = null;
+                i += "</span>".length();
+            } else if (html.charAt(i) == '&') {
+                int semicolon = html.indexOf(';', i);
+                text.append(switch (html.substring(i, semicolon + 1)) {
+                    case "&amp;" -> '&';
+                    case "&lt;" -> '<';
+                    case "&gt;" -> '>';
+                    case "&quot;" -> '"';
+                    case "&#39;" -> '\'';
+                    default -> throw new AssertionError("Unexpected entity at " + i);
+                });
+                classes.add(open);
+                i = semicolon + 1;
+            } else {
+                text.append(html.charAt(i++));
+                classes.add(open);
+            }
+        }
+        assertEquals(source, text.toString(), "Visible text differs from the source");
+        return classes.toArray(new String[0]);
+    }
+
+    private static String context(String xml, int index) {
+        int from = Math.max(0, index - 20);
+        int to = Math.min(xml.length(), index + 20);
+        return "offset " + index + ": ..." + xml.substring(from, to).replace("\n", "\\n") + "...";
+    }
+}
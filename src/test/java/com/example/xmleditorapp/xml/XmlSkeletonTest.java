@@ -0,0 +1,56 @@
+package com.example.xmleditorapp.xml;
+
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The skeleton's byte offsets must stay exact after markup whose terminator overlaps a
+ * partial match ("]]]>" closing a CDATA section, the empty comment "<!---->", "??>").
+ */
+class XmlSkeletonTest {
+
+    @TempDir
+    Path directory;
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "<![CDATA[x]]]>",
+            "<![CDATA[]]]]]>",
+            "<!---->",
+            "<!-- - -->",
+            "<?pi data??>",
+            "plain text"
+    })
+    void keepsOffsetsAfterMarkup(String markup) throws IOException {
+        String xml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                + "<root><first>" + markup + "</first>" + markup
+                + "<second name=\"b\"/><third name=\"c\">text</third></root>\n";
+        Path file = directory.resolve("skeleton.xml");
+        Files.writeString(file, xml, StandardCharsets.UTF_8);
+
+        XmlSkeleton skeleton = XmlSkeleton.build(file);
+        assertEquals(4, skeleton.getElementCount());
+
+        int root = skeleton.getRoot();
+        int first = skeleton.getFirstChild(root);
+        int second = skeleton.getNextSibling(first);
+        int third = skeleton.getNextSibling(second);
+        assertEquals("second", skeleton.getName(second));
+        assertEquals("third", skeleton.getName(third));
+        assertEquals("c", skeleton.getNameAttribute(third));
+
+        assertEquals(xml.indexOf("</first>") + "</first>".length(), skeleton.getEndOffset(first));
+        assertEquals(xml.indexOf("<second"), skeleton.getStartOffset(second));
+        assertEquals(xml.indexOf("<third"), skeleton.getStartOffset(third));
+        assertEquals(xml.indexOf("</third>") + "</third>".length(), skeleton.getEndOffset(third));
+        assertEquals(xml.indexOf("</root>") + "</root>".length(), skeleton.getEndOffset(root));
+    }
+}
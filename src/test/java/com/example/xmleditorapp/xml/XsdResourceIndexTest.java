@@ -0,0 +1,93 @@
+package com.example.xmleditorapp.xml;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.xml.validation.Schema;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The bundled XSDs must resolve both from the exploded class directory (IDE, mvn test) and
+ * from a packaged jar, where resources are not plain files.
+ */
+class XsdResourceIndexTest {
+
+    private static final String BUNDLE = "esign/xsd";
+    private static final Path CLASSES = Paths.get("target", "classes");
+
+    @Test
+    void resolvesBundledSchemasFromExplodedClasses() throws Exception {
+        URL index = XsdResourceIndex.class.getResource(XsdResourceIndex.INDEX_RESOURCE);
+        assertNotNull(index, "xsd.index is generated during process-resources");
+        assertEquals("file", index.getProtocol());
+
+        List<String> entries = XsdResourceIndex.getBundleEntries(BUNDLE);
+        assertFalse(entries.isEmpty());
+        for (String entry : entries) {
+            assertNotNull(XsdResourceIndex.class.getResource(entry), entry);
+        }
+
+        Schema schema = SchemaPool.getInstance().getSchema(BUNDLE);
+        assertNotNull(schema);
+        assertTrue(SchemaPool.getInstance().isCompiled(BUNDLE));
+        assertEquals(entries, SchemaPool.getInstance().getBundleResources(BUNDLE));
+    }
+
+    @Test
+    void resolvesBundledSchemasFromPackagedJar(@TempDir Path directory) throws Exception {
+        Path jar = directory.resolve("xmleditor.jar");
+        writeJar(CLASSES, jar);
+
+        // Isolated from target/classes: the classes and resources can only come from the jar (the
+        // platform loader would still delegate this module's packages to the application loader)
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{jar.toUri().toURL()}, null)) {
+            Class<?> indexClass = loader.loadClass(XsdResourceIndex.class.getName());
+            URL index = indexClass.getResource(XsdResourceIndex.INDEX_RESOURCE);
+            assertNotNull(index);
+            assertEquals("jar", index.getProtocol());
+
+            @SuppressWarnings("unchecked")
+            List<String> entries = (List<String>) indexClass.getMethod("getBundleEntries", String.class).invoke(null, BUNDLE);
+            assertEquals(XsdResourceIndex.getBundleEntries(BUNDLE), entries);
+            for (String entry : entries) {
+                URL url = indexClass.getResource(entry);
+                assertNotNull(url, entry);
+                assertEquals("jar", url.getProtocol());
+            }
+
+            Class<?> poolClass = loader.loadClass(SchemaPool.class.getName());
+            Object pool = poolClass.getMethod("getInstance").invoke(null);
+            Method getSchema = poolClass.getMethod("getSchema", String.class);
+            assertNotNull(getSchema.invoke(pool, BUNDLE));
+            assertTrue((Boolean) poolClass.getMethod("isCompiled", String.class).invoke(pool, BUNDLE));
+        }
+    }
+
+    private static void writeJar(Path root, Path jar) throws IOException {
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar));
+             Stream<Path> files = Files.walk(root)) {
+            for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile).sorted()::iterator) {
+                String name = root.relativize(file).toString().replace('\\', '/');
+                if (name.equals("module-info.class")) continue; // Loaded as a plain classpath jar
+                out.putNextEntry(new JarEntry(name));
+                Files.copy(file, out);
+                out.closeEntry();
+            }
+        }
+    }
+}